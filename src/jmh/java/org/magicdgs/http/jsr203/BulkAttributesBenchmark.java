@@ -0,0 +1,108 @@
+package org.magicdgs.http.jsr203;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the throughput of bulk HEAD requests with increasing concurrency, running on
+ * platform or virtual threads (virtual threads require running the benchmark with Java 21 or
+ * later; otherwise, platform threads are used).
+ *
+ * <p>The requests go to a local server that responds after a fixed latency, to simulate a remote
+ * host. The score is the number of HEAD requests per second.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkAttributesBenchmark {
+
+    private static final int NUMBER_OF_PATHS = 512;
+    private static final long LATENCY_MILLIS = 5;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private HttpFileSystemSettings.ThreadMode threadMode;
+
+    @Param({"1", "8", "64", "256"})
+    private int maxConcurrentRequests;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpFileSystem fs;
+    private final List<Path> paths = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Length", "1024");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.THREAD_MODE_KEY, threadMode);
+        env.put(HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, maxConcurrentRequests);
+        fs = new HttpFileSystemProvider().newFileSystem(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort()), env);
+        for (int i = 0; i < NUMBER_OF_PATHS; i++) {
+            paths.add(fs.getPath("/data/file_" + i + ".bin"));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        fs.getAttributeCache().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        fs.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_PATHS)
+    public Map<Path, BasicFileAttributes> readAttributes() throws IOException {
+        return fs.readAttributes(paths);
+    }
+}
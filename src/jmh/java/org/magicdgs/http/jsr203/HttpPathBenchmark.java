@@ -0,0 +1,53 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the derived forms of an {@link HttpPath}, used as key in maps and for requests.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpPathBenchmark {
+
+    private HttpPath path;
+
+    @Setup
+    public void setup() {
+        final HttpFileSystem fs =
+                new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        path = new HttpPath(fs, "/data/dir1/dir2/sample.bam", "format=bam", "chr1");
+    }
+
+    @Benchmark
+    public int hashCodePath() {
+        return path.hashCode();
+    }
+
+    @Benchmark
+    public String toStringPath() {
+        return path.toString();
+    }
+
+    @Benchmark
+    public URI toUriPath() {
+        return path.toUri();
+    }
+}
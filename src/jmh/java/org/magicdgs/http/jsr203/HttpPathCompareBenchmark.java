@@ -0,0 +1,78 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the comparison of {@link HttpPath} instances, used in sorted and hash collections.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpPathCompareBenchmark {
+
+    private static final String DIRECTORY = "/data/project/sequencing/run_2018/lane_1/samples";
+
+    private HttpPath path;
+    // equal to path, but a different instance
+    private HttpPath equalPath;
+    // same prefix, different file name
+    private HttpPath siblingPath;
+    // different length
+    private HttpPath parentPath;
+
+    @Setup
+    public void setup() {
+        final HttpFileSystem fs =
+                new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        path = new HttpPath(fs, DIRECTORY + "/sample_1.bam", "format=bam", null);
+        equalPath = new HttpPath(fs, DIRECTORY + "/sample_1.bam", "format=bam", null);
+        siblingPath = new HttpPath(fs, DIRECTORY + "/sample_2.bam", "format=bam", null);
+        parentPath = new HttpPath(fs, DIRECTORY, null, null);
+        // paths in hash collections have the hash code cached
+        path.hashCode();
+        equalPath.hashCode();
+        siblingPath.hashCode();
+        parentPath.hashCode();
+    }
+
+    @Benchmark
+    public int compareToEqual() {
+        return path.compareTo(equalPath);
+    }
+
+    @Benchmark
+    public int compareToSibling() {
+        return path.compareTo(siblingPath);
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return path.equals(equalPath);
+    }
+
+    @Benchmark
+    public boolean equalsSibling() {
+        return path.equals(siblingPath);
+    }
+
+    @Benchmark
+    public boolean equalsParent() {
+        return path.equals(parentPath);
+    }
+}
@@ -0,0 +1,117 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Benchmark for the heap used by {@link HttpPath} instances.
+ *
+ * <p>The {@code bytesPerPath} secondary result is the retained heap per path (including its
+ * reference in an array), excluding the shared {@link HttpFileSystem}. Paths are created as when
+ * parsing URLs: each one with its own query and reference Strings, but repeated across paths.
+ *
+ * <p>The {@code BASELINE} layout is a copy of the fields of {@link HttpPath} before caching its
+ * hash code, to report the footprint before and after side by side.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 1)
+// single iteration, because the auxiliary counters are summed across iterations
+@Measurement(iterations = 1, time = 1)
+@Fork(1)
+public class HttpPathFootprintBenchmark {
+
+    @Param({"10000"})
+    public int numberOfPaths;
+
+    // derived forms computed before measuring: none, hashCode and toString, or also toUri
+    // (which is not retained)
+    @Param({"NONE", "HASH_AND_STRING", "ALL"})
+    public DerivedForms derivedForms;
+
+    public enum DerivedForms { NONE, HASH_AND_STRING, ALL }
+
+    // current HttpPath or the baseline layout
+    @Param({"CURRENT", "BASELINE"})
+    public Layout layout;
+
+    public enum Layout { CURRENT, BASELINE }
+
+    private HttpFileSystem fs;
+    private long fsSize;
+
+    /** Retained heap per path, reported as a secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerPath;
+    }
+
+    @Setup
+    public void setup() {
+        fs = new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        fsSize = GraphLayout.parseInstance(fs).totalSize();
+    }
+
+    /**
+     * Fields of {@link HttpPath} before caching derived forms, which were computed on each call
+     * (so they do not change the footprint).
+     */
+    private static final class BaselinePath {
+        private final HttpFileSystem fs;
+        private final byte[] normalizedPath;
+        private final int offset;
+        private final int length;
+        private volatile int[] offsets;
+        private final String query;
+        private final String reference;
+
+        private BaselinePath(final HttpFileSystem fs, final String path, final String query,
+                final String reference) {
+            this.fs = fs;
+            this.normalizedPath = path.getBytes(HttpUtils.HTTP_PATH_CHARSET);
+            this.offset = 0;
+            this.length = normalizedPath.length;
+            this.query = query;
+            this.reference = reference;
+        }
+    }
+
+    @Benchmark
+    public Object[] createPaths(final Footprint footprint) {
+        final Object[] paths = new Object[numberOfPaths];
+        for (int i = 0; i < numberOfPaths; i++) {
+            final String path = "/data/dir" + (i % 100) + "/file" + i + ".bam";
+            final String query = "format=bam&part=" + (i % 10);
+            final String reference = "chr" + (i % 20);
+            if (layout == Layout.BASELINE) {
+                paths[i] = new BaselinePath(fs, path, query, reference);
+                continue;
+            }
+            final HttpPath current = new HttpPath(fs, path, query, reference);
+            if (derivedForms != DerivedForms.NONE) {
+                current.hashCode();
+                current.toString();
+            }
+            if (derivedForms == DerivedForms.ALL) {
+                current.toUri();
+            }
+            paths[i] = current;
+        }
+        footprint.bytesPerPath =
+                (GraphLayout.parseInstance((Object) paths).totalSize() - fsSize) / numberOfPaths;
+        return paths;
+    }
+}
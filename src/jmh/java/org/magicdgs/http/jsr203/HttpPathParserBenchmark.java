@@ -0,0 +1,55 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for parsing a String into an {@link HttpPath}, comparing the single-pass parser with
+ * the route through {@link URI}.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpPathParserBenchmark {
+
+    @Param({"/data/dir1/dir2/sample.bam",
+            "/data/dir1/dir2/sample.bam?format=bam#chr1",
+            "/data//dir%201/dir2/sample.bam"})
+    private String input;
+
+    private HttpFileSystem fs;
+
+    @Setup
+    public void setup() {
+        fs = new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+    }
+
+    @Benchmark
+    public HttpPath parser() {
+        return HttpPathParser.parse(fs, input);
+    }
+
+    @Benchmark
+    public HttpPath uri() throws URISyntaxException {
+        final URI uri = new URI(input);
+        return new HttpPath(fs, uri.getPath(), uri.getQuery(), uri.getFragment());
+    }
+}
@@ -0,0 +1,74 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the path operations combining two paths (e.g., index files next to the data).
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpPathResolveBenchmark {
+
+    private HttpPath base;
+    private HttpPath relative;
+    private HttpPath other;
+    private HttpPath withDots;
+
+    @Setup
+    public void setup() {
+        final HttpFileSystem fs =
+                new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        base = fs.getPath("/data/dir1/dir2/sample.bam");
+        relative = (HttpPath) fs.getPath("/sample.bam.bai").getFileName();
+        other = fs.getPath("/data/dir1/index/sample.bam.bai");
+        withDots = fs.getPath("/data/dir1/./dir2/../index/sample.bam.bai");
+    }
+
+    @Benchmark
+    public Path resolvePath() {
+        return base.resolve(relative);
+    }
+
+    @Benchmark
+    public Path resolveString() {
+        return base.resolve("sample.bam.bai");
+    }
+
+    @Benchmark
+    public Path resolveSiblingPath() {
+        return base.resolveSibling(relative);
+    }
+
+    @Benchmark
+    public Path relativize() {
+        return base.relativize(other);
+    }
+
+    @Benchmark
+    public Path normalizeUnchanged() {
+        return base.normalize();
+    }
+
+    @Benchmark
+    public Path normalizeDots() {
+        return withDots.normalize();
+    }
+}
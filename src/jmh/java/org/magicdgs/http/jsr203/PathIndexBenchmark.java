@@ -0,0 +1,69 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for looking up the known paths under a prefix, compared with a linear scan.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    private int numberOfPaths;
+
+    private final List<HttpPath> paths = new ArrayList<>();
+    private PathIndex index;
+    private HttpPath prefix;
+
+    @Setup
+    public void setup() {
+        final HttpFileSystem fs =
+                new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        index = new PathIndex(fs, numberOfPaths);
+        for (int i = 0; i < numberOfPaths; i++) {
+            final HttpPath path = fs.getPath(String.format("/data/run_%d/lane_%d/sample_%d.bam",
+                    i % 100, i % 10, i));
+            paths.add(path);
+            index.register(path);
+        }
+        // 1% of the paths
+        prefix = fs.getPath("/data/run_42");
+    }
+
+    @Benchmark
+    public List<HttpPath> subtree() {
+        return index.getSubtree(prefix);
+    }
+
+    @Benchmark
+    public List<HttpPath> linearScan() {
+        final List<HttpPath> result = new ArrayList<>();
+        for (final HttpPath path : paths) {
+            if (path.startsWith(prefix)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package org.magicdgs.http.jsr203;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.PathMatcher;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark for filtering a listing of paths with a pattern.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathMatcherBenchmark {
+
+    private static final int NUMBER_OF_PATHS = 1000;
+
+    private HttpPath[] paths;
+    private PathMatcher glob;
+    private PathMatcher regex;
+    // previous approach: regular expression over the String representation
+    private Pattern toStringRegex;
+
+    @Setup
+    public void setup() {
+        final HttpFileSystem fs =
+                new HttpFileSystem(new HttpsFileSystemProvider(), "example.com");
+        paths = new HttpPath[NUMBER_OF_PATHS];
+        for (int i = 0; i < NUMBER_OF_PATHS; i++) {
+            paths[i] = fs.getPath(String.format("/data/run_%d/lane_%d/sample_%d.%s",
+                    i % 7, i % 3, i, (i % 2 == 0) ? "bam" : "bam.bai"));
+        }
+        glob = fs.getPathMatcher("glob:/data/run_*/**/*.{bam,cram}");
+        regex = fs.getPathMatcher("regex:/data/run_[^/]*/.*/[^/]*\\.(bam|cram)");
+        toStringRegex = Pattern.compile("https://example\\.com/data/run_[^/]*/.*/[^/]*\\.(bam|cram)");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_PATHS)
+    public int glob() {
+        int count = 0;
+        for (final HttpPath path : paths) {
+            if (glob.matches(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_PATHS)
+    public int regex() {
+        int count = 0;
+        for (final HttpPath path : paths) {
+            if (regex.matches(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_PATHS)
+    public int toStringRegex() {
+        int count = 0;
+        for (final HttpPath path : paths) {
+            // copy the String: paths from a fresh listing do not have it cached
+            if (toStringRegex.matcher(new StringBuilder(path.toString())).matches()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,19 @@
+package org.magicdgs.http.jsr203;
+
+/**
+ * Resource opened in a {@link HttpFileSystem} that holds a connection, aborted when the File
+ * System is closed.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ * @see HttpFileSystem#registerResource(Abortable)
+ */
+interface Abortable {
+
+    /**
+     * Aborts the resource when the File System is closed.
+     *
+     * <p>The connection is disconnected without waiting for concurrent operations, which fail.
+     * This method is called from the closing thread, so it should not block.
+     */
+    void abort();
+}
@@ -0,0 +1,91 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of the attributes of the paths of a {@link HttpFileSystem}, to avoid repeated
+ * HEAD requests.
+ *
+ * <p>Attributes expire a fixed time after they were requested, so changes in the server (e.g.,
+ * removed resources) are detected again. When the cache is full, the least recently used entry
+ * is evicted. All operations are thread-safe.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class AttributeCache {
+
+    private final LruCache<HttpPath, HttpFileAttributes> attributes;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity  maximum number of paths to keep; {@code 0} disables the cache.
+     * @param ttlMillis time (in milliseconds) to keep the attributes; {@code 0} disables the
+     *                  cache.
+     */
+    AttributeCache(final int capacity, final long ttlMillis) {
+        this(capacity, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a new cache with the provided source of time.
+     *
+     * @param capacity  maximum number of paths to keep; {@code 0} disables the cache.
+     * @param ttlMillis time (in milliseconds) to keep the attributes; {@code 0} disables the
+     *                  cache.
+     * @param ticker    source of the current time in nanoseconds.
+     */
+    AttributeCache(final int capacity, final long ttlMillis, final LongSupplier ticker) {
+        this.attributes = new LruCache<>(capacity, ttlMillis, TimeUnit.MILLISECONDS, ticker);
+    }
+
+    /**
+     * Gets the cached attributes of a path, if they did not expire.
+     *
+     * @param path the path.
+     *
+     * @return the attributes; {@code null} if not cached.
+     */
+    HttpFileAttributes get(final HttpPath path) {
+        return attributes.get(path);
+    }
+
+    /**
+     * Caches the attributes of a path.
+     *
+     * @param path       the path.
+     * @param attributes the attributes.
+     */
+    void put(final HttpPath path, final HttpFileAttributes attributes) {
+        this.attributes.put(path, attributes);
+    }
+
+    /**
+     * Removes the cached attributes of the paths matching a filter.
+     *
+     * @param filter the filter for the paths to remove.
+     *
+     * @return the number of removed paths.
+     */
+    int invalidate(final Predicate<HttpPath> filter) {
+        return attributes.removeIf(filter);
+    }
+
+    /**
+     * Removes all the cached attributes.
+     */
+    void clear() {
+        attributes.clear();
+    }
+
+    /**
+     * Gets the number of cached paths.
+     *
+     * @return number of paths in the cache.
+     */
+    int size() {
+        return attributes.size();
+    }
+}
@@ -0,0 +1,183 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory cache of blocks of remote resources.
+ *
+ * <p>Implementations decide which blocks are admitted and evicted (see
+ * {@link HttpFileSystemSettings.BlockCachePolicy}). Hits, misses and evictions are recorded in the
+ * {@link HttpFileSystemStatistics} provided on construction. All operations are thread-safe.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+abstract class BlockCache {
+
+    private final int capacity;
+    private final HttpFileSystemStatistics statistics;
+
+    /**
+     * Constructor for subclasses.
+     *
+     * @param capacity   maximum number of blocks to keep; {@code 0} disables the cache.
+     * @param statistics non {@code null} statistics to record the cache activity.
+     */
+    protected BlockCache(final int capacity, final HttpFileSystemStatistics statistics) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.statistics = Utils.nonNull(statistics, () -> "null statistics");
+    }
+
+    /**
+     * Creates a new cache with the provided policy.
+     *
+     * @param capacity   maximum number of blocks to keep; {@code 0} disables the cache.
+     * @param policy     non {@code null} policy for admission and eviction.
+     * @param statistics non {@code null} statistics to record the cache activity.
+     *
+     * @return a new cache.
+     */
+    static BlockCache create(final int capacity,
+            final HttpFileSystemSettings.BlockCachePolicy policy,
+            final HttpFileSystemStatistics statistics) {
+        switch (Utils.nonNull(policy, () -> "null policy")) {
+            case LRU:
+                return new LruBlockCache(capacity, statistics);
+            case TINY_LFU:
+                return new TinyLfuBlockCache(capacity, statistics);
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * Gets the maximum number of blocks in the cache.
+     *
+     * @return the capacity of the cache.
+     */
+    final int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets a block from the cache.
+     *
+     * @param key the block key.
+     *
+     * @return the cached block; {@code null} if not present.
+     */
+    final synchronized byte[] get(final BlockKey key) {
+        if (capacity == 0) {
+            return null;
+        }
+        final byte[] block = lookup(key);
+        if (block == null) {
+            statistics.incrementBlockCacheMisses();
+        } else {
+            statistics.incrementBlockCacheHits();
+        }
+        return block;
+    }
+
+    /**
+     * Gets a block from the cache without recording the access in the statistics or in the
+     * admission policy.
+     *
+     * @param key the block key.
+     *
+     * @return the cached block; {@code null} if not present.
+     */
+    final synchronized byte[] peek(final BlockKey key) {
+        return (capacity == 0) ? null : find(key);
+    }
+
+    /**
+     * Offers a block to the cache, which might be rejected by the policy.
+     *
+     * @param key   the block key.
+     * @param block the block content.
+     */
+    final synchronized void put(final BlockKey key, final byte[] block) {
+        if (capacity != 0) {
+            store(key, block);
+        }
+    }
+
+    /**
+     * Removes all the blocks from the cache, without recording them as evictions.
+     */
+    final synchronized void clear() {
+        removeAll();
+    }
+
+    /**
+     * Removes the blocks whose key matches a filter, without recording them as evictions.
+     *
+     * @param filter the filter for the keys to remove.
+     *
+     * @return the number of removed blocks.
+     */
+    final synchronized int removeIf(final Predicate<BlockKey> filter) {
+        return removeMatching(filter);
+    }
+
+    /**
+     * Gets the number of blocks in the cache.
+     *
+     * @return number of cached blocks.
+     */
+    abstract int size();
+
+    /**
+     * Records that a block was evicted; called by the implementations.
+     */
+    protected final void evicted() {
+        statistics.incrementBlockCacheEvictions();
+    }
+
+    /**
+     * Looks for a block, updating the policy with the access. Only called while holding the
+     * lock on this cache.
+     *
+     * @param key the block key.
+     *
+     * @return the cached block; {@code null} if not present.
+     */
+    protected abstract byte[] lookup(final BlockKey key);
+
+    /**
+     * Looks for a block without updating the admission policy. Only called while holding the lock on this
+     * cache.
+     *
+     * @param key the block key.
+     *
+     * @return the cached block; {@code null} if not present.
+     */
+    protected abstract byte[] find(final BlockKey key);
+
+    /**
+     * Stores a block if the policy admits it, evicting others if required. Only called while
+     * holding the lock on this cache.
+     *
+     * @param key   the block key.
+     * @param block the block content.
+     */
+    protected abstract void store(final BlockKey key, final byte[] block);
+
+    /**
+     * Removes all the blocks. Only called while holding the lock on this cache.
+     */
+    protected abstract void removeAll();
+
+    /**
+     * Removes the blocks whose key matches a filter. Only called while holding the lock on this
+     * cache.
+     *
+     * @param filter the filter for the keys to remove.
+     *
+     * @return the number of removed blocks.
+     */
+    protected abstract int removeMatching(final Predicate<BlockKey> filter);
+}
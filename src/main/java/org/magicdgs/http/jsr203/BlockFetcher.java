@@ -0,0 +1,339 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Fetches fixed-size blocks of resources for a {@link HttpFileSystem}.
+ *
+ * <p>Concurrent requests for the same block of a resource are coalesced: only the first one
+ * issues the range request and the rest wait for its result. Fetched blocks are kept in the
+ * {@link BlockCache} of the File System, if enabled, and consecutive missing blocks are fetched
+ * with a single range request.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class BlockFetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockFetcher.class);
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    // empty block for ranges after the end of the resource
+    private static final byte[] EMPTY_BLOCK = new byte[0];
+
+    private final HttpFileSystem fs;
+    private final BlockCache cache;
+    // fetches currently in progress
+    private final ConcurrentMap<BlockKey, CompletableFuture<byte[]>> inFlight =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new fetcher for the File System.
+     *
+     * @param fs the File System for settings, statistics and range requests.
+     */
+    BlockFetcher(final HttpFileSystem fs) {
+        this.fs = Utils.nonNull(fs, () -> "null fs");
+        this.cache = BlockCache.create(fs.getSettings().getBlockCacheCapacity(),
+                fs.getSettings().getBlockCachePolicy(), fs.getStatistics());
+    }
+
+    /**
+     * Gets a block of a resource.
+     *
+     * <p>The returned array should not be modified, because it might be shared.
+     *
+     * @param url       the URL of the resource.
+     * @param validator validator for {@code If-Range}; {@code null} if not available.
+     * @param index     the index of the block.
+     *
+     * @return the content of the block; shorter than the block size for the last block and
+     * empty if the block is after the end of the resource.
+     *
+     * @throws IOException if an I/O error occurs or the resource changed.
+     */
+    byte[] get(final URL url, final String validator, final long index) throws IOException {
+        final BlockKey key = new BlockKey(url.toString(), validator, index);
+        final CompletableFuture<byte[]> claim = new CompletableFuture<>();
+        final CompletableFuture<byte[]> known = lookup(key, claim);
+        if (known != null) {
+            return await(url, known);
+        }
+        fetch(url, validator, index, Collections.singletonList(key),
+                Collections.singletonList(claim));
+        return claim.getNow(null);
+    }
+
+    /**
+     * Reads a range of a resource into the buffers (in order).
+     *
+     * <p>If the cache is disabled, the range is requested with a single bounded request.
+     * Otherwise, the blocks of the range are looked up in the cache, waiting for the in-flight
+     * fetches of other callers, and each run of consecutive missing blocks is requested with a
+     * single bounded request.
+     *
+     * @param url       the URL of the resource.
+     * @param validator validator for {@code If-Range}; {@code null} if not available.
+     * @param position  the position of the first byte to read.
+     * @param dsts      the buffers into which bytes are to be transferred, with at least one byte
+     *                  remaining.
+     *
+     * @return the number of bytes read; {@code -1} if the position is greater than or equal to
+     * the size of the resource.
+     *
+     * @throws IOException if an I/O error occurs or the resource changed.
+     */
+    long read(final URL url, final String validator, final long position,
+            final ByteBuffer[] dsts) throws IOException {
+        long length = 0;
+        for (final ByteBuffer dst : dsts) {
+            length += dst.remaining();
+        }
+        if (cache.getCapacity() == 0) {
+            return readRange(url, validator, position, position + length - 1, dsts);
+        }
+
+        final int blockSize = fs.getSettings().getBlockSize();
+        final long first = position / blockSize;
+        final long last = (position + length - 1) / blockSize;
+        long current = position;
+        for (final CompletableFuture<byte[]> future : getBlocks(url, validator, first, last)) {
+            final byte[] block = await(url, future);
+            final int offset = (int) (current % blockSize);
+            if (offset >= block.length) {
+                // end of the resource
+                break;
+            }
+            current += transfer(block, offset, dsts);
+        }
+        return (current == position) ? -1 : current - position;
+    }
+
+    // gets the blocks in the range, fetching the runs of missing blocks with a single request
+    private List<CompletableFuture<byte[]>> getBlocks(final URL url, final String validator,
+            final long first, final long last) throws IOException {
+        final List<CompletableFuture<byte[]>> blocks = new ArrayList<>((int) (last - first + 1));
+        long index = first;
+        while (index <= last) {
+            final BlockKey key = new BlockKey(url.toString(), validator, index);
+            final CompletableFuture<byte[]> claim = new CompletableFuture<>();
+            final CompletableFuture<byte[]> known = lookup(key, claim);
+            index++;
+            if (known != null) {
+                blocks.add(known);
+                continue;
+            }
+            // extend the run with the following missing blocks
+            final long runStart = index - 1;
+            final List<BlockKey> keys = new ArrayList<>();
+            final List<CompletableFuture<byte[]>> claims = new ArrayList<>();
+            keys.add(key);
+            claims.add(claim);
+            CompletableFuture<byte[]> next = null;
+            while (index <= last && next == null) {
+                final BlockKey nextKey = new BlockKey(url.toString(), validator, index);
+                final CompletableFuture<byte[]> nextClaim = new CompletableFuture<>();
+                next = lookup(nextKey, nextClaim);
+                index++;
+                if (next == null) {
+                    keys.add(nextKey);
+                    claims.add(nextClaim);
+                }
+            }
+            fetch(url, validator, runStart, keys, claims);
+            blocks.addAll(claims);
+            if (next != null) {
+                blocks.add(next);
+            }
+        }
+        return blocks;
+    }
+
+    // looks up the block in the cache and in the in-flight fetches; null if the caller claimed
+    // the fetch of the block (registering the provided future as in-flight)
+    private CompletableFuture<byte[]> lookup(final BlockKey key,
+            final CompletableFuture<byte[]> claim) {
+        final byte[] cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        final CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, claim);
+        if (existing != null) {
+            fs.getStatistics().incrementCoalescedBlockFetches();
+            LOGGER.debug("Waiting for in-flight fetch of block {}", key);
+            return existing;
+        }
+        // a fetch completed between the cache miss and the claim is not repeated
+        final byte[] fetched = cache.peek(key);
+        if (fetched != null) {
+            claim.complete(fetched);
+            inFlight.remove(key, claim);
+            return claim;
+        }
+        return null;
+    }
+
+    // waits for a block
+    private static byte[] await(final URL url, final CompletableFuture<byte[]> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            throw RangeRequester.interrupted(url);
+        } catch (final ExecutionException e) {
+            throw RangeRequester.unwrap(e);
+        }
+    }
+
+    // fetches the claimed run of consecutive blocks, completing them
+    private void fetch(final URL url, final String validator, final long first,
+            final List<BlockKey> keys, final List<CompletableFuture<byte[]>> claims)
+            throws IOException {
+        try {
+            final byte[][] blocks = fetch(url, validator, first, keys.size());
+            for (int i = 0; i < blocks.length; i++) {
+                // blocks fetched after closing the File System are not retained
+                if (fs.isOpen()) {
+                    cache.put(keys.get(i), blocks[i]);
+                }
+                claims.get(i).complete(blocks[i]);
+            }
+        } catch (final IOException | RuntimeException e) {
+            claims.forEach(c -> c.completeExceptionally(e));
+            throw e;
+        } finally {
+            for (int i = 0; i < keys.size(); i++) {
+                inFlight.remove(keys.get(i), claims.get(i));
+            }
+        }
+    }
+
+    /**
+     * Releases the cached blocks and fails the requests waiting for in-flight fetches.
+     */
+    void close() {
+        cache.clear();
+        final IOException closed = new IOException("File System closed");
+        inFlight.values().forEach(f -> f.completeExceptionally(closed));
+    }
+
+    /**
+     * Gets the cache used by this fetcher.
+     *
+     * @return the block cache.
+     */
+    BlockCache getCache() {
+        return cache;
+    }
+
+    // fetches consecutive blocks from the network with a single request
+    private byte[][] fetch(final URL url, final String validator, final long first,
+            final int count) throws IOException {
+        final int blockSize = fs.getSettings().getBlockSize();
+        final long start = first * blockSize;
+        final long end = start + (long) blockSize * count - 1;
+        final byte[][] blocks = new byte[count][];
+        final HttpURLConnection connection = open(url, validator, start, end);
+        if (connection == null) {
+            Arrays.fill(blocks, EMPTY_BLOCK);
+            return blocks;
+        }
+        // closing the body allows to re-use the connection
+        try (final InputStream body = connection.getInputStream()) {
+            final byte[] buffer = new byte[Math.min(blockSize, 8192)];
+            for (int i = 0; i < count; i++) {
+                final ByteArrayOutputStream os = new ByteArrayOutputStream(blockSize);
+                int n;
+                while (os.size() < blockSize && (n = body.read(buffer, 0,
+                        Math.min(buffer.length, blockSize - os.size()))) != -1) {
+                    os.write(buffer, 0, n);
+                }
+                blocks[i] = (os.size() == 0) ? EMPTY_BLOCK : os.toByteArray();
+            }
+            return blocks;
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    // reads the range from the network into the buffers with a single request
+    private long readRange(final URL url, final String validator, final long start,
+            final long end, final ByteBuffer[] dsts) throws IOException {
+        final HttpURLConnection connection = open(url, validator, start, end);
+        if (connection == null) {
+            return -1;
+        }
+        long read = 0;
+        try (final ReadableByteChannel body = Channels.newChannel(connection.getInputStream())) {
+            for (final ByteBuffer dst : dsts) {
+                while (dst.hasRemaining()) {
+                    final int n = body.read(dst);
+                    if (n == -1) {
+                        return (read == 0) ? -1 : read;
+                    }
+                    read += n;
+                }
+            }
+            return read;
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    // opens a bounded range request; null if the range is after the end of the resource
+    private HttpURLConnection open(final URL url, final String validator, final long start,
+            final long end) throws IOException {
+        fs.getStatistics().incrementBlockFetches();
+        final HttpURLConnection connection =
+                fs.getRangeRequester().open(url, start, end, validator);
+        final int code;
+        try {
+            code = connection.getResponseCode();
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        if (code == HTTP_RANGE_NOT_SATISFIABLE) {
+            connection.disconnect();
+            return null;
+        }
+        if (code != HttpURLConnection.HTTP_PARTIAL) {
+            connection.disconnect();
+            throw new IOException(String.format(
+                    "Cannot read %s (bytes=%s-%s): resource changed or range unsupported (%s %s)",
+                    url, start, end, code, connection.getResponseMessage()));
+        }
+        return connection;
+    }
+
+    // copies the block from the offset into the buffers, returning the number of bytes copied
+    private static int transfer(final byte[] block, final int offset, final ByteBuffer[] dsts) {
+        int copied = 0;
+        for (final ByteBuffer dst : dsts) {
+            final int n = Math.min(dst.remaining(), block.length - offset - copied);
+            dst.put(block, offset + copied, n);
+            copied += n;
+        }
+        return copied;
+    }
+}
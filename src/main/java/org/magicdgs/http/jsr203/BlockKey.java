@@ -0,0 +1,76 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.Objects;
+
+/**
+ * Identifier for a block of a remote resource.
+ *
+ * <p>The validator of the resource is part of the key, so blocks from different versions of the
+ * same resource are never mixed.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class BlockKey {
+
+    // the URL is kept as a String to avoid name resolution on equals/hashCode
+    private final String url;
+    private final String validator;
+    private final long index;
+    private final int hash;
+
+    /**
+     * Creates a new key.
+     *
+     * @param url       non {@code null} URL of the resource.
+     * @param validator validator of the resource; {@code null} if not available.
+     * @param index     index of the block.
+     */
+    BlockKey(final String url, final String validator, final long index) {
+        this.url = Utils.nonNull(url, () -> "null url");
+        this.validator = validator;
+        this.index = index;
+        this.hash = 31 * (31 * url.hashCode() + Objects.hashCode(validator))
+                + Long.hashCode(index);
+    }
+
+    /**
+     * Gets the URL of the resource.
+     *
+     * @return the URL as a String.
+     */
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the index of the block.
+     *
+     * @return the block index.
+     */
+    long getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof BlockKey)) {
+            return false;
+        }
+        final BlockKey key = (BlockKey) other;
+        return hash == key.hash && index == key.index && url.equals(key.url)
+                && Objects.equals(validator, key.validator);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return url + "#" + index;
+    }
+}
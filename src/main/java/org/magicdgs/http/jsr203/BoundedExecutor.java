@@ -0,0 +1,118 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that runs at most a fixed number of tasks at the same time on a delegate executor
+ * without a bound (e.g., a thread per task), guarded by a {@link Semaphore}.
+ *
+ * <p>Every submitted task starts in the delegate at once and waits there for a permit. Tasks
+ * still waiting when the executor is shut down with {@link #shutdownNow()} do not run, and are
+ * returned to the caller.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class BoundedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    // tasks submitted to the delegate that did not start yet
+    private final Set<Pending> waiting = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new bounded executor.
+     *
+     * @param delegate           executor to run the tasks.
+     * @param maxConcurrentTasks maximum number of tasks to run at the same time.
+     */
+    BoundedExecutor(final ExecutorService delegate, final int maxConcurrentTasks) {
+        if (maxConcurrentTasks <= 0) {
+            throw new IllegalArgumentException(
+                    "Non-positive maximum concurrent tasks: " + maxConcurrentTasks);
+        }
+        this.delegate = Utils.nonNull(delegate, () -> "null delegate");
+        this.permits = new Semaphore(maxConcurrentTasks);
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        final Pending pending = new Pending(Utils.nonNull(task, () -> "null task"));
+        waiting.add(pending);
+        try {
+            delegate.execute(pending);
+        } catch (final RejectedExecutionException e) {
+            waiting.remove(pending);
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        delegate.shutdownNow();
+        final List<Runnable> tasks = new ArrayList<>();
+        for (final Pending pending : waiting) {
+            // removed here to do not run it afterwards
+            if (waiting.remove(pending)) {
+                tasks.add(pending.task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    // task waiting for a permit to run
+    private final class Pending implements Runnable {
+        private final Runnable task;
+
+        private Pending(final Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                permits.acquire();
+            } catch (final InterruptedException e) {
+                // interrupted by shutdownNow, which returns the task
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                if (waiting.remove(this)) {
+                    task.run();
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
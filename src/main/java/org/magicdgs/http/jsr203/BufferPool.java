@@ -0,0 +1,86 @@
+package org.magicdgs.http.jsr203;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of heap {@link ByteBuffer} of the same size, to re-use them for streaming.
+ *
+ * <p>Buffers are allocated if the pool is empty, and dropped when released to a full pool. All
+ * operations are thread-safe.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class BufferPool {
+
+    private final int bufferSize;
+    private final Queue<ByteBuffer> buffers;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param bufferSize size of the buffers.
+     * @param capacity   maximum number of released buffers kept for re-use.
+     */
+    BufferPool(final int bufferSize, final int capacity) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Non-positive buffer size: " + bufferSize);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Non-positive capacity: " + capacity);
+        }
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Gets the size of the buffers of this pool.
+     *
+     * @return buffer size.
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Acquires a cleared buffer from the pool, or allocates a new one if it is empty.
+     *
+     * @return the buffer.
+     */
+    ByteBuffer acquire() {
+        final ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller should not use it anymore.
+     *
+     * @param buffer the buffer acquired from this pool.
+     */
+    void release(final ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize && buffer.hasArray()) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of buffers available for re-use.
+     *
+     * @return number of pooled buffers.
+     */
+    int size() {
+        return buffers.size();
+    }
+
+    /**
+     * Drops all the pooled buffers.
+     */
+    void clear() {
+        buffers.clear();
+    }
+}
@@ -0,0 +1,63 @@
+package org.magicdgs.http.jsr203;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * Bulk operations over byte arrays.
+ *
+ * <p>On Java 9+ the search is delegated to {@code Arrays.mismatch}, which is intrinsified by the
+ * JIT to compare several bytes at once; on Java 8 it falls back to a simple loop.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class ByteArrays {
+
+    // Arrays.mismatch(byte[], int, int, byte[], int, int) if available (Java 9+); null otherwise
+    private static final MethodHandle MISMATCH = findMismatch();
+
+    // utility class - cannot be instantiated
+    private ByteArrays() {}
+
+    /**
+     * Finds the first index where both ranges of the same length differ.
+     *
+     * @param a      first array.
+     * @param aFrom  first index of the range in the first array.
+     * @param b      second array.
+     * @param bFrom  first index of the range in the second array.
+     * @param length number of bytes to compare.
+     *
+     * @return the relative index of the first mismatch; {@code -1} if the ranges are equal.
+     */
+    static int mismatch(final byte[] a, final int aFrom, final byte[] b, final int bFrom,
+            final int length) {
+        if (MISMATCH != null) {
+            try {
+                return (int) MISMATCH.invokeExact(a, aFrom, aFrom + length, b, bFrom, bFrom + length);
+            } catch (final Throwable e) {
+                throw new Utils.ShouldNotHappenException(e);
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[aFrom + i] != b[bFrom + i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // looks up the Java 9+ method, which is not available in the Java 8 API
+    private static MethodHandle findMismatch() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Arrays.class, "mismatch",
+                    MethodType.methodType(int.class,
+                            byte[].class, int.class, int.class,
+                            byte[].class, int.class, int.class));
+        } catch (final NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.magicdgs.http.jsr203;
+
+/**
+ * Count-Min sketch to estimate the access frequency of items with a small memory footprint.
+ *
+ * <p>Counters saturate at {@value #MAX_COUNT}. After a number of increments proportional to the
+ * expected number of items, all counters are halved, so the estimates favour recent activity.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class FrequencySketch {
+
+    // maximum value for a counter
+    private static final int MAX_COUNT = 15;
+    // number of increments per expected item before halving the counters
+    private static final int SAMPLE_FACTOR = 10;
+    // seeds for the hash of each row
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final long sampleSize;
+    private long additions = 0;
+
+    /**
+     * Creates a new sketch.
+     *
+     * @param expectedItems expected number of distinct items to track (e.g., cache capacity).
+     */
+    FrequencySketch(final int expectedItems) {
+        if (expectedItems < 0) {
+            throw new IllegalArgumentException("Negative expected items: " + expectedItems);
+        }
+        // next power of two of the expected items (at least 16)
+        final int items = Math.max(16, Math.min(expectedItems, 1 << 30));
+        final int width = Integer.highestOneBit(items * 2 - 1);
+        this.counters = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = (long) SAMPLE_FACTOR * Math.max(16, expectedItems);
+    }
+
+    /**
+     * Increments the frequency of an item.
+     *
+     * @param hash the hash code of the item.
+     */
+    void increment(final int hash) {
+        for (int row = 0; row < counters.length; row++) {
+            final int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimates the frequency of an item.
+     *
+     * @param hash the hash code of the item.
+     *
+     * @return the estimated frequency, up to {@value #MAX_COUNT}.
+     */
+    int frequency(final int hash) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < counters.length; row++) {
+            frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    // halves all the counters to age the frequencies
+    private void reset() {
+        for (final byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    // index of the counter for the item in the row
+    private int indexOf(final int hash, final int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+}
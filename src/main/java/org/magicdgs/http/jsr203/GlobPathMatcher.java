@@ -0,0 +1,396 @@
+package org.magicdgs.http.jsr203;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * {@link PathMatcher} for the {@code glob} syntax, as described in
+ * {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+ *
+ * <p>The pattern is compiled once into a deterministic automaton over the UTF-8 bytes of the
+ * path component, which runs directly over the bytes of the {@link HttpPath} without allocating.
+ * The path is matched without the trailing separator, and the root is represented by a single
+ * separator.
+ *
+ * <p>Ranges in bracket expressions are only supported for ASCII characters.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class GlobPathMatcher implements PathMatcher {
+
+    // limit for the number of states of the automaton
+    private static final int MAX_STATES = 10_000;
+    // number of possible values of a byte
+    private static final int ALPHABET = 256;
+
+    // transitions for each state and byte (state * 256 + byte); -1 if the path cannot match
+    private final int[] transitions;
+    // accepting states
+    private final boolean[] accept;
+
+    private GlobPathMatcher(final int[] transitions, final boolean[] accept) {
+        this.transitions = transitions;
+        this.accept = accept;
+    }
+
+    /**
+     * Compiles the glob pattern.
+     *
+     * @param glob the pattern.
+     *
+     * @return the matcher.
+     *
+     * @throws PatternSyntaxException if the pattern is invalid.
+     */
+    static GlobPathMatcher compile(final String glob) {
+        final Nfa nfa = new Nfa(glob);
+        final int end = nfa.parseSequence(0, false);
+        if (nfa.index != glob.length()) {
+            // only a '}' closing a group stops the sequence
+            throw new PatternSyntaxException("Unexpected '}'", glob, nfa.index);
+        }
+        return nfa.toDfa(end);
+    }
+
+    @Override
+    public boolean matches(final Path path) {
+        return path instanceof HttpPath && ((HttpPath) path).matches(this);
+    }
+
+    /**
+     * Runs the automaton over the bytes.
+     *
+     * @param bytes  the array containing the path component.
+     * @param offset the first byte of the path component.
+     * @param length the number of bytes of the path component.
+     *
+     * @return {@code true} if the path matches; {@code false} otherwise.
+     */
+    boolean matches(final byte[] bytes, final int offset, final int length) {
+        int state = 0;
+        for (int i = offset; i < offset + length; i++) {
+            state = transitions[state * ALPHABET + (bytes[i] & 0xff)];
+            if (state == -1) {
+                return false;
+            }
+        }
+        return accept[state];
+    }
+
+    /**
+     * Non-deterministic automaton built while parsing the glob (Thompson construction).
+     *
+     * <p>Each state has byte transitions (a set of bytes and a target) and epsilon transitions.
+     */
+    private static final class Nfa {
+
+        private final String glob;
+        // current index while parsing
+        private int index = 0;
+
+        private final List<List<BitSet>> byteSets = new ArrayList<>();
+        private final List<List<Integer>> byteTargets = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+
+        private Nfa(final String glob) {
+            this.glob = glob;
+            newState();
+        }
+
+        private int newState() {
+            byteSets.add(new ArrayList<>());
+            byteTargets.add(new ArrayList<>());
+            epsilons.add(new ArrayList<>());
+            return epsilons.size() - 1;
+        }
+
+        private void addBytes(final int from, final BitSet bytes, final int to) {
+            byteSets.get(from).add(bytes);
+            byteTargets.get(from).add(to);
+        }
+
+        private void addEpsilon(final int from, final int to) {
+            epsilons.get(from).add(to);
+        }
+
+        // parses until the end (or the end of the group alternative), returning the last state
+        private int parseSequence(final int start, final boolean inGroup) {
+            int current = start;
+            while (index < glob.length()) {
+                final char c = glob.charAt(index);
+                switch (c) {
+                    case '*':
+                        final boolean crossDirectories = index + 1 < glob.length()
+                                && glob.charAt(index + 1) == '*';
+                        index += crossDirectories ? 2 : 1;
+                        final int loop = newState();
+                        addEpsilon(current, loop);
+                        addChar(loop, loop, asciiExcept(crossDirectories ? -1 : '/'), true);
+                        current = loop;
+                        break;
+                    case '?':
+                        index++;
+                        final int next = newState();
+                        addChar(current, next, asciiExcept('/'), true);
+                        current = next;
+                        break;
+                    case '[':
+                        current = parseBracket(current);
+                        break;
+                    case '{':
+                        if (inGroup) {
+                            throw new PatternSyntaxException("Cannot nest groups", glob, index);
+                        }
+                        current = parseGroup(current);
+                        break;
+                    case ',':
+                    case '}':
+                        if (inGroup) {
+                            return current;
+                        }
+                        current = addLiteral(current, c);
+                        index++;
+                        break;
+                    case '\\':
+                        if (++index == glob.length()) {
+                            throw new PatternSyntaxException("No character to escape", glob,
+                                    index - 1);
+                        }
+                        current = addLiteral(current, glob.charAt(index));
+                        index++;
+                        break;
+                    default:
+                        current = addLiteral(current, c);
+                        index++;
+                }
+            }
+            if (inGroup) {
+                throw new PatternSyntaxException("Missing '}'", glob, index - 1);
+            }
+            return current;
+        }
+
+        // parses a group starting at '{'
+        private int parseGroup(final int start) {
+            final int end = newState();
+            do {
+                // skip the '{' or ','
+                index++;
+                final int alternative = newState();
+                addEpsilon(start, alternative);
+                addEpsilon(parseSequence(alternative, true), end);
+            } while (glob.charAt(index) == ',');
+            // skip the '}'
+            index++;
+            return end;
+        }
+
+        // parses a bracket expression starting at '['
+        private int parseBracket(final int start) {
+            final int begin = index++;
+            final BitSet ascii = new BitSet(ALPHABET);
+            final List<String> nonAscii = new ArrayList<>();
+            final boolean negate = index < glob.length() && glob.charAt(index) == '!';
+            if (negate) {
+                index++;
+            }
+            while (index < glob.length() && glob.charAt(index) != ']') {
+                final int codePoint = glob.codePointAt(index);
+                index += Character.charCount(codePoint);
+                if (codePoint == '/') {
+                    throw new PatternSyntaxException("Explicit 'name separator' in class", glob,
+                            index - 1);
+                }
+                if (index + 1 < glob.length() && glob.charAt(index) == '-'
+                        && glob.charAt(index + 1) != ']') {
+                    final int last = glob.codePointAt(index + 1);
+                    index += 1 + Character.charCount(last);
+                    if (last < codePoint) {
+                        throw new PatternSyntaxException("Invalid range", glob, index - 1);
+                    }
+                    if (last >= 0x80) {
+                        throw new PatternSyntaxException("Non-ASCII ranges are not supported",
+                                glob, index - 1);
+                    }
+                    ascii.set(codePoint, last + 1);
+                } else if (codePoint < 0x80) {
+                    ascii.set(codePoint);
+                } else {
+                    nonAscii.add(new String(Character.toChars(codePoint)));
+                }
+            }
+            if (index == glob.length()) {
+                throw new PatternSyntaxException("Missing ']'", glob, begin);
+            }
+            // skip the ']'
+            index++;
+            // the separator never matches
+            ascii.clear('/');
+
+            final int end = newState();
+            if (negate) {
+                if (!nonAscii.isEmpty()) {
+                    throw new PatternSyntaxException(
+                            "Non-ASCII characters are not supported in negated classes",
+                            glob, begin);
+                }
+                final BitSet complement = asciiExcept('/');
+                complement.andNot(ascii);
+                addChar(start, end, complement, true);
+            } else {
+                addChar(start, end, ascii, false);
+                for (final String c : nonAscii) {
+                    addEpsilon(addBytes(start, c), end);
+                }
+            }
+            return end;
+        }
+
+        // adds the UTF-8 bytes of the character, returning the last state
+        private int addLiteral(final int start, final char c) {
+            if (c < 0x80) {
+                final int next = newState();
+                addBytes(start, singleByte(c), next);
+                return next;
+            }
+            // surrogate pairs are encoded together (the caller skips the last char)
+            if (Character.isHighSurrogate(c) && index + 1 < glob.length()
+                    && Character.isLowSurrogate(glob.charAt(index + 1))) {
+                final String pair = glob.substring(index, index + 2);
+                index++;
+                return addBytes(start, pair);
+            }
+            return addBytes(start, String.valueOf(c));
+        }
+
+        // adds a chain of states for the UTF-8 bytes of the String, returning the last state
+        private int addBytes(final int start, final String s) {
+            int current = start;
+            for (final byte b : s.getBytes(StandardCharsets.UTF_8)) {
+                final int next = newState();
+                addBytes(current, singleByte(b & 0xff), next);
+                current = next;
+            }
+            return current;
+        }
+
+        // adds a transition for a single character (ASCII set and, optionally, any non-ASCII)
+        private void addChar(final int from, final int to, final BitSet ascii,
+                final boolean anyNonAscii) {
+            addBytes(from, ascii, to);
+            if (anyNonAscii) {
+                // lead bytes followed by 1, 2 or 3 continuation bytes
+                final BitSet continuation = range(0x80, 0xC0);
+                final int one = newState();
+                final int two = newState();
+                final int three = newState();
+                addBytes(from, range(0xC0, 0xE0), one);
+                addBytes(from, range(0xE0, 0xF0), two);
+                addBytes(from, range(0xF0, 0xF8), three);
+                addBytes(three, continuation, two);
+                addBytes(two, continuation, one);
+                addBytes(one, continuation, to);
+            }
+        }
+
+        // subset construction
+        private GlobPathMatcher toDfa(final int acceptState) {
+            final Map<BitSet, Integer> ids = new HashMap<>();
+            final List<BitSet> states = new ArrayList<>();
+            final BitSet start = new BitSet();
+            start.set(0);
+            final BitSet initial = closure(start);
+            ids.put(initial, 0);
+            states.add(initial);
+
+            int[] transitions = new int[16 * ALPHABET];
+            for (int id = 0; id < states.size(); id++) {
+                if (states.size() > MAX_STATES) {
+                    throw new PatternSyntaxException("Glob pattern is too complex", glob, -1);
+                }
+                if ((id + 1) * ALPHABET > transitions.length) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                }
+                final BitSet current = states.get(id);
+                for (int b = 0; b < ALPHABET; b++) {
+                    final BitSet next = new BitSet();
+                    for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                        final List<BitSet> sets = byteSets.get(s);
+                        for (int t = 0; t < sets.size(); t++) {
+                            if (sets.get(t).get(b)) {
+                                next.set(byteTargets.get(s).get(t));
+                            }
+                        }
+                    }
+                    if (next.isEmpty()) {
+                        transitions[id * ALPHABET + b] = -1;
+                    } else {
+                        final BitSet closed = closure(next);
+                        Integer nextId = ids.get(closed);
+                        if (nextId == null) {
+                            nextId = states.size();
+                            ids.put(closed, nextId);
+                            states.add(closed);
+                        }
+                        transitions[id * ALPHABET + b] = nextId;
+                    }
+                }
+            }
+
+            final boolean[] accept = new boolean[states.size()];
+            for (int id = 0; id < accept.length; id++) {
+                accept[id] = states.get(id).get(acceptState);
+            }
+            return new GlobPathMatcher(Arrays.copyOf(transitions, states.size() * ALPHABET),
+                    accept);
+        }
+
+        // epsilon closure of the states
+        private BitSet closure(final BitSet states) {
+            final BitSet closed = (BitSet) states.clone();
+            final int[] stack = new int[epsilons.size()];
+            int size = 0;
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                stack[size++] = s;
+            }
+            while (size > 0) {
+                for (final int next : epsilons.get(stack[--size])) {
+                    if (!closed.get(next)) {
+                        closed.set(next);
+                        stack[size++] = next;
+                    }
+                }
+            }
+            return closed;
+        }
+    }
+
+    private static BitSet singleByte(final int b) {
+        final BitSet set = new BitSet(ALPHABET);
+        set.set(b);
+        return set;
+    }
+
+    private static BitSet range(final int from, final int to) {
+        final BitSet set = new BitSet(ALPHABET);
+        set.set(from, to);
+        return set;
+    }
+
+    // ASCII characters except the provided one (-1 for all of them)
+    private static BitSet asciiExcept(final int excluded) {
+        final BitSet set = range(0, 0x80);
+        if (excluded != -1) {
+            set.clear(excluded);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,270 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental parser for the links ({@code <a href="...">}) of an HTML document, such as the
+ * autoindex listings of nginx or Apache.
+ *
+ * <p>The document is read from the stream while the links are requested, keeping in memory only
+ * a buffer of the stream and the current attribute value. Comments and other tags are skipped,
+ * and character references in the value of the {@code href} attribute are decoded.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HtmlLinkParser {
+
+    // size of the buffer for reading the stream
+    private static final int BUFFER_SIZE = 8192;
+    // no character pushed back
+    private static final int NONE = -2;
+
+    private final InputStream in;
+    // character pushed back after reading an attribute name
+    private int pushedBack = NONE;
+    // value of the current attribute (re-used between attributes)
+    private final ByteArrayOutputStream value = new ByteArrayOutputStream();
+
+    /**
+     * Creates a new parser.
+     *
+     * @param in the stream with the HTML document (buffered by the parser).
+     */
+    HtmlLinkParser(final InputStream in) {
+        this.in = new BufferedInputStream(Utils.nonNull(in, () -> "null stream"), BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the document until the next link.
+     *
+     * @return the decoded value of the {@code href} attribute; {@code null} if the end of the
+     * document is reached.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    String next() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '<') {
+                final String href = parseTag();
+                if (href != null) {
+                    return href;
+                }
+            }
+        }
+        return null;
+    }
+
+    // parses a tag after '<', returning the link if it is an anchor with href
+    private String parseTag() throws IOException {
+        final int first = read();
+        if (first == '!') {
+            final int second = read();
+            if (second == '-') {
+                final int third = read();
+                if (third == '-') {
+                    skipComment();
+                    return null;
+                }
+                pushedBack = third;
+            } else {
+                pushedBack = second;
+            }
+            // other markup declarations (e.g., DOCTYPE)
+            skipTag();
+            return null;
+        }
+        if (first == 'a' || first == 'A') {
+            final int next = read();
+            if (isWhitespace(next)) {
+                return parseAnchorAttributes();
+            }
+            if (next != '>' && next != -1) {
+                // other tag starting with 'a'
+                pushedBack = next;
+                skipTag();
+            }
+            return null;
+        }
+        if (first != '>' && first != -1) {
+            pushedBack = first;
+            skipTag();
+        }
+        return null;
+    }
+
+    // parses the attributes of an anchor until '>', returning the first href
+    private String parseAnchorAttributes() throws IOException {
+        String href = null;
+        while (true) {
+            int c = skipWhitespace();
+            if (c == -1 || c == '>') {
+                return href;
+            }
+            if (c == '/') {
+                continue;
+            }
+            final boolean isHref = readAttributeName(c);
+            c = skipWhitespace();
+            if (c == '=') {
+                readAttributeValue(skipWhitespace());
+                if (isHref && href == null) {
+                    href = decodeCharacterReferences(
+                            new String(value.toByteArray(), StandardCharsets.UTF_8));
+                }
+            } else {
+                // attribute without value: the character belongs to the next one
+                pushedBack = c;
+            }
+        }
+    }
+
+    // reads an attribute name starting with c, returning true if it is "href"
+    private boolean readAttributeName(final int first) throws IOException {
+        final String href = "href";
+        boolean matches = true;
+        int length = 0;
+        int c = first;
+        while (c != -1 && !isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+            matches &= length < href.length()
+                    && Character.toLowerCase((char) c) == href.charAt(length);
+            length++;
+            c = read();
+        }
+        pushedBack = c;
+        return matches && length == href.length();
+    }
+
+    // reads a quoted or unquoted value starting with c into the value buffer
+    private void readAttributeValue(final int first) throws IOException {
+        value.reset();
+        if (first == '"' || first == '\'') {
+            int c;
+            while ((c = read()) != -1 && c != first) {
+                value.write(c);
+            }
+        } else {
+            int c = first;
+            while (c != -1 && !isWhitespace(c) && c != '>') {
+                value.write(c);
+                c = read();
+            }
+            pushedBack = c;
+        }
+    }
+
+    // skips until the end of the tag, ignoring '>' inside quoted values
+    private void skipTag() throws IOException {
+        int quote = -1;
+        int c;
+        while ((c = read()) != -1) {
+            if (quote != -1) {
+                if (c == quote) {
+                    quote = -1;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return;
+            }
+        }
+    }
+
+    // skips until the end of the comment ("-->")
+    private void skipComment() throws IOException {
+        int dashes = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '>' && dashes >= 2) {
+                return;
+            }
+            dashes = (c == '-') ? dashes + 1 : 0;
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            final int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return in.read();
+    }
+
+    private static boolean isWhitespace(final int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Decodes the character references of an attribute value (numeric references and the
+     * {@code amp}, {@code lt}, {@code gt}, {@code quot} and {@code apos} entities). Unknown or
+     * malformed references are kept as they are.
+     *
+     * @param value the attribute value.
+     *
+     * @return the decoded value.
+     */
+    static String decodeCharacterReferences(final String value) {
+        int amp = value.indexOf('&');
+        if (amp == -1) {
+            return value;
+        }
+        final StringBuilder sb = new StringBuilder(value.length());
+        int last = 0;
+        while (amp != -1) {
+            final int semicolon = value.indexOf(';', amp + 1);
+            final String decoded = (semicolon == -1) ? null
+                    : decodeReference(value.substring(amp + 1, semicolon));
+            if (decoded == null) {
+                sb.append(value, last, amp + 1);
+                last = amp + 1;
+            } else {
+                sb.append(value, last, amp).append(decoded);
+                last = semicolon + 1;
+            }
+            amp = value.indexOf('&', last);
+        }
+        return sb.append(value, last, value.length()).toString();
+    }
+
+    // decodes the reference between '&' and ';', or returns null if it is unknown
+    private static String decodeReference(final String reference) {
+        switch (reference) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+                if (reference.length() < 2 || reference.charAt(0) != '#') {
+                    return null;
+                }
+                final boolean hex = reference.charAt(1) == 'x' || reference.charAt(1) == 'X';
+                try {
+                    final int codePoint = Integer.parseInt(reference.substring(hex ? 2 : 1),
+                            hex ? 16 : 10);
+                    return Character.isValidCodePoint(codePoint)
+                            ? new String(Character.toChars(codePoint)) : null;
+                } catch (final NumberFormatException e) {
+                    return null;
+                }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.magicdgs.http.jsr203;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.channels.SeekableByteChannel;
@@ -16,6 +17,7 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.ProviderMismatchException;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
@@ -35,7 +37,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
 
-    // map of authorities and FileSystem - using a concurrent implementation for being tread-safe
+    // map of canonical authorities and FileSystem - using a concurrent implementation for being
+    // tread-safe (see HttpUtils.getCanonicalAuthority)
     private final Map<String, HttpFileSystem> fileSystems = new ConcurrentHashMap<>();
 
     /**
@@ -64,19 +67,23 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
     @Override
     public final HttpFileSystem newFileSystem(final URI uri, final Map<String, ?> env)
             throws IOException {
-        checkUri(uri);
-
-        if (fileSystems.containsKey(uri.getAuthority())) {
+        final String authority = canonicalAuthority(checkUri(uri));
+        if (fileSystems.containsKey(authority)) {
             throw new FileSystemAlreadyExistsException("URI: " + uri);
         }
 
-        return fileSystems.computeIfAbsent(uri.getAuthority(),
-                (auth) -> new HttpFileSystem(this, auth));
+        final HttpFileSystemSettings settings = new HttpFileSystemSettings(env);
+        final HttpFileSystem fs = new HttpFileSystem(this, authority, settings);
+        // putIfAbsent to fail if other thread created it after the check
+        if (fileSystems.putIfAbsent(authority, fs) != null) {
+            throw new FileSystemAlreadyExistsException("URI: " + uri);
+        }
+        return fs;
     }
 
     @Override
     public final HttpFileSystem getFileSystem(final URI uri) {
-        final HttpFileSystem fs = fileSystems.get(checkUri(uri).getAuthority());
+        final HttpFileSystem fs = getRegisteredFileSystem(checkUri(uri));
         if (fs == null) {
             throw new FileSystemNotFoundException("URI: " + uri);
         }
@@ -85,10 +92,47 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
 
     @Override
     public final HttpPath getPath(final URI uri) {
-        checkUri(uri);
-        return fileSystems
-                .computeIfAbsent(uri.getAuthority(), (auth) -> new HttpFileSystem(this, auth))
-                .getPath(uri);
+        return getOrCreateFileSystem(checkUri(uri)).getPath(uri);
+    }
+
+    /**
+     * Gets the registered File System for an already checked URI, creating and registering it
+     * with the default settings if needed.
+     *
+     * @param uri the URI with the authority of the File System.
+     *
+     * @return the File System for the authority of the URI.
+     */
+    final HttpFileSystem getOrCreateFileSystem(final URI uri) {
+        final HttpFileSystem fs = getRegisteredFileSystem(uri);
+        if (fs != null) {
+            return fs;
+        }
+        return fileSystems.computeIfAbsent(canonicalAuthority(uri),
+                (auth) -> new HttpFileSystem(this, auth));
+    }
+
+    /**
+     * Removes a closed File System from the registry, if it is still registered.
+     *
+     * @param fs the closed File System.
+     */
+    final void removeFileSystem(final HttpFileSystem fs) {
+        // compared by identity, because an equal File System might be registered
+        fileSystems.computeIfPresent(fs.getCanonicalAuthority(),
+                (auth, registered) -> (registered == fs) ? null : registered);
+    }
+
+    // gets the FileSystem for an already checked URI, or null if it is not registered
+    private HttpFileSystem getRegisteredFileSystem(final URI uri) {
+        // lock-free lookup of the authority as it is, which is already canonical in most cases
+        final HttpFileSystem fs = fileSystems.get(uri.getAuthority());
+        return (fs != null) ? fs : fileSystems.get(canonicalAuthority(uri));
+    }
+
+    // gets the key of the registry for an already checked URI
+    private String canonicalAuthority(final URI uri) {
+        return HttpUtils.getCanonicalAuthority(getScheme(), uri.getAuthority());
     }
 
     @Override
@@ -103,23 +147,82 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
                 (options.size() == 1 && options.contains(StandardOpenOption.READ))) {
             // convert Path to URI and check it to see if there is a mismatch with the provider
             // afterwards, convert to an URL
-            final URL url = checkUri(path.toUri()).toURL();
+            final URI uri = checkUri(path.toUri());
+            final URL url = uri.toURL();
+            final HttpFileSystem fs = getFileSystem(path, uri);
             // throw if the URL does not exists
             if (!HttpUtils.exists(url)) {
                 throw new NoSuchFileException(url.toString());
             }
-            // return a URL SeekableByteChannel
-            return new URLSeekableByteChannel(url);
+            // return a URL SeekableByteChannel bound to the File System of the path
+            fs.getPathIndex().register(toHttpPath(path, fs, uri));
+            return new URLSeekableByteChannel(url, fs);
         }
         throw new UnsupportedOperationException(
                 String.format("Only %s is supported for %s, but %s options(s) are provided",
                         StandardOpenOption.READ, this, options));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The stream reads the body of a single {@code GET} request, without checking the
+     * resource with a {@code HEAD} request. Unlike the stream over
+     * {@link #newByteChannel(Path, Set, FileAttribute[])}, it is not thread-safe and it does not
+     * support resuming interrupted transfers.
+     */
+    @Override
+    public final InputStream newInputStream(final Path path, final OpenOption... options)
+            throws IOException {
+        Utils.nonNull(path, () -> "null path");
+        Utils.nonNull(options, () -> "null options");
+        for (final OpenOption option : options) {
+            if (option != StandardOpenOption.READ) {
+                throw new UnsupportedOperationException(
+                        String.format("Only %s is supported for %s, but %s option is provided",
+                                StandardOpenOption.READ, this, option));
+            }
+        }
+        final URI uri = checkUri(path.toUri());
+        final HttpFileSystem fs = getFileSystem(path, uri);
+        final InputStream stream = HttpInputStream.open(uri.toURL(), fs);
+        fs.getPathIndex().register(toHttpPath(path, fs, uri));
+        return stream;
+    }
+
+    // gets the open File System of the path, or the registered one for other Path implementations
+    private HttpFileSystem getFileSystem(final Path path, final URI uri) {
+        if (path instanceof HttpPath) {
+            final HttpFileSystem fs = ((HttpPath) path).getFileSystem();
+            fs.checkOpen();
+            return fs;
+        }
+        return getOrCreateFileSystem(uri);
+    }
+
+    // gets the path as a HttpPath of the File System
+    private static HttpPath toHttpPath(final Path path, final HttpFileSystem fs, final URI uri) {
+        return (path instanceof HttpPath) ? (HttpPath) path : fs.getPath(uri);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote the entries are parsed from the HTML listing of the directory (e.g., nginx or
+     * Apache autoindex) while it is downloaded, unless the File System has a manifest (see
+     * {@link HttpFileSystemSettings#MANIFEST_PATH_KEY}).
+     */
     @Override
     public final DirectoryStream<Path> newDirectoryStream(final Path dir,
             final DirectoryStream.Filter<? super Path> filter) throws IOException {
-        throw new UnsupportedOperationException("Not implemented");
+        Utils.nonNull(dir, () -> "null dir");
+        Utils.nonNull(filter, () -> "null filter");
+        final URI uri = checkUri(dir.toUri());
+        final HttpFileSystem fs = getFileSystem(dir, uri);
+        final HttpPath httpDir = toHttpPath(dir, fs, uri);
+        final Manifest manifest = fs.getManifest();
+        return (manifest == null) ? HttpDirectoryStream.open(httpDir, filter)
+                : manifest.newDirectoryStream(httpDir, filter);
     }
 
     /** Unsupported method. */
@@ -137,10 +240,33 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
                 " is read-only: cannot delete directory");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only copies from a HTTP/S resource to a file in another File System are supported
+     * (e.g., a local file). The resource is split into ranges, which are downloaded concurrently
+     * and written in place; if the copy is interrupted, a new copy to the same target resumes
+     * from the completed ranges.
+     *
+     * <p>Note that {@link java.nio.file.Files#copy(Path, Path, CopyOption...)} calls this method
+     * only for targets of the same provider, so it should be called directly (e.g.,
+     * {@code source.getFileSystem().provider().copy(source, target)}).
+     *
+     * @throws UnsupportedOperationException if the target is a HTTP/S path, or an option is not
+     *                                       supported ({@link StandardCopyOption#ATOMIC_MOVE}).
+     */
     @Override
     public final void copy(final Path source, final Path target, CopyOption... options)
             throws IOException {
-        throw new UnsupportedOperationException("Not implemented");
+        Utils.nonNull(source, () -> "null source");
+        Utils.nonNull(target, () -> "null target");
+        if (target instanceof HttpPath) {
+            throw new UnsupportedOperationException(this.getClass().getName() +
+                    " is read-only: cannot copy to " + target);
+        }
+        final URI uri = checkUri(source.toUri());
+        final HttpFileSystem fs = getFileSystem(source, uri);
+        ParallelDownload.download(toHttpPath(source, fs, uri), target, options);
     }
 
     /** Unsupported method. */
@@ -171,9 +297,13 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
         Utils.nonNull(path, () -> "null path");
         // get the URI (use also for exception messages)
         final URI uri = checkUri(path.toUri());
-        if (!HttpUtils.exists(uri.toURL())) {
+        final HttpFileSystem fs = getFileSystem(path, uri);
+        final HttpPath httpPath = toHttpPath(path, fs, uri);
+        // paths in the manifest or with fresh cached attributes exist, without requesting them
+        if (fs.getKnownAttributes(httpPath) == null && !HttpUtils.exists(uri.toURL())) {
             throw new NoSuchFileException(uri.toString());
         }
+        fs.getPathIndex().register(httpPath);
         for (AccessMode access : modes) {
             switch (access) {
                 case READ:
@@ -193,10 +323,23 @@ abstract class HttpAbstractFileSystemProvider extends FileSystemProvider {
         throw new UnsupportedOperationException("Not implemented");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote only {@link BasicFileAttributes} are supported. They are cached by the File System
+     * and taken from its manifest if available; otherwise, they are requested with HEAD.
+     */
     @Override
     public final <A extends BasicFileAttributes> A readAttributes(final Path path,
             final Class<A> type, final LinkOption... options) throws IOException {
-        throw new UnsupportedOperationException("Not implemented");
+        Utils.nonNull(path, () -> "null path");
+        Utils.nonNull(type, () -> "null type");
+        if (!type.isAssignableFrom(HttpFileAttributes.class)) {
+            throw new UnsupportedOperationException("Unsupported attributes: " + type);
+        }
+        final URI uri = checkUri(path.toUri());
+        final HttpFileSystem fs = getFileSystem(path, uri);
+        return type.cast(fs.getAttributes(toHttpPath(path, fs, uri)));
     }
 
     @Override
@@ -0,0 +1,424 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of the content of a HTTP/S resource (or a range of it) as chunks of bytes, honouring
+ * the demand of the subscribers.
+ *
+ * <p>The protocol follows the
+ * <a href="https://www.reactive-streams.org/">Reactive Streams</a> specification (also
+ * {@code java.util.concurrent.Flow} in Java 9 or later), with {@link Subscriber} and
+ * {@link Subscription} mirroring their methods. As this library does not depend on those APIs,
+ * {@link #toPublisher(Class)} adapts the publisher to their {@code Publisher} interface.
+ *
+ * <p>Each subscription requests the content with its own connection, opened on the first
+ * request of chunks. The content is read in the background only while there is outstanding
+ * demand; otherwise, the connection is left unread, so the transport pauses the transfer.
+ * Cancelling the subscription aborts the connection. Closing the File System also aborts it,
+ * and the subscription fails.
+ *
+ * <p>The chunks are pooled buffers of {@link HttpFileSystemSettings#getBlockSize()} bytes, and
+ * each buffer is re-used after {@link Subscriber#onNext(ByteBuffer)} returns: subscribers
+ * should consume or copy the chunk before returning.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public final class HttpContentPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpContentPublisher.class);
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final HttpPath path;
+    private final long position;
+    private final long size;
+
+    /**
+     * Receiver of the chunks of a {@link HttpContentPublisher}, with the methods of
+     * {@code org.reactivestreams.Subscriber<ByteBuffer>}.
+     */
+    public interface Subscriber {
+
+        /**
+         * Called once before any other signal.
+         *
+         * @param subscription the subscription to request chunks or cancel.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next chunk, at most as many times as requested.
+         *
+         * @param chunk the bytes between the position and the limit of the buffer, only valid
+         *              until this method returns.
+         */
+        void onNext(ByteBuffer chunk);
+
+        /**
+         * Called once if the transfer fails. No further signals are sent.
+         *
+         * @param throwable the error.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called once when all the bytes were published. No further signals are sent.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a {@link HttpContentPublisher} and a {@link Subscriber}, with the methods of
+     * {@code org.reactivestreams.Subscription}.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds demand for chunks.
+         *
+         * @param n number of chunks; non-positive values fail the subscription with
+         *          {@link IllegalArgumentException}.
+         */
+        void request(long n);
+
+        /**
+         * Stops the publication of chunks, aborting the connection.
+         */
+        void cancel();
+    }
+
+    /**
+     * Creates a publisher for a range of a resource.
+     *
+     * @param path     the resource.
+     * @param position first byte to publish.
+     * @param size     number of bytes to publish; {@code -1} until the end of the resource.
+     */
+    HttpContentPublisher(final HttpPath path, final long position, final long size) {
+        this.path = Utils.nonNull(path, () -> "null path");
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        if (size < -1) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        this.position = position;
+        this.size = size;
+    }
+
+    /**
+     * Subscribes to the content, calling {@link Subscriber#onSubscribe(HttpContentPublisher.Subscription)} before
+     * returning. Each subscription transfers the content independently.
+     *
+     * @param subscriber the subscriber.
+     *
+     * @throws NullPointerException if the subscriber is {@code null}, as required by the
+     *                              specification.
+     */
+    public void subscribe(final Subscriber subscriber) {
+        Objects.requireNonNull(subscriber, "null subscriber");
+        subscriber.onSubscribe(new ContentSubscription(subscriber));
+    }
+
+    /**
+     * Adapts this publisher to the {@code Publisher} interface of a Reactive Streams API, such
+     * as {@code java.util.concurrent.Flow.Publisher} (Java 9 or later) or
+     * {@code org.reactivestreams.Publisher}, without depending on it:
+     *
+     * <pre>{@code
+     * Flow.Publisher<ByteBuffer> flow = publisher.toPublisher(Flow.Publisher.class);
+     * }</pre>
+     *
+     * <p>The subscribers of the returned publisher receive the same signals and chunks as the
+     * subscribers of this publisher.
+     *
+     * @param publisherType the {@code Publisher} interface, with the
+     *                      {@code subscribe(Subscriber)} method and the subscriber and
+     *                      subscription interfaces of the specification.
+     * @param <P>           type of the publisher.
+     *
+     * @return the adapted publisher.
+     *
+     * @throws IllegalArgumentException if the type is not a Reactive Streams publisher.
+     */
+    public <P> P toPublisher(final Class<P> publisherType) {
+        return PublisherAdapter.adapt(this, publisherType);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s, position=%s, size=%s]",
+                this.getClass().getSimpleName(), path, position, size);
+    }
+
+    // subscription draining the content in the background while there is demand
+    private final class ContentSubscription implements Subscription, Runnable, Abortable {
+
+        private final HttpFileSystem fs = path.getFileSystem();
+
+        // subscriber, released after the terminal signal
+        private Subscriber subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+        // number of pending drains (only the first one schedules the drain)
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest = null;
+
+        // only accessed by the drain
+        private boolean done = false;
+        private InputStream in = null;
+        private ByteBuffer buffer = null;
+        private long remaining;
+
+        // volatile to abort it on cancel
+        private volatile HttpURLConnection connection = null;
+
+        private ContentSubscription(final Subscriber subscriber) {
+            this.subscriber = subscriber;
+            this.remaining = size;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    final long sum = current + added;
+                    // capped on overflow
+                    return (sum < 0) ? Long.MAX_VALUE : sum;
+                });
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                final HttpURLConnection aborted = connection;
+                if (aborted != null) {
+                    aborted.disconnect();
+                    fs.getStatistics().incrementAbortedConnections();
+                }
+                scheduleDrain();
+            }
+        }
+
+        @Override
+        public void abort() {
+            // a drain in progress fails, or the next one as the File System is closed
+            final HttpURLConnection aborted = connection;
+            if (aborted != null) {
+                aborted.disconnect();
+                fs.getStatistics().incrementAbortedConnections();
+            }
+        }
+
+        // runs the drain in the background, unless it is already running
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                final FutureTask<Void> drain = new FutureTask<Void>(this, null) {
+                    @Override
+                    protected void done() {
+                        if (isCancelled()) {
+                            // queued when the File System was closed
+                            failClosed();
+                        }
+                    }
+                };
+                try {
+                    fs.getExecutor().execute(drain);
+                } catch (final RejectedExecutionException | ClosedFileSystemException e) {
+                    failClosed();
+                }
+            }
+        }
+
+        // runs the drain in the common pool, which fails the subscription because the File
+        // System is closed, so the subscriber is not called by the closing or requesting thread
+        private void failClosed() {
+            ForkJoinPool.commonPool().execute(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // publishes chunks while there is demand, or the terminal signal
+        private void drain() {
+            try {
+                while (!done) {
+                    if (cancelled) {
+                        release(true);
+                    } else if (invalidRequest != null) {
+                        fail(invalidRequest);
+                    } else if (remaining == 0) {
+                        complete();
+                    } else if (demand.get() == 0) {
+                        return;
+                    } else {
+                        fs.checkOpen();
+                        final ByteBuffer chunk = readChunk();
+                        if (chunk == null) {
+                            complete();
+                        } else {
+                            demand.decrementAndGet();
+                            subscriber.onNext(chunk);
+                        }
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                if (cancelled) {
+                    // expected if the connection was aborted while reading
+                    release(true);
+                } else {
+                    fail(e);
+                }
+            }
+        }
+
+        // reads the next chunk into the buffer; null at the end of the content
+        private ByteBuffer readChunk() throws IOException {
+            if (in == null) {
+                in = openStream();
+                buffer = fs.getBufferPool().acquire();
+            }
+            buffer.clear();
+            final int limit = (remaining == -1)
+                    ? buffer.capacity() : (int) Math.min(buffer.capacity(), remaining);
+            final byte[] array = buffer.array();
+            int filled = 0;
+            int read = 0;
+            while (filled < limit && (read = in.read(array, buffer.arrayOffset() + filled,
+                    limit - filled)) != -1) {
+                filled += read;
+            }
+            if (filled == 0) {
+                return null;
+            }
+            if (remaining != -1) {
+                remaining -= filled;
+            }
+            if (read == -1) {
+                // the next drain completes without reading again
+                remaining = 0;
+            }
+            buffer.limit(filled);
+            return buffer;
+        }
+
+        // requests the range of the resource
+        private InputStream openStream() throws IOException {
+            final HttpURLConnection request =
+                    (HttpURLConnection) path.toUri().toURL().openConnection();
+            connection = request;
+            fs.registerResource(this);
+            if (cancelled) {
+                throw new IOException("Cancelled");
+            }
+            if (position > 0 || size != -1) {
+                HttpUtils.setRangeRequest(request, position,
+                        (size == -1) ? -1 : position + size - 1);
+            }
+            final int code = request.getResponseCode();
+            // closed before connecting, so the abort did not disconnect it
+            fs.checkOpen();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(path.toString());
+            }
+            if (code == HTTP_RANGE_NOT_SATISFIABLE) {
+                // the position is after the end of the resource: nothing to publish
+                request.disconnect();
+                remaining = 0;
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException(String.format("Cannot read %s: %s %s",
+                        path, code, request.getResponseMessage()));
+            }
+            final InputStream stream = request.getInputStream();
+            if (code == HttpURLConnection.HTTP_OK && position > 0) {
+                // the server ignored the range
+                skipFully(stream, position);
+            }
+            return stream;
+        }
+
+        private void skipFully(final InputStream stream, final long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n) {
+                final long s = stream.skip(n - skipped);
+                if (s <= 0) {
+                    if (stream.read() == -1) {
+                        // shorter than the position
+                        remaining = 0;
+                        return;
+                    }
+                    skipped++;
+                } else {
+                    skipped += s;
+                }
+            }
+        }
+
+        private void complete() {
+            final Subscriber terminated = subscriber;
+            release(false);
+            terminated.onComplete();
+        }
+
+        private void fail(final Throwable throwable) {
+            final Subscriber terminated = subscriber;
+            release(true);
+            terminated.onError(throwable);
+        }
+
+        // releases the connection and the buffer, aborting the connection if requested
+        private void release(final boolean abort) {
+            done = true;
+            subscriber = null;
+            if (buffer != null) {
+                fs.getBufferPool().release(buffer);
+                buffer = null;
+            }
+            final HttpURLConnection request = connection;
+            connection = null;
+            if (request != null) {
+                fs.unregisterResource(this);
+            }
+            if (request != null && abort) {
+                request.disconnect();
+            } else if (in != null) {
+                try {
+                    // fully read, so the connection can be re-used
+                    in.close();
+                } catch (final IOException e) {
+                    LOGGER.debug("Error closing stream for {}: {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+}
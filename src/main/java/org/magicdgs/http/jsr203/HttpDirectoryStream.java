@@ -0,0 +1,224 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link DirectoryStream} for the HTML listing of a directory (e.g., nginx or Apache autoindex).
+ *
+ * <p>The entries are the links to direct children of the directory, in the order of the page.
+ * They are parsed while the page is downloaded and the filter is applied as they arrive, so
+ * the iteration starts before the listing is complete. Sub-directories keep the trailing
+ * separator of the link. Accepted entries are registered in the index of known paths. Closing
+ * the File System aborts the download, ending the iteration.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpDirectoryStream implements DirectoryStream<Path>, Abortable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpDirectoryStream.class);
+
+    private final HttpPath dir;
+    private final Filter<? super Path> filter;
+    private final HttpURLConnection connection;
+    private final HtmlLinkParser parser;
+
+    // base URI to resolve the links, and its raw path (with the trailing separator)
+    private final URI base;
+    private final String basePath;
+    // canonical authority of the base, to discard links to other servers
+    private final String baseAuthority;
+
+    // links already returned (the listing might contain several links to the same entry)
+    private final Set<String> seen = new HashSet<>();
+
+    private volatile boolean open = true;
+    private boolean iteratorReturned = false;
+
+    private HttpDirectoryStream(final HttpPath dir, final Filter<? super Path> filter,
+            final HttpURLConnection connection) throws IOException {
+        this.dir = dir;
+        this.filter = filter;
+        this.connection = connection;
+        // redirects are followed, so the final URL is the base for the links
+        this.base = toDirectoryUri(connection.getURL());
+        this.basePath = base.getRawPath();
+        this.baseAuthority = canonicalAuthority(base);
+        this.parser = new HtmlLinkParser(connection.getInputStream());
+    }
+
+    /**
+     * Opens the listing of a directory.
+     *
+     * @param dir    the directory.
+     * @param filter the filter for the entries.
+     *
+     * @return the directory stream.
+     *
+     * @throws NoSuchFileException   if the directory does not exist.
+     * @throws NotDirectoryException if the response is not an HTML document.
+     * @throws IOException           if an I/O error occurs.
+     */
+    static HttpDirectoryStream open(final HttpPath dir, final Filter<? super Path> filter)
+            throws IOException {
+        final URL url = toDirectoryUri(dir.toUri().toURL()).toURL();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(dir.toString());
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot list %s: %s %s",
+                        url, code, connection.getResponseMessage()));
+            }
+            final String contentType = connection.getContentType();
+            if (contentType != null && !contentType.regionMatches(true, 0, "text/html", 0, 9)) {
+                throw new NotDirectoryException(dir.toString());
+            }
+            final HttpDirectoryStream stream = new HttpDirectoryStream(dir, filter, connection);
+            dir.getFileSystem().registerResource(stream);
+            dir.getFileSystem().getPathIndex().register(dir);
+            return stream;
+        } catch (final IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    // URI without query and fragment, with the trailing separator to resolve the children
+    private static URI toDirectoryUri(final URL url) throws IOException {
+        final URI uri;
+        try {
+            uri = url.toURI();
+        } catch (final URISyntaxException e) {
+            throw new IOException("Invalid directory URL: " + url, e);
+        }
+        final String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty())
+                ? HttpUtils.HTTP_PATH_SEPARATOR_STRING : uri.getRawPath();
+        return URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + path
+                + (path.endsWith(HttpUtils.HTTP_PATH_SEPARATOR_STRING)
+                ? "" : HttpUtils.HTTP_PATH_SEPARATOR_STRING));
+    }
+
+    private static String canonicalAuthority(final URI uri) {
+        return (uri.getRawAuthority() == null) ? null
+                : HttpUtils.getCanonicalAuthority(uri.getScheme(), uri.getRawAuthority());
+    }
+
+    @Override
+    public synchronized Iterator<Path> iterator() {
+        if (!open) {
+            throw new IllegalStateException("Directory stream is closed");
+        }
+        if (iteratorReturned) {
+            throw new IllegalStateException("Iterator already obtained");
+        }
+        iteratorReturned = true;
+        return new EntryIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The download of the listing is aborted, even if an iteration is blocked reading it.
+     */
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            connection.disconnect();
+            dir.getFileSystem().unregisterResource(this);
+        }
+    }
+
+    @Override
+    public void abort() {
+        close();
+    }
+
+    // reads the next accepted entry; null at the end of the listing or if the stream is closed
+    private synchronized Path readNext() {
+        try {
+            String href;
+            while (open && (href = parser.next()) != null) {
+                final HttpPath entry = toEntry(href);
+                if (entry != null && filter.accept(entry)) {
+                    dir.getFileSystem().getPathIndex().register(entry);
+                    return entry;
+                }
+            }
+        } catch (final IOException e) {
+            if (open) {
+                throw new DirectoryIteratorException(e);
+            }
+            // expected if it was closed while reading
+        }
+        return null;
+    }
+
+    // gets the entry for a link; null if it is not a new direct child of the directory
+    private HttpPath toEntry(final String href) {
+        try {
+            final URI uri = base.resolve(href);
+            final String path = uri.getRawPath();
+            if (!base.getScheme().equalsIgnoreCase(uri.getScheme())
+                    || !baseAuthority.equals(canonicalAuthority(uri))
+                    || path == null || !path.startsWith(basePath)) {
+                return null;
+            }
+            // only direct children (sub-directories end with a separator)
+            final int separator = path.indexOf(HttpUtils.HTTP_PATH_SEPARATOR_CHAR,
+                    basePath.length());
+            if (path.length() == basePath.length()
+                    || (separator != -1 && separator != path.length() - 1)
+                    || !seen.add(path)) {
+                return null;
+            }
+            return dir.getFileSystem().getPath(path);
+        } catch (final IllegalArgumentException e) {
+            // includes InvalidPathException
+            LOGGER.debug("Ignoring link in listing of {}: {}", dir, href);
+            return null;
+        }
+    }
+
+    // lazy iterator reading the listing on demand
+    private final class EntryIterator implements Iterator<Path> {
+
+        private Path next = null;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readNext();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Path entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
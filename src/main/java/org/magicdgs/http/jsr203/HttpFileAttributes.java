@@ -0,0 +1,157 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * {@link BasicFileAttributes} of a HTTP/S resource.
+ *
+ * <p>The resources are regular files, unless they are directories from a manifest or paths
+ * ending with the separator (e.g., sub-directories in an autoindex listing). Only the last
+ * modified time is known (from the {@code Last-Modified} header), and it is also returned for
+ * the creation and last access times; if it is unknown, the epoch is returned.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpFileAttributes implements BasicFileAttributes {
+
+    private static final FileTime UNKNOWN_TIME = FileTime.fromMillis(0);
+
+    /** Attributes for a directory. */
+    static final HttpFileAttributes DIRECTORY = new HttpFileAttributes(true, 0, null, UNKNOWN_TIME);
+
+    private final boolean directory;
+    private final long size;
+    private final String etag;
+    private final FileTime lastModifiedTime;
+
+    private HttpFileAttributes(final boolean directory, final long size, final String etag,
+            final FileTime lastModifiedTime) {
+        this.directory = directory;
+        this.size = size;
+        this.etag = etag;
+        this.lastModifiedTime = lastModifiedTime;
+    }
+
+    /**
+     * Creates the attributes for a regular file with unknown modification time.
+     *
+     * @param size the size of the file.
+     * @param etag the entity tag; {@code null} if unknown.
+     *
+     * @return the attributes.
+     */
+    static HttpFileAttributes file(final long size, final String etag) {
+        return new HttpFileAttributes(false, size, etag, UNKNOWN_TIME);
+    }
+
+    /**
+     * Requests the attributes of a resource with a HEAD request.
+     *
+     * @param url       the URL of the resource.
+     * @param directory {@code true} if the resource is a directory; {@code false} otherwise.
+     *
+     * @return the attributes.
+     *
+     * @throws NoSuchFileException if the resource does not exist.
+     * @throws IOException         if an I/O error occurs.
+     */
+    static HttpFileAttributes request(final URL url, final boolean directory)
+            throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("HEAD");
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(url.toString());
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot read attributes of %s: %s %s",
+                        url, code, connection.getResponseMessage()));
+            }
+            if (directory) {
+                return DIRECTORY;
+            }
+            final long lastModified = connection.getLastModified();
+            return new HttpFileAttributes(false, connection.getContentLengthLong(),
+                    connection.getHeaderField("ETag"),
+                    (lastModified == 0) ? UNKNOWN_TIME : FileTime.fromMillis(lastModified));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Gets the entity tag of the resource.
+     *
+     * @return the ETag; {@code null} if unknown.
+     */
+    String getETag() {
+        return etag;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the size in bytes; {@code -1} if unknown.
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code null}, because resources cannot be identified across URLs.
+     */
+    @Override
+    public Object fileKey() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[directory=%s, size=%s, etag=%s, lastModifiedTime=%s]",
+                this.getClass().getSimpleName(), directory, size, etag, lastModifiedTime);
+    }
+}
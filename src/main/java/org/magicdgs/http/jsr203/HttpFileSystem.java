@@ -4,42 +4,142 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedFileSystemException;
 import java.nio.file.FileStore;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.FileSystem;
-import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.UserPrincipalLookupService;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Read-only HTTP/S FileSystem.
  *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
-final class HttpFileSystem extends FileSystem {
+public final class HttpFileSystem extends FileSystem {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    // syntaxes supported by the path matchers
+    private static final String GLOB_SYNTAX = "glob";
+    private static final String REGEX_SYNTAX = "regex";
+
     private final HttpAbstractFileSystemProvider provider;
 
-    // authority for this FileSystem
+    // authority for this FileSystem, and its canonical form for comparison
     private final String authority;
+    private final String canonicalAuthority;
+
+    // settings and statistics for this FileSystem
+    private final HttpFileSystemSettings settings;
+    private final HttpFileSystemStatistics statistics = new HttpFileSystemStatistics();
+
+    // requester for bounded ranges (hedging if enabled)
+    private final RangeRequester rangeRequester;
+
+    // fetcher for blocks of resources (coalescing identical requests)
+    private final BlockFetcher blockFetcher;
+
+    // pool of canonical paths for repeated inputs
+    private final PathInterner pathInterner;
+
+    // index of the known paths
+    private final PathIndex pathIndex;
+
+    // attributes of the known paths
+    private final AttributeCache attributeCache;
+
+    // buffers for streaming content
+    private final BufferPool bufferPool;
+
+    // manifest with the published files (lazily loaded, if configured), loaded under its own
+    // lock to do not block the File System; unavailable if it failed to load
+    private volatile Manifest manifest;
+    private volatile boolean manifestUnavailable = false;
+    private final Object manifestLock = new Object();
+
+    // executor for background requests (lazily created)
+    private volatile ExecutorService executor;
+
+    // true if the background threads are virtual threads
+    private final boolean useVirtualThreads;
+
+    // executor for bulk requests, bounded by the maximum concurrent requests (lazily created)
+    private volatile ExecutorService bulkExecutor;
+
+    // resources opened in this FileSystem, to abort them on close
+    private final Set<Abortable> openResources = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean open = true;
 
     /**
-     * Construct a new FileSystem.
+     * Construct a new FileSystem with the default settings.
      *
      * @param provider  non {@code null} provider that generated this HTTP/S File System.
      * @param authority non {@code null} authority for this HTTP/S File System.
      */
     HttpFileSystem(final HttpAbstractFileSystemProvider provider, final String authority) {
+        this(provider, authority, HttpFileSystemSettings.DEFAULT);
+    }
+
+    /**
+     * Construct a new FileSystem.
+     *
+     * @param provider  non {@code null} provider that generated this HTTP/S File System.
+     * @param authority non {@code null} authority for this HTTP/S File System.
+     * @param settings  non {@code null} settings for this HTTP/S File System.
+     */
+    HttpFileSystem(final HttpAbstractFileSystemProvider provider, final String authority,
+            final HttpFileSystemSettings settings) {
         this.provider = Utils.nonNull(provider, () -> "null provider");
         this.authority = Utils.nonNull(authority, () -> "null authority");
+        this.canonicalAuthority = HttpUtils.getCanonicalAuthority(provider.getScheme(), authority);
+        this.settings = Utils.nonNull(settings, () -> "null settings");
+        this.rangeRequester = new RangeRequester(this);
+        this.blockFetcher = new BlockFetcher(this);
+        this.pathInterner = new PathInterner(settings.getPathInternCapacity(), statistics);
+        this.pathIndex = new PathIndex(this, settings.getPathIndexCapacity());
+        this.attributeCache = new AttributeCache(settings.getAttributeCacheCapacity(),
+                settings.getAttributeCacheTtlMillis());
+        this.bufferPool = new BufferPool(settings.getBlockSize(),
+                settings.getMaxConcurrentRequests());
+        final boolean virtual =
+                settings.getThreadMode() == HttpFileSystemSettings.ThreadMode.VIRTUAL;
+        this.useVirtualThreads = virtual && VirtualThreads.isSupported();
+        if (virtual && !useVirtualThreads) {
+            logger.warn("Virtual threads are not supported by this JVM: using platform threads "
+                    + "for {}", authority);
+        }
     }
 
     @Override
@@ -56,26 +156,213 @@ final class HttpFileSystem extends FileSystem {
         return authority;
     }
 
+    // gets the authority without case or default port differences
+    String getCanonicalAuthority() {
+        return canonicalAuthority;
+    }
+
+    /**
+     * Gets the settings for this File System.
+     *
+     * @return the settings provided on creation.
+     */
+    public HttpFileSystemSettings getSettings() {
+        return settings;
+    }
+
     /**
-     * This is a no-op, because {@link HttpFileSystem} is always open.
+     * Gets the statistics for the network activity of this File System.
      *
-     * @implNote because the open connections are not tracked, we cannot close the file system.
+     * @return the live statistics.
+     */
+    public HttpFileSystemStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the requester for bounded ranges of resources in this File System.
+     *
+     * @return the range requester.
+     */
+    RangeRequester getRangeRequester() {
+        return rangeRequester;
+    }
+
+    /**
+     * Gets the fetcher for blocks of resources in this File System.
+     *
+     * @return the block fetcher.
+     */
+    BlockFetcher getBlockFetcher() {
+        return blockFetcher;
+    }
+
+    /**
+     * Gets the executor for background requests in this File System.
+     *
+     * <p>Virtual threads start one thread per task. Platform threads are bounded by
+     * {@link HttpFileSystemSettings#getMaxBackgroundThreads()}; the rest of the tasks are
+     * queued. Idle threads are released.
+     *
+     * @return the executor, using daemon threads (virtual, if configured and supported).
+     * @see HttpFileSystemSettings#THREAD_MODE_KEY
+     */
+    ExecutorService getExecutor() {
+        checkOpen();
+        if (executor == null) {
+            synchronized (this) {
+                // checked again to do not create it after closing
+                checkOpen();
+                if (executor == null) {
+                    executor = useVirtualThreads
+                            ? VirtualThreads.newThreadPerTaskExecutor(
+                                    "jsr203-http-" + authority + "-")
+                            : newPlatformPool(settings.getMaxBackgroundThreads(),
+                                    "jsr203-http-");
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Gets the executor for bulk requests in this File System.
+     *
+     * <p>At most {@link HttpFileSystemSettings#getMaxConcurrentRequests()} tasks run at the same
+     * time. Virtual threads start one thread per task, which waits for a permit of the File
+     * System; platform threads queue the rest of the tasks. Idle threads are released.
+     *
+     * @return the executor, using daemon threads (virtual, if configured and supported).
+     * @see HttpFileSystemSettings#THREAD_MODE_KEY
+     */
+    ExecutorService getBulkExecutor() {
+        checkOpen();
+        if (bulkExecutor == null) {
+            synchronized (this) {
+                // checked again to do not create it after closing
+                checkOpen();
+                if (bulkExecutor == null) {
+                    final int maxRequests = settings.getMaxConcurrentRequests();
+                    bulkExecutor = useVirtualThreads
+                            ? new BoundedExecutor(VirtualThreads.newThreadPerTaskExecutor(
+                                    "jsr203-http-bulk-" + authority + "-"), maxRequests)
+                            : newPlatformPool(maxRequests, "jsr203-http-bulk-");
+                }
+            }
+        }
+        return bulkExecutor;
+    }
+
+    // pool of daemon platform threads named after the authority, releasing the idle ones
+    private ThreadPoolExecutor newPlatformPool(final int threads, final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread =
+                            new Thread(r, prefix + authority + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Registers a resource opened in this File System (e.g., a channel or a stream), to abort it
+     * on close.
+     *
+     * @param resource the resource to track until it is closed.
+     *
+     * @throws ClosedFileSystemException if the File System is closed.
+     */
+    void registerResource(final Abortable resource) {
+        openResources.add(resource);
+        // checked after adding, so a concurrent close either sees the resource or we see it closed
+        if (!open) {
+            openResources.remove(resource);
+            throw new ClosedFileSystemException();
+        }
+    }
+
+    /**
+     * Stops tracking a closed resource.
+     *
+     * @param resource the closed resource.
+     */
+    void unregisterResource(final Abortable resource) {
+        openResources.remove(resource);
+    }
+
+    /**
+     * Gets the number of resources opened in this File System and not closed yet.
+     *
+     * @return number of open resources.
+     */
+    int getOpenResourceCount() {
+        return openResources.size();
+    }
+
+    /**
+     * Throws if this File System is closed.
+     *
+     * @throws ClosedFileSystemException if the File System is closed.
+     */
+    void checkOpen() {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+    }
+
+    /**
+     * Closes this File System.
+     *
+     * <p>The in-flight transfers of the open channels, streams, directory listings, content
+     * subscriptions and partition channels are aborted (their connections are not re-used) and
+     * fail, the cached blocks and known paths are released, background requests are
+     * interrupted and the File System is removed from its provider. Further operations throw
+     * {@link ClosedFileSystemException}, but the provider creates a new File System for the same
+     * authority if required.
+     *
+     * <p>This method has no effect if the File System is already closed.
      */
     @Override
     public void close() {
-        logger.warn("{} is always open (no closed)", this.getClass());
+        final ExecutorService background;
+        final ExecutorService bulk;
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            background = executor;
+            bulk = bulkExecutor;
+        }
+        logger.debug("Closing {} ({} open resources)", this, openResources.size());
+        provider.removeFileSystem(this);
+        // the executors first, so the queued tasks do not start once the running ones are aborted
+        shutdownNow(background);
+        shutdownNow(bulk);
+        for (final Abortable resource : openResources) {
+            resource.abort();
+        }
+        openResources.clear();
+        blockFetcher.close();
+        pathInterner.clear();
+        // invalidating the root removes every known path
+        pathIndex.invalidate(new HttpPath(this, "", null, null));
+        attributeCache.clear();
+        bufferPool.clear();
+        manifest = null;
     }
 
     /**
-     * {@link HttpFileSystem} is always open.
-     *
-     * @return {@code true}
+     * {@inheritDoc}
      *
-     * @implNote because the open connections are not tracked, we cannot close the file system.
+     * @return {@code true} until {@link #close()} is called.
      */
     @Override
     public boolean isOpen() {
-        return true;
+        return open;
     }
 
     /**
@@ -100,6 +387,7 @@ final class HttpFileSystem extends FileSystem {
 
     @Override
     public Iterable<Path> getRootDirectories() {
+        checkOpen();
         // the root directory does not have the slash
         return Collections.singleton(new HttpPath(this, "", null, null));
     }
@@ -114,25 +402,37 @@ final class HttpFileSystem extends FileSystem {
         throw new UnsupportedOperationException("Not implemented");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If enabled with {@link HttpFileSystemSettings#PATH_INTERN_CAPACITY_KEY}, repeated
+     * inputs return the same instance without parsing them again.
+     */
     @Override
     public HttpPath getPath(final String first, final String... more) {
-        final String path = Utils.nonNull(first, () -> "null first")
-                + String.join(getSeparator(), Utils.nonNull(more, () -> "null more"));
+        checkOpen();
+        final String path = joinPath(Utils.nonNull(first, () -> "null first"),
+                Utils.nonNull(more, () -> "null more"));
+        return pathInterner.intern(path, p -> HttpPathParser.parse(this, p));
+    }
 
-        if (!path.isEmpty() && !path.startsWith(getSeparator())) {
-            throw new InvalidPathException(path, "Relative paths are not supported", 0);
+    // joins the non-empty elements with the separator (redundant ones are removed when parsing)
+    private String joinPath(final String first, final String... more) {
+        if (more.length == 0) {
+            return first;
         }
-
-        try {
-            // handle the Path with the URI to separate Path query and fragment
-            // in addition, it checks for errors in the encoding (e.g., null chars)
-            return getPath(new URI(path));
-        } catch (URISyntaxException e) {
-            throw new InvalidPathException(e.getInput(), e.getReason(), e.getIndex());
+        final StringBuilder sb = new StringBuilder(first);
+        for (final String name : more) {
+            if (!name.isEmpty()) {
+                if (sb.length() != 0) {
+                    sb.append(getSeparator());
+                }
+                sb.append(name);
+            }
         }
+        return sb.toString();
     }
 
-
     /**
      * Gets the {@link HttpPath} from an {@link URI}.
      *
@@ -143,12 +443,500 @@ final class HttpFileSystem extends FileSystem {
      * @implNote this method allows to pass the query and fragment to the {@link HttpPath}.
      */
     HttpPath getPath(final URI uri) {
+        checkOpen();
         return new HttpPath(this, uri.getPath(), uri.getQuery(), uri.getFragment());
     }
 
+    /**
+     * Gets the pool of canonical paths for this File System.
+     *
+     * @return the path interner.
+     */
+    PathInterner getPathInterner() {
+        return pathInterner;
+    }
+
+    /**
+     * Gets the index of the paths known by this File System.
+     *
+     * @return the path index.
+     */
+    PathIndex getPathIndex() {
+        return pathIndex;
+    }
+
+    /**
+     * Gets the cache of attributes of this File System.
+     *
+     * @return the attribute cache.
+     */
+    AttributeCache getAttributeCache() {
+        return attributeCache;
+    }
+
+    /**
+     * Gets the pool of buffers for streaming content in this File System.
+     *
+     * @return the buffer pool.
+     */
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Gets the manifest with the published files, loading it on the first call.
+     *
+     * <p>If the manifest cannot be loaded (e.g., it is missing or invalid), a warning is logged
+     * and this File System works as if it had no manifest: the attributes are requested with
+     * HEAD requests and the directories are listed from their autoindex pages. The load is not
+     * retried.
+     *
+     * @return the manifest; {@code null} if there is no manifest for this File System or it
+     * cannot be loaded.
+     *
+     * @throws ClosedFileSystemException if the File System is closed.
+     * @see HttpFileSystemSettings#MANIFEST_PATH_KEY
+     */
+    Manifest getManifest() {
+        final String manifestPath = settings.getManifestPath();
+        if (manifestPath == null || manifestUnavailable) {
+            return null;
+        }
+        Manifest loaded = manifest;
+        if (loaded == null) {
+            synchronized (manifestLock) {
+                checkOpen();
+                loaded = manifest;
+                if (loaded == null && !manifestUnavailable) {
+                    try {
+                        loaded = loadManifest(getPath(manifestPath));
+                        manifest = loaded;
+                    } catch (final IOException e) {
+                        // aborted by closing the File System
+                        checkOpen();
+                        logger.warn("Cannot load manifest {} for {} (using HEAD requests and "
+                                        + "autoindex pages instead): {}",
+                                manifestPath, this, e.getMessage());
+                        manifestUnavailable = true;
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // downloads and parses the manifest, aborted if the File System is closed
+    private Manifest loadManifest(final HttpPath location) throws IOException {
+        final URL url = location.toUri().toURL();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        final Abortable download = connection::disconnect;
+        try {
+            // connected before registering, because disconnecting it before is a no-op
+            connection.connect();
+            registerResource(download);
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(url.toString(), null, "manifest not found");
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot load manifest %s: %s %s",
+                        url, code, connection.getResponseMessage()));
+            }
+            final Manifest parsed;
+            try (final InputStream in = connection.getInputStream()) {
+                parsed = Manifest.parse(location, in);
+            }
+            logger.debug("Loaded manifest {} with {} files", url, parsed.size());
+            return parsed;
+        } catch (final IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        } finally {
+            unregisterResource(download);
+        }
+    }
+
+    // interrupts the running tasks of the executor (if created) and cancels the queued ones,
+    // to do not block their waiters
+    private static void shutdownNow(final ExecutorService executor) {
+        if (executor != null) {
+            for (final Runnable task : executor.shutdownNow()) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the attributes of a path of this File System.
+     *
+     * <p>The attributes are looked up in the cache and in the manifest; otherwise, they are
+     * requested with a HEAD request and cached. Paths ending with the separator are directories.
+     *
+     * @param path the path.
+     *
+     * @return the attributes.
+     *
+     * @throws NoSuchFileException if the path does not exist.
+     * @throws IOException         if an I/O error occurs.
+     */
+    HttpFileAttributes getAttributes(final HttpPath path) throws IOException {
+        checkOpen();
+        HttpFileAttributes attributes = getKnownAttributes(path);
+        if (attributes == null) {
+            attributes = HttpFileAttributes.request(path.toUri().toURL(),
+                    path.hasTrailingSlash());
+            attributeCache.put(path, attributes);
+            // registered to find the cached attributes on invalidation
+            pathIndex.register(path);
+        }
+        return attributes;
+    }
+
+    /**
+     * Gets the attributes of a path from the manifest or the cache, without requests.
+     *
+     * @param path the path.
+     *
+     * @return the attributes; {@code null} if they are unknown.
+     */
+    HttpFileAttributes getKnownAttributes(final HttpPath path) {
+        final Manifest files = getManifest();
+        final HttpFileAttributes published = (files == null) ? null : files.getAttributes(path);
+        return (published != null) ? published : attributeCache.get(path);
+    }
+
+    /**
+     * Reads the attributes of several paths of this File System at once.
+     *
+     * <p>The attributes are looked up in the cache and in the manifest; the rest are requested
+     * with HEAD requests in the background, with at most
+     * {@link HttpFileSystemSettings#getMaxConcurrentRequests()} concurrent requests, and cached
+     * as they arrive. Thus, subsequent attribute reads and access checks of the same paths do not
+     * require further requests.
+     *
+     * @param paths the paths to query. Repeated paths are requested once.
+     *
+     * @return the attributes of the existing paths, in the iteration order of the collection.
+     * Paths that do not exist are not present in the map.
+     *
+     * @throws ProviderMismatchException if any of the paths is not in this File System.
+     * @throws IOException               if an I/O error occurs for any of the paths (other than
+     *                                   not existing). The pending requests are cancelled.
+     */
+    public Map<Path, BasicFileAttributes> readAttributes(final Collection<? extends Path> paths)
+            throws IOException {
+        checkOpen();
+        Utils.nonNull(paths, () -> "null paths");
+        final Map<HttpPath, Future<HttpFileAttributes>> requests = new LinkedHashMap<>();
+        for (final Path path : paths) {
+            final HttpPath httpPath = toHttpPath(Utils.nonNull(path, () -> "null path"));
+            if (!requests.containsKey(httpPath)) {
+                final HttpFileAttributes known = getKnownAttributes(httpPath);
+                if (known == null) {
+                    final FutureTask<HttpFileAttributes> request =
+                            new FutureTask<>(() -> getAttributes(httpPath));
+                    getBulkExecutor().execute(request);
+                    requests.put(httpPath, request);
+                } else {
+                    requests.put(httpPath, CompletableFuture.completedFuture(known));
+                }
+            }
+        }
+        final Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+        try {
+            for (final Map.Entry<HttpPath, Future<HttpFileAttributes>> e : requests.entrySet()) {
+                final HttpFileAttributes value = awaitAttributes(e.getKey(), e.getValue());
+                if (value != null) {
+                    attributes.put(e.getKey(), value);
+                }
+            }
+        } finally {
+            // no-op for the completed requests
+            requests.values().forEach(r -> r.cancel(false));
+        }
+        return attributes;
+    }
+
+    // waits for the attributes of a bulk request; null if the path does not exist
+    private HttpFileAttributes awaitAttributes(final HttpPath path,
+            final Future<HttpFileAttributes> request) throws IOException {
+        try {
+            return request.get();
+        } catch (final CancellationException e) {
+            // only cancelled by closing the File System
+            throw new ClosedFileSystemException();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NoSuchFileException) {
+                return null;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Cannot read attributes of " + path, cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted reading attributes of " + path);
+        }
+    }
+
+    /**
+     * Gets the paths known by this File System under a prefix, without requests.
+     *
+     * <p>Known paths are the ones opened, checked (including reading their attributes) or listed
+     * since the File System was created or their prefix was invalidated. Up to
+     * {@link HttpFileSystemSettings#getPathIndexCapacity()} paths are kept; further paths are
+     * not known (see {@link HttpFileSystemStatistics#getPathIndexRejectionCount()}).
+     *
+     * @param prefix the prefix (relative paths are resolved against the root).
+     *
+     * @return the known paths starting with the prefix (including the prefix itself), in no
+     * particular order.
+     *
+     * @throws ProviderMismatchException if the prefix is not in this File System.
+     */
+    public List<Path> getKnownPaths(final Path prefix) {
+        checkOpen();
+        return Collections.unmodifiableList(pathIndex.getSubtree(toAbsoluteHttpPath(prefix)));
+    }
+
+    /**
+     * Gets the known direct children of a directory of this File System, without requests.
+     *
+     * <p>Children are returned if any path under them is known (see
+     * {@link #getKnownPaths(Path)}), even if they were not opened, checked or listed themselves.
+     *
+     * @param dir the directory (relative paths are resolved against the root).
+     *
+     * @return the known children of the directory, without query or reference, in no
+     * particular order.
+     *
+     * @throws ProviderMismatchException if the directory is not in this File System.
+     */
+    public List<Path> getKnownChildren(final Path dir) {
+        checkOpen();
+        return Collections.unmodifiableList(pathIndex.getChildren(toAbsoluteHttpPath(dir)));
+    }
+
+    /**
+     * Invalidates the cached attributes and blocks of the paths under a prefix, which are
+     * requested again on the next access, and forgets them as known paths.
+     *
+     * <p>The caches are only scanned if the prefix has known paths, or if the index of known
+     * paths is disabled or full: otherwise, nothing under the prefix was cached. Paths and blocks
+     * requested concurrently might be cached again.
+     *
+     * @param prefix the prefix (relative paths are resolved against the root).
+     *
+     * @return the number of known paths invalidated.
+     *
+     * @throws ProviderMismatchException if the prefix is not in this File System.
+     */
+    public int invalidate(final Path prefix) {
+        checkOpen();
+        final HttpPath absolute = toAbsoluteHttpPath(prefix);
+        final int known = pathIndex.getSubtree(absolute).size();
+        // every cached path is registered in the index, unless it was rejected
+        if (known == 0 && settings.getPathIndexCapacity() != 0 && !pathIndex.isTruncated()) {
+            return 0;
+        }
+        final boolean root = absolute.getNameCount() == 0;
+        attributeCache.invalidate(path -> root || path.startsWith(absolute));
+        final String rawPrefix = getRawPathWithoutTrailingSlash(absolute.toUri());
+        final String rawDir = rawPrefix + HttpUtils.HTTP_PATH_SEPARATOR_STRING;
+        blockFetcher.getCache().removeIf(key -> {
+            final String raw = getRawPathWithoutTrailingSlash(URI.create(key.getUrl()));
+            return raw.equals(rawPrefix) || raw.startsWith(rawDir);
+        });
+        pathIndex.invalidate(absolute);
+        logger.debug("Invalidated {} known paths under {}", known, absolute);
+        return known;
+    }
+
+    // gets the raw path component of the URI without the trailing separator
+    private static String getRawPathWithoutTrailingSlash(final URI uri) {
+        final String raw = uri.getRawPath();
+        return raw.endsWith(HttpUtils.HTTP_PATH_SEPARATOR_STRING)
+                ? raw.substring(0, raw.length() - 1) : raw;
+    }
+
+    /**
+     * Walks the file tree rooted at a path of this File System.
+     *
+     * <p>The stream is lazily populated in the same depth-first order as
+     * {@link java.nio.file.Files#walk(Path, int, java.nio.file.FileVisitOption...)}, listing the
+     * directories from the manifest or from their autoindex pages. When a directory is listed,
+     * the listings of its sub-directories are fetched in the background with at most
+     * {@link HttpFileSystemSettings#getMaxConcurrentRequests()} concurrent requests. The stream
+     * splits on pending sub-trees, so {@link Stream#parallel()} pipelines process them
+     * concurrently.
+     *
+     * <p>If the start path is not a directory, the stream contains only the start path. An
+     * {@link java.io.IOException} listing a sub-directory is thrown as an
+     * {@link java.io.UncheckedIOException} from the stream. The stream should be closed to cancel
+     * the pending listings.
+     *
+     * @param start    the starting path.
+     * @param maxDepth maximum number of directory levels to visit ({@code 0} for the start only).
+     *
+     * @return the stream of paths.
+     *
+     * @throws NoSuchFileException if the start path does not exist.
+     * @throws IOException         if an I/O error occurs listing the start path.
+     */
+    public Stream<Path> walk(final Path start, final int maxDepth) throws IOException {
+        checkOpen();
+        Utils.nonNull(start, () -> "null start");
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Negative maxDepth: " + maxDepth);
+        }
+        final HttpTreeSpliterator spliterator =
+                HttpTreeSpliterator.open(toHttpPath(start), maxDepth);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::cancel);
+    }
+
+    /**
+     * Creates a publisher for the content of a path of this File System.
+     *
+     * @param path     the path of the resource.
+     * @param position first byte to publish.
+     * @param size     number of bytes to publish; {@code -1} until the end of the resource.
+     *
+     * @return a publisher honouring the demand of each subscriber.
+     *
+     * @throws ProviderMismatchException if the path is not in this File System.
+     * @see HttpContentPublisher
+     */
+    public HttpContentPublisher newContentPublisher(final Path path, final long position,
+            final long size) {
+        checkOpen();
+        return new HttpContentPublisher(toHttpPath(Utils.nonNull(path, () -> "null path")),
+                position, size);
+    }
+
+    /**
+     * Splits a resource of this File System into byte ranges for parallel processing.
+     *
+     * <p>The resource is split into partitions of similar size, whose boundaries are moved
+     * forward with the aligner (e.g., {@link HttpPartition.Aligner#afterDelimiter(byte)} with
+     * {@code '\n'} for text files). The stream can be made parallel to process the partitions
+     * in a fork/join pool; boundaries are aligned when the stream is split, and each partition
+     * reads its range with its own connection. An {@link java.io.IOException} aligning the
+     * boundaries is thrown as an {@link java.io.UncheckedIOException} from the stream.
+     *
+     * @param path       the path of the resource.
+     * @param partitions number of partitions.
+     * @param aligner    aligner for the boundaries between partitions.
+     *
+     * @return the ordered stream of exactly {@code partitions} partitions.
+     *
+     * @throws NoSuchFileException if the resource does not exist.
+     * @throws IOException         if the resource is a directory, its size is unknown or an I/O
+     *                             error occurs.
+     * @see HttpPartition
+     */
+    public Stream<HttpPartition> split(final Path path, final int partitions,
+            final HttpPartition.Aligner aligner) throws IOException {
+        checkOpen();
+        Utils.nonNull(path, () -> "null path");
+        Utils.nonNull(aligner, () -> "null aligner");
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Non-positive partitions: " + partitions);
+        }
+        final HttpPath httpPath = toHttpPath(path);
+        final HttpFileAttributes attributes = getAttributes(httpPath);
+        if (attributes.isDirectory()) {
+            throw new IOException("Cannot split a directory: " + path);
+        }
+        if (attributes.size() < 0) {
+            throw new IOException("Cannot split a resource of unknown size: " + path);
+        }
+        // weak validators cannot be used for range requests
+        final String etag = attributes.getETag();
+        final String validator = (etag == null || etag.startsWith("W/")) ? null : etag;
+        return StreamSupport.stream(HttpPartitionSpliterator.open(httpPath, attributes.size(),
+                validator, partitions, aligner), false);
+    }
+
+    /**
+     * Synchronizes a directory of this File System into a local directory, downloading only the
+     * files that are new or changed since the previous synchronization.
+     *
+     * <p>The remote files are enumerated from the manifest or the autoindex pages, and they are
+     * synchronized concurrently, with at most
+     * {@link HttpFileSystemSettings#getMaxConcurrentRequests()} concurrent requests. The ETags of
+     * the synchronized files are stored in the {@code .http-sync.properties} file of the local
+     * directory, and used in the next run for conditional requests ({@code If-None-Match}), so
+     * unchanged files are not downloaded again; files whose ETag in the manifest did not change
+     * are not requested at all. Downloaded files are written to a temporary file and moved into
+     * place atomically. Local files without a remote counterpart are kept.
+     *
+     * @param source the remote directory.
+     * @param target the local directory, created if it does not exist.
+     *
+     * @return the result, including the files that could not be synchronized.
+     *
+     * @throws NoSuchFileException                 if the remote directory does not exist.
+     * @throws java.nio.file.NotDirectoryException if the remote path is not a directory.
+     * @throws IOException                         if an I/O error occurs enumerating the remote
+     *                                             files or writing the local state.
+     * @throws ProviderMismatchException           if the source is not in this File System.
+     */
+    public HttpSyncResult sync(final Path source, final Path target) throws IOException {
+        checkOpen();
+        Utils.nonNull(source, () -> "null source");
+        Utils.nonNull(target, () -> "null target");
+        if (target instanceof HttpPath) {
+            throw new UnsupportedOperationException(
+                    "Cannot synchronize into read-only File System: " + target);
+        }
+        return HttpSync.run(toHttpPath(source), target);
+    }
+
+    // casts a path of this File System
+    private HttpPath toHttpPath(final Path path) {
+        if (!(path instanceof HttpPath) || path.getFileSystem() != this) {
+            throw new ProviderMismatchException("Path not in " + this + ": " + path);
+        }
+        return (HttpPath) path;
+    }
+
+    // checks that the path is in this File System and resolves it against the root
+    private HttpPath toAbsoluteHttpPath(final Path path) {
+        return (HttpPath) toHttpPath(Utils.nonNull(path, () -> "null path")).toAbsolutePath();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote both syntaxes match only the path component, without the trailing separator (the
+     * root is a single separator). Glob patterns are compiled into an automaton that runs over the
+     * bytes of the path without allocation.
+     */
     @Override
     public PathMatcher getPathMatcher(final String syntaxAndPattern) {
-        throw new UnsupportedOperationException("Not implemented");
+        checkOpen();
+        final int colon = Utils.nonNull(syntaxAndPattern, () -> "null syntaxAndPattern")
+                .indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Invalid syntax and pattern: " + syntaxAndPattern);
+        }
+        final String syntax = syntaxAndPattern.substring(0, colon);
+        final String pattern = syntaxAndPattern.substring(colon + 1);
+        if (GLOB_SYNTAX.equalsIgnoreCase(syntax)) {
+            return GlobPathMatcher.compile(pattern);
+        }
+        if (REGEX_SYNTAX.equalsIgnoreCase(syntax)) {
+            final Pattern regex = Pattern.compile(pattern);
+            return path -> path instanceof HttpPath
+                    && regex.matcher(((HttpPath) path).getMatchingPathString()).matches();
+        }
+        throw new UnsupportedOperationException("Syntax '" + syntax + "' not recognized");
     }
 
     @Override
@@ -172,14 +960,14 @@ final class HttpFileSystem extends FileSystem {
             return true;
         } else if (other instanceof HttpFileSystem) {
             final HttpFileSystem ofs = (HttpFileSystem) other;
-            return provider() == ofs.provider() && getAuthority()
-                    .equalsIgnoreCase(ofs.getAuthority());
+            return provider() == ofs.provider()
+                    && canonicalAuthority.equals(ofs.canonicalAuthority);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return 31 * provider.hashCode() + getAuthority().toLowerCase().hashCode();
+        return 31 * provider.hashCode() + canonicalAuthority.hashCode();
     }
 }
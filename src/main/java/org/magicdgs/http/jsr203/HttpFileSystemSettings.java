@@ -0,0 +1,507 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings for a {@link HttpFileSystem}.
+ *
+ * <p>The settings are provided as the environment map when a new File System is created with
+ * {@link java.nio.file.FileSystems#newFileSystem(java.net.URI, Map)}. Values can be provided
+ * either as {@link Number} or as {@link String}; keys not present use the default value.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public final class HttpFileSystemSettings {
+
+    /**
+     * Maximum number of consecutive times that an interrupted stream is resumed without reading
+     * any byte (default: {@value #DEFAULT_RESUME_MAX_RETRIES}). Use {@code 0} to disable
+     * resuming.
+     */
+    public static final String RESUME_MAX_RETRIES_KEY = "resumeMaxRetries";
+
+    /**
+     * Backoff (in milliseconds) before the first resume attempt, doubled on each subsequent one
+     * (default: {@value #DEFAULT_RESUME_INITIAL_BACKOFF_MILLIS}).
+     */
+    public static final String RESUME_INITIAL_BACKOFF_MILLIS_KEY = "resumeInitialBackoffMillis";
+
+    /**
+     * Maximum backoff (in milliseconds) between resume attempts
+     * (default: {@value #DEFAULT_RESUME_MAX_BACKOFF_MILLIS}).
+     */
+    public static final String RESUME_MAX_BACKOFF_MILLIS_KEY = "resumeMaxBackoffMillis";
+
+    /**
+     * Percentile of the recent latency after which a bounded range request without response is
+     * duplicated, using the first response (default: {@value #DEFAULT_HEDGE_PERCENTILE}). Use
+     * {@code 0} to disable hedging.
+     */
+    public static final String HEDGE_PERCENTILE_KEY = "hedgePercentile";
+
+    /**
+     * Minimum delay (in milliseconds) before duplicating a bounded range request
+     * (default: {@value #DEFAULT_HEDGE_MIN_DELAY_MILLIS}).
+     */
+    public static final String HEDGE_MIN_DELAY_MILLIS_KEY = "hedgeMinDelayMillis";
+
+    /**
+     * Maximum number of unread bytes (default: {@value #DEFAULT_DRAIN_THRESHOLD_BYTES}) to drain
+     * an open-ended stream for re-using the connection when the channel is closed or it seeks.
+     * Streams with a larger remainder are aborted, closing the connection. This is also the
+     * maximum distance to skip bytes on forward seeks instead of opening a new request.
+     */
+    public static final String DRAIN_THRESHOLD_BYTES_KEY = "drainThresholdBytes";
+
+    /**
+     * Size (in bytes) of the blocks requested for positional reads
+     * (default: {@value #DEFAULT_BLOCK_SIZE}). Concurrent requests for the same block of a
+     * resource share a single network fetch.
+     */
+    public static final String BLOCK_SIZE_KEY = "blockSize";
+
+    /**
+     * Maximum number of blocks kept in memory for re-use
+     * (default: {@value #DEFAULT_BLOCK_CACHE_CAPACITY}). Use {@code 0} to disable the cache.
+     */
+    public static final String BLOCK_CACHE_CAPACITY_KEY = "blockCacheCapacity";
+
+    /**
+     * Policy for admission and eviction of blocks in the cache (default: {@code TINY_LFU}). The
+     * value is the name of a {@link BlockCachePolicy} (case-insensitive).
+     */
+    public static final String BLOCK_CACHE_POLICY_KEY = "blockCachePolicy";
+
+    /**
+     * Maximum number of canonical paths kept by {@link HttpFileSystem#getPath(String, String...)}
+     * for repeated inputs (default: {@value #DEFAULT_PATH_INTERN_CAPACITY}). Use {@code 0} to
+     * disable interning.
+     */
+    public static final String PATH_INTERN_CAPACITY_KEY = "pathInternCapacity";
+
+    /**
+     * Maximum number of known paths (opened, checked or listed) kept in the index of the File
+     * System, used by {@link HttpFileSystem#getKnownPaths(java.nio.file.Path)} and to find the
+     * cached paths on {@link HttpFileSystem#invalidate(java.nio.file.Path)} (default:
+     * {@value #DEFAULT_PATH_INDEX_CAPACITY}). Once the index is full, further paths are not
+     * indexed and a warning is logged. Use {@code 0} to disable the index.
+     */
+    public static final String PATH_INDEX_CAPACITY_KEY = "pathIndexCapacity";
+
+    /**
+     * Maximum number of paths with their attributes kept in memory to avoid repeated HEAD
+     * requests (default: {@value #DEFAULT_ATTRIBUTE_CACHE_CAPACITY}). Use {@code 0} to disable
+     * the cache.
+     */
+    public static final String ATTRIBUTE_CACHE_CAPACITY_KEY = "attributeCacheCapacity";
+
+    /**
+     * Time (in milliseconds) to keep the attributes of a path in memory before requesting them
+     * again (default: {@value #DEFAULT_ATTRIBUTE_CACHE_TTL_MILLIS}). Changes in the server are
+     * not visible until the cached attributes expire. Use {@code 0} to disable the cache.
+     */
+    public static final String ATTRIBUTE_CACHE_TTL_MILLIS_KEY = "attributeCacheTtlMillis";
+
+    /**
+     * Absolute path in the File System of a manifest with the published files (default: none).
+     * If present, directories are listed from the manifest instead of autoindex pages, and it
+     * provides the attributes of the files without HEAD requests. See the format in
+     * {@link #getManifestPath()}.
+     */
+    public static final String MANIFEST_PATH_KEY = "manifestPath";
+
+    /**
+     * Maximum number of concurrent background requests to the authority of the File System for
+     * bulk operations, such as fetching the directory listings of a tree walk or the attributes
+     * of many paths (default: {@value #DEFAULT_MAX_CONCURRENT_REQUESTS}). Must be positive.
+     */
+    public static final String MAX_CONCURRENT_REQUESTS_KEY = "maxConcurrentRequests";
+
+    /**
+     * Maximum number of platform threads for other background requests, such as hedged range
+     * requests or content publishers (default: {@value #DEFAULT_MAX_BACKGROUND_THREADS}); further
+     * requests are queued. Must be positive. Ignored for virtual threads.
+     */
+    public static final String MAX_BACKGROUND_THREADS_KEY = "maxBackgroundThreads";
+
+    /**
+     * Kind of threads running the background requests (default: {@code PLATFORM}). The value is
+     * the name of a {@link ThreadMode} (case-insensitive).
+     */
+    public static final String THREAD_MODE_KEY = "threadMode";
+
+    private static final int DEFAULT_RESUME_MAX_RETRIES = 3;
+    private static final long DEFAULT_RESUME_INITIAL_BACKOFF_MILLIS = 100;
+    private static final long DEFAULT_RESUME_MAX_BACKOFF_MILLIS = 5000;
+    private static final int DEFAULT_HEDGE_PERCENTILE = 0;
+    private static final long DEFAULT_HEDGE_MIN_DELAY_MILLIS = 10;
+    private static final long DEFAULT_DRAIN_THRESHOLD_BYTES = 64 * 1024;
+    private static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    private static final int DEFAULT_BLOCK_CACHE_CAPACITY = 0;
+    private static final BlockCachePolicy DEFAULT_BLOCK_CACHE_POLICY = BlockCachePolicy.TINY_LFU;
+    private static final int DEFAULT_PATH_INTERN_CAPACITY = 0;
+    private static final int DEFAULT_PATH_INDEX_CAPACITY = 100_000;
+    private static final int DEFAULT_ATTRIBUTE_CACHE_CAPACITY = 100_000;
+    private static final long DEFAULT_ATTRIBUTE_CACHE_TTL_MILLIS = 30_000;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    private static final int DEFAULT_MAX_BACKGROUND_THREADS = 64;
+    private static final ThreadMode DEFAULT_THREAD_MODE = ThreadMode.PLATFORM;
+
+    /**
+     * Policies for admission and eviction of blocks in the cache.
+     */
+    public enum BlockCachePolicy {
+        /** Admits every block and evicts the least recently used. */
+        LRU,
+        /**
+         * Admits a block only if it is more frequently requested than the eviction candidate
+         * (TinyLFU), and evicts from a segmented LRU. Resistant to large sequential scans.
+         */
+        TINY_LFU
+    }
+
+    /**
+     * Kinds of threads running the background requests.
+     */
+    public enum ThreadMode {
+        /** Daemon platform threads. */
+        PLATFORM,
+        /**
+         * Virtual threads, which are cheap to block on network I/O. If the JVM does not support
+         * them (before Java 21), platform threads are used instead.
+         */
+        VIRTUAL
+    }
+
+    /** Settings used if no environment is provided. */
+    static final HttpFileSystemSettings DEFAULT = new HttpFileSystemSettings(Collections.emptyMap());
+
+    private final int resumeMaxRetries;
+    private final long resumeInitialBackoffMillis;
+    private final long resumeMaxBackoffMillis;
+    private final int hedgePercentile;
+    private final long hedgeMinDelayMillis;
+    private final long drainThresholdBytes;
+    private final int blockSize;
+    private final int blockCacheCapacity;
+    private final BlockCachePolicy blockCachePolicy;
+    private final int pathInternCapacity;
+    private final int pathIndexCapacity;
+    private final int attributeCacheCapacity;
+    private final long attributeCacheTtlMillis;
+    private final String manifestPath;
+    private final int maxConcurrentRequests;
+    private final int maxBackgroundThreads;
+    private final ThreadMode threadMode;
+
+    /**
+     * Creates the settings from the environment map.
+     *
+     * @param env non {@code null} environment map.
+     *
+     * @throws IllegalArgumentException if any of the values is invalid.
+     */
+    HttpFileSystemSettings(final Map<String, ?> env) {
+        Utils.nonNull(env, () -> "null env");
+        this.resumeMaxRetries = (int) Math.min(Integer.MAX_VALUE,
+                getNonNegative(env, RESUME_MAX_RETRIES_KEY, DEFAULT_RESUME_MAX_RETRIES));
+        this.resumeInitialBackoffMillis = getNonNegative(env, RESUME_INITIAL_BACKOFF_MILLIS_KEY,
+                DEFAULT_RESUME_INITIAL_BACKOFF_MILLIS);
+        this.resumeMaxBackoffMillis = getNonNegative(env, RESUME_MAX_BACKOFF_MILLIS_KEY,
+                DEFAULT_RESUME_MAX_BACKOFF_MILLIS);
+        this.hedgePercentile = (int) getNonNegative(env, HEDGE_PERCENTILE_KEY,
+                DEFAULT_HEDGE_PERCENTILE);
+        if (hedgePercentile > 100) {
+            throw new IllegalArgumentException(String.format("Invalid %s (should be in [0, 100]): %s",
+                    HEDGE_PERCENTILE_KEY, hedgePercentile));
+        }
+        this.hedgeMinDelayMillis = getNonNegative(env, HEDGE_MIN_DELAY_MILLIS_KEY,
+                DEFAULT_HEDGE_MIN_DELAY_MILLIS);
+        this.drainThresholdBytes = getNonNegative(env, DRAIN_THRESHOLD_BYTES_KEY,
+                DEFAULT_DRAIN_THRESHOLD_BYTES);
+        final long blockSize = getNonNegative(env, BLOCK_SIZE_KEY, DEFAULT_BLOCK_SIZE);
+        if (blockSize == 0 || blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid %s (should be in [1, %s]): %s",
+                    BLOCK_SIZE_KEY, Integer.MAX_VALUE, blockSize));
+        }
+        this.blockSize = (int) blockSize;
+        this.blockCacheCapacity = (int) Math.min(Integer.MAX_VALUE,
+                getNonNegative(env, BLOCK_CACHE_CAPACITY_KEY, DEFAULT_BLOCK_CACHE_CAPACITY));
+        this.blockCachePolicy = getEnum(env, BLOCK_CACHE_POLICY_KEY, BlockCachePolicy.class,
+                DEFAULT_BLOCK_CACHE_POLICY);
+        this.pathInternCapacity = (int) Math.min(Integer.MAX_VALUE,
+                getNonNegative(env, PATH_INTERN_CAPACITY_KEY, DEFAULT_PATH_INTERN_CAPACITY));
+        this.pathIndexCapacity = (int) Math.min(Integer.MAX_VALUE,
+                getNonNegative(env, PATH_INDEX_CAPACITY_KEY, DEFAULT_PATH_INDEX_CAPACITY));
+        this.attributeCacheCapacity = (int) Math.min(Integer.MAX_VALUE, getNonNegative(env,
+                ATTRIBUTE_CACHE_CAPACITY_KEY, DEFAULT_ATTRIBUTE_CACHE_CAPACITY));
+        this.attributeCacheTtlMillis = getNonNegative(env, ATTRIBUTE_CACHE_TTL_MILLIS_KEY,
+                DEFAULT_ATTRIBUTE_CACHE_TTL_MILLIS);
+        this.manifestPath = getManifestPath(env);
+        this.maxConcurrentRequests = getPositiveInt(env, MAX_CONCURRENT_REQUESTS_KEY,
+                DEFAULT_MAX_CONCURRENT_REQUESTS);
+        this.maxBackgroundThreads = getPositiveInt(env, MAX_BACKGROUND_THREADS_KEY,
+                DEFAULT_MAX_BACKGROUND_THREADS);
+        this.threadMode = getEnum(env, THREAD_MODE_KEY, ThreadMode.class, DEFAULT_THREAD_MODE);
+    }
+
+    /**
+     * Gets the maximum number of resume attempts for an interrupted stream.
+     *
+     * @return the maximum number of resume attempts ({@code 0} if disabled).
+     */
+    public int getResumeMaxRetries() {
+        return resumeMaxRetries;
+    }
+
+    /**
+     * Gets the backoff for the first resume attempt.
+     *
+     * @return backoff in milliseconds.
+     */
+    public long getResumeInitialBackoffMillis() {
+        return resumeInitialBackoffMillis;
+    }
+
+    /**
+     * Gets the maximum backoff between resume attempts.
+     *
+     * @return backoff in milliseconds.
+     */
+    public long getResumeMaxBackoffMillis() {
+        return resumeMaxBackoffMillis;
+    }
+
+    /**
+     * Gets the backoff before a resume attempt, doubling the initial backoff each time.
+     *
+     * @param attempt the attempt number (starting at 1).
+     *
+     * @return backoff in milliseconds.
+     */
+    long getResumeBackoffMillis(final int attempt) {
+        // cap the shift to avoid overflow
+        final long backoff = resumeInitialBackoffMillis << Math.min(attempt - 1, 20);
+        return Math.min(backoff, resumeMaxBackoffMillis);
+    }
+
+    /**
+     * Gets the percentile of the recent latency used to hedge bounded range requests.
+     *
+     * @return the percentile in the range [0, 100] ({@code 0} if disabled).
+     */
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * Gets the minimum delay before hedging a bounded range request.
+     *
+     * @return delay in milliseconds.
+     */
+    public long getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    /**
+     * Gets the maximum number of unread bytes to drain a stream for re-using the connection.
+     *
+     * @return threshold in bytes.
+     */
+    public long getDrainThresholdBytes() {
+        return drainThresholdBytes;
+    }
+
+    /**
+     * Gets the size of the blocks requested for positional reads.
+     *
+     * @return block size in bytes.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets the maximum number of blocks kept in memory.
+     *
+     * @return the capacity of the block cache ({@code 0} if disabled).
+     */
+    public int getBlockCacheCapacity() {
+        return blockCacheCapacity;
+    }
+
+    /**
+     * Gets the policy for admission and eviction of blocks in the cache.
+     *
+     * @return the block cache policy.
+     */
+    public BlockCachePolicy getBlockCachePolicy() {
+        return blockCachePolicy;
+    }
+
+    /**
+     * Gets the maximum number of canonical paths kept for repeated inputs.
+     *
+     * @return the capacity of the path interning pool ({@code 0} if disabled).
+     */
+    public int getPathInternCapacity() {
+        return pathInternCapacity;
+    }
+
+    /**
+     * Gets the maximum number of known paths kept in the index.
+     *
+     * @return the capacity of the path index ({@code 0} if disabled).
+     */
+    public int getPathIndexCapacity() {
+        return pathIndexCapacity;
+    }
+
+    /**
+     * Gets the maximum number of paths with their attributes kept in memory.
+     *
+     * @return the capacity of the attribute cache ({@code 0} if disabled).
+     */
+    public int getAttributeCacheCapacity() {
+        return attributeCacheCapacity;
+    }
+
+    /**
+     * Gets the time to keep the attributes of a path in memory.
+     *
+     * @return time in milliseconds ({@code 0} if the attribute cache is disabled).
+     */
+    public long getAttributeCacheTtlMillis() {
+        return attributeCacheTtlMillis;
+    }
+
+    /**
+     * Gets the path of the manifest with the published files.
+     *
+     * <p>The manifest is a UTF-8 text file with a line for each file, and tab-separated columns:
+     * the path of the file (percent-encoded as in the URL, and relative to the directory of the
+     * manifest if it does not start with {@code /}), its size in bytes and, optionally, its ETag.
+     * Empty lines and lines starting with {@code #} are ignored.
+     *
+     * @return the absolute path of the manifest; {@code null} if there is no manifest.
+     */
+    public String getManifestPath() {
+        return manifestPath;
+    }
+
+    /**
+     * Gets the maximum number of concurrent background requests for bulk operations.
+     *
+     * @return the maximum number of concurrent requests (at least {@code 1}).
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Gets the maximum number of platform threads for other background requests.
+     *
+     * @return the maximum number of threads (at least {@code 1}).
+     */
+    public int getMaxBackgroundThreads() {
+        return maxBackgroundThreads;
+    }
+
+    /**
+     * Gets the kind of threads running the background requests.
+     *
+     * @return the thread mode.
+     */
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    // gets the manifest path from the environment
+    private static String getManifestPath(final Map<String, ?> env) {
+        final Object value = env.get(MANIFEST_PATH_KEY);
+        if (value == null) {
+            return null;
+        }
+        final String path = value.toString().trim();
+        if (!path.startsWith(HttpUtils.HTTP_PATH_SEPARATOR_STRING)) {
+            throw new IllegalArgumentException(String.format("Invalid %s (should be absolute): %s",
+                    MANIFEST_PATH_KEY, value));
+        }
+        return path;
+    }
+
+    // gets an enum constant from the environment, by name (case-insensitive)
+    private static <T extends Enum<T>> T getEnum(final Map<String, ?> env, final String key,
+            final Class<T> type, final T defaultValue) {
+        final Object value = env.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        try {
+            return Enum.valueOf(type, value.toString().trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s: %s", key, value), e);
+        }
+    }
+
+    // gets a non-negative long value from the environment
+    private static long getNonNegative(final Map<String, ?> env, final String key,
+            final long defaultValue) {
+        final Object value = env.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        final long parsed;
+        try {
+            parsed = (value instanceof Number)
+                    ? ((Number) value).longValue()
+                    : Long.parseLong(value.toString().trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s: %s", key, value), e);
+        }
+        if (parsed < 0) {
+            throw new IllegalArgumentException(String.format("Negative %s: %s", key, value));
+        }
+        return parsed;
+    }
+
+    // gets a positive int value from the environment
+    private static int getPositiveInt(final Map<String, ?> env, final String key,
+            final int defaultValue) {
+        final long value = getNonNegative(env, key, defaultValue);
+        if (value == 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid %s (should be in [1, %s]): %s",
+                    key, Integer.MAX_VALUE, value));
+        }
+        return (int) value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, "
+                        + "%s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s, %s=%s]",
+                this.getClass().getSimpleName(),
+                RESUME_MAX_RETRIES_KEY, resumeMaxRetries,
+                RESUME_INITIAL_BACKOFF_MILLIS_KEY, resumeInitialBackoffMillis,
+                RESUME_MAX_BACKOFF_MILLIS_KEY, resumeMaxBackoffMillis,
+                HEDGE_PERCENTILE_KEY, hedgePercentile,
+                HEDGE_MIN_DELAY_MILLIS_KEY, hedgeMinDelayMillis,
+                DRAIN_THRESHOLD_BYTES_KEY, drainThresholdBytes,
+                BLOCK_SIZE_KEY, blockSize,
+                BLOCK_CACHE_CAPACITY_KEY, blockCacheCapacity,
+                BLOCK_CACHE_POLICY_KEY, blockCachePolicy,
+                PATH_INTERN_CAPACITY_KEY, pathInternCapacity,
+                PATH_INDEX_CAPACITY_KEY, pathIndexCapacity,
+                ATTRIBUTE_CACHE_CAPACITY_KEY, attributeCacheCapacity,
+                ATTRIBUTE_CACHE_TTL_MILLIS_KEY, attributeCacheTtlMillis,
+                MANIFEST_PATH_KEY, manifestPath,
+                MAX_CONCURRENT_REQUESTS_KEY, maxConcurrentRequests,
+                MAX_BACKGROUND_THREADS_KEY, maxBackgroundThreads,
+                THREAD_MODE_KEY, threadMode);
+    }
+}
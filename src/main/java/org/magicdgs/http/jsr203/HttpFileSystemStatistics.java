@@ -0,0 +1,210 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the network activity of a {@link HttpFileSystem}.
+ *
+ * <p>The counters are thread-safe and only increase during the lifetime of the File System.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public final class HttpFileSystemStatistics {
+
+    // number of interrupted streams that were resumed
+    private final LongAdder resumes = new LongAdder();
+    // number of hedged requests and how many times the hedge answered first
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    // number of released streams that were drained for re-use or aborted
+    private final LongAdder drainedConnections = new LongAdder();
+    private final LongAdder abortedConnections = new LongAdder();
+    // number of blocks fetched from the network and requests that joined an in-flight fetch
+    private final LongAdder blockFetches = new LongAdder();
+    private final LongAdder coalescedBlockFetches = new LongAdder();
+    // activity of the block cache, with the configured policy
+    private final LongAdder blockCacheHits = new LongAdder();
+    private final LongAdder blockCacheMisses = new LongAdder();
+    private final LongAdder blockCacheEvictions = new LongAdder();
+    // number of paths returned from the interning pool
+    private final LongAdder pathInternHits = new LongAdder();
+    // number of paths not registered in the full index of known paths
+    private final LongAdder pathIndexRejections = new LongAdder();
+
+    /** Package-private constructor - only created by the File System. */
+    HttpFileSystemStatistics() {}
+
+    /**
+     * Gets the number of times that an interrupted stream was resumed at the current position.
+     *
+     * @return number of resumed streams.
+     */
+    public long getResumeCount() {
+        return resumes.sum();
+    }
+
+    void incrementResumes() {
+        resumes.increment();
+    }
+
+    /**
+     * Gets the number of bounded range requests that were duplicated because of slow responses.
+     *
+     * @return number of hedged requests.
+     */
+    public long getHedgedRequestCount() {
+        return hedgedRequests.sum();
+    }
+
+    void incrementHedgedRequests() {
+        hedgedRequests.increment();
+    }
+
+    /**
+     * Gets the number of hedged requests where the duplicate answered first.
+     *
+     * @return number of hedged requests won by the duplicate.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    void incrementHedgeWins() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Gets the number of released streams that were drained to re-use the connection.
+     *
+     * @return number of drained connections.
+     */
+    public long getDrainedConnectionCount() {
+        return drainedConnections.sum();
+    }
+
+    void incrementDrainedConnections() {
+        drainedConnections.increment();
+    }
+
+    /**
+     * Gets the number of released streams that were aborted, closing the connection.
+     *
+     * @return number of aborted connections.
+     */
+    public long getAbortedConnectionCount() {
+        return abortedConnections.sum();
+    }
+
+    void incrementAbortedConnections() {
+        abortedConnections.increment();
+    }
+
+    /**
+     * Gets the number of bounded range requests issued for positional reads. Consecutive
+     * missing blocks are fetched with a single request.
+     *
+     * @return number of block fetches.
+     */
+    public long getBlockFetchCount() {
+        return blockFetches.sum();
+    }
+
+    void incrementBlockFetches() {
+        blockFetches.increment();
+    }
+
+    /**
+     * Gets the number of block requests that waited for an identical in-flight fetch instead of
+     * issuing a new one.
+     *
+     * @return number of coalesced block requests.
+     */
+    public long getCoalescedBlockFetchCount() {
+        return coalescedBlockFetches.sum();
+    }
+
+    void incrementCoalescedBlockFetches() {
+        coalescedBlockFetches.increment();
+    }
+
+    /**
+     * Gets the number of block requests served from the cache.
+     *
+     * @return number of cache hits.
+     */
+    public long getBlockCacheHitCount() {
+        return blockCacheHits.sum();
+    }
+
+    void incrementBlockCacheHits() {
+        blockCacheHits.increment();
+    }
+
+    /**
+     * Gets the number of block requests not found in the cache (only if the cache is enabled).
+     *
+     * @return number of cache misses.
+     */
+    public long getBlockCacheMissCount() {
+        return blockCacheMisses.sum();
+    }
+
+    void incrementBlockCacheMisses() {
+        blockCacheMisses.increment();
+    }
+
+    /**
+     * Gets the number of blocks evicted from the cache to make room for others.
+     *
+     * @return number of cache evictions.
+     */
+    public long getBlockCacheEvictionCount() {
+        return blockCacheEvictions.sum();
+    }
+
+    void incrementBlockCacheEvictions() {
+        blockCacheEvictions.increment();
+    }
+
+    /**
+     * Gets the number of paths returned from the interning pool without parsing.
+     *
+     * @return number of interning hits.
+     */
+    public long getPathInternHitCount() {
+        return pathInternHits.sum();
+    }
+
+    void incrementPathInternHits() {
+        pathInternHits.increment();
+    }
+
+    /**
+     * Gets the number of paths that were not registered in the index of known paths because it
+     * was full.
+     *
+     * @return number of rejected paths.
+     */
+    public long getPathIndexRejectionCount() {
+        return pathIndexRejections.sum();
+    }
+
+    void incrementPathIndexRejections() {
+        pathIndexRejections.increment();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[resumes=%s, hedgedRequests=%s, hedgeWins=%s, "
+                        + "drainedConnections=%s, abortedConnections=%s, "
+                        + "blockFetches=%s, coalescedBlockFetches=%s, "
+                        + "blockCacheHits=%s, blockCacheMisses=%s, blockCacheEvictions=%s, "
+                        + "pathInternHits=%s, pathIndexRejections=%s]",
+                this.getClass().getSimpleName(),
+                getResumeCount(), getHedgedRequestCount(), getHedgeWinCount(),
+                getDrainedConnectionCount(), getAbortedConnectionCount(),
+                getBlockFetchCount(), getCoalescedBlockFetchCount(),
+                getBlockCacheHitCount(), getBlockCacheMissCount(), getBlockCacheEvictionCount(),
+                getPathInternHitCount(), getPathIndexRejectionCount());
+    }
+}
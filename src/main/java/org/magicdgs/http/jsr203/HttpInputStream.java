@@ -0,0 +1,196 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Buffered {@link InputStream} over the body of a single {@code GET} request, for sequential
+ * reads of a HTTP/S resource.
+ *
+ * <p>The resource is not checked with a {@code HEAD} request before opening: the response of the
+ * {@code GET} request is used instead. The buffer is taken from the pool of the
+ * {@link HttpFileSystem}, and it is returned on close. Closing the File System aborts the
+ * transfer, and further reads fail.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ * @implNote this stream is not thread-safe: it is meant to be used by a single thread, as most
+ * streams are, to avoid the locking of {@link java.io.BufferedInputStream}.
+ */
+final class HttpInputStream extends InputStream implements Abortable {
+
+    private final HttpFileSystem fs;
+    private final HttpURLConnection connection;
+    private final InputStream body;
+
+    // set when the File System is closed
+    private volatile boolean aborted = false;
+
+    // buffer from the pool (null when closed) and its unread bytes (from position to count)
+    private ByteBuffer buffer;
+    private byte[] bytes;
+    private int position = 0;
+    private int count = 0;
+
+    private HttpInputStream(final HttpFileSystem fs, final HttpURLConnection connection)
+            throws IOException {
+        this.fs = fs;
+        this.connection = connection;
+        this.body = connection.getInputStream();
+        this.buffer = fs.getBufferPool().acquire();
+        this.bytes = buffer.array();
+    }
+
+    /**
+     * Opens a stream for the content of a resource.
+     *
+     * @param url the URL of the resource.
+     * @param fs  the File System for the URL.
+     *
+     * @return the stream.
+     *
+     * @throws NoSuchFileException if the resource does not exist.
+     * @throws IOException         if an I/O error occurs.
+     */
+    static HttpInputStream open(final URL url, final HttpFileSystem fs) throws IOException {
+        fs.checkOpen();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(url.toString());
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot open %s: %s %s",
+                        url, code, connection.getResponseMessage()));
+            }
+            final HttpInputStream stream = new HttpInputStream(fs, connection);
+            try {
+                fs.registerResource(stream);
+            } catch (final ClosedFileSystemException e) {
+                // closed while opening
+                stream.abort();
+                stream.close();
+                throw e;
+            }
+            return stream;
+        } catch (final IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == count && fill() == -1) {
+            return -1;
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        checkOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int available = count - position;
+        if (available == 0) {
+            if (len >= bytes.length) {
+                // large reads bypass the buffer
+                return body.read(b, off, len);
+            }
+            available = fill();
+            if (available == -1) {
+                return -1;
+            }
+        }
+        final int n = Math.min(available, len);
+        System.arraycopy(bytes, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        checkOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        final int available = count - position;
+        if (available > 0) {
+            final int skipped = (int) Math.min(available, n);
+            position += skipped;
+            return skipped;
+        }
+        return body.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkOpen();
+        return (count - position) + body.available();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The connection is re-used if the remainder of the body is small, unless the stream was
+     * aborted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            fs.getBufferPool().release(buffer);
+            buffer = null;
+            bytes = null;
+            position = 0;
+            count = 0;
+            fs.unregisterResource(this);
+            if (aborted) {
+                connection.disconnect();
+            } else {
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Further reads throw {@link IOException}, but the stream should still be closed.
+     */
+    @Override
+    public void abort() {
+        aborted = true;
+        connection.disconnect();
+    }
+
+    // fills the buffer with the next bytes, returning the number of bytes read or -1 at EOF
+    private int fill() throws IOException {
+        checkOpen();
+        int read;
+        do {
+            read = body.read(bytes, 0, bytes.length);
+        } while (read == 0);
+        position = 0;
+        count = Math.max(read, 0);
+        return read;
+    }
+
+    private void checkOpen() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Stream closed");
+        }
+        if (aborted) {
+            throw new IOException("Stream aborted: File System closed");
+        }
+    }
+}
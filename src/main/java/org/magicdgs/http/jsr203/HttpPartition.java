@@ -0,0 +1,470 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Byte range of a HTTP/S resource, obtained by splitting it into partitions for parallel
+ * processing with {@link HttpFileSystem#split(java.nio.file.Path, int, HttpPartition.Aligner)}.
+ *
+ * <p>Each partition reads its range with its own connection: the channels returned by
+ * {@link #newByteChannel()} request the range in the bulk executor of the File System when they
+ * are created, so the partitions prefetch their content independently of each other. The
+ * requests are guarded by the validator of the resource when it was split ({@code If-Range}),
+ * so reading a partition fails if the resource changed.
+ *
+ * <p>The boundaries between partitions are moved forward by an {@link Aligner} (e.g., to the
+ * start of a line), so records are not split between partitions.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public final class HttpPartition {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpPartition.class);
+
+    // size of the buffer to find the boundaries
+    private static final int SCAN_BUFFER_SIZE = 256;
+
+    private final HttpPath path;
+    private final URL url;
+    private final String validator;
+    private final int index;
+    private final long start;
+    private final long end;
+
+    /**
+     * Moves the boundaries between partitions to the start of the next record.
+     */
+    @FunctionalInterface
+    public interface Aligner {
+
+        /**
+         * Finds the first boundary at or after a position.
+         *
+         * @param resource channel over the whole resource, which should not be closed.
+         * @param position position of the candidate boundary (between {@code 1} and the size of
+         *                 the resource, exclusive).
+         *
+         * @return the position of the boundary; the size of the resource if there is none.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        long align(SeekableByteChannel resource, long position) throws IOException;
+
+        /**
+         * Aligner keeping the boundaries at the candidate positions (fixed-size partitions).
+         *
+         * @return the aligner.
+         */
+        static Aligner none() {
+            return (resource, position) -> position;
+        }
+
+        /**
+         * Aligner moving the boundaries after the next delimiter (e.g., {@code '\n'} for text
+         * files). A candidate right after a delimiter is already a boundary.
+         *
+         * @param delimiter the byte ending the records.
+         *
+         * @return the aligner.
+         */
+        static Aligner afterDelimiter(final byte delimiter) {
+            final byte[] marker = {delimiter};
+            return (resource, position) -> {
+                final long found = find(resource, position - 1, marker);
+                return (found == -1) ? resource.size() : found + 1;
+            };
+        }
+
+        /**
+         * Aligner moving the boundaries to the next occurrence of a marker starting the records
+         * (e.g., the header of the blocks in a block-compressed file).
+         *
+         * <p>Note that the marker might occur within the records; if that is possible, a custom
+         * aligner should validate the candidates.
+         *
+         * @param marker the bytes starting the records.
+         *
+         * @return the aligner.
+         */
+        static Aligner atMarker(final byte[] marker) {
+            if (Utils.nonNull(marker, () -> "null marker").length == 0) {
+                throw new IllegalArgumentException("Empty marker");
+            }
+            final byte[] copy = marker.clone();
+            return (resource, position) -> {
+                final long found = find(resource, position, copy);
+                return (found == -1) ? resource.size() : found;
+            };
+        }
+    }
+
+    /**
+     * Creates a new partition.
+     *
+     * @param path      the resource.
+     * @param url       the URL of the resource.
+     * @param validator validator for {@code If-Range}; {@code null} if not available.
+     * @param index     index of the partition.
+     * @param start     first byte of the partition.
+     * @param end       end of the partition (exclusive).
+     */
+    HttpPartition(final HttpPath path, final URL url, final String validator, final int index,
+            final long start, final long end) {
+        this.path = path;
+        this.url = url;
+        this.validator = validator;
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the split resource.
+     *
+     * @return the path of the resource.
+     */
+    public HttpPath getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the index of this partition, from {@code 0} to the number of partitions (exclusive).
+     *
+     * @return the index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the position of the first byte of this partition in the resource.
+     *
+     * @return the start (inclusive).
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the position after the last byte of this partition in the resource, which is the
+     * start of the next partition.
+     *
+     * @return the end (exclusive).
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the number of bytes of this partition; it might be {@code 0} if there is no boundary
+     * in its range.
+     *
+     * @return the size.
+     */
+    public long size() {
+        return end - start;
+    }
+
+    /**
+     * Opens a channel to read this partition, with positions relative to its start.
+     *
+     * <p>The range is requested in the background when the channel is created.
+     *
+     * @return a new channel.
+     *
+     * @throws java.nio.file.ClosedFileSystemException if the File System is closed.
+     */
+    public SeekableByteChannel newByteChannel() {
+        return new PartitionChannel();
+    }
+
+    /**
+     * Opens a stream to read this partition.
+     *
+     * @return a new stream.
+     *
+     * @throws java.nio.file.ClosedFileSystemException if the File System is closed.
+     * @see #newByteChannel()
+     */
+    public InputStream newInputStream() {
+        return Channels.newInputStream(newByteChannel());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s, index=%s, bytes=%s-%s]",
+                this.getClass().getSimpleName(), path, index, start, end);
+    }
+
+    // finds the first occurrence of the marker at or after a position; -1 if not found
+    private static long find(final SeekableByteChannel resource, final long position,
+            final byte[] marker) throws IOException {
+        // last bytes read, to match the marker across reads
+        final byte[] window = new byte[marker.length];
+        // small reads, because the boundary is usually close to the position
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        resource.position(position);
+        long current = position;
+        while (resource.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                System.arraycopy(window, 1, window, 0, window.length - 1);
+                window[window.length - 1] = buffer.get();
+                current++;
+                if (current - position >= marker.length && matches(window, marker)) {
+                    return current - marker.length;
+                }
+            }
+            buffer.clear();
+        }
+        return -1;
+    }
+
+    private static boolean matches(final byte[] window, final byte[] marker) {
+        for (int i = 0; i < marker.length; i++) {
+            if (window[i] != marker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // channel reading the range of the partition with a single connection, aborted when the
+    // File System is closed
+    private final class PartitionChannel implements SeekableByteChannel, Abortable {
+
+        private final HttpFileSystem fs = path.getFileSystem();
+
+        // position relative to the start of the partition
+        private long position = 0;
+        private volatile boolean open = true;
+        // set when the File System is closed, to do not abort the connection twice
+        private volatile boolean aborted = false;
+
+        // request in the background for the start of the partition (null if not pending)
+        private Future<HttpURLConnection> prefetch;
+        // volatile because it is disconnected on close while prefetching
+        private volatile HttpURLConnection connection = null;
+        private ReadableByteChannel channel = null;
+
+        private PartitionChannel() {
+            fs.registerResource(this);
+            if (size() != 0) {
+                try {
+                    prefetch = fs.getBulkExecutor().submit(() -> request(0));
+                } catch (final RejectedExecutionException e) {
+                    // requested on the first read
+                    prefetch = null;
+                }
+            }
+        }
+
+        @Override
+        public synchronized int read(final ByteBuffer dst) throws IOException {
+            if (!isOpen()) {
+                throw new ClosedChannelException();
+            }
+            final long remaining = size() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (!dst.hasRemaining()) {
+                return 0;
+            }
+            if (channel == null) {
+                openStream();
+            }
+            final int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                final int read = channel.read(dst);
+                if (read == -1) {
+                    throw new EOFException(String.format(
+                            "Premature end of stream for %s at byte %s (expected %s)",
+                            url, start + position, end));
+                }
+                position += read;
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        // opens the stream at the current position, from the prefetch if it is still valid
+        private void openStream() throws IOException {
+            HttpURLConnection opened = null;
+            if (prefetch != null) {
+                opened = awaitPrefetch();
+                if (position != 0) {
+                    abort(opened);
+                    opened = null;
+                }
+            }
+            if (opened == null) {
+                fs.checkOpen();
+                opened = request(position);
+            }
+            channel = Channels.newChannel(opened.getInputStream());
+        }
+
+        // waits for the prefetched connection
+        private HttpURLConnection awaitPrefetch() throws IOException {
+            final Future<HttpURLConnection> pending = prefetch;
+            prefetch = null;
+            try {
+                return pending.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while opening " + url);
+            } catch (final CancellationException e) {
+                // closed File System
+                throw new ClosedChannelException();
+            } catch (final ExecutionException e) {
+                throw (e.getCause() instanceof IOException) ? (IOException) e.getCause()
+                        : new IOException("Cannot open " + url, e.getCause());
+            }
+        }
+
+        // requests the rest of the partition from a relative position
+        private HttpURLConnection request(final long from) throws IOException {
+            final HttpURLConnection opened =
+                    fs.getRangeRequester().open(url, start + from, end - 1, validator);
+            connection = opened;
+            if (!isOpen()) {
+                // closed (or the File System) while requesting
+                abort(opened);
+                throw new ClosedChannelException();
+            }
+            final int code = opened.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                abort(opened);
+                throw new NoSuchFileException(url.toString());
+            }
+            if (code != HttpURLConnection.HTTP_PARTIAL) {
+                abort(opened);
+                throw new IOException(String.format("Cannot read %s (bytes=%s-%s): "
+                                + "resource changed or range unsupported (%s %s)",
+                        url, start + from, end - 1, code, opened.getResponseMessage()));
+            }
+            return opened;
+        }
+
+        private void abort(final HttpURLConnection opened) {
+            opened.disconnect();
+            fs.getStatistics().incrementAbortedConnections();
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public synchronized long position() throws IOException {
+            if (!isOpen()) {
+                throw new ClosedChannelException();
+            }
+            return position;
+        }
+
+        @Override
+        public synchronized SeekableByteChannel position(final long newPosition)
+                throws IOException {
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Cannot seek a negative position");
+            }
+            if (!isOpen()) {
+                throw new ClosedChannelException();
+            }
+            if (newPosition != position && channel != null) {
+                // the stream is opened again on the next read
+                releaseStream();
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return end - start;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open && fs.isOpen();
+        }
+
+        @Override
+        public void abort() {
+            // a concurrent read fails, and further operations as the File System is closed
+            aborted = true;
+            final HttpURLConnection current = connection;
+            if (current != null) {
+                abort(current);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (open) {
+                open = false;
+                fs.unregisterResource(this);
+                if (channel != null) {
+                    releaseStream();
+                    return;
+                }
+                if (prefetch != null) {
+                    prefetch.cancel(false);
+                    prefetch = null;
+                }
+                // prefetched connection; if it is still requested, it is aborted after the
+                // request because the channel is closed
+                final HttpURLConnection prefetched = connection;
+                if (prefetched != null && !aborted) {
+                    abort(prefetched);
+                }
+            }
+        }
+
+        // releases the current stream: closed if it is fully read or aborted otherwise
+        private void releaseStream() {
+            if (position >= size()) {
+                try {
+                    channel.close();
+                } catch (final IOException e) {
+                    LOGGER.debug("Error closing stream for {}: {}", url, e.getMessage());
+                }
+            } else if (!aborted) {
+                abort(connection);
+            }
+            channel = null;
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} over the {@link HttpPartition} of a resource of known size.
+ *
+ * <p>The candidate boundary of partition {@code i} out of {@code k} is at {@code size * i / k},
+ * and it is moved forward by the {@link HttpPartition.Aligner} when it is needed: splitting
+ * aligns the boundary at the middle of the remaining partitions, so the alignments run in the
+ * thread splitting the work (e.g., in parallel in a fork/join pool). Each aligned boundary is
+ * computed once and shared by both sides, and it is bounded by the boundaries already known, so
+ * partitions never overlap (but might be empty).
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpPartitionSpliterator implements Spliterator<HttpPartition> {
+
+    private final HttpPath path;
+    private final URL url;
+    private final long size;
+    private final String validator;
+    private final int partitions;
+    private final HttpPartition.Aligner aligner;
+
+    // next partition and end of the partitions (exclusive)
+    private int from;
+    private final int to;
+    // boundaries of the remaining partitions
+    private long start;
+    private final long end;
+
+    private HttpPartitionSpliterator(final HttpPath path, final URL url, final long size,
+            final String validator, final int partitions, final HttpPartition.Aligner aligner,
+            final int from, final int to, final long start, final long end) {
+        this.path = path;
+        this.url = url;
+        this.size = size;
+        this.validator = validator;
+        this.partitions = partitions;
+        this.aligner = aligner;
+        this.from = from;
+        this.to = to;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a spliterator over all the partitions of a resource.
+     *
+     * @param path       the resource.
+     * @param size       the size of the resource.
+     * @param validator  validator for {@code If-Range}; {@code null} if not available.
+     * @param partitions number of partitions.
+     * @param aligner    aligner for the boundaries.
+     *
+     * @return the spliterator.
+     *
+     * @throws IOException if the URL of the resource is invalid.
+     */
+    static HttpPartitionSpliterator open(final HttpPath path, final long size,
+            final String validator, final int partitions, final HttpPartition.Aligner aligner)
+            throws IOException {
+        return new HttpPartitionSpliterator(path, path.toUri().toURL(), size, validator,
+                partitions, aligner, 0, partitions, 0, size);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super HttpPartition> action) {
+        if (from >= to) {
+            return false;
+        }
+        final long next = boundary(from + 1);
+        final HttpPartition partition =
+                new HttpPartition(path, url, validator, from, start, next);
+        from++;
+        start = next;
+        action.accept(partition);
+        return true;
+    }
+
+    @Override
+    public Spliterator<HttpPartition> trySplit() {
+        if (to - from < 2) {
+            return null;
+        }
+        final int middle = (from + to) >>> 1;
+        final long boundary = boundary(middle);
+        final HttpPartitionSpliterator prefix = new HttpPartitionSpliterator(path, url, size,
+                validator, partitions, aligner, from, middle, start, boundary);
+        from = middle;
+        start = boundary;
+        return prefix;
+    }
+
+    // gets the aligned boundary before the partition, bounded by the remaining range
+    private long boundary(final int partition) {
+        if (partition == to) {
+            return end;
+        }
+        // size * partition / partitions without overflow
+        final long candidate = size / partitions * partition
+                + size % partitions * partition / partitions;
+        if (candidate <= start) {
+            return start;
+        }
+        try (final SeekableByteChannel resource =
+                new URLSeekableByteChannel(url, path.getFileSystem(), size, validator)) {
+            final long aligned = aligner.align(resource, candidate);
+            return Math.max(start, Math.min(end, aligned));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
@@ -9,10 +9,10 @@ import java.net.URISyntaxException;
 import java.nio.file.InvalidPathException;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Objects;
 
@@ -42,6 +42,19 @@ import java.util.Objects;
  *
  * </ul>
  *
+ * <p>Paths derived by navigation ({@link #getParent()}, {@link #getFileName()},
+ * {@link #getName(int)} and {@link #subpath(int, int)}) are views sharing the byte array of the
+ * original path through an offset and a length; they do not include the query and reference.
+ * Only the original path and its parents are absolute; names and subpaths are relative paths.
+ *
+ * <p>{@link #resolve(Path)}, {@link #relativize(Path)} and {@link #normalize()} work directly on
+ * the bytes of the names, without converting the path to a String or URI. As for other
+ * {@link Path} implementations, only {@link #normalize()} removes {@code .} and {@code ..} names.
+ *
+ * <p>To reduce the memory footprint of large collections of paths, only the hash code is cached
+ * (computed lazily in an int field). The String and URI representations are built on demand and
+ * not retained.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 final class HttpPath implements Path {
@@ -49,9 +62,23 @@ final class HttpPath implements Path {
     // file system (indicates the scheme - HTTP or HTTPS)
     private final HttpFileSystem fs;
 
+    // empty path for the root
+    private static final byte[] EMPTY_PATH = new byte[0];
+    // empty relative path (sentinel to distinguish it from the root)
+    private static final byte[] EMPTY_RELATIVE_PATH = new byte[0];
+
+    // names with special meaning for normalization
+    private static final byte DOT = '.';
+    // root path for the matchers
+    private static final byte[] ROOT_MATCHING_PATH = {HttpUtils.HTTP_PATH_SEPARATOR_CHAR};
+
     // path - similar to other implementation of Path
+    // might be shared with other paths, so only the bytes in [offset, offset + length) belong
+    // to this path; absolute paths start with a separator (except the root, which is empty)
     private final byte[] normalizedPath;
-    // offsets for the separator (computed if needed)
+    private final int offset;
+    private final int length;
+    // start of each name, relative to the offset (computed if needed)
     private volatile int[] offsets;
 
     // query for the URL (may be null)
@@ -59,6 +86,10 @@ final class HttpPath implements Path {
     // reference for the URL (may be null) / fragment for the URI representation
     private final String reference;
 
+    // cached hash code (computed if needed)
+    // racy single-check, as in String.hashCode
+    private int hash;
+
     /**
      * Internal constructor.
      *
@@ -66,12 +97,14 @@ final class HttpPath implements Path {
      * @param query          query. May be {@code null}.
      * @param reference      reference. May be {@code null}.
      * @param normalizedPath normalized path (as a byte array). Shouldn't be {@code null}.
+     * @param offset         first byte of the path in the array.
+     * @param length         number of bytes of the path in the array.
      *
      * @implNote does not perform any check for efficiency.
      */
     private HttpPath(final HttpFileSystem fs,
             final String query, final String reference,
-            final byte... normalizedPath) {
+            final byte[] normalizedPath, final int offset, final int length) {
         this.fs = fs;
 
         // optional query and reference components (may be null)
@@ -80,6 +113,24 @@ final class HttpPath implements Path {
 
         // normalized path bytes (shouldn't be null)
         this.normalizedPath = normalizedPath;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Internal constructor for a path using the whole array.
+     *
+     * @param fs             file system. Shouldn't be {@code null}.
+     * @param query          query. May be {@code null}.
+     * @param reference      reference. May be {@code null}.
+     * @param normalizedPath normalized path (as a byte array). Shouldn't be {@code null}.
+     *
+     * @implNote does not perform any check for efficiency.
+     */
+    private HttpPath(final HttpFileSystem fs,
+            final String query, final String reference,
+            final byte[] normalizedPath) {
+        this(fs, query, reference, normalizedPath, 0, normalizedPath.length);
     }
 
     /**
@@ -95,6 +146,36 @@ final class HttpPath implements Path {
                 getNormalizedPathBytes(Utils.nonNull(path, () -> "null path"), true));
     }
 
+    /**
+     * Creates a new Path from an already normalized path (e.g., by {@link HttpPathParser}).
+     *
+     * @param fs             file system. Shouldn't be {@code null}.
+     * @param normalizedPath normalized path (as a byte array). Shouldn't be {@code null}.
+     * @param query          query. May be {@code null}.
+     * @param reference      reference. May be {@code null}.
+     *
+     * @return the path.
+     */
+    static HttpPath ofNormalized(final HttpFileSystem fs, final byte[] normalizedPath,
+            final String query, final String reference) {
+        return new HttpPath(fs, query, reference,
+                normalizedPath.length == 0 ? EMPTY_PATH : normalizedPath);
+    }
+
+    /**
+     * Creates a new empty relative path, with optional query and reference.
+     *
+     * @param fs        file system. Shouldn't be {@code null}.
+     * @param query     query. May be {@code null}.
+     * @param reference reference. May be {@code null}.
+     *
+     * @return the empty path.
+     */
+    static HttpPath emptyPath(final HttpFileSystem fs, final String query,
+            final String reference) {
+        return new HttpPath(fs, query, reference, EMPTY_RELATIVE_PATH);
+    }
+
     @Override
     public HttpFileSystem getFileSystem() {
         return fs;
@@ -102,24 +183,44 @@ final class HttpPath implements Path {
 
     @Override
     public boolean isAbsolute() {
-        // TODO - change when we support relative Paths (https://github.com/magicDGS/jsr203-http/issues/12)
-        return true;
+        // the only empty relative path uses a sentinel array
+        return (length == 0) ? normalizedPath != EMPTY_RELATIVE_PATH
+                : normalizedPath[offset] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
     }
 
     @Override
     public Path getRoot() {
+        if (!isAbsolute()) {
+            return null;
+        }
         // root is a Path with only the byte array
-        return new HttpPath(fs, null, null);
+        return new HttpPath(fs, null, null, EMPTY_PATH);
     }
 
     @Override
     public Path getFileName() {
-        throw new UnsupportedOperationException("Not implemented");
+        final int count = getNameCount();
+        if (count == 0) {
+            return null;
+        }
+        if (count == 1 && !isAbsolute() && query == null && reference == null) {
+            // already a file name
+            return this;
+        }
+        return getName(count - 1);
     }
 
     @Override
     public Path getParent() {
-        throw new UnsupportedOperationException("Not implemented");
+        final int count = getNameCount();
+        if (count == 0) {
+            return null;
+        }
+        if (count == 1) {
+            return getRoot();
+        }
+        // up to the separator before the last name
+        return view(0, offsets[count - 1] - 1);
     }
 
     @Override
@@ -130,12 +231,27 @@ final class HttpPath implements Path {
 
     @Override
     public Path getName(final int index) {
-        throw new UnsupportedOperationException("Not implemented");
+        return subpath(index, index + 1);
     }
 
     @Override
     public Path subpath(final int beginIndex, final int endIndex) {
-        throw new UnsupportedOperationException("Not implemented");
+        final int count = getNameCount();
+        if (beginIndex < 0 || beginIndex >= count || endIndex > count
+                || beginIndex >= endIndex) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid subpath [%s, %s) for %s names", beginIndex, endIndex, count));
+        }
+        final int begin = offsets[beginIndex];
+        final int end = (endIndex == count)
+                ? getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1
+                : offsets[endIndex] - 1;
+        return view(begin, end);
+    }
+
+    // creates a path sharing the bytes in [begin, end) (relative to the offset)
+    private HttpPath view(final int begin, final int end) {
+        return new HttpPath(fs, null, null, normalizedPath, offset + begin, end - begin);
     }
 
     @Override
@@ -145,7 +261,8 @@ final class HttpPath implements Path {
             return false;
         }
 
-        return startsWith(((HttpPath) other).normalizedPath);
+        final HttpPath httpOther = (HttpPath) other;
+        return startsWith(httpOther.normalizedPath, httpOther.offset, httpOther.length);
     }
 
     @Override
@@ -153,7 +270,8 @@ final class HttpPath implements Path {
         // throw if null
         Utils.nonNull(other, () -> "null other");
         // normalize the path and check with the byte method
-        return startsWith(getNormalizedPathBytes(other, false));
+        final byte[] otherBytes = getNormalizedPathBytes(other, false);
+        return startsWith(otherBytes, 0, otherBytes.length);
     }
 
     /**
@@ -162,30 +280,32 @@ final class HttpPath implements Path {
      * <p>The contract for this method is the same as {@link #startsWith(Path)} (Path)}, but only
      * for the path component.
      *
-     * @param other the other path component.
-     * @return {@code true} if {@link #normalizedPath} ends with {@code other}; {@code false}
+     * @param other  the other path component.
+     * @param ooffset first byte of the other path component.
+     * @param olength number of bytes of the other path component.
+     * @return {@code true} if {@link #normalizedPath} starts with {@code other}; {@code false}
      * otherwise.
      */
-    private boolean startsWith(final byte[] other) {
+    private boolean startsWith(final byte[] other, final int ooffset, final int olength) {
         // the other can still end in '/', so we should trim
-        final int olen = getLastIndexWithoutTrailingSlash(other);
+        final int olen = getLastIndexWithoutTrailingSlash(other, ooffset, olength);
 
         // the other path component cannot have a larger than this for startWith
-        if (olen > normalizedPath.length) {
+        if (olen >= length) {
             return false;
         }
 
         // check the bytes of the normalized path
         int i;
         for (i = 0; i <= olen; i++) {
-            if (normalizedPath[i] != other[i]) {
+            if (normalizedPath[offset + i] != other[ooffset + i]) {
                 return false;
             }
         }
 
         // finally check the name boundary
-        return i >= this.normalizedPath.length
-                || this.normalizedPath[i] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+        return i >= this.length
+                || this.normalizedPath[offset + i] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
     }
 
     @Override
@@ -196,8 +316,10 @@ final class HttpPath implements Path {
         }
 
         // compare the path component
-        // TODO: maybe we should use isAbsolute() after https://github.com/magicDGS/jsr203-http/issues/12
-        return endsWith(((HttpPath) other).normalizedPath, true);
+        // an absolute path is bounded by its leading separator, but a relative one is not
+        final HttpPath httpOther = (HttpPath) other;
+        return endsWith(httpOther.normalizedPath, httpOther.offset, httpOther.length,
+                httpOther.isAbsolute());
     }
 
     @Override
@@ -205,7 +327,8 @@ final class HttpPath implements Path {
         // throw if null
         Utils.nonNull(other, () -> "null other");
         // normalize the path and check with the byte method
-        return endsWith(getNormalizedPathBytes(other, false), false);
+        final byte[] otherBytes = getNormalizedPathBytes(other, false);
+        return endsWith(otherBytes, 0, otherBytes.length, false);
     }
 
     /**
@@ -214,16 +337,19 @@ final class HttpPath implements Path {
      * <p>The contract for this method is the same as {@link #endsWith(Path)}, but only for the
      * path component.
      *
-     * @param other the other path component.
-     * @param pathVersion if {@code false}, perform an extra check for the String version.
+     * @param other   the other path component.
+     * @param ooffset first byte of the other path component.
+     * @param olength number of bytes of the other path component.
+     * @param bounded if {@code false}, perform an extra check for the name boundary.
      * @return {@code true} if {@link #normalizedPath} ends with {@code other}; {@code false}
      * otherwise.
      */
-    private boolean endsWith(final byte[] other, final boolean pathVersion) {
+    private boolean endsWith(final byte[] other, final int ooffset, final int olength,
+            final boolean bounded) {
+        // get the last index to check (relative to the offsets)
+        int olast = getLastIndexWithoutTrailingSlash(other, ooffset, olength);
         // get the last index to check
-        int olast = getLastIndexWithoutTrailingSlash(other);
-        // get the last index to check
-        int last = getLastIndexWithoutTrailingSlash(this.normalizedPath);
+        int last = getLastIndexWithoutTrailingSlash(this.normalizedPath, offset, length);
 
         // early termination if the length is 0 (last index = -1)
         if (olast == -1) {
@@ -236,7 +362,7 @@ final class HttpPath implements Path {
 
         // iterate over the bytes to check if they are the same
         for (; olast >= 0; olast--, last--) {
-            if (other[olast] != this.normalizedPath[last]) {
+            if (other[ooffset + olast] != this.normalizedPath[offset + last]) {
                 return false;
             }
         }
@@ -246,53 +372,283 @@ final class HttpPath implements Path {
             return true;
         }
 
-        // switch for the path version or not path version
-        if (pathVersion) {
-            // at this point, the pathVersion should always return true (as it is bounded)
-            // TODO: this might change after relative path support (https://github.com/magicDGS/jsr203-http/issues/12)
+        // switch for the bounded or not bounded version
+        if (bounded) {
+            // at this point, the other starts with a separator
             return true;
         } else {
             // otherwise, it shouldn't be included (e.g., "/foo/bar" ends with "bar" but not "/bar"
-            return this.normalizedPath[last] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+            return this.normalizedPath[offset + last] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
         }
     }
 
     @Override
     public Path normalize() {
-        throw new UnsupportedOperationException("Not implemented");
+        final int count = getNameCount();
+        // fast path: nothing to remove
+        int first = 0;
+        while (first < count && getDotNameType(first) == 0) {
+            first++;
+        }
+        if (first == count) {
+            return this;
+        }
+
+        // stack of the names to keep
+        final int[] kept = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final int type = getDotNameType(i);
+            if (type == 0) {
+                kept[size++] = i;
+            } else if (type == 2) {
+                if (size != 0 && getDotNameType(kept[size - 1]) != 2) {
+                    // remove the previous name
+                    size--;
+                } else if (!isAbsolute()) {
+                    // a relative path cannot go further up
+                    kept[size++] = i;
+                }
+                // otherwise, ".." at the root is the root itself
+            }
+        }
+
+        if (size == 0) {
+            return isAbsolute() ? new HttpPath(fs, query, reference, EMPTY_PATH)
+                    : new HttpPath(fs, query, reference, EMPTY_RELATIVE_PATH);
+        }
+
+        // copy the kept names
+        final boolean trailingSlash = hasTrailingSlash();
+        int bytes = (isAbsolute() ? 1 : 0) + (size - 1) + (trailingSlash ? 1 : 0);
+        for (int i = 0; i < size; i++) {
+            bytes += getNameEnd(kept[i]) - offsets[kept[i]];
+        }
+        final byte[] normalized = new byte[bytes];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (i != 0 || isAbsolute()) {
+                normalized[n++] = HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+            }
+            final int begin = offsets[kept[i]];
+            final int nameLength = getNameEnd(kept[i]) - begin;
+            System.arraycopy(normalizedPath, offset + begin, normalized, n, nameLength);
+            n += nameLength;
+        }
+        if (trailingSlash) {
+            normalized[n] = HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+        }
+        return new HttpPath(fs, query, reference, normalized);
+    }
+
+    /**
+     * Gets the name at the index as a key sharing the bytes of this path.
+     *
+     * @param index the index of the name.
+     *
+     * @return the key for the name.
+     */
+    NameKey getNameKey(final int index) {
+        initOffsets();
+        final int begin = offsets[index];
+        return new NameKey(normalizedPath, offset + begin, getNameEnd(index) - begin);
     }
 
+    // returns 1 for ".", 2 for ".." and 0 for any other name
+    private int getDotNameType(final int index) {
+        final int begin = offset + offsets[index];
+        final int nameLength = offset + getNameEnd(index) - begin;
+        if (nameLength == 1 && normalizedPath[begin] == DOT) {
+            return 1;
+        }
+        if (nameLength == 2 && normalizedPath[begin] == DOT && normalizedPath[begin + 1] == DOT) {
+            return 2;
+        }
+        return 0;
+    }
+
+    // end of the name (exclusive and relative to the offset); requires the offsets
+    private int getNameEnd(final int index) {
+        return (index == offsets.length - 1)
+                ? getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1
+                : offsets[index + 1] - 1;
+    }
+
+    // true if there is a separator after the last name
+    boolean hasTrailingSlash() {
+        return length > 1
+                && normalizedPath[offset + length - 1] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote the resolved path has the query and reference of the other path.
+     */
     @Override
     public Path resolve(final Path other) {
-        throw new UnsupportedOperationException("Not implemented");
+        final HttpPath httpOther = toHttpPath(other);
+        if (httpOther.isAbsolute()) {
+            return httpOther;
+        }
+        if (httpOther.length == 0 && httpOther.query == null && httpOther.reference == null) {
+            return this;
+        }
+        if (this.length == 0 && !this.isAbsolute()) {
+            return httpOther;
+        }
+
+        // this path without trailing slash, a separator (if needed) and the other path
+        final int thisLength = (httpOther.length == 0) ? length
+                : getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1;
+        final boolean separator = httpOther.length != 0 && (thisLength == 0
+                || normalizedPath[offset + thisLength - 1] != HttpUtils.HTTP_PATH_SEPARATOR_CHAR);
+        final byte[] resolved = new byte[thisLength + (separator ? 1 : 0) + httpOther.length];
+        System.arraycopy(normalizedPath, offset, resolved, 0, thisLength);
+        if (separator) {
+            resolved[thisLength] = HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+        }
+        System.arraycopy(httpOther.normalizedPath, httpOther.offset,
+                resolved, resolved.length - httpOther.length, httpOther.length);
+        return new HttpPath(fs, httpOther.query, httpOther.reference,
+                (resolved.length == 0) ? EMPTY_PATH : resolved);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote the other path might include a query and/or a reference.
+     */
     @Override
     public Path resolve(final String other) {
-        throw new UnsupportedOperationException("Not implemented");
+        Utils.nonNull(other, () -> "null other");
+        return resolve(HttpPathParser.parse(fs, other, true));
     }
 
     @Override
     public Path resolveSibling(final Path other) {
-        throw new UnsupportedOperationException("Not implemented");
+        toHttpPath(other);
+        final Path parent = getParent();
+        return (parent == null) ? other : parent.resolve(other);
     }
 
     @Override
     public Path resolveSibling(final String other) {
-        throw new UnsupportedOperationException("Not implemented");
+        Utils.nonNull(other, () -> "null other");
+        return resolveSibling(HttpPathParser.parse(fs, other, true));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote the relative path has the query and reference of the other path. Paths of File
+     * Systems with different authority cannot be relativized.
+     */
     @Override
     public Path relativize(final Path other) {
-        throw new UnsupportedOperationException("Not implemented");
+        final HttpPath httpOther = toHttpPath(other);
+        if (this.isAbsolute() != httpOther.isAbsolute()) {
+            throw new IllegalArgumentException(
+                    "Cannot relativize absolute and relative paths: " + this + " and " + other);
+        }
+        if (this.isAbsolute() && !fs.equals(httpOther.fs)) {
+            throw new IllegalArgumentException(
+                    "Cannot relativize paths with different authority: " + this + " and " + other);
+        }
+
+        // common names
+        final int count = getNameCount();
+        final int otherCount = httpOther.getNameCount();
+        final int minCount = Math.min(count, otherCount);
+        int common = 0;
+        while (common < minCount && nameEquals(common, httpOther)) {
+            common++;
+        }
+
+        // ".." for each remaining name in this path, and the remaining names of the other
+        final int parents = count - common;
+        final int remainingOffset = (common < otherCount) ? httpOther.offsets[common]
+                : httpOther.length;
+        final int remaining = httpOther.length - remainingOffset;
+        if (parents == 0 && remaining == 0) {
+            return new HttpPath(fs, httpOther.query, httpOther.reference, EMPTY_RELATIVE_PATH);
+        }
+        final byte[] relative = new byte[3 * parents - ((remaining == 0) ? 1 : 0) + remaining];
+        int n = 0;
+        for (int i = 0; i < parents; i++) {
+            relative[n++] = DOT;
+            relative[n++] = DOT;
+            if (n < relative.length) {
+                relative[n++] = HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+            }
+        }
+        System.arraycopy(httpOther.normalizedPath, httpOther.offset + remainingOffset,
+                relative, n, remaining);
+        return new HttpPath(fs, httpOther.query, httpOther.reference, relative);
+    }
+
+    // true if the name at index is the same in both paths; requires the offsets
+    private boolean nameEquals(final int index, final HttpPath other) {
+        final int begin = offsets[index];
+        final int nameLength = getNameEnd(index) - begin;
+        final int otherBegin = other.offsets[index];
+        return nameLength == other.getNameEnd(index) - otherBegin
+                && ByteArrays.mismatch(normalizedPath, offset + begin,
+                other.normalizedPath, other.offset + otherBegin, nameLength) == -1;
+    }
+
+    // checks that the path is not null and from this provider
+    private HttpPath toHttpPath(final Path other) {
+        Utils.nonNull(other, () -> "null other");
+        if (!(other instanceof HttpPath)
+                || ((HttpPath) other).fs.provider() != fs.provider()) {
+            throw new ProviderMismatchException();
+        }
+        return (HttpPath) other;
+    }
+
+    /**
+     * Tests the path component with a glob matcher, without copying the bytes.
+     *
+     * <p>The trailing separator is not considered, and the root is a single separator.
+     *
+     * @param matcher the glob matcher.
+     *
+     * @return {@code true} if the path component matches; {@code false} otherwise.
+     */
+    boolean matches(final GlobPathMatcher matcher) {
+        if (length == 0 && isAbsolute()) {
+            return matcher.matches(ROOT_MATCHING_PATH, 0, 1);
+        }
+        return matcher.matches(normalizedPath, offset,
+                getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1);
+    }
+
+    /**
+     * Gets the path component as tested by the matchers.
+     *
+     * <p>The trailing separator is not included, and the root is a single separator.
+     *
+     * @return the path component String.
+     */
+    String getMatchingPathString() {
+        if (length == 0 && isAbsolute()) {
+            return HttpUtils.HTTP_PATH_SEPARATOR_STRING;
+        }
+        return new String(normalizedPath, offset,
+                getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1,
+                HttpUtils.HTTP_PATH_CHARSET);
     }
 
     @Override
     public URI toUri() {
+        if (!isAbsolute()) {
+            return toAbsolutePath().toUri();
+        }
         try {
             return new URI(fs.provider().getScheme(),
                     fs.getAuthority(),
-                    new String(normalizedPath, HttpUtils.HTTP_PATH_CHARSET),
+                    getPathString(),
                     query, reference);
         } catch (final URISyntaxException e) {
             throw new IOError(e);
@@ -304,8 +660,14 @@ final class HttpPath implements Path {
         if (isAbsolute()) {
             return this;
         }
-        // TODO - change when we support relative Paths (https://github.com/magicDGS/jsr203-http/issues/12)
-        throw new IllegalStateException("Should not appear a relative HTTP/S paths (unsupported)");
+        if (length == 0) {
+            return new HttpPath(fs, query, reference, EMPTY_PATH);
+        }
+        // relative paths are resolved against the root
+        final byte[] absolute = new byte[length + 1];
+        absolute[0] = HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+        System.arraycopy(normalizedPath, offset, absolute, 1, length);
+        return new HttpPath(fs, query, reference, absolute);
     }
 
     @Override
@@ -356,51 +718,91 @@ final class HttpPath implements Path {
             throw new ClassCastException();
         }
 
-        // first check the authority (case insensitive)
-        int comparison = fs.getAuthority().compareToIgnoreCase(httpOther.fs.getAuthority());
+        // first check the canonical authority, unless it is the same File System
+        int comparison = (fs == httpOther.fs) ? 0
+                : fs.getCanonicalAuthority().compareTo(httpOther.fs.getCanonicalAuthority());
         if (comparison != 0) {
             return comparison;
         }
 
-        // then check the path
-        final int len1 = normalizedPath.length;
-        final int len2 = httpOther.normalizedPath.length;
-        final int n = Math.min(len1, len2);
-        for (int k = 0; k < n; k++) {
-            // this is case sensitive
-            comparison = Byte.compare(this.normalizedPath[k], httpOther.normalizedPath[k]);
-            if (comparison != 0) {
-                return comparison;
-            }
+        // then check the path (case sensitive)
+        final int len1 = length;
+        final int len2 = httpOther.length;
+        final int mismatch = ByteArrays.mismatch(this.normalizedPath, this.offset,
+                httpOther.normalizedPath, httpOther.offset, Math.min(len1, len2));
+        if (mismatch != -1) {
+            return Byte.compare(this.normalizedPath[this.offset + mismatch],
+                    httpOther.normalizedPath[httpOther.offset + mismatch]);
         }
         comparison = len1 - len2;
         if (comparison != 0) {
             return comparison;
         }
+        // the empty relative path goes before the root
+        comparison = Boolean.compare(this.isAbsolute(), httpOther.isAbsolute());
+        if (comparison != 0) {
+            return comparison;
+        }
 
         // compare the query if present
-        comparison = Comparator.nullsFirst(String::compareTo).compare(this.query, httpOther.query);
+        comparison = compareNullsFirst(this.query, httpOther.query);
         if (comparison != 0) {
             return comparison;
         }
 
         // otherwise, just return the value of comparing the fragment
-        return Comparator.nullsFirst(String::compareTo)
-                .compare(this.reference, httpOther.reference);
+        return compareNullsFirst(this.reference, httpOther.reference);
+    }
+
+    // null-safe comparison of Strings (null first)
+    private static int compareNullsFirst(final String s1, final String s2) {
+        if (s1 == s2) {
+            return 0;
+        }
+        if (s1 == null) {
+            return -1;
+        }
+        if (s2 == null) {
+            return 1;
+        }
+        return s1.compareTo(s2);
     }
 
     /**
      * {@inheritDoc}
      *
-     * @implNote it uses the {@link #compareTo(Path)} method.
+     * @implNote it is consistent with {@link #compareTo(Path)}, but paths with different length
+     * or different (already computed) hash code are rejected without comparing the components.
      */
     @Override
     public boolean equals(final Object other) {
-        try {
-            return compareTo((Path) other) == 0;
-        } catch (ClassCastException e) {
+        // fast path for canonical (interned) paths
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof HttpPath)) {
             return false;
         }
+        final HttpPath httpOther = (HttpPath) other;
+        if (length != httpOther.length || fs.provider() != httpOther.fs.provider()) {
+            return false;
+        }
+        // the root and the empty relative path have the same bytes
+        if (length == 0 && isAbsolute() != httpOther.isAbsolute()) {
+            return false;
+        }
+        // different cached hash codes (0 if not computed yet) imply different paths
+        final int h1 = hash;
+        final int h2 = httpOther.hash;
+        if (h1 != 0 && h2 != 0 && h1 != h2) {
+            return false;
+        }
+        return ByteArrays.mismatch(normalizedPath, offset,
+                httpOther.normalizedPath, httpOther.offset, length) == -1
+                && Objects.equals(query, httpOther.query)
+                && Objects.equals(reference, httpOther.reference)
+                && (fs == httpOther.fs
+                || fs.getCanonicalAuthority().equals(httpOther.fs.getCanonicalAuthority()));
     }
 
     /**
@@ -411,24 +813,34 @@ final class HttpPath implements Path {
      */
     @Override
     public int hashCode() {
-        // TODO - maybe we should cache (https://github.com/magicDGS/jsr203-http/issues/18)
-        int h = fs.hashCode();
-        for (int i = 0; i < normalizedPath.length; i++) {
-            h = 31 * h + (normalizedPath[i] & 0xff);
+        int h = hash;
+        if (h == 0) {
+            h = fs.hashCode();
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + (normalizedPath[i] & 0xff);
+            }
+            // this is safe for null query and reference
+            h = 31 * (31 * h + Objects.hashCode(query)) + Objects.hashCode(reference);
+            hash = h;
         }
-        // this is safe for null query and reference
-        h = 31 * h + Objects.hash(query, reference);
         return h;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote relative paths are represented only by the path component.
+     */
     @Override
     public String toString() {
-        // TODO - maybe we should cache (https://github.com/magicDGS/jsr203-http/issues/18)
+        if (!isAbsolute()) {
+            return getPathString();
+        }
         // adding scheme, authority and normalized path
         final StringBuilder sb = new StringBuilder(fs.provider().getScheme()) // scheme
                 .append("://")
                 .append(fs.getAuthority()) // authority
-                .append(new String(normalizedPath, HttpUtils.HTTP_PATH_CHARSET));
+                .append(getPathString());
         if (query != null) {
             sb.append('?').append(query);
         }
@@ -438,35 +850,41 @@ final class HttpPath implements Path {
         return sb.toString();
     }
 
+    // gets the path component as a String
+    private String getPathString() {
+        return new String(normalizedPath, offset, length, HttpUtils.HTTP_PATH_CHARSET);
+    }
+
     /**
      * Creates the array of offsets if not already created.
      *
+     * <p>Each offset is the index of the first byte of a name, relative to {@link #offset}.
+     *
      * @implNote it assumes that redundant separators are already removed.
      */
     private void initOffsets() {
         if (offsets == null) {
-            // get the length without the trailing slash
-            final int length = getLastIndexWithoutTrailingSlash(normalizedPath);
+            // get the end without the trailing slash
+            final int end = getLastIndexWithoutTrailingSlash(normalizedPath, offset, length) + 1;
+            // the first name starts after the root separator (if any)
+            final int first = isAbsolute() ? 1 : 0;
             // count names
-            int count = 0;
-            // index position (outside loop to re-use in the next loop)
-            int index = 0;
-            for (; index < length; index++) {
-                final byte c = normalizedPath[index];
-                if (c == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
+            int count = (first < end) ? 1 : 0;
+            for (int index = first; index < end; index++) {
+                if (normalizedPath[offset + index] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
                     count++;
-                    // assumes that redundant separators are already removed
-                    index++;
                 }
             }
             // populate offsets
             final int[] result = new int[count];
-            count = 0;
-            for (index = 0; index < length; index++) {
-                final byte c = normalizedPath[index];
-                if (c == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
-                    // assumes that redundant separators are already removed
-                    result[count++] = index++;
+            if (count != 0) {
+                result[0] = first;
+                count = 1;
+                for (int index = first; index < end; index++) {
+                    if (normalizedPath[offset + index] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
+                        // assumes that redundant separators are already removed
+                        result[count++] = index + 1;
+                    }
                 }
             }
             // update in a thread-safe manner
@@ -493,7 +911,7 @@ final class HttpPath implements Path {
         }
 
         if (HttpUtils.HTTP_PATH_SEPARATOR_STRING.equals(path) || path.isEmpty()) {
-            return new byte[0];
+            return EMPTY_PATH;
         }
         final int len = path.length();
 
@@ -563,13 +981,16 @@ final class HttpPath implements Path {
      * <p>If the lst index is a trailing slash {@link HttpUtils#HTTP_PATH_SEPARATOR_CHAR}, it
      * should not be considered for some operations. This method takes into account that problem.
      *
-     * @param path bytes representing the path.
+     * @param path   bytes representing the path.
+     * @param offset first byte of the path.
+     * @param length number of bytes of the path.
      *
-     * @return last index of path to consider.
+     * @return last index of path to consider (relative to the offset).
      */
-    private static int getLastIndexWithoutTrailingSlash(final byte[] path) {
-        int len = path.length - 1;
-        if (len > 0 && path[len] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
+    private static int getLastIndexWithoutTrailingSlash(final byte[] path, final int offset,
+            final int length) {
+        int len = length - 1;
+        if (len > 0 && path[offset + len] == HttpUtils.HTTP_PATH_SEPARATOR_CHAR) {
             len--;
         }
         return len;
@@ -0,0 +1,242 @@
+package org.magicdgs.http.jsr203;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.util.Arrays;
+
+/**
+ * Single-pass parser for the String representation of an {@link HttpPath}.
+ *
+ * <p>The input is split into path, query and fragment while the path is validated, decoded and
+ * normalized directly into a byte array. The result is the same as parsing the input with
+ * {@link java.net.URI} and creating the path with the decoded components, except that:
+ *
+ * <ul>
+ * <li>A leading {@code //} is part of the path and not the start of an authority.</li>
+ * <li>A path containing only separators is the root path.</li>
+ * </ul>
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpPathParser {
+
+    // allowed ASCII characters in the path (java.net.URI pchar, plus ';' and '/')
+    private static final boolean[] PATH_CHARS = asciiMask(
+            "-_.!~*'():@&=+$,;/");
+    // allowed ASCII characters in the query and fragment (java.net.URI uric)
+    private static final boolean[] URIC_CHARS = asciiMask(
+            "-_.!~*'():@&=+$,;/?[]");
+
+    // utility class - cannot be instantiated
+    private HttpPathParser() {}
+
+    /**
+     * Parses the input into a path of the File System.
+     *
+     * @param fs    the File System for the path.
+     * @param input the input to parse (path, optional query and optional fragment).
+     *
+     * @return the parsed path.
+     *
+     * @throws InvalidPathException if the input is relative or contains illegal characters.
+     */
+    static HttpPath parse(final HttpFileSystem fs, final String input) {
+        return parse(fs, input, false);
+    }
+
+    /**
+     * Parses the input into a path of the File System, optionally allowing relative paths.
+     *
+     * @param fs            the File System for the path.
+     * @param input         the input to parse (path, optional query and optional fragment).
+     * @param allowRelative if {@code false}, relative inputs are rejected.
+     *
+     * @return the parsed path.
+     *
+     * @throws InvalidPathException if the input is not allowed or contains illegal characters.
+     */
+    static HttpPath parse(final HttpFileSystem fs, final String input,
+            final boolean allowRelative) {
+        final int len = input.length();
+        final boolean absolute = len != 0 && input.charAt(0) == HttpUtils.HTTP_PATH_SEPARATOR_CHAR;
+        if (len == 0) {
+            return allowRelative ? HttpPath.emptyPath(fs, null, null)
+                    : HttpPath.ofNormalized(fs, new byte[0], null, null);
+        }
+        if (!absolute && !allowRelative) {
+            throw new InvalidPathException(input, "Relative paths are not supported", 0);
+        }
+
+        // path component (enough for ASCII, which is the common case)
+        byte[] bytes = new byte[len];
+        int n = 0;
+        boolean escaped = false;
+        int i = 0;
+        for (; i < len; i++) {
+            final char c = input.charAt(i);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            int b;
+            if (c == '%') {
+                b = decodeEscape(input, i);
+                if (b == 0) {
+                    throw new InvalidPathException(input, "Null character not allowed in path", i);
+                }
+                escaped = true;
+                i += 2;
+            } else if (c < 0x80) {
+                if (!PATH_CHARS[c]) {
+                    throw new InvalidPathException(input, "Illegal character in path", i);
+                }
+                b = c;
+            } else {
+                checkOther(input, c, i, "path");
+                // non-ASCII: encode the code point
+                final int end = (Character.isHighSurrogate(c) && i + 1 < len
+                        && Character.isLowSurrogate(input.charAt(i + 1))) ? i + 2 : i + 1;
+                final byte[] encoded = input.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                if (n + encoded.length + (len - end) > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2,
+                            n + encoded.length + (len - end)));
+                }
+                System.arraycopy(encoded, 0, bytes, n, encoded.length);
+                n += encoded.length;
+                i = end - 1;
+                continue;
+            }
+            // collapse redundant separators
+            if (n == 0 || b != HttpUtils.HTTP_PATH_SEPARATOR_CHAR || bytes[n - 1] != b) {
+                bytes[n++] = (byte) b;
+            }
+        }
+        if (absolute && n == 1) {
+            // only separators: root path
+            n = 0;
+        }
+        byte[] normalized = (n == bytes.length) ? bytes : Arrays.copyOf(bytes, n);
+        if (escaped) {
+            // invalid UTF-8 sequences are replaced, as java.net.URI does when decoding
+            normalized = new String(normalized, StandardCharsets.UTF_8)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        // query and fragment components
+        String query = null;
+        String fragment = null;
+        if (i < len && input.charAt(i) == '?') {
+            final int end = scanUric(input, i + 1, "query");
+            query = decode(input, i + 1, end);
+            i = end;
+        }
+        if (i < len) {
+            // it is a '#'
+            final int end = scanUric(input, i + 1, "fragment");
+            if (end != len) {
+                throw new InvalidPathException(input, "Illegal character in fragment", end);
+            }
+            fragment = decode(input, i + 1, end);
+        }
+        return (absolute || normalized.length != 0)
+                ? HttpPath.ofNormalized(fs, normalized, query, fragment)
+                : HttpPath.emptyPath(fs, query, fragment);
+    }
+
+    // validates the characters from start until '#' or the end, returning the end index
+    private static int scanUric(final String input, final int start, final String component) {
+        final int len = input.length();
+        for (int i = start; i < len; i++) {
+            final char c = input.charAt(i);
+            if (c == '#') {
+                return i;
+            }
+            if (c == '%') {
+                decodeEscape(input, i);
+                i += 2;
+            } else if (c < 0x80) {
+                if (!URIC_CHARS[c]) {
+                    throw new InvalidPathException(input,
+                            "Illegal character in " + component, i);
+                }
+            } else {
+                checkOther(input, c, i, component);
+            }
+        }
+        return len;
+    }
+
+    // decodes the (already validated) component, only allocating bytes if there are escapes
+    private static String decode(final String input, final int start, final int end) {
+        final int firstEscape = input.indexOf('%', start);
+        if (firstEscape == -1 || firstEscape >= end) {
+            return input.substring(start, end);
+        }
+        final byte[] bytes = new byte[(end - start) * 3];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            final char c = input.charAt(i);
+            if (c == '%') {
+                bytes[n++] = (byte) decodeEscape(input, i);
+                i += 2;
+            } else if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else {
+                final int charEnd = (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(input.charAt(i + 1))) ? i + 2 : i + 1;
+                final byte[] encoded = input.substring(i, charEnd)
+                        .getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, bytes, n, encoded.length);
+                n += encoded.length;
+                i = charEnd - 1;
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // decodes the escape pair at index (pointing to '%')
+    private static int decodeEscape(final String input, final int index) {
+        final int high = (index + 1 < input.length()) ? hexValue(input.charAt(index + 1)) : -1;
+        final int low = (index + 2 < input.length()) ? hexValue(input.charAt(index + 2)) : -1;
+        if (high == -1 || low == -1) {
+            throw new InvalidPathException(input, "Malformed escape pair", index);
+        }
+        return (high << 4) | low;
+    }
+
+    private static int hexValue(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    // non-ASCII characters are allowed except spaces and controls (as in java.net.URI)
+    private static void checkOther(final String input, final char c, final int index,
+            final String component) {
+        if (Character.isSpaceChar(c) || Character.isISOControl(c)) {
+            throw new InvalidPathException(input, "Illegal character in " + component, index);
+        }
+    }
+
+    // creates the mask for alphanumeric and the provided characters
+    private static boolean[] asciiMask(final String chars) {
+        final boolean[] mask = new boolean[0x80];
+        for (char c = '0'; c <= '9'; c++) {
+            mask[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            mask[c] = true;
+            mask[Character.toUpperCase(c)] = true;
+        }
+        for (int i = 0; i < chars.length(); i++) {
+            mask[chars.charAt(i)] = true;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,289 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Incremental synchronization of a remote directory into a local directory.
+ *
+ * <p>The remote files are enumerated with a walk of the directory (from the manifest or the
+ * autoindex pages), and each of them is synchronized in the bulk executor of the File System:
+ * at most {@link HttpFileSystemSettings#getMaxConcurrentRequests()} files are transferred at the
+ * same time. The ETags of the synchronized files are stored in the {@value #STATE_FILE_NAME}
+ * file of the local directory, and files with a local copy and a stored ETag are requested with
+ * {@code If-None-Match}, so unchanged files are not downloaded again. If the File System has a
+ * manifest with ETags, files whose ETag matches the stored one are not requested at all.
+ *
+ * <p>The stored ETags are kept unless the file is downloaded again or confirmed missing, so a
+ * failed or interrupted synchronization (e.g., a directory that cannot be listed or a closed
+ * File System) does not force downloading the files that were not reached.
+ *
+ * <p>A remote file named {@value #STATE_FILE_NAME} in the remote directory is not synchronized,
+ * and it is reported as a failure.
+ *
+ * <p>Downloaded files are written to a temporary file in the same directory and moved into place
+ * atomically, so an interrupted synchronization never leaves partial files.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpSync {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpSync.class);
+
+    /** Name of the file storing the ETags in the local directory. */
+    static final String STATE_FILE_NAME = ".http-sync.properties";
+
+    private static final String IF_NONE_MATCH_REQUEST_PROPERTY_KEY = "If-None-Match";
+
+    private final HttpFileSystem fs;
+    private final HttpPath source;
+    private final Path target;
+    // manifest to skip unchanged files without requests; null if not available
+    private Manifest manifest;
+
+    // ETags from the previous run and for the current run (seeded with the previous ones), by
+    // relative path
+    private final Properties previous = new Properties();
+    private final Map<String, String> current = new ConcurrentHashMap<>();
+
+    // outcome of synchronizing a single file
+    private static final class Outcome {
+        private final boolean downloaded;
+        private final long bytes;
+
+        private Outcome(final boolean downloaded, final long bytes) {
+            this.downloaded = downloaded;
+            this.bytes = bytes;
+        }
+    }
+
+    private HttpSync(final HttpPath source, final Path target) {
+        this.fs = source.getFileSystem();
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Synchronizes a remote directory into a local directory, which is created if it does not
+     * exist. Local files without a remote counterpart are kept.
+     *
+     * @param source the remote directory.
+     * @param target the local directory.
+     *
+     * @return the result of the synchronization.
+     *
+     * @throws NoSuchFileException   if the remote directory does not exist.
+     * @throws NotDirectoryException if the remote path is not a directory.
+     * @throws IOException           if an I/O error occurs enumerating the remote files or
+     *                               writing the local state.
+     */
+    static HttpSyncResult run(final HttpPath source, final Path target) throws IOException {
+        return new HttpSync((HttpPath) source.toAbsolutePath(), target).run();
+    }
+
+    private HttpSyncResult run() throws IOException {
+        final HttpTreeSpliterator walker = HttpTreeSpliterator.open(source, Integer.MAX_VALUE);
+        if (!walker.isStartDirectory()) {
+            walker.cancel();
+            throw new NotDirectoryException(source.toString());
+        }
+        manifest = fs.getManifest();
+        Files.createDirectories(target);
+        readState();
+
+        final Map<HttpPath, Future<Outcome>> tasks = new LinkedHashMap<>();
+        try {
+            // files are submitted while the walk lists the next directories
+            try (final Stream<Path> paths = StreamSupport.stream(walker, false)
+                    .onClose(walker::cancel)) {
+                paths.map(p -> (HttpPath) p)
+                        .filter(p -> !p.equals(source) && !walker.isDirectory(p))
+                        .forEach(file -> tasks.put(file,
+                                fs.getBulkExecutor().submit(() -> syncFile(file))));
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return awaitAll(tasks);
+        } finally {
+            tasks.values().forEach(f -> f.cancel(false));
+            writeState();
+        }
+    }
+
+    // waits for the files, collecting the outcomes in the order of the walk
+    private HttpSyncResult awaitAll(final Map<HttpPath, Future<Outcome>> tasks)
+            throws IOException {
+        final List<Path> downloaded = new ArrayList<>();
+        final List<Path> unchanged = new ArrayList<>();
+        final Map<Path, IOException> failures = new LinkedHashMap<>();
+        long bytes = 0;
+        for (final Map.Entry<HttpPath, Future<Outcome>> task : tasks.entrySet()) {
+            try {
+                final Outcome outcome = task.getValue().get();
+                if (outcome.downloaded) {
+                    downloaded.add(task.getKey());
+                    bytes += outcome.bytes;
+                } else {
+                    unchanged.add(task.getKey());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted synchronization of " + source);
+            } catch (final CancellationException e) {
+                // closed File System
+                failures.put(task.getKey(),
+                        new IOException("Cancelled synchronization of " + task.getKey(), e));
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                failures.put(task.getKey(), (cause instanceof IOException) ? (IOException) cause
+                        : new IOException("Cannot synchronize " + task.getKey(), cause));
+            }
+        }
+        return new HttpSyncResult(downloaded, unchanged, failures, bytes);
+    }
+
+    // synchronizes a single file, recording its ETag
+    private Outcome syncFile(final HttpPath file) throws IOException {
+        final Path relative = source.relativize(file);
+        final String key = relative.toString();
+        if (key.equals(STATE_FILE_NAME)) {
+            throw new IOException(String.format("Cannot synchronize %s: reserved name for the "
+                    + "ETags of the local directory", file));
+        }
+        final Path local = resolveLocal(relative);
+        final String stored = Files.exists(local) ? previous.getProperty(key) : null;
+
+        final HttpFileAttributes published = (manifest == null)
+                ? null : manifest.getAttributes(file);
+        if (stored != null && published != null && stored.equals(published.getETag())) {
+            return new Outcome(false, 0);
+        }
+
+        final HttpURLConnection connection =
+                (HttpURLConnection) file.toUri().toURL().openConnection();
+        try {
+            if (stored != null) {
+                connection.setRequestProperty(IF_NONE_MATCH_REQUEST_PROPERTY_KEY, stored);
+            }
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return new Outcome(false, 0);
+            }
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                // the local copy is kept, but it is downloaded again if the file comes back
+                current.remove(key);
+                throw new NoSuchFileException(file.toString());
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot synchronize %s: %s %s",
+                        file, code, connection.getResponseMessage()));
+            }
+            final long bytes;
+            try (final InputStream body = connection.getInputStream()) {
+                bytes = writeAtomically(body, local);
+            }
+            final String etag = connection.getHeaderField("ETag");
+            if (etag == null) {
+                current.remove(key);
+            } else {
+                current.put(key, etag);
+            }
+            LOGGER.debug("Downloaded {} into {} ({} bytes)", file, local, bytes);
+            return new Outcome(true, bytes);
+        } catch (final IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    // resolves the relative path of a remote file in the local directory
+    private Path resolveLocal(final Path relative) throws IOException {
+        Path local = target;
+        for (int i = 0; i < relative.getNameCount(); i++) {
+            final String element = relative.getName(i).toString();
+            if (element.isEmpty() || element.equals(".") || element.equals("..")) {
+                throw new IOException("Invalid path for synchronization: " + relative);
+            }
+            local = local.resolve(element);
+        }
+        return local;
+    }
+
+    // writes the content into a temporary file, moved into the local path when complete
+    private static long writeAtomically(final InputStream content, final Path local)
+            throws IOException {
+        final Path parent = local.getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, "." + local.getFileName(), ".tmp");
+        try {
+            final long bytes = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            move(temp, local);
+            return bytes;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // reads the ETags of the previous run, if any, seeding the ones for the current run
+    private void readState() throws IOException {
+        final Path state = target.resolve(STATE_FILE_NAME);
+        if (Files.exists(state)) {
+            try (final Reader reader = Files.newBufferedReader(state, StandardCharsets.UTF_8)) {
+                previous.load(reader);
+            }
+        }
+        for (final String key : previous.stringPropertyNames()) {
+            current.put(key, previous.getProperty(key));
+        }
+    }
+
+    // writes the ETags of the current run, replacing the previous state atomically
+    private void writeState() throws IOException {
+        final Properties state = new Properties();
+        state.putAll(current);
+        final Path temp = Files.createTempFile(target, STATE_FILE_NAME, ".tmp");
+        try {
+            try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                state.store(writer, "ETags of the files synchronized from " + source.toUri());
+            }
+            move(temp, target.resolve(STATE_FILE_NAME));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
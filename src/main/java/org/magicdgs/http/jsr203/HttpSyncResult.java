@@ -0,0 +1,81 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of synchronizing a remote directory into a local directory with
+ * {@link HttpFileSystem#sync(Path, Path)}.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public final class HttpSyncResult {
+
+    private final List<Path> downloaded;
+    private final List<Path> unchanged;
+    private final Map<Path, IOException> failures;
+    private final long downloadedBytes;
+
+    /**
+     * Creates a new result.
+     *
+     * @param downloaded      remote files that were downloaded.
+     * @param unchanged       remote files that were already up to date.
+     * @param failures        remote files that could not be synchronized, with their errors.
+     * @param downloadedBytes number of bytes downloaded.
+     */
+    HttpSyncResult(final List<Path> downloaded, final List<Path> unchanged,
+            final Map<Path, IOException> failures, final long downloadedBytes) {
+        this.downloaded = Collections.unmodifiableList(downloaded);
+        this.unchanged = Collections.unmodifiableList(unchanged);
+        this.failures = Collections.unmodifiableMap(failures);
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    /**
+     * Gets the remote files that were new or changed, and thus downloaded.
+     *
+     * @return the paths of the remote files.
+     */
+    public List<Path> getDownloaded() {
+        return downloaded;
+    }
+
+    /**
+     * Gets the remote files that were not downloaded because the local copy is up to date.
+     *
+     * @return the paths of the remote files.
+     */
+    public List<Path> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Gets the remote files that could not be synchronized. Their local copies (if any) are
+     * left untouched, and they are synchronized again in the next run.
+     *
+     * @return the errors for the paths of the remote files.
+     */
+    public Map<Path, IOException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets the number of bytes downloaded.
+     *
+     * @return the bytes of the downloaded files.
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[downloaded=%s, unchanged=%s, failures=%s, downloadedBytes=%s]",
+                this.getClass().getSimpleName(), downloaded.size(), unchanged.size(),
+                failures.size(), downloadedBytes);
+    }
+}
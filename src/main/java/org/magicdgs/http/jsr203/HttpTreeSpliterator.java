@@ -0,0 +1,300 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} walking the file tree of a {@link HttpFileSystem} in depth-first order.
+ *
+ * <p>The pending work is a sequence of nodes: either a path to return or a directory to list,
+ * whose entries replace it in the sequence. When a directory is listed from autoindex pages, the
+ * listings of its sub-directories are submitted to the bulk executor of the File System, so
+ * sibling directories are fetched concurrently while the previous ones are consumed. Splitting
+ * hands the first half of the pending nodes to a new spliterator; if there is a single node to
+ * list, it is listed to obtain more nodes.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class HttpTreeSpliterator implements Spliterator<Path> {
+
+    private static final DirectoryStream.Filter<Path> ACCEPT_ALL = p -> true;
+
+    private final HttpFileSystem fs;
+    // manifest to list the directories; null if listed from autoindex pages
+    private final Manifest manifest;
+    private final int maxDepth;
+
+    // pending nodes, with the next one at the head
+    private final Deque<Node> pending;
+    // listings in flight and cancellation flag, shared by the split spliterators
+    private final Set<ListingTask> inFlight;
+    private final AtomicBoolean cancelled;
+    // if the start path is a directory (only set in the opened spliterator)
+    private boolean startDirectory = false;
+
+    private HttpTreeSpliterator(final HttpFileSystem fs, final Manifest manifest,
+            final int maxDepth, final Deque<Node> pending, final Set<ListingTask> inFlight,
+            final AtomicBoolean cancelled) {
+        this.fs = fs;
+        this.manifest = manifest;
+        this.maxDepth = maxDepth;
+        this.pending = pending;
+        this.inFlight = inFlight;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Opens a walk from a start path.
+     *
+     * <p>The start path is checked before returning: without manifest, it is listed to find out
+     * if it is a directory.
+     *
+     * @param start    the start path.
+     * @param maxDepth maximum number of directory levels to visit.
+     *
+     * @return the spliterator over the absolute paths of the tree.
+     *
+     * @throws NoSuchFileException if the start path does not exist.
+     * @throws IOException         if an I/O error occurs.
+     */
+    static HttpTreeSpliterator open(final HttpPath start, final int maxDepth)
+            throws IOException {
+        final HttpFileSystem fs = start.getFileSystem();
+        final HttpPath root = (HttpPath) start.toAbsolutePath();
+        final HttpTreeSpliterator walker = new HttpTreeSpliterator(fs, fs.getManifest(),
+                maxDepth, new ArrayDeque<>(), ConcurrentHashMap.newKeySet(),
+                new AtomicBoolean());
+        walker.pending.add(new Node(root, 0, null));
+        if (walker.manifest != null) {
+            final HttpFileAttributes attributes = walker.manifest.getAttributes(root);
+            if (attributes == null) {
+                throw new NoSuchFileException(root.toString());
+            }
+            walker.startDirectory = attributes.isDirectory();
+            if (maxDepth > 0 && walker.startDirectory) {
+                walker.pending.add(new Node(root, 0, CompletableFuture.completedFuture(null)));
+            }
+        } else {
+            final List<HttpPath> entries = walker.listStart(root);
+            walker.startDirectory = entries != null;
+            if (maxDepth > 0 && entries != null) {
+                walker.pending.add(new Node(root, 0, CompletableFuture.completedFuture(entries)));
+            }
+        }
+        return walker;
+    }
+
+    // lists the start directory; null if it is a file
+    private List<HttpPath> listStart(final HttpPath root) throws IOException {
+        try {
+            return list(root);
+        } catch (final NotDirectoryException e) {
+            return null;
+        } catch (final NoSuchFileException e) {
+            // files are not found when listed with the trailing separator
+            fs.getAttributes(root);
+            return null;
+        }
+    }
+
+    /**
+     * Cancels the pending listings of this walk and the spliterators split from it.
+     */
+    void cancel() {
+        cancelled.set(true);
+        for (final ListingTask task : inFlight) {
+            task.cancel(false);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Path> action) {
+        Node node;
+        while (!cancelled.get() && (node = pending.pollFirst()) != null) {
+            if (node.listing == null) {
+                action.accept(node.path);
+                return true;
+            }
+            expand(node);
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+        while (!cancelled.get() && pending.size() == 1 && pending.peekFirst().listing != null) {
+            expand(pending.pollFirst());
+        }
+        final int size = pending.size();
+        if (cancelled.get() || size < 2) {
+            return null;
+        }
+        // the prefix goes to the new spliterator to keep the encounter order
+        final Deque<Node> prefix = new ArrayDeque<>(size / 2);
+        for (int i = 0; i < size / 2; i++) {
+            prefix.add(pending.pollFirst());
+        }
+        return new HttpTreeSpliterator(fs, manifest, maxDepth, prefix, inFlight, cancelled);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@link Long#MAX_VALUE}, because the size of the tree is unknown.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+
+    // replaces a directory node by its entries, prefetching the listings of the sub-directories
+    private void expand(final Node dir) {
+        final List<HttpPath> entries = awaitListing(dir);
+        final int depth = dir.depth + 1;
+        final List<Node> nodes = new ArrayList<>(entries.size() * 2);
+        for (final HttpPath entry : entries) {
+            nodes.add(new Node(entry, depth, null));
+            if (depth < maxDepth && isDirectory(entry)) {
+                nodes.add(new Node(entry, depth, (manifest == null)
+                        ? prefetch(entry) : CompletableFuture.completedFuture(null)));
+            }
+        }
+        for (final ListIterator<Node> it = nodes.listIterator(nodes.size()); it.hasPrevious(); ) {
+            pending.addFirst(it.previous());
+        }
+    }
+
+    /**
+     * Checks if the start path of the walk is a directory.
+     *
+     * @return {@code true} if the start path is a directory; {@code false} otherwise.
+     */
+    boolean isStartDirectory() {
+        return startDirectory;
+    }
+
+    /**
+     * Checks if an entry of the walk (other than the start path) is a directory: they are
+     * directories if they are in the manifest, or if they end with the separator.
+     *
+     * @param entry the entry returned by the walk.
+     *
+     * @return {@code true} if the entry is a directory; {@code false} otherwise.
+     */
+    boolean isDirectory(final HttpPath entry) {
+        if (manifest == null) {
+            return entry.hasTrailingSlash();
+        }
+        final HttpFileAttributes attributes = manifest.getAttributes(entry);
+        return attributes != null && attributes.isDirectory();
+    }
+
+    // submits the listing of a directory to the bulk executor
+    private Future<List<HttpPath>> prefetch(final HttpPath dir) {
+        final ListingTask task = new ListingTask(dir);
+        inFlight.add(task);
+        if (cancelled.get()) {
+            task.cancel(false);
+        } else {
+            fs.getBulkExecutor().execute(task);
+        }
+        return task;
+    }
+
+    // waits for the listing of a directory node (listed now if it was not prefetched)
+    private List<HttpPath> awaitListing(final Node dir) {
+        try {
+            final List<HttpPath> entries = dir.listing.get();
+            return (entries == null) ? list(dir.path) : entries;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (final CancellationException e) {
+            // cancelled walk or closed File System
+            fs.checkOpen();
+            return Collections.emptyList();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(
+                    new InterruptedIOException("Interrupted listing " + dir.path));
+        }
+    }
+
+    // lists the entries of a directory
+    private List<HttpPath> list(final HttpPath dir) throws IOException {
+        final List<HttpPath> entries = new ArrayList<>();
+        try (final DirectoryStream<Path> stream =
+                fs.provider().newDirectoryStream(dir, ACCEPT_ALL)) {
+            for (final Path entry : stream) {
+                entries.add((HttpPath) entry);
+            }
+        } catch (final DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+        return entries;
+    }
+
+    // a path to return (without listing) or a directory to list
+    private static final class Node {
+
+        private final HttpPath path;
+        private final int depth;
+        // listing of the directory (with null value if it should be listed on demand)
+        private final Future<List<HttpPath>> listing;
+
+        private Node(final HttpPath path, final int depth,
+                final Future<List<HttpPath>> listing) {
+            this.path = path;
+            this.depth = depth;
+            this.listing = listing;
+        }
+    }
+
+    // listing in the bulk executor, which is also completed if cancelled before running
+    private final class ListingTask extends FutureTask<List<HttpPath>> {
+
+        private ListingTask(final HttpPath dir) {
+            super(() -> list(dir));
+        }
+
+        @Override
+        protected void done() {
+            inFlight.remove(this);
+        }
+    }
+}
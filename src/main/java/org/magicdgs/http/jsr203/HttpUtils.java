@@ -9,6 +9,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
+import java.util.Locale;
 
 /**
  * Utility class for working with HTTP/S connections and URLs.
@@ -36,13 +37,73 @@ public final class HttpUtils {
     // value for 'Range' request: START + POSITION + SEPARATOR (+ END)
     private static final String RANGE_REQUEST_PROPERTY_VALUE_START = "bytes=";
     private static final String RANGE_REQUEST_PROPERTY_VALUE_SEPARATOR = "-";
+    // key for 'If-Range' request
+    private static final String IF_RANGE_REQUEST_PROPERTY_KEY = "If-Range";
+    // response headers used as validators for 'If-Range'
+    private static final String ETAG_HEADER = "ETag";
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    // prefix for weak ETags (not allowed for 'If-Range')
+    private static final String WEAK_ETAG_PREFIX = "W/";
 
     // logger for HttpUtils
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpUtils.class);
 
+    // default ports for the supported schemes
+    private static final int HTTP_DEFAULT_PORT = 80;
+    private static final int HTTPS_DEFAULT_PORT = 443;
+
     // utility class - cannot be instantiated
     private HttpUtils() {}
 
+    /**
+     * Gets the canonical form of an authority, to identify the same server.
+     *
+     * <p>The host is lower-cased (the user information is case-sensitive) and the port is removed
+     * if it is empty or the default for the scheme.
+     *
+     * @param scheme    scheme of the URI ({@code http} or {@code https}); other values (including
+     *                  {@code null}) keep any non-empty port.
+     * @param authority non {@code null} authority of the URI.
+     *
+     * @return the canonical authority.
+     */
+    public static String getCanonicalAuthority(final String scheme, final String authority) {
+        final int hostStart = authority.lastIndexOf('@') + 1;
+        // the colon for the port is after the host, which might be an IPv6 literal ("[::1]")
+        final int colon = authority.lastIndexOf(':');
+        final int portSeparator = (colon >= hostStart && colon > authority.lastIndexOf(']'))
+                ? colon : -1;
+        final String host = authority.substring(hostStart,
+                (portSeparator == -1) ? authority.length() : portSeparator)
+                .toLowerCase(Locale.ROOT);
+        final String port = (portSeparator == -1) ? "" : authority.substring(portSeparator + 1);
+
+        final StringBuilder canonical = new StringBuilder(authority.length())
+                .append(authority, 0, hostStart)
+                .append(host);
+        if (!port.isEmpty() && !isDefaultPort(scheme, port)) {
+            canonical.append(':').append(port);
+        }
+        return canonical.toString();
+    }
+
+    // checks if the port is the default for the scheme
+    private static boolean isDefaultPort(final String scheme, final String port) {
+        final int defaultPort;
+        if ("http".equalsIgnoreCase(scheme)) {
+            defaultPort = HTTP_DEFAULT_PORT;
+        } else if ("https".equalsIgnoreCase(scheme)) {
+            defaultPort = HTTPS_DEFAULT_PORT;
+        } else {
+            return false;
+        }
+        try {
+            return Integer.parseInt(port) == defaultPort;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
     /**
      * Disconnects the {@link URLConnection} if it is an instance of {@link HttpURLConnection}.
      *
@@ -117,4 +178,44 @@ public final class HttpUtils {
         // set the range if the position is different from 0
         connection.setRequestProperty(RANGE_REQUEST_PROPERTY_KEY, request);
     }
+
+    /**
+     * Gets the validator for a range request from the response of a {@link URLConnection}.
+     *
+     * <p>The strong {@code ETag} is preferred; otherwise, the {@code Last-Modified} date is
+     * returned.
+     *
+     * @param connection the connection to get the validator from.
+     *
+     * @return the validator; {@code null} if the response does not contain a valid one.
+     */
+    public static String getRangeValidator(final URLConnection connection) {
+        Utils.nonNull(connection, () -> "Null URLConnection");
+        final String etag = connection.getHeaderField(ETAG_HEADER);
+        if (etag != null && !etag.startsWith(WEAK_ETAG_PREFIX)) {
+            return etag;
+        }
+        return connection.getHeaderField(LAST_MODIFIED_HEADER);
+    }
+
+    /**
+     * Request a range of bytes for a {@link URLConnection} only if the resource did not change.
+     *
+     * <p>If the validator does not match the resource, the server sends the whole resource
+     * instead of the requested range.
+     *
+     * @param connection the connection to request the range.
+     * @param start      positive byte number to start the request.
+     * @param end        positive byte number to end the request; {@code -1} if no bounded.
+     * @param validator  validator obtained with {@link #getRangeValidator(URLConnection)}.
+     *
+     * @throws IllegalStateException    if the connection is already connected.
+     * @throws IllegalArgumentException if the request is invalid.
+     */
+    public static void setIfRangeRequest(final URLConnection connection, final long start,
+            final long end, final String validator) {
+        Utils.nonNull(validator, () -> "Null validator");
+        setRangeRequest(connection, start, end);
+        connection.setRequestProperty(IF_RANGE_REQUEST_PROPERTY_KEY, validator);
+    }
 }
@@ -0,0 +1,77 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.Arrays;
+
+/**
+ * Tracker for the latency of recent requests, used to compute percentiles.
+ *
+ * <p>Only the last samples are kept (as a ring buffer), so the percentiles adapt to the current
+ * network conditions.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class LatencyTracker {
+
+    // ring buffer of samples
+    private final long[] samples;
+    // next position to write and number of samples written (up to the capacity)
+    private int next = 0;
+    private int count = 0;
+
+    /**
+     * Creates a new tracker.
+     *
+     * @param capacity number of samples to keep.
+     */
+    LatencyTracker(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Non-positive capacity: " + capacity);
+        }
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Records a new latency sample.
+     *
+     * @param nanos latency in nanoseconds.
+     */
+    synchronized void record(final long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Gets the number of samples currently tracked.
+     *
+     * @return number of samples.
+     */
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Gets the latency for a percentile of the tracked samples.
+     *
+     * @param percentile percentile in the range (0, 100].
+     *
+     * @return latency in nanoseconds; {@code -1} if there are no samples.
+     */
+    long percentile(final double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        final long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,75 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Block cache that admits every block and evicts the least recently used.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class LruBlockCache extends BlockCache {
+
+    private final Blocks blocks = new Blocks();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity   maximum number of blocks to keep; {@code 0} disables the cache.
+     * @param statistics non {@code null} statistics to record the cache activity.
+     */
+    LruBlockCache(final int capacity, final HttpFileSystemStatistics statistics) {
+        super(capacity, statistics);
+    }
+
+    @Override
+    synchronized int size() {
+        return blocks.size();
+    }
+
+    @Override
+    protected byte[] lookup(final BlockKey key) {
+        return blocks.get(key);
+    }
+
+    @Override
+    protected byte[] find(final BlockKey key) {
+        return blocks.get(key);
+    }
+
+    @Override
+    protected void store(final BlockKey key, final byte[] block) {
+        blocks.put(key, block);
+    }
+
+    @Override
+    protected void removeAll() {
+        blocks.clear();
+    }
+
+    @Override
+    protected int removeMatching(final Predicate<BlockKey> filter) {
+        final int before = blocks.size();
+        blocks.keySet().removeIf(filter);
+        return before - blocks.size();
+    }
+
+    // blocks in access-order for LRU, evicting the eldest over the capacity
+    private final class Blocks extends LinkedHashMap<BlockKey, byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private Blocks() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<BlockKey, byte[]> eldest) {
+            if (size() > getCapacity()) {
+                evicted();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded map that evicts the least recently used entry when it is full, used by the in-memory
+ * caches of a {@link HttpFileSystem}.
+ *
+ * <p>The bound is exact: an insertion over the capacity evicts the eldest entry before
+ * returning. Optionally, entries expire a fixed time after they were stored, and expired entries
+ * are not returned. All operations are thread-safe, guarded by the lock on this cache.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class LruCache<K, V> {
+
+    private final int capacity;
+    private final long expireAfterNanos;
+    // source of the time for the expiration, in nanoseconds
+    private final LongSupplier ticker;
+    private final Entries entries = new Entries();
+
+    /**
+     * Creates a new cache whose entries do not expire.
+     *
+     * @param capacity maximum number of entries to keep; {@code 0} disables the cache.
+     */
+    LruCache(final int capacity) {
+        this(capacity, Long.MAX_VALUE, TimeUnit.NANOSECONDS, System::nanoTime);
+    }
+
+    /**
+     * Creates a new cache whose entries expire after they were stored.
+     *
+     * @param capacity    maximum number of entries to keep; {@code 0} disables the cache.
+     * @param expireAfter time after storing an entry to expire it; {@code 0} disables the cache.
+     * @param unit        unit of the expiration time.
+     * @param ticker      source of the current time in nanoseconds (e.g.,
+     *                    {@link System#nanoTime()}).
+     */
+    LruCache(final int capacity, final long expireAfter, final TimeUnit unit,
+            final LongSupplier ticker) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        if (expireAfter < 0) {
+            throw new IllegalArgumentException("Negative expiration: " + expireAfter);
+        }
+        this.capacity = (expireAfter == 0) ? 0 : capacity;
+        this.expireAfterNanos = unit.toNanos(expireAfter);
+        this.ticker = Utils.nonNull(ticker, () -> "null ticker");
+    }
+
+    /**
+     * Gets the maximum number of entries in the cache.
+     *
+     * @return the capacity of the cache.
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the value for a key, marking it as the most recently used.
+     *
+     * @param key the key.
+     *
+     * @return the cached value; {@code null} if not present.
+     */
+    synchronized V get(final K key) {
+        final Timestamped<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Caches the value for a key, replacing the previous one.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    synchronized void put(final K key, final V value) {
+        if (capacity != 0) {
+            entries.put(key, new Timestamped<>(value, ticker.getAsLong()));
+        }
+    }
+
+    /**
+     * Caches the value for a key if it is not present.
+     *
+     * @param key   the key.
+     * @param value the value.
+     *
+     * @return the value already cached, which is marked as the most recently used;
+     * {@code null} if the provided value was cached (or the cache is disabled).
+     */
+    synchronized V putIfAbsent(final K key, final V value) {
+        if (capacity == 0) {
+            return null;
+        }
+        final V previous = get(key);
+        if (previous == null) {
+            entries.put(key, new Timestamped<>(value, ticker.getAsLong()));
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the value for a key.
+     *
+     * @param key the key.
+     */
+    synchronized void remove(final K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the entries whose key matches a filter.
+     *
+     * @param filter the filter for the keys to remove.
+     *
+     * @return the number of removed entries.
+     */
+    synchronized int removeIf(final Predicate<? super K> filter) {
+        final int before = entries.size();
+        entries.keySet().removeIf(filter);
+        return before - entries.size();
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries in the cache, including the expired ones not removed yet.
+     *
+     * @return number of cached entries.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    // checks if the entry is older than the expiration time
+    private boolean isExpired(final Timestamped<V> entry) {
+        return ticker.getAsLong() - entry.stored >= expireAfterNanos;
+    }
+
+    // cached value with the time when it was stored
+    private static final class Timestamped<V> {
+        private final V value;
+        private final long stored;
+
+        private Timestamped(final V value, final long stored) {
+            this.value = value;
+            this.stored = stored;
+        }
+    }
+
+    // entries in access-order, evicting the eldest over the capacity
+    private final class Entries extends LinkedHashMap<K, Timestamped<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private Entries() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, Timestamped<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.magicdgs.http.jsr203;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Manifest with the files published in a static host, used to list directories without
+ * autoindex pages and to get the attributes of the files without HEAD requests.
+ *
+ * <p>The manifest is a UTF-8 text file with a line for each file, and tab-separated columns:
+ *
+ * <ol>
+ * <li>Path of the file, percent-encoded as in the URL. Relative paths are resolved against the
+ * directory of the manifest.</li>
+ * <li>Size of the file in bytes.</li>
+ * <li>Optional ETag of the file.</li>
+ * </ol>
+ *
+ * <p>Empty lines and lines starting with {@code #} are ignored. Directories are the prefixes of
+ * the files, and are listed without the trailing separator.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class Manifest {
+
+    // column separator
+    private static final String SEPARATOR = "\t";
+
+    // index of the files, for listing the directories
+    private final PathIndex index;
+    // attributes of the files
+    private final Map<HttpPath, HttpFileAttributes> files = new HashMap<>();
+
+    private Manifest(final HttpFileSystem fs) {
+        this.index = new PathIndex(fs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses a manifest from the stream.
+     *
+     * @param location the path of the manifest.
+     * @param in       the stream with the content of the manifest.
+     *
+     * @return the parsed manifest.
+     *
+     * @throws IOException if an I/O error occurs or the manifest is invalid.
+     */
+    static Manifest parse(final HttpPath location, final InputStream in) throws IOException {
+        final HttpFileSystem fs = location.getFileSystem();
+        final HttpPath base = (HttpPath) location.toAbsolutePath().getParent();
+        final Manifest manifest = new Manifest(fs);
+        final BufferedReader reader =
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] columns = line.split(SEPARATOR, -1);
+            if (columns.length < 2 || columns.length > 3) {
+                throw invalidLine(location, lineNumber, "expected 2 or 3 columns");
+            }
+            final HttpPath path;
+            try {
+                final HttpPath parsed = HttpPathParser.parse(fs, columns[0], true);
+                path = (HttpPath) (parsed.isAbsolute() ? parsed : base.resolve(parsed))
+                        .normalize();
+            } catch (final InvalidPathException e) {
+                throw invalidLine(location, lineNumber, e.getMessage());
+            }
+            final long size;
+            try {
+                size = Long.parseLong(columns[1]);
+            } catch (final NumberFormatException e) {
+                throw invalidLine(location, lineNumber, "invalid size " + columns[1]);
+            }
+            if (path.getNameCount() == 0 || size < 0) {
+                throw invalidLine(location, lineNumber, "invalid entry");
+            }
+            final String etag = (columns.length == 3 && !columns[2].isEmpty()) ? columns[2] : null;
+            manifest.index.register(path);
+            manifest.files.put(path, HttpFileAttributes.file(size, etag));
+        }
+        return manifest;
+    }
+
+    private static IOException invalidLine(final HttpPath location, final int lineNumber,
+            final String reason) {
+        return new IOException(String.format("Invalid manifest %s at line %s: %s",
+                location, lineNumber, reason));
+    }
+
+    /**
+     * Gets the number of files in the manifest.
+     *
+     * @return number of files.
+     */
+    int size() {
+        return files.size();
+    }
+
+    /**
+     * Gets the attributes of a path.
+     *
+     * @param path the path.
+     *
+     * @return the attributes of the file or directory; {@code null} if it is not in the manifest.
+     */
+    HttpFileAttributes getAttributes(final HttpPath path) {
+        final HttpFileAttributes attributes = files.get(path);
+        if (attributes != null) {
+            return attributes;
+        }
+        final boolean isRoot = path.isAbsolute() && path.getNameCount() == 0;
+        return (isRoot || index.hasChildren(path)) ? HttpFileAttributes.DIRECTORY : null;
+    }
+
+    /**
+     * Opens a directory stream for a directory of the manifest.
+     *
+     * @param dir    the directory.
+     * @param filter the filter for the entries.
+     *
+     * @return the directory stream, with the entries sorted.
+     *
+     * @throws NoSuchFileException   if the directory is not in the manifest.
+     * @throws NotDirectoryException if the path is a file.
+     */
+    DirectoryStream<Path> newDirectoryStream(final HttpPath dir,
+            final DirectoryStream.Filter<? super Path> filter) throws IOException {
+        final HttpFileAttributes attributes = getAttributes(dir);
+        if (attributes == null) {
+            throw new NoSuchFileException(dir.toString());
+        }
+        if (!attributes.isDirectory()) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        final List<HttpPath> children = index.getChildren(dir);
+        children.sort(null);
+        return new ListDirectoryStream(children, filter);
+    }
+
+    // directory stream over a list of entries, applying the filter on iteration
+    private static final class ListDirectoryStream implements DirectoryStream<Path> {
+
+        private final List<HttpPath> entries;
+        private final Filter<? super Path> filter;
+        private volatile boolean open = true;
+        private boolean iteratorReturned = false;
+
+        private ListDirectoryStream(final List<HttpPath> entries,
+                final Filter<? super Path> filter) {
+            this.entries = entries;
+            this.filter = filter;
+        }
+
+        @Override
+        public synchronized Iterator<Path> iterator() {
+            if (!open) {
+                throw new IllegalStateException("Directory stream is closed");
+            }
+            if (iteratorReturned) {
+                throw new IllegalStateException("Iterator already obtained");
+            }
+            iteratorReturned = true;
+            final Iterator<HttpPath> it = entries.iterator();
+            return new Iterator<Path>() {
+                private Path next = null;
+
+                @Override
+                public boolean hasNext() {
+                    try {
+                        while (next == null && open && it.hasNext()) {
+                            final HttpPath entry = it.next();
+                            if (filter.accept(entry)) {
+                                next = entry;
+                            }
+                        }
+                    } catch (final IOException e) {
+                        throw new DirectoryIteratorException(e);
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Path next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final Path entry = next;
+                    next = null;
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
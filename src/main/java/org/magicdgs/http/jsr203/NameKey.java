@@ -0,0 +1,83 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.Arrays;
+
+/**
+ * Key for a single name of an {@link HttpPath}, backed by a range of its bytes.
+ *
+ * <p>Keys used for lookups share the bytes of the path; keys kept in data structures should be
+ * detached with {@link #copy()} to avoid retaining the whole path.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class NameKey {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private final int hash;
+
+    /**
+     * Creates a new key for the range of bytes (not copied).
+     *
+     * @param bytes  the array containing the name.
+     * @param offset the first byte of the name.
+     * @param length the number of bytes of the name.
+     */
+    NameKey(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Gets a key which does not share the bytes with the original path.
+     *
+     * @return the detached key.
+     */
+    NameKey copy() {
+        if (offset == 0 && length == bytes.length) {
+            return this;
+        }
+        return new NameKey(Arrays.copyOfRange(bytes, offset, offset + length), 0, length);
+    }
+
+    /**
+     * Gets the name as a relative path.
+     *
+     * @param fs the File System for the path.
+     *
+     * @return relative path with a single name.
+     */
+    HttpPath toPath(final HttpFileSystem fs) {
+        return HttpPath.ofNormalized(fs, copy().bytes, null, null);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof NameKey)) {
+            return false;
+        }
+        final NameKey key = (NameKey) other;
+        return length == key.length && hash == key.hash
+                && ByteArrays.mismatch(bytes, offset, key.bytes, key.offset, length) == -1;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, HttpUtils.HTTP_PATH_CHARSET);
+    }
+}
@@ -0,0 +1,381 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Download of a HTTP/S resource into a local file, splitting it into parts that are requested
+ * concurrently and written in place with positional writes.
+ *
+ * <p>At most {@link HttpFileSystemSettings#getMaxConcurrentRequests()} parts are downloaded at
+ * the same time, in the bulk executor of the File System. Each part has {@value #PART_BLOCKS}
+ * blocks of {@link HttpFileSystemSettings#getBlockSize()} bytes, and it is requested only if
+ * the resource did not change since the download started ({@code If-Range}).
+ *
+ * <p>The completed parts are recorded in a progress file next to the target (with the
+ * {@value #PROGRESS_SUFFIX} suffix), which is removed when the download finishes. If the download
+ * is interrupted, a new download to the same target resumes from the recorded parts if the
+ * resource did not change (same size and validator).
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class ParallelDownload {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDownload.class);
+
+    /** Number of blocks in each part of the download. */
+    static final int PART_BLOCKS = 128;
+
+    /** Suffix of the progress file. */
+    static final String PROGRESS_SUFFIX = ".progress";
+
+    // separator of the fields in the header of the progress file
+    private static final String SEPARATOR = "\t";
+
+    private final HttpPath source;
+    private final URL url;
+    private final Path target;
+    private final Path progressFile;
+    private final boolean replaceExisting;
+    private final boolean copyAttributes;
+
+    private final HttpFileSystem fs;
+
+    // properties of the resource
+    private long size;
+    private String validator;
+    private long lastModified;
+
+    private ParallelDownload(final HttpPath source, final Path target,
+            final CopyOption... options) throws IOException {
+        this.source = source;
+        this.url = source.toUri().toURL();
+        this.target = target;
+        final Path fileName = target.getFileName();
+        if (fileName == null) {
+            throw new IllegalArgumentException("Invalid target: " + target);
+        }
+        this.progressFile = target.resolveSibling(fileName + PROGRESS_SUFFIX);
+        this.fs = source.getFileSystem();
+        boolean replace = false;
+        boolean attributes = false;
+        for (final CopyOption option : options) {
+            if (option == StandardCopyOption.REPLACE_EXISTING) {
+                replace = true;
+            } else if (option == StandardCopyOption.COPY_ATTRIBUTES) {
+                attributes = true;
+            } else if (option != LinkOption.NOFOLLOW_LINKS) {
+                throw new UnsupportedOperationException("Unsupported copy option: " + option);
+            }
+        }
+        this.replaceExisting = replace;
+        this.copyAttributes = attributes;
+    }
+
+    /**
+     * Downloads a resource into a local file.
+     *
+     * <p>If there is a progress file for the target, the download is resumed even if
+     * {@link StandardCopyOption#REPLACE_EXISTING} is not provided.
+     *
+     * @param source  the resource.
+     * @param target  the local file.
+     * @param options {@link StandardCopyOption#REPLACE_EXISTING} to replace an existing target,
+     *                and {@link StandardCopyOption#COPY_ATTRIBUTES} to set the last modified time.
+     *
+     * @throws NoSuchFileException        if the resource does not exist.
+     * @throws FileAlreadyExistsException if the target exists and it should not be replaced.
+     * @throws IOException                if an I/O error occurs; the progress is kept to resume.
+     */
+    static void download(final HttpPath source, final Path target, final CopyOption... options)
+            throws IOException {
+        new ParallelDownload(source, target, options).run();
+    }
+
+    private void run() throws IOException {
+        requestProperties();
+        final int partSize = (int) Math.min(Integer.MAX_VALUE,
+                (long) fs.getSettings().getBlockSize() * PART_BLOCKS);
+        final String header = String.join(SEPARATOR, Long.toString(size),
+                Integer.toString(partSize), String.valueOf(validator));
+        final BitSet completed = readProgress(header);
+        if (completed == null) {
+            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+                // a target with progress file is a previous download that cannot be resumed
+                if (!replaceExisting && !Files.exists(progressFile)) {
+                    throw new FileAlreadyExistsException(target.toString());
+                }
+                Files.delete(target);
+            }
+        } else {
+            LOGGER.debug("Resuming download of {} into {} ({} parts completed)",
+                    url, target, completed.cardinality());
+        }
+
+        if (size == -1) {
+            // without size, the resource is streamed and cannot be resumed
+            try (final InputStream in = openStream(0, -1)) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else {
+            try (final FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                if (completed == null) {
+                    // the existing file was removed
+                    channel.truncate(0);
+                }
+                downloadParts(channel, partSize, header,
+                        (completed == null) ? new BitSet() : completed);
+                channel.truncate(size);
+            }
+            Files.deleteIfExists(progressFile);
+        }
+        if (copyAttributes && lastModified != 0) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+        }
+    }
+
+    // requests the size and validator of the resource
+    private void requestProperties() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("HEAD");
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(url.toString());
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot copy %s: %s %s",
+                        url, code, connection.getResponseMessage()));
+            }
+            size = connection.getContentLengthLong();
+            validator = HttpUtils.getRangeValidator(connection);
+            lastModified = connection.getLastModified();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // reads the completed parts of a previous download; null if it cannot be resumed
+    private BitSet readProgress(final String header) throws IOException {
+        if (validator == null || size == -1 || !Files.exists(progressFile)
+                || !Files.exists(target)) {
+            return null;
+        }
+        final BitSet completed = new BitSet();
+        try (final BufferedReader reader =
+                Files.newBufferedReader(progressFile, StandardCharsets.UTF_8)) {
+            if (!header.equals(reader.readLine())) {
+                LOGGER.debug("Not resuming download into {}: resource changed", target);
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    completed.set(Integer.parseInt(line));
+                } catch (final NumberFormatException | IndexOutOfBoundsException e) {
+                    // the last line might be incomplete if the download was interrupted
+                    LOGGER.debug("Ignoring line of {}: {}", progressFile, line);
+                }
+            }
+        }
+        return completed;
+    }
+
+    // downloads the parts that are not completed yet in the bulk executor
+    private void downloadParts(final FileChannel channel, final int partSize,
+            final String header, final BitSet completed) throws IOException {
+        final int numberOfParts = (int) ((size + partSize - 1) / partSize);
+        final List<Integer> pending = new ArrayList<>();
+        for (int part = completed.nextClearBit(0); part < numberOfParts;
+                part = completed.nextClearBit(part + 1)) {
+            pending.add(part);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try (final FileChannel progress = FileChannel.open(progressFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // re-written with the completed parts, to drop any incomplete line
+            progress.truncate(0);
+            final StringBuilder lines = new StringBuilder(header).append('\n');
+            completed.stream().forEach(part -> lines.append(part).append('\n'));
+            write(progress, lines.toString());
+
+            final AtomicInteger next = new AtomicInteger();
+            final AtomicBoolean failed = new AtomicBoolean();
+            final int workers = Math.min(pending.size(),
+                    fs.getSettings().getMaxConcurrentRequests());
+            final List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(fs.getBulkExecutor().submit(() -> {
+                    int index;
+                    while (!failed.get() && (index = next.getAndIncrement()) < pending.size()) {
+                        final int part = pending.get(index);
+                        try {
+                            downloadPart(channel, part, (long) part * partSize,
+                                    Math.min(partSize, size - (long) part * partSize));
+                            recordPart(channel, progress, part);
+                        } catch (final IOException | RuntimeException e) {
+                            failed.set(true);
+                            throw (e instanceof IOException)
+                                    ? new UncheckedIOException((IOException) e)
+                                    : (RuntimeException) e;
+                        }
+                    }
+                }));
+            }
+            awaitAll(futures, failed);
+        }
+    }
+
+    // waits for all the workers, throwing the first error after all of them finished
+    private void awaitAll(final List<Future<?>> futures, final AtomicBoolean failed)
+            throws IOException {
+        IOException error = null;
+        boolean interrupted = false;
+        for (final Future<?> future : futures) {
+            boolean finished = false;
+            while (!finished) {
+                try {
+                    future.get();
+                    finished = true;
+                } catch (final InterruptedException e) {
+                    // stop the workers, but wait for them before closing the target
+                    interrupted = true;
+                    failed.set(true);
+                } catch (final CancellationException e) {
+                    // closed File System
+                    finished = true;
+                    error = addError(error, new IOException("Cancelled copy of " + url, e));
+                } catch (final ExecutionException e) {
+                    finished = true;
+                    final Throwable cause = (e.getCause() instanceof UncheckedIOException)
+                            ? e.getCause().getCause() : e.getCause();
+                    error = addError(error, (cause instanceof IOException) ? (IOException) cause
+                            : new IOException("Cannot copy " + url, cause));
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            error = addError(new InterruptedIOException("Interrupted copy of " + url), error);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private static IOException addError(final IOException first, final IOException other) {
+        if (first == null) {
+            return other;
+        }
+        if (other != null && other != first) {
+            first.addSuppressed(other);
+        }
+        return first;
+    }
+
+    // downloads a part into its position in the channel
+    private void downloadPart(final FileChannel channel, final int part, final long start,
+            final long length) throws IOException {
+        fs.checkOpen();
+        final ByteBuffer buffer = fs.getBufferPool().acquire();
+        try (final InputStream in = openStream(start, start + length - 1)) {
+            long position = start;
+            final long end = start + length;
+            int read;
+            while (position < end && (read = in.read(buffer.array(), buffer.arrayOffset(),
+                    (int) Math.min(buffer.capacity(), end - position))) != -1) {
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            if (position != end) {
+                throw new IOException(String.format("Truncated part %s of %s: %s of %s bytes",
+                        part, url, position - start, length));
+            }
+        } finally {
+            fs.getBufferPool().release(buffer);
+        }
+    }
+
+    // opens the stream for a range, only if the resource did not change
+    private InputStream openStream(final long start, final long end) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            if (end != -1) {
+                if (validator == null) {
+                    HttpUtils.setRangeRequest(connection, start, end);
+                } else {
+                    HttpUtils.setIfRangeRequest(connection, start, end, validator);
+                }
+            }
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new NoSuchFileException(url.toString());
+            }
+            final boolean expected = (end == -1 || (start == 0 && end == size - 1))
+                    ? (code == HttpURLConnection.HTTP_OK || code == HttpURLConnection.HTTP_PARTIAL)
+                    : code == HttpURLConnection.HTTP_PARTIAL;
+            if (code == HttpURLConnection.HTTP_OK && end != -1
+                    && connection.getContentLengthLong() != size) {
+                throw new IOException("Cannot copy " + url + ": resource changed");
+            }
+            if (!expected) {
+                throw new IOException(String.format(
+                        "Cannot copy bytes %s-%s of %s (changed or ranges not supported): %s %s",
+                        start, end, url, code, connection.getResponseMessage()));
+            }
+            return connection.getInputStream();
+        } catch (final IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    // records a completed part, after its bytes are persisted
+    private void recordPart(final FileChannel channel, final FileChannel progress,
+            final int part) throws IOException {
+        channel.force(false);
+        synchronized (progress) {
+            write(progress, part + "\n");
+        }
+    }
+
+    private static void write(final FileChannel channel, final String text) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
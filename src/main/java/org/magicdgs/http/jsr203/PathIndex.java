@@ -0,0 +1,262 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Index of the paths known by a {@link HttpFileSystem} (opened, checked or listed).
+ *
+ * <p>The paths are kept in a trie keyed by their names, so the lookup of a prefix depends only on
+ * its number of names and not on the number of known paths. Lookups are lock-free; paths
+ * registered concurrently with the invalidation of one of their prefixes might be lost.
+ *
+ * <p>Only absolute paths are indexed. A path with a query or reference shares the entry with the
+ * path without them, keeping the first one registered.
+ *
+ * <p>Once the index is full, new paths are not registered: the index is marked as truncated
+ * (see {@link #isTruncated()}), a warning is logged and each rejected path is counted in the
+ * {@link HttpFileSystemStatistics}. Queries on a truncated index might be incomplete.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class PathIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PathIndex.class);
+
+    private final HttpFileSystem fs;
+    private final int capacity;
+    private final Node root = new Node();
+    // number of registered paths (approximate under concurrent invalidation)
+    private final AtomicInteger size = new AtomicInteger();
+    // true if any path was rejected because the index was full
+    private volatile boolean truncated = false;
+
+    /**
+     * Creates a new index.
+     *
+     * @param fs       non {@code null} File System of the paths.
+     * @param capacity maximum number of paths to register; {@code 0} disables the index.
+     */
+    PathIndex(final HttpFileSystem fs, final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.fs = Utils.nonNull(fs, () -> "null fs");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Registers a known path.
+     *
+     * @param path the path to register.
+     *
+     * @return {@code true} if the path is in the index; {@code false} if it is relative or the
+     * index is full.
+     */
+    boolean register(final HttpPath path) {
+        if (!path.isAbsolute() || capacity == 0) {
+            return false;
+        }
+        if (size.get() >= capacity) {
+            if (!truncated) {
+                truncated = true;
+                LOGGER.warn("Index of known paths for {} is full ({} paths): further paths are "
+                        + "not indexed", fs.getAuthority(), capacity);
+            }
+            fs.getStatistics().incrementPathIndexRejections();
+            return false;
+        }
+        Node node = root;
+        for (int i = 0; i < path.getNameCount(); i++) {
+            final NameKey key = path.getNameKey(i);
+            Node child = node.children.get(key);
+            if (child == null) {
+                child = node.children.computeIfAbsent(key.copy(), k -> new Node());
+            }
+            node = child;
+        }
+        if (node.path == null && Node.PATH.compareAndSet(node, null, path)) {
+            size.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the path is registered.
+     *
+     * @param path the path to check.
+     *
+     * @return {@code true} if the path (or the same path with another query or reference) is
+     * registered; {@code false} otherwise.
+     */
+    boolean contains(final HttpPath path) {
+        final Node node = find(path);
+        return node != null && node.path != null;
+    }
+
+    /**
+     * Gets the registered paths starting with the prefix (including the prefix itself).
+     *
+     * @param prefix the prefix to look for.
+     *
+     * @return the registered paths in the subtree of the prefix; might be incomplete if the
+     * index is truncated.
+     */
+    List<HttpPath> getSubtree(final HttpPath prefix) {
+        final Node node = find(prefix);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        final List<HttpPath> paths = new ArrayList<>();
+        final Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            final Node current = pending.pop();
+            if (current.path != null) {
+                paths.add(current.path);
+            }
+            current.children.values().forEach(pending::push);
+        }
+        return paths;
+    }
+
+    /**
+     * Gets the direct children of a directory known by the index.
+     *
+     * <p>Children are returned even if they were not registered themselves (e.g., directories
+     * of a registered path).
+     *
+     * @param dir the directory.
+     *
+     * @return the children of the directory, without query or reference; might be incomplete if
+     * the index is truncated.
+     */
+    List<HttpPath> getChildren(final HttpPath dir) {
+        final Node node = find(dir);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        final List<HttpPath> children = new ArrayList<>(node.children.size());
+        for (final NameKey name : node.children.keySet()) {
+            children.add((HttpPath) dir.resolve(name.toPath(fs)));
+        }
+        return children;
+    }
+
+    /**
+     * Checks if the index knows any child of a directory.
+     *
+     * @param dir the directory.
+     *
+     * @return {@code true} if the directory has children; {@code false} otherwise.
+     */
+    boolean hasChildren(final HttpPath dir) {
+        final Node node = find(dir);
+        return node != null && !node.children.isEmpty();
+    }
+
+    /**
+     * Removes the prefix and all the paths starting with it.
+     *
+     * @param prefix the prefix to remove.
+     *
+     * @return the number of registered paths removed.
+     */
+    int invalidate(final HttpPath prefix) {
+        if (!prefix.isAbsolute()) {
+            return 0;
+        }
+        final int count = prefix.getNameCount();
+        int paths = 0;
+        if (count == 0) {
+            // the root cannot be removed, so the children are removed one by one
+            for (final NameKey name : root.children.keySet()) {
+                final Node child = root.children.remove(name);
+                if (child != null) {
+                    paths += getSubtreeSize(child);
+                }
+            }
+            if (Node.PATH.getAndSet(root, null) != null) {
+                paths++;
+            }
+            // every path was removed, so the index is complete again
+            truncated = false;
+        } else {
+            final Node parent = find(prefix, count - 1);
+            final Node removed = (parent == null) ? null
+                    : parent.children.remove(prefix.getNameKey(count - 1));
+            if (removed != null) {
+                paths = getSubtreeSize(removed);
+            }
+        }
+        size.addAndGet(-paths);
+        return paths;
+    }
+
+    /**
+     * Checks if any path was not registered because the index was full, since it was created or
+     * the root was invalidated.
+     *
+     * @return {@code true} if the index is truncated; {@code false} otherwise.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets the number of registered paths.
+     *
+     * @return the number of paths in the index.
+     */
+    int size() {
+        return size.get();
+    }
+
+    // finds the node for the path
+    private Node find(final HttpPath path) {
+        return path.isAbsolute() ? find(path, path.getNameCount()) : null;
+    }
+
+    // finds the node for the first names of the path
+    private Node find(final HttpPath path, final int names) {
+        Node node = root;
+        for (int i = 0; i < names && node != null; i++) {
+            node = node.children.get(path.getNameKey(i));
+        }
+        return node;
+    }
+
+    // counts the registered paths in the subtree
+    private static int getSubtreeSize(final Node node) {
+        int count = 0;
+        final Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            final Node current = pending.pop();
+            if (current.path != null) {
+                count++;
+            }
+            current.children.values().forEach(pending::push);
+        }
+        return count;
+    }
+
+    // node of the trie: children by name and registered path (if any)
+    private static final class Node {
+        private static final AtomicReferenceFieldUpdater<Node, HttpPath> PATH =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, HttpPath.class, "path");
+
+        private final Map<NameKey, Node> children = new ConcurrentHashMap<>();
+        private volatile HttpPath path;
+    }
+}
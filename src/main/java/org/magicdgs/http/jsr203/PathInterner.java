@@ -0,0 +1,67 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.function.Function;
+
+/**
+ * Bounded pool of canonical {@link HttpPath} instances, keyed by the input used to create them.
+ *
+ * <p>Repeated inputs return the same instance without parsing them again. When the pool is full,
+ * the least recently used path is removed; inputs are parsed without holding the lock.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class PathInterner {
+
+    private final HttpFileSystemStatistics statistics;
+    private final LruCache<String, HttpPath> paths;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity   maximum number of paths to keep; {@code 0} disables the pool.
+     * @param statistics non {@code null} statistics to record the pool activity.
+     */
+    PathInterner(final int capacity, final HttpFileSystemStatistics statistics) {
+        this.paths = new LruCache<>(capacity);
+        this.statistics = Utils.nonNull(statistics, () -> "null statistics");
+    }
+
+    /**
+     * Gets the canonical path for the input, creating it if it is not in the pool.
+     *
+     * @param input  the input to create the path.
+     * @param parser function to create the path from the input.
+     *
+     * @return the canonical path for the input.
+     */
+    HttpPath intern(final String input, final Function<String, HttpPath> parser) {
+        if (paths.getCapacity() == 0) {
+            return parser.apply(input);
+        }
+        final HttpPath cached = paths.get(input);
+        if (cached != null) {
+            statistics.incrementPathInternHits();
+            return cached;
+        }
+        final HttpPath path = parser.apply(input);
+        final HttpPath previous = paths.putIfAbsent(input, path);
+        // other thread might have created it first
+        return (previous != null) ? previous : path;
+    }
+
+    /**
+     * Removes all the paths from the pool.
+     */
+    void clear() {
+        paths.clear();
+    }
+
+    /**
+     * Gets the number of paths in the pool.
+     *
+     * @return number of interned paths.
+     */
+    int size() {
+        return paths.size();
+    }
+}
@@ -0,0 +1,209 @@
+package org.magicdgs.http.jsr203;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Adapts a {@link HttpContentPublisher} to the {@code Publisher} interface of a Reactive Streams
+ * API (e.g., {@code java.util.concurrent.Flow.Publisher} or
+ * {@code org.reactivestreams.Publisher}) by reflection, to keep the library compatible with Java 8
+ * and without dependencies.
+ *
+ * <p>The subscriber and subscription types are resolved from the signature of the
+ * {@code subscribe} method of the publisher interface, so any API with the same methods is
+ * supported.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class PublisherAdapter {
+
+    private final HttpContentPublisher publisher;
+
+    // Subscriber.onSubscribe(Subscription), Subscriber.onNext(T), Subscriber.onError(Throwable)
+    // and Subscriber.onComplete() of the adapted API
+    private final Method onSubscribe;
+    private final Method onNext;
+    private final Method onError;
+    private final Method onComplete;
+    // Subscription interface of the adapted API
+    private final Class<?> subscriptionType;
+
+    private PublisherAdapter(final HttpContentPublisher publisher,
+            final Class<?> publisherType) {
+        this.publisher = publisher;
+        final Class<?> subscriberType = getParameterType(publisherType, "subscribe");
+        this.onSubscribe = getMethod(subscriberType, "onSubscribe", 1);
+        this.onNext = getMethod(subscriberType, "onNext", 1);
+        this.onError = getMethod(subscriberType, "onError", 1);
+        this.onComplete = getMethod(subscriberType, "onComplete", 0);
+        this.subscriptionType = onSubscribe.getParameterTypes()[0];
+        if (!subscriptionType.isInterface()
+                || !onNext.getParameterTypes()[0].isAssignableFrom(ByteBuffer.class)
+                || !onError.getParameterTypes()[0].isAssignableFrom(Throwable.class)) {
+            throw new IllegalArgumentException("Not a Reactive Streams publisher of bytes: "
+                    + publisherType.getName());
+        }
+        // checked here to fail before subscribing
+        if (getParameterType(subscriptionType, "request") != long.class) {
+            throw new IllegalArgumentException("Not a Reactive Streams subscription: "
+                    + subscriptionType.getName());
+        }
+        getMethod(subscriptionType, "cancel", 0);
+    }
+
+    /**
+     * Adapts the publisher to a Reactive Streams API.
+     *
+     * @param publisher     the publisher to adapt.
+     * @param publisherType the {@code Publisher} interface of the API.
+     * @param <P>           type of the publisher.
+     *
+     * @return a publisher of the API subscribing to {@code publisher}.
+     *
+     * @throws IllegalArgumentException if the type is not a Reactive Streams publisher.
+     */
+    static <P> P adapt(final HttpContentPublisher publisher, final Class<P> publisherType) {
+        Utils.nonNull(publisher, () -> "null publisher");
+        Utils.nonNull(publisherType, () -> "null publisher type");
+        if (!publisherType.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + publisherType.getName());
+        }
+        final PublisherAdapter adapter = new PublisherAdapter(publisher, publisherType);
+        return publisherType.cast(Proxy.newProxyInstance(publisherType.getClassLoader(),
+                new Class<?>[] {publisherType}, adapter.new PublisherHandler()));
+    }
+
+    // gets the parameter type of the only method with a single parameter and the given name
+    private static Class<?> getParameterType(final Class<?> type, final String name) {
+        return getMethod(type, name, 1).getParameterTypes()[0];
+    }
+
+    // gets the public method with the given name and number of parameters
+    private static Method getMethod(final Class<?> type, final String name, final int params) {
+        Method found = null;
+        for (final Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == params) {
+                if (found != null) {
+                    throw new IllegalArgumentException(String.format(
+                            "Ambiguous method %s in %s", name, type.getName()));
+                }
+                found = method;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Missing method %s in %s", name, type.getName()));
+        }
+        return found;
+    }
+
+    // invokes a method of the adapted API, rethrowing its unchecked exceptions
+    private static Object invoke(final Method method, final Object target,
+            final Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (final IllegalAccessException e) {
+            throw new Utils.ShouldNotHappenException(e);
+        }
+    }
+
+    // handles the methods of Object for the proxies (identity equality)
+    private static Object invokeObjectMethod(final Object proxy, final Method method,
+            final Object[] args, final Object delegate) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return delegate.toString();
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    // Publisher.subscribe(Subscriber) of the adapted API
+    private final class PublisherHandler implements InvocationHandler {
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, publisher);
+            }
+            if (!"subscribe".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Objects.requireNonNull(args[0], "null subscriber");
+            publisher.subscribe(new SubscriberAdapter(args[0]));
+            return null;
+        }
+    }
+
+    // forwards the signals to the subscriber of the adapted API
+    private final class SubscriberAdapter implements HttpContentPublisher.Subscriber {
+
+        private final Object subscriber;
+
+        private SubscriberAdapter(final Object subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(final HttpContentPublisher.Subscription subscription) {
+            final Object adapted = Proxy.newProxyInstance(subscriptionType.getClassLoader(),
+                    new Class<?>[] {subscriptionType}, new SubscriptionHandler(subscription));
+            invoke(onSubscribe, subscriber, adapted);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            invoke(onNext, subscriber, chunk);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            invoke(onError, subscriber, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            invoke(onComplete, subscriber);
+        }
+    }
+
+    // Subscription.request(long) and Subscription.cancel() of the adapted API
+    private static final class SubscriptionHandler implements InvocationHandler {
+
+        private final HttpContentPublisher.Subscription subscription;
+
+        private SubscriptionHandler(final HttpContentPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, subscription);
+            }
+            if ("request".equals(method.getName())) {
+                subscription.request((Long) args[0]);
+            } else {
+                subscription.cancel();
+            }
+            return null;
+        }
+    }
+}
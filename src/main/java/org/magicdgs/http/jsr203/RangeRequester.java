@@ -0,0 +1,261 @@
+package org.magicdgs.http.jsr203;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.ClosedFileSystemException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Issues bounded range requests for a {@link HttpFileSystem}.
+ *
+ * <p>If hedging is enabled in the {@link HttpFileSystemSettings}, a request that did not get a
+ * response within the configured percentile of the recent latency is duplicated. The first
+ * response is used and the other request is disconnected as soon as the first one is received,
+ * even if it is still waiting for its response.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class RangeRequester {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RangeRequester.class);
+
+    // number of recent samples to track and minimum number of them to start hedging
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_SAMPLES_FOR_HEDGING = 16;
+
+    private final HttpFileSystem fs;
+    private final LatencyTracker latency = new LatencyTracker(LATENCY_SAMPLES);
+
+    /**
+     * Creates a new requester for the File System.
+     *
+     * @param fs the File System for settings, statistics and executor.
+     */
+    RangeRequester(final HttpFileSystem fs) {
+        this.fs = Utils.nonNull(fs, () -> "null fs");
+    }
+
+    /**
+     * Opens a connection requesting a bounded range of bytes.
+     *
+     * <p>The response code should be checked by the caller, because the server might not honor
+     * the range (e.g., the resource changed or the range is not satisfiable).
+     *
+     * @param url       the URL to request.
+     * @param start     first byte to request.
+     * @param end       last byte to request (inclusive).
+     * @param validator validator for {@code If-Range}; {@code null} if not available.
+     *
+     * @return the connection with the response already received.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    HttpURLConnection open(final URL url, final long start, final long end,
+            final String validator) throws IOException {
+        final long delay = getHedgeDelayMillis();
+        if (delay < 0) {
+            return request(url, start, end, validator, null);
+        }
+
+        final Attempt primary = submit(url, start, end, validator);
+        try {
+            return primary.result.get(delay, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            LOGGER.debug("Hedging request for {} (bytes={}-{}) after {} ms", url, start, end,
+                    delay);
+        } catch (final InterruptedException e) {
+            primary.abort();
+            throw interrupted(url);
+        } catch (final ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        fs.getStatistics().incrementHedgedRequests();
+        final Attempt hedge = submit(url, start, end, validator);
+        final CompletableFuture<HttpURLConnection> winner = firstSuccessful(primary, hedge);
+        try {
+            final HttpURLConnection connection = winner.get();
+            if (hedge.result.isDone() && !hedge.result.isCompletedExceptionally()
+                    && hedge.result.getNow(null) == connection) {
+                fs.getStatistics().incrementHedgeWins();
+            }
+            return connection;
+        } catch (final InterruptedException e) {
+            primary.abort();
+            hedge.abort();
+            throw interrupted(url);
+        } catch (final ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    // gets the delay before hedging; -1 if hedging is disabled or there is not enough data
+    private long getHedgeDelayMillis() {
+        final HttpFileSystemSettings settings = fs.getSettings();
+        if (settings.getHedgePercentile() == 0 || latency.size() < MIN_SAMPLES_FOR_HEDGING) {
+            return -1;
+        }
+        final long percentile = TimeUnit.NANOSECONDS.toMillis(
+                latency.percentile(settings.getHedgePercentile()));
+        return Math.max(settings.getHedgeMinDelayMillis(), percentile);
+    }
+
+    // submits a request to the executor of the File System; it fails with
+    // ClosedFileSystemException if it is rejected or cancelled by closing the File System
+    private Attempt submit(final URL url, final long start, final long end,
+            final String validator) {
+        final Attempt attempt = new Attempt(url, start, end, validator);
+        try {
+            // registered until the response is received, to abort it on close
+            fs.registerResource(attempt);
+            fs.getExecutor().execute(attempt.task);
+        } catch (final RejectedExecutionException | ClosedFileSystemException e) {
+            fs.unregisterResource(attempt);
+            attempt.result.completeExceptionally(new ClosedFileSystemException());
+        }
+        return attempt;
+    }
+
+    // performs the request and tracks the latency until the response is received; the
+    // connection is published to the attempt (if any) once connected, before waiting for the
+    // response
+    private HttpURLConnection request(final URL url, final long start, final long end,
+            final String validator, final Attempt attempt) throws IOException {
+        final long startTime = System.nanoTime();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (validator == null) {
+            HttpUtils.setRangeRequest(connection, start, end);
+        } else {
+            HttpUtils.setIfRangeRequest(connection, start, end, validator);
+        }
+        try {
+            if (attempt != null) {
+                // connected before publishing, because disconnecting it before is a no-op
+                connection.connect();
+                attempt.publish(connection);
+            }
+            connection.getResponseCode();
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        latency.record(System.nanoTime() - startTime);
+        return connection;
+    }
+
+    // completes with the first successful connection, aborting the other attempt as soon as
+    // the winner is known
+    private static CompletableFuture<HttpURLConnection> firstSuccessful(final Attempt first,
+            final Attempt second) {
+        final CompletableFuture<HttpURLConnection> winner = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        for (final Attempt attempt : Arrays.asList(first, second)) {
+            final Attempt other = (attempt == first) ? second : first;
+            attempt.result.whenComplete((connection, error) -> {
+                if (error == null) {
+                    if (winner.complete(connection)) {
+                        other.abort();
+                    } else {
+                        connection.disconnect();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    // restores the interrupt flag and returns the exception to throw
+    static InterruptedIOException interrupted(final URL url) {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("Interrupted while requesting " + url);
+    }
+
+    // unwraps the I/O exception thrown by the request
+    static IOException unwrap(final ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof UncheckedIOException
+                || cause instanceof CompletionException) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    // request in the background, with its connection published before waiting for the
+    // response so it can be disconnected from other threads
+    private final class Attempt implements Abortable {
+
+        private final CompletableFuture<HttpURLConnection> result = new CompletableFuture<>();
+        private final FutureTask<HttpURLConnection> task;
+        private volatile HttpURLConnection connection;
+        private volatile boolean aborted = false;
+
+        private Attempt(final URL url, final long start, final long end,
+                final String validator) {
+            this.task = new FutureTask<HttpURLConnection>(
+                    () -> request(url, start, end, validator, this)) {
+                @Override
+                protected void done() {
+                    fs.unregisterResource(Attempt.this);
+                    if (isCancelled()) {
+                        // aborted because the other attempt won or the File System was closed
+                        result.completeExceptionally(fs.isOpen()
+                                ? new CancellationException()
+                                : new ClosedFileSystemException());
+                        return;
+                    }
+                    try {
+                        result.complete(get());
+                    } catch (final ExecutionException e) {
+                        result.completeExceptionally(e.getCause());
+                    } catch (final InterruptedException e) {
+                        // not thrown, because the task is done
+                        Thread.currentThread().interrupt();
+                        result.completeExceptionally(e);
+                    }
+                }
+            };
+        }
+
+        // publishes the connection, disconnecting it if the attempt was already aborted
+        private void publish(final HttpURLConnection opened) {
+            connection = opened;
+            if (aborted) {
+                opened.disconnect();
+            }
+        }
+
+        // cancels the request if it is queued, or disconnects it if it is running or done
+        @Override
+        public void abort() {
+            aborted = true;
+            task.cancel(false);
+            final HttpURLConnection opened = connection;
+            if (opened != null) {
+                opened.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.magicdgs.http.jsr203;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Scan-resistant block cache using a TinyLFU admission policy in front of a segmented LRU.
+ *
+ * <p>The access frequency of every requested block is estimated with a {@link FrequencySketch}.
+ * When the cache is full, a new block is only admitted if it was requested more often than the
+ * block that would be evicted. Cached blocks start in a probation segment and are promoted to a
+ * protected segment when they are hit; victims are taken from the probation segment first.
+ *
+ * <p>As a consequence, a long sequential scan (where each block is requested once) does not
+ * evict frequently re-used blocks.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class TinyLfuBlockCache extends BlockCache {
+
+    // percentage of the capacity used by the protected segment
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+
+    // segments in access order (the eldest entry is the least recently used)
+    private final LinkedHashMap<BlockKey, byte[]> probation =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<BlockKey, byte[]> protectedSegment =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity   maximum number of blocks to keep; {@code 0} disables the cache.
+     * @param statistics non {@code null} statistics to record the cache activity.
+     */
+    TinyLfuBlockCache(final int capacity, final HttpFileSystemStatistics statistics) {
+        super(capacity, statistics);
+        this.protectedCapacity = (int) ((long) capacity * PROTECTED_PERCENTAGE / 100);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    @Override
+    synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    protected byte[] lookup(final BlockKey key) {
+        sketch.increment(key.hashCode());
+        byte[] block = protectedSegment.get(key);
+        if (block == null) {
+            block = probation.remove(key);
+            if (block != null) {
+                promote(key, block);
+            }
+        }
+        return block;
+    }
+
+    @Override
+    protected byte[] find(final BlockKey key) {
+        final byte[] block = protectedSegment.get(key);
+        return (block != null) ? block : probation.get(key);
+    }
+
+    @Override
+    protected void store(final BlockKey key, final byte[] block) {
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, block);
+            return;
+        }
+        if (probation.containsKey(key) || size() < getCapacity()) {
+            probation.put(key, block);
+            return;
+        }
+        // the cache is full: the candidate competes with the victim
+        final Map<BlockKey, byte[]> victimSegment =
+                probation.isEmpty() ? protectedSegment : probation;
+        final Iterator<BlockKey> victims = victimSegment.keySet().iterator();
+        final BlockKey victim = victims.next();
+        if (sketch.frequency(key.hashCode()) > sketch.frequency(victim.hashCode())) {
+            victims.remove();
+            evicted();
+            probation.put(key, block);
+        }
+    }
+
+    @Override
+    protected void removeAll() {
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    @Override
+    protected int removeMatching(final Predicate<BlockKey> filter) {
+        final int before = size();
+        probation.keySet().removeIf(filter);
+        protectedSegment.keySet().removeIf(filter);
+        return before - size();
+    }
+
+    // moves a block to the protected segment, demoting the eldest if it is full
+    private void promote(final BlockKey key, final byte[] block) {
+        protectedSegment.put(key, block);
+        if (protectedSegment.size() > protectedCapacity) {
+            final Iterator<Map.Entry<BlockKey, byte[]>> eldest =
+                    protectedSegment.entrySet().iterator();
+            final Map.Entry<BlockKey, byte[]> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+}
@@ -3,8 +3,16 @@ package org.magicdgs.http.jsr203;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.ByteBuffer;
@@ -13,46 +21,295 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.spi.FileSystemProvider;
 
 /**
  * Implementation for a {@link SeekableByteChannel} for {@link URL} open as a connection.
  *
  * <p>The current implementation is thread-safe using the {@code synchronized} keyword in every
- * method.
+ * method, except for the positional reads that do not modify the state of the channel and can
+ * run concurrently.
+ *
+ * <p>If the stream is interrupted while reading (e.g., connection reset), the channel resumes
+ * transparently at the current position with a range request guarded by {@code If-Range}. The
+ * number of attempts and the backoff between them are configured with the
+ * {@link HttpFileSystemSettings} of the {@link HttpFileSystem}.
+ *
+ * <p>Positional reads ({@link #read(ByteBuffer, long)} and {@link #read(ByteBuffer[], long)})
+ * issue a bounded range request, which is hedged if enabled in the settings. If the block cache
+ * is configured with {@link HttpFileSystemSettings#BLOCK_CACHE_CAPACITY_KEY}, positional reads
+ * are served from fixed-size blocks of the resource: concurrent reads of the same block share a
+ * single request, and consecutive missing blocks are fetched together.
+ *
+ * <p>When the sequential stream is released (on close or when seeking requires a new request),
+ * the connection is drained and kept alive for re-use if the unread remainder is small;
+ * otherwise, the connection is aborted to avoid downloading the rest of the body. The threshold
+ * is configured with {@link HttpFileSystemSettings#DRAIN_THRESHOLD_BYTES_KEY}. Seeking forward
+ * by less than the threshold skips the bytes in the current stream.
+ *
+ * <p>Sequential reads always use the stream, even if the block cache is enabled, so large scans
+ * neither go through the cache nor lose the resume and drain handling. Only channels created for
+ * a resource with known size and validator (e.g., for partitions) read sequentially from its
+ * blocks.
  *
  * @author Daniel Gomez-Sanchez (magicDGS)
  * @implNote this seekable byte channel is read-only.
  */
-class URLSeekableByteChannel implements SeekableByteChannel {
+class URLSeekableByteChannel implements SeekableByteChannel, Abortable {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    // response code for range not satisfiable (not defined in HttpURLConnection)
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    // size of the buffer to drain connections
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+
     // url and proxy for the file
     private final URL url;
 
+    // file system for settings and statistics
+    private final HttpFileSystem fs;
+
     // current position of the SeekableByteChannel
     private long position = 0;
 
     // the size of the whole file (-1 is not initialized)
     private long size = -1;
 
+    // validator for resuming the stream with 'If-Range' (null if not available)
+    // volatile because it is used by the positional reads
+    private volatile String validator = null;
+
+    // expected end of the current stream (-1 if unknown)
+    private long streamEnd = -1;
+
+    // if the channel was closed by the user
+    private boolean open = true;
+    // if the channel was aborted by closing the File System (without holding the lock)
+    private volatile boolean aborted = false;
+
+    // if sequential reads are served from blocks instead of the stream (known size only)
+    private final boolean blockMode;
+    // current block for sequential reads, to request each block only once
+    private long currentBlockIndex = -1;
+    private byte[] currentBlock = null;
+
+    // volatile because it is disconnected on abort
+    private volatile URLConnection connection = null;
     private ReadableByteChannel channel = null;
     private InputStream backedStream = null;
 
-
+    /**
+     * Constructs a channel for the {@link HttpFileSystem} of the URL registered in the installed
+     * provider for its scheme, which is created with the default settings if needed.
+     *
+     * @param url the URL to open.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
     URLSeekableByteChannel(final URL url) throws IOException {
+        this(url, getInstalledFileSystem(url));
+    }
+
+    /**
+     * Constructs a channel for the {@link HttpFileSystem} where the URL lives.
+     *
+     * @param url the URL to open.
+     * @param fs  the File System for the URL.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    URLSeekableByteChannel(final URL url, final HttpFileSystem fs) throws IOException {
         this.url = Utils.nonNull(url, () -> "null URL");
+        this.fs = Utils.nonNull(fs, () -> "null fs");
+        fs.checkOpen();
+        this.blockMode = false;
         // and instantiate the stream/channel at position 0
-        instantiateChannel(this.position);
+        instantiateChannel(this.position, false);
+        try {
+            fs.registerResource(this);
+        } catch (final ClosedFileSystemException e) {
+            // closed while opening
+            abortStream();
+            throw e;
+        }
+    }
+
+    /**
+     * Constructs a channel for a resource with known size and validator, reading from its
+     * blocks (even if the block cache is disabled) without checking the resource.
+     *
+     * @param url       the URL to open.
+     * @param fs        the File System for the URL.
+     * @param size      the size of the resource.
+     * @param validator validator for {@code If-Range}; {@code null} if not available.
+     */
+    URLSeekableByteChannel(final URL url, final HttpFileSystem fs, final long size,
+            final String validator) {
+        this.url = Utils.nonNull(url, () -> "null URL");
+        this.fs = Utils.nonNull(fs, () -> "null fs");
+        fs.checkOpen();
+        this.blockMode = true;
+        this.size = size;
+        this.validator = validator;
+        fs.registerResource(this);
+    }
+
+    // gets the File System for the URL from the installed provider, shared with other users
+    private static HttpFileSystem getInstalledFileSystem(final URL url) {
+        Utils.nonNull(url, () -> "null URL");
+        final URI uri;
+        try {
+            uri = new URI(url.getProtocol(), url.getAuthority(), null, null, null);
+        } catch (final URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URL: " + url, e);
+        }
+        for (final FileSystemProvider provider : FileSystemProvider.installedProviders()) {
+            if (provider instanceof HttpAbstractFileSystemProvider
+                    && provider.getScheme().equalsIgnoreCase(url.getProtocol())) {
+                return ((HttpAbstractFileSystemProvider) provider).getOrCreateFileSystem(uri);
+            }
+        }
+        throw new ProviderNotFoundException("Provider not installed: " + url.getProtocol());
     }
 
     @Override
     public synchronized int read(final ByteBuffer dst) throws IOException {
-        final int read = channel.read(dst);
-        this.position += read;
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+        if (blockMode) {
+            return readFromBlocks(dst);
+        }
+        final HttpFileSystemSettings settings = fs.getSettings();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                if (attempt != 0) {
+                    resume(attempt);
+                }
+                final int read = channel.read(dst);
+                if (read == -1 && streamEnd != -1 && position < streamEnd) {
+                    // the connection was closed before the expected end
+                    throw new EOFException(String.format(
+                            "Premature end of stream for %s at byte %s (expected %s)",
+                            url, position, streamEnd));
+                }
+                if (read > 0) {
+                    this.position += read;
+                }
+                return read;
+            } catch (final IOException e) {
+                if (attempt >= settings.getResumeMaxRetries() || !isResumable(e)) {
+                    throw e;
+                }
+                logger.debug("Interrupted stream for {} at byte {}: {}", url, position,
+                        e.getMessage());
+            }
+        }
+    }
+
+    // an exception is resumable if the channel is still open and it comes from the network
+    private boolean isResumable(final IOException e) {
+        return validator != null && !aborted && isOpen()
+                && (e instanceof SocketException
+                || e instanceof SocketTimeoutException
+                || e instanceof EOFException);
+    }
+
+    // waits for the backoff and re-instantiates the channel at the current position
+    private void resume(final int attempt) throws IOException {
+        final long backoff = fs.getSettings().getResumeBackoffMillis(attempt);
+        try {
+            Thread.sleep(backoff);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while resuming " + url);
+        }
+        logger.debug("Resuming {} at byte {} (attempt {} after {} ms)", url, position, attempt,
+                backoff);
+        // the previous stream is broken, so it is aborted
+        abortStream();
+        instantiateChannel(position, true);
+        fs.getStatistics().incrementResumes();
+    }
+
+    // sequential read from the blocks of the resource
+    private int readFromBlocks(final ByteBuffer dst) throws IOException {
+        final int blockSize = fs.getSettings().getBlockSize();
+        int read = 0;
+        while (dst.hasRemaining()) {
+            final long index = position / blockSize;
+            if (index != currentBlockIndex) {
+                currentBlock = fs.getBlockFetcher().get(url, validator, index);
+                currentBlockIndex = index;
+            }
+            final int offset = (int) (position - index * blockSize);
+            if (offset >= currentBlock.length) {
+                // end of the resource
+                return (read == 0) ? -1 : read;
+            }
+            final int n = Math.min(dst.remaining(), currentBlock.length - offset);
+            dst.put(currentBlock, offset, n);
+            position += n;
+            read += n;
+        }
         return read;
     }
 
+    /**
+     * Reads a sequence of bytes starting at the given position, without modifying the position
+     * of the channel.
+     *
+     * @param dst      the buffer into which bytes are to be transferred.
+     * @param position the position at which the transfer is to begin.
+     *
+     * @return the number of bytes read, possibly zero; {@code -1} if the given position is
+     * greater than or equal to the size of the resource.
+     *
+     * @throws IOException if an I/O error occurs.
+     * @see #read(ByteBuffer[], long)
+     */
+    public int read(final ByteBuffer dst, final long position) throws IOException {
+        return (int) read(new ByteBuffer[] {Utils.nonNull(dst, () -> "null dst")}, position);
+    }
+
+    /**
+     * Reads a sequence of bytes starting at the given position into the buffers (in order),
+     * without modifying the position of the channel.
+     *
+     * <p>The range is requested with a single bounded request; if the block cache is enabled,
+     * the buffers are filled from the cached blocks and only the missing ones are requested.
+     *
+     * @param dsts     the buffers into which bytes are to be transferred.
+     * @param position the position at which the transfer is to begin.
+     *
+     * @return the number of bytes read, possibly zero; {@code -1} if the given position is
+     * greater than or equal to the size of the resource.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public long read(final ByteBuffer[] dsts, final long position) throws IOException {
+        Utils.nonNull(dsts, () -> "null dsts");
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+        long length = 0;
+        for (final ByteBuffer dst : dsts) {
+            length += Utils.nonNull(dst, () -> "null dst").remaining();
+        }
+        if (length == 0) {
+            return 0;
+        }
+
+        return fs.getBlockFetcher().read(url, validator, position, dsts);
+    }
+
     @Override
     public int write(ByteBuffer src) throws IOException {
         throw new NonWritableChannelException();
@@ -75,18 +332,21 @@ class URLSeekableByteChannel implements SeekableByteChannel {
             throw new ClosedChannelException();
         }
 
-        if (this.position < newPosition) {
-            // if the current position is before, do not open a new connection
+        final long bytesToSkip = newPosition - this.position;
+        if (blockMode) {
+            // nothing to do: blocks are requested on read
+            logger.debug("Setting position to {} (previously on {})", newPosition, position);
+        } else if (bytesToSkip > 0 && bytesToSkip <= fs.getSettings().getDrainThresholdBytes()) {
+            // if the current position is slightly before, do not open a new connection
             // but skip the bytes until the new position
-            final long bytesToSkip = newPosition - this.position;
-            final long skipped = backedStream.skip(bytesToSkip);
+            final long skipped = skipFully(bytesToSkip);
             logger.debug("Skipped {} bytes out of {} for setting position to {} (previously on {})",
-                    bytesToSkip, skipped, newPosition, position);
-        } else if (this.position > newPosition) {
+                    skipped, bytesToSkip, newPosition, position);
+        } else if (bytesToSkip != 0) {
             // in this case, we require to re-instantiate the channel
-            // opening at the new position - and closing the previous
-            close();
-            instantiateChannel(newPosition);
+            // opening at the new position - and releasing the previous
+            releaseStream();
+            instantiateChannel(newPosition, false);
         }
 
         // updates to the new position
@@ -125,23 +385,135 @@ class URLSeekableByteChannel implements SeekableByteChannel {
 
     @Override
     public synchronized boolean isOpen() {
-        return channel.isOpen();
+        return open && !aborted;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The connection is drained for re-use if the unread remainder is small; otherwise, it is
+     * aborted.
+     */
     @Override
     public synchronized void close() throws IOException {
-        // this should close also the backed stream
-        channel.close();
+        if (open) {
+            open = false;
+            if (blockMode) {
+                currentBlock = null;
+            } else if (aborted) {
+                // the connection might be replaced by a concurrent read after the abort
+                abortStream();
+            } else {
+                releaseStream();
+            }
+            fs.unregisterResource(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The current connection is disconnected without waiting for a concurrent read, which
+     * fails without resuming. Further operations throw {@link ClosedChannelException}.
+     */
+    @Override
+    public void abort() {
+        aborted = true;
+        final URLConnection current = connection;
+        if (current != null) {
+            HttpUtils.disconnect(current);
+        }
+    }
+
+    // skips bytes in the current stream, returning the number of bytes skipped (less if EOF)
+    private long skipFully(final long bytes) throws IOException {
+        long skipped = 0;
+        while (skipped < bytes) {
+            final long n = backedStream.skip(bytes - skipped);
+            if (n > 0) {
+                skipped += n;
+            } else if (backedStream.read() == -1) {
+                // skip might return 0 before EOF, so a byte is read to check it
+                break;
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    // releases the current stream: drains it for re-use if the remainder is small or aborts it
+    private void releaseStream() {
+        final long remainder = (streamEnd == -1) ? -1 : streamEnd - position;
+        if (remainder < 0 || remainder > fs.getSettings().getDrainThresholdBytes()) {
+            logger.debug("Aborting connection for {} at byte {} (remaining {} bytes)",
+                    url, position, remainder);
+            abortStream();
+            fs.getStatistics().incrementAbortedConnections();
+            return;
+        }
+        try {
+            final byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            while (backedStream.read(buffer) != -1) {
+                // discard the remaining bytes
+            }
+            // closing the fully read stream returns the connection to the keep-alive cache
+            channel.close();
+            fs.getStatistics().incrementDrainedConnections();
+        } catch (final IOException e) {
+            logger.debug("Error draining connection for {}: {}", url, e.getMessage());
+            abortStream();
+            fs.getStatistics().incrementAbortedConnections();
+        }
+    }
+
+    // aborts the current stream, closing the underlying connection
+    private void abortStream() {
+        HttpUtils.disconnect(connection);
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            logger.debug("Error closing aborted stream for {}: {}", url, e.getMessage());
+        }
     }
 
     // open a readable byte channel for the requrested position
-    private synchronized void instantiateChannel(final long position) throws IOException {
+    // if resuming, the request is guarded by the validator of the first response
+    private synchronized void instantiateChannel(final long position, final boolean resume)
+            throws IOException {
         final URLConnection connection = url.openConnection();
-        if (position > 0) {
+        if (resume) {
+            HttpUtils.setIfRangeRequest(connection, position, -1, validator);
+        } else if (position > 0) {
             HttpUtils.setRangeRequest(connection, position, -1);
         }
+        this.connection = connection;
+        if (!resume && position > 0 && connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode()
+                == HTTP_RANGE_NOT_SATISFIABLE) {
+            // the position is after the end of the resource: nothing to read
+            HttpUtils.disconnect(connection);
+            backedStream = new ByteArrayInputStream(new byte[0]);
+            channel = Channels.newChannel(backedStream);
+            streamEnd = -1;
+            return;
+        }
         // get the channel from the backed stream
         backedStream = connection.getInputStream();
         channel = Channels.newChannel(backedStream);
+
+        if (resume && connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode()
+                != HttpURLConnection.HTTP_PARTIAL) {
+            // the server sent the whole resource: it changed or ranges are not supported
+            channel.close();
+            throw new IOException(String.format("Cannot resume %s at byte %s: resource changed",
+                    url, position));
+        }
+        if (!resume) {
+            validator = HttpUtils.getRangeValidator(connection);
+        }
+        final long length = connection.getContentLengthLong();
+        streamEnd = (length == -1) ? -1 : position + length;
     }
 }
@@ -0,0 +1,95 @@
+package org.magicdgs.http.jsr203;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (Java 21 or later) by reflection, to keep the library compatible
+ * with Java 8.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+final class VirtualThreads {
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long), Thread.Builder.factory() and
+    // Executors.newThreadPerTaskExecutor(ThreadFactory); null if virtual threads are not supported
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method PER_TASK;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method perTask = null;
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            // throws in Java 19 and 20 if preview features are not enabled
+            ofVirtual.invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        PER_TASK = perTask;
+    }
+
+    private VirtualThreads() {}
+
+    /**
+     * Checks if the running JVM supports virtual threads.
+     *
+     * @return {@code true} if supported; {@code false} otherwise.
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory for virtual threads.
+     *
+     * @param prefix prefix for the name of the threads, followed by a counter.
+     *
+     * @return the thread factory.
+     *
+     * @throws UnsupportedOperationException if virtual threads are not supported.
+     */
+    static ThreadFactory newThreadFactory(final String prefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @param prefix prefix for the name of the threads, followed by a counter.
+     *
+     * @return the executor.
+     *
+     * @throws UnsupportedOperationException if virtual threads are not supported.
+     */
+    static ExecutorService newThreadPerTaskExecutor(final String prefix) {
+        final ThreadFactory factory = newThreadFactory(prefix);
+        try {
+            return (ExecutorService) PER_TASK.invoke(null, factory);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+}
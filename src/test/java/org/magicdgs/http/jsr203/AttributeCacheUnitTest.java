@@ -0,0 +1,70 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class AttributeCacheUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new AttributeCache(-1, 1000);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeTtl() {
+        new AttributeCache(10, -1);
+    }
+
+    @DataProvider
+    public Object[][] disabled() {
+        return new Object[][] {{0, 1000}, {10, 0}};
+    }
+
+    @Test(dataProvider = "disabled")
+    public void testDisabled(final int capacity, final long ttlMillis) {
+        final AttributeCache cache = new AttributeCache(capacity, ttlMillis);
+        cache.put(TEST_FS.getPath("/file.txt"), HttpFileAttributes.file(10, null));
+        Assert.assertNull(cache.get(TEST_FS.getPath("/file.txt")));
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testBoundedCache() {
+        final AttributeCache cache = new AttributeCache(2, 1000);
+        final HttpFileAttributes attributes = HttpFileAttributes.file(10, "\"etag\"");
+        cache.put(TEST_FS.getPath("/file.txt"), attributes);
+        Assert.assertSame(cache.get(TEST_FS.getPath("/file.txt")), attributes);
+        // different query is a different resource
+        Assert.assertNull(cache.get(TEST_FS.getPath("/file.txt?q=1")));
+        cache.put(TEST_FS.getPath("/file2.txt"), attributes);
+        cache.put(TEST_FS.getPath("/file3.txt"), attributes);
+        Assert.assertEquals(cache.size(), 2);
+        // the least recently used is evicted
+        Assert.assertNull(cache.get(TEST_FS.getPath("/file.txt")));
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testExpiredAttributes() {
+        final AtomicLong nanos = new AtomicLong();
+        final AttributeCache cache = new AttributeCache(10, 100, nanos::get);
+        final HttpFileAttributes attributes = HttpFileAttributes.file(10, "\"etag\"");
+        cache.put(TEST_FS.getPath("/file.txt"), attributes);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        Assert.assertSame(cache.get(TEST_FS.getPath("/file.txt")), attributes);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertNull(cache.get(TEST_FS.getPath("/file.txt")));
+        Assert.assertEquals(cache.size(), 0);
+    }
+}
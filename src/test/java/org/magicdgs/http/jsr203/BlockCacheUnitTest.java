@@ -0,0 +1,131 @@
+package org.magicdgs.http.jsr203;
+
+import org.magicdgs.http.jsr203.HttpFileSystemSettings.BlockCachePolicy;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class BlockCacheUnitTest extends BaseTest {
+
+    private static BlockKey key(final long index) {
+        return new BlockKey("http://example.com/file.bin", "\"etag\"", index);
+    }
+
+    // gets the block and puts it if it is not present, as the fetcher does
+    private static void access(final BlockCache cache, final long index) {
+        if (cache.get(key(index)) == null) {
+            cache.put(key(index), new byte[1]);
+        }
+    }
+
+    @DataProvider
+    public Object[][] policies() {
+        return new Object[][] {{BlockCachePolicy.LRU}, {BlockCachePolicy.TINY_LFU}};
+    }
+
+    @Test(dataProvider = "policies", expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacity(final BlockCachePolicy policy) {
+        BlockCache.create(-1, policy, new HttpFileSystemStatistics());
+    }
+
+    @Test(dataProvider = "policies")
+    public void testDisabledCache(final BlockCachePolicy policy) {
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final BlockCache cache = BlockCache.create(0, policy, stats);
+        cache.put(key(0), new byte[10]);
+        Assert.assertNull(cache.get(key(0)));
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(stats.getBlockCacheMissCount(), 0);
+    }
+
+    @Test(dataProvider = "policies")
+    public void testCounters(final BlockCachePolicy policy) {
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final BlockCache cache = BlockCache.create(2, policy, stats);
+        for (int i = 0; i < 3; i++) {
+            access(cache, 0);
+        }
+        Assert.assertEquals(stats.getBlockCacheHitCount(), 2);
+        Assert.assertEquals(stats.getBlockCacheMissCount(), 1);
+        Assert.assertEquals(stats.getBlockCacheEvictionCount(), 0);
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test(dataProvider = "policies")
+    public void testKeyIncludesValidator(final BlockCachePolicy policy) {
+        final BlockCache cache = BlockCache.create(2, policy, new HttpFileSystemStatistics());
+        cache.put(key(0), new byte[1]);
+        Assert.assertNotNull(cache.get(key(0)));
+        Assert.assertNull(cache.get(new BlockKey("http://example.com/file.bin", "\"other\"", 0)));
+        Assert.assertNull(cache.get(new BlockKey("http://example.com/file.bin", null, 0)));
+    }
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final BlockCache cache = BlockCache.create(2, BlockCachePolicy.LRU, stats);
+        final byte[] first = new byte[1];
+        cache.put(key(0), first);
+        cache.put(key(1), new byte[2]);
+        // access the first, so the second is evicted
+        Assert.assertSame(cache.get(key(0)), first);
+        cache.put(key(2), new byte[3]);
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(stats.getBlockCacheEvictionCount(), 1);
+        Assert.assertSame(cache.get(key(0)), first);
+        Assert.assertNull(cache.get(key(1)));
+        Assert.assertNotNull(cache.get(key(2)));
+    }
+
+    @Test
+    public void testTinyLfuAdmitsFrequentBlocks() {
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final BlockCache cache = BlockCache.create(2, BlockCachePolicy.TINY_LFU, stats);
+        access(cache, 0);
+        access(cache, 1);
+        // a block requested once is rejected when the cache is full
+        access(cache, 2);
+        Assert.assertNull(cache.get(key(2)));
+        // but it is admitted after being requested more often than the victim
+        access(cache, 2);
+        Assert.assertNotNull(cache.get(key(2)));
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(stats.getBlockCacheEvictionCount(), 1);
+    }
+
+    @DataProvider
+    public Object[][] scanResistance() {
+        return new Object[][] {
+                {BlockCachePolicy.LRU, false},
+                {BlockCachePolicy.TINY_LFU, true}
+        };
+    }
+
+    @Test(dataProvider = "scanResistance")
+    public void testScanResistance(final BlockCachePolicy policy, final boolean hotBlocksKept) {
+        final int capacity = 100;
+        final int hotBlocks = 20;
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final BlockCache cache = BlockCache.create(capacity, policy, stats);
+        // frequently re-used blocks
+        for (int i = 0; i < 5; i++) {
+            for (int index = 0; index < hotBlocks; index++) {
+                access(cache, index);
+            }
+        }
+        // large sequential scan
+        for (int index = 1_000; index < 100_000; index++) {
+            access(cache, index);
+        }
+        Assert.assertEquals(cache.size(), capacity);
+        final long hitsBefore = stats.getBlockCacheHitCount();
+        for (int index = 0; index < hotBlocks; index++) {
+            cache.get(key(index));
+        }
+        Assert.assertEquals(stats.getBlockCacheHitCount() - hitsBefore,
+                hotBlocksKept ? hotBlocks : 0);
+    }
+}
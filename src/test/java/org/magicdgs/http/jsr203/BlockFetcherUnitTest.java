@@ -0,0 +1,191 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class BlockFetcherUnitTest extends BaseTest {
+
+    private static HttpFileSystem createLocalFileSystem(final LocalHttpServer server,
+            final Map<String, ?> env) {
+        return new HttpFileSystem(new HttpFileSystemProvider(), server.getAuthority(),
+                new HttpFileSystemSettings(env));
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    @DataProvider
+    public Object[][] blocks() {
+        return new Object[][] {
+                // first block
+                {0, 0, 100},
+                // middle block
+                {5, 500, 600},
+                // last (partial) block
+                {10, 1000, 1050},
+                // after the end
+                {11, 1050, 1050}
+        };
+    }
+
+    @Test(dataProvider = "blocks")
+    public void testGetBlock(final long index, final int from, final int to) throws Exception {
+        final byte[] content = randomBytes(1050);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, 100));
+            Assert.assertEquals(fs.getBlockFetcher().get(url, null, index),
+                    Arrays.copyOfRange(content, from, to));
+        }
+    }
+
+    @Test
+    public void testCoalesceConcurrentFetches() throws Exception {
+        final int nThreads = 8;
+        final byte[] content = randomBytes(1000);
+        final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, 100));
+            // the first request is slow, so the rest should join it
+            server.delayNext("/file.bin", 1, 1000);
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < nThreads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return fs.getBlockFetcher().get(url, null, 2);
+                }));
+            }
+            start.countDown();
+            for (final Future<byte[]> result : results) {
+                Assert.assertEquals(result.get(), Arrays.copyOfRange(content, 200, 300));
+            }
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 1);
+            Assert.assertEquals(fs.getStatistics().getBlockFetchCount(), 1);
+            Assert.assertEquals(fs.getStatistics().getCoalescedBlockFetchCount(), nThreads - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DataProvider
+    public Object[][] cacheCapacities() {
+        return new Object[][] {
+                // disabled cache fetches every time
+                {0, 3},
+                // enabled cache fetches only once
+                {1, 1}
+        };
+    }
+
+    @Test(dataProvider = "cacheCapacities")
+    public void testSequentialFetches(final int capacity, final int expectedRequests)
+            throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", randomBytes(1000));
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, 100);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, capacity);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            for (int i = 0; i < 3; i++) {
+                fs.getBlockFetcher().get(url, null, 0);
+            }
+            Assert.assertEquals(server.getRequestCount("/file.bin"), expectedRequests);
+            Assert.assertEquals(fs.getStatistics().getCoalescedBlockFetchCount(), 0);
+        }
+    }
+
+    @DataProvider
+    public Object[][] ranges() {
+        return new Object[][] {
+                // within a block
+                {150, new int[] {10}},
+                // across several blocks, with several buffers
+                {50, new int[] {300, 0, 420}},
+                // truncated at the end of the file
+                {950, new int[] {70, 30}}
+        };
+    }
+
+    @Test(dataProvider = "ranges")
+    public void testReadRangeWithoutCache(final long position, final int[] bufferSizes)
+            throws Exception {
+        final byte[] content = randomBytes(1000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, 100));
+            assertRead(fs, url, content, position, bufferSizes);
+            // a single request for the whole range
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 1);
+            Assert.assertEquals(fs.getStatistics().getBlockFetchCount(), 1);
+        }
+    }
+
+    @Test
+    public void testReadRangeWithCache() throws Exception {
+        final byte[] content = randomBytes(1000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, 100);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, 100);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_POLICY_KEY, "LRU");
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            fs.getBlockFetcher().get(url, null, 3);
+            // the runs before and after the cached block are requested once each
+            assertRead(fs, url, content, 50, new int[] {800});
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 3);
+            Assert.assertEquals(fs.getBlockFetcher().getCache().size(), 9);
+            // every block is cached now
+            assertRead(fs, url, content, 0, new int[] {900});
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 3);
+            // after the end of the resource
+            Assert.assertEquals(fs.getBlockFetcher().read(url, null, 1000,
+                    new ByteBuffer[] {ByteBuffer.allocate(10)}), -1);
+        }
+    }
+
+    private static void assertRead(final HttpFileSystem fs, final URL url, final byte[] content,
+            final long position, final int[] bufferSizes) throws Exception {
+        final ByteBuffer[] buffers = new ByteBuffer[bufferSizes.length];
+        int expected = 0;
+        for (int i = 0; i < bufferSizes.length; i++) {
+            buffers[i] = ByteBuffer.allocate(bufferSizes[i]);
+            expected += bufferSizes[i];
+        }
+        expected = (int) Math.min(expected, content.length - position);
+        Assert.assertEquals(fs.getBlockFetcher().read(url, null, position, buffers), expected);
+        int offset = (int) position;
+        for (final ByteBuffer buffer : buffers) {
+            buffer.flip();
+            Assert.assertEquals(Arrays.copyOfRange(buffer.array(), 0, buffer.limit()),
+                    Arrays.copyOfRange(content, offset, offset + buffer.limit()));
+            offset += buffer.limit();
+        }
+    }
+}
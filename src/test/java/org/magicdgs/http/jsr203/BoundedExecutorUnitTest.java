@@ -0,0 +1,74 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class BoundedExecutorUnitTest extends BaseTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveMaxConcurrentTasks() {
+        new BoundedExecutor(Executors.newCachedThreadPool(), 0);
+    }
+
+    @Test
+    public void testMaxConcurrentTasks() throws Exception {
+        final ExecutorService executor = new BoundedExecutor(Executors.newCachedThreadPool(), 2);
+        try {
+            final AtomicInteger active = new AtomicInteger();
+            final AtomicInteger maxActive = new AtomicInteger();
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tasks.add(executor.submit(() -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    active.decrementAndGet();
+                    return null;
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+            Assert.assertEquals(maxActive.get(), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testShutdownNowReturnsWaitingTasks() throws Exception {
+        final ExecutorService executor = new BoundedExecutor(Executors.newCachedThreadPool(), 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        final AtomicInteger ran = new AtomicInteger();
+        final Runnable waiting = ran::incrementAndGet;
+        executor.execute(waiting);
+
+        final List<Runnable> pending = executor.shutdownNow();
+        Assert.assertEquals(pending.size(), 1);
+        Assert.assertSame(pending.get(0), waiting);
+        Assert.assertTrue(executor.isShutdown());
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(ran.get(), 0);
+    }
+}
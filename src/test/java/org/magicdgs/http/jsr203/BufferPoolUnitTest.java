@@ -0,0 +1,56 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class BufferPoolUnitTest extends BaseTest {
+
+    @DataProvider
+    public Object[][] invalidArgs() {
+        return new Object[][] {{0, 1}, {-1, 1}, {10, 0}};
+    }
+
+    @Test(dataProvider = "invalidArgs", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidArgs(final int bufferSize, final int capacity) {
+        new BufferPool(bufferSize, capacity);
+    }
+
+    @Test
+    public void testReuse() {
+        final BufferPool pool = new BufferPool(16, 1);
+        Assert.assertEquals(pool.getBufferSize(), 16);
+        final ByteBuffer first = pool.acquire();
+        final ByteBuffer second = pool.acquire();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first.capacity(), 16);
+        first.put((byte) 1).flip();
+        pool.release(first);
+        // full pool drops the buffer
+        pool.release(second);
+        Assert.assertEquals(pool.size(), 1);
+        // returned cleared
+        final ByteBuffer reused = pool.acquire();
+        Assert.assertSame(reused, first);
+        Assert.assertEquals(reused.position(), 0);
+        Assert.assertEquals(reused.remaining(), 16);
+        Assert.assertEquals(pool.size(), 0);
+    }
+
+    @Test
+    public void testReleaseForeignBuffers() {
+        final BufferPool pool = new BufferPool(16, 2);
+        pool.release(ByteBuffer.allocate(8));
+        pool.release(ByteBuffer.allocateDirect(16));
+        Assert.assertEquals(pool.size(), 0);
+        pool.release(pool.acquire());
+        Assert.assertEquals(pool.size(), 1);
+        pool.clear();
+        Assert.assertEquals(pool.size(), 0);
+    }
+}
@@ -0,0 +1,39 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class ByteArraysUnitTest extends BaseTest {
+
+    @DataProvider
+    public Object[][] mismatchData() {
+        return new Object[][] {
+                {"", 0, "", 0, 0, -1},
+                {"/file.txt", 0, "/file.txt", 0, 9, -1},
+                {"/file.txt", 0, "/file.bam", 0, 9, 6},
+                {"/file.txt", 0, "/file.bam", 0, 6, -1},
+                // with offsets
+                {"/dir/file.txt", 4, "/file.txt", 0, 9, -1},
+                {"/dir/file.txt", 5, "/other/file.txt", 7, 8, -1},
+                {"/dir/file.txt", 5, "/other/file.bam", 7, 8, 5},
+                // longer than a word
+                {"/a/very/long/directory/name/file.txt", 0,
+                        "/a/very/long/directory/name/file.bam", 0, 36, 33}
+        };
+    }
+
+    @Test(dataProvider = "mismatchData")
+    public void testMismatch(final String a, final int aFrom, final String b, final int bFrom,
+            final int length, final int expected) {
+        Assert.assertEquals(ByteArrays.mismatch(
+                a.getBytes(StandardCharsets.UTF_8), aFrom,
+                b.getBytes(StandardCharsets.UTF_8), bFrom,
+                length), expected);
+    }
+}
@@ -0,0 +1,48 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class FrequencySketchUnitTest extends BaseTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeExpectedItems() {
+        new FrequencySketch(-1);
+    }
+
+    @Test
+    public void testIncrementAndSaturate() {
+        final FrequencySketch sketch = new FrequencySketch(100);
+        final int hash = "item".hashCode();
+        Assert.assertEquals(sketch.frequency(hash), 0);
+        for (int i = 1; i <= 10; i++) {
+            sketch.increment(hash);
+            Assert.assertEquals(sketch.frequency(hash), i);
+        }
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(hash);
+        }
+        Assert.assertEquals(sketch.frequency(hash), 15);
+    }
+
+    @Test
+    public void testAging() {
+        // the minimum sample size is 160 increments
+        final FrequencySketch sketch = new FrequencySketch(16);
+        final int hot = "hot".hashCode();
+        for (int i = 0; i < 8; i++) {
+            sketch.increment(hot);
+        }
+        Assert.assertEquals(sketch.frequency(hot), 8);
+        // another item increments until the counters are halved
+        final int other = "other".hashCode();
+        for (int i = 0; i < 152; i++) {
+            sketch.increment(other);
+        }
+        Assert.assertEquals(sketch.frequency(hot), 4);
+        Assert.assertEquals(sketch.frequency(other), 7);
+    }
+}
@@ -0,0 +1,107 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class GlobPathMatcherUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    @DataProvider
+    public Object[][] globs() {
+        return new Object[][] {
+                {"/dir/file.txt", "/dir/file.txt", true},
+                {"/dir/file.txt", "/dir/file.bam", false},
+                {"/dir/*.txt", "/dir/file.txt", true},
+                {"/dir/*.txt", "/dir/.txt", true},
+                {"/dir/*.txt", "/dir/sub/file.txt", false},
+                {"/dir/**.txt", "/dir/sub/file.txt", true},
+                {"/dir/**", "/dir/sub/file.txt", true},
+                {"/**/file.txt", "/dir/sub/file.txt", true},
+                {"*.txt", "/dir/file.txt", false},
+                {"/dir/file.???", "/dir/file.txt", true},
+                {"/dir/file.???", "/dir/file.tx", false},
+                {"/dir?file", "/dir/file", false},
+                {"/dir/[abc].txt", "/dir/b.txt", true},
+                {"/dir/[abc].txt", "/dir/d.txt", false},
+                {"/dir/[a-c].txt", "/dir/c.txt", true},
+                {"/dir/[!a-c].txt", "/dir/d.txt", true},
+                {"/dir/[!a-c].txt", "/dir/a.txt", false},
+                {"/dir/[-a].txt", "/dir/-.txt", true},
+                {"/dir/[a-].txt", "/dir/-.txt", true},
+                {"/dir/[*?].txt", "/dir/*.txt", true},
+                {"/dir/*.{txt,bam}", "/dir/file.bam", true},
+                {"/dir/*.{txt,bam}", "/dir/file.cram", false},
+                {"/dir/{a*,b?}/file", "/dir/abc/file", true},
+                {"/dir/{a*,b?}/file", "/dir/bcd/file", false},
+                {"/dir/{}file", "/dir/file", true},
+                {"/dir/\\*.txt", "/dir/*.txt", true},
+                {"/dir/\\*.txt", "/dir/a.txt", false},
+                {"/dir/a,b", "/dir/a,b", true},
+                // trailing separators are ignored
+                {"/dir", "/dir/", true},
+                {"/", "/", true},
+                {"/*", "/", true},
+                // non-ASCII characters
+                {"/caf\u00e9/*.txt", "/caf\u00e9/file.txt", true},
+                {"/caf?/*.txt", "/caf\u00e9/file.txt", true},
+                {"/caf*/*.txt", "/caf\u00e9s/file.txt", true},
+                {"/caf[\u00e9e]", "/caf\u00e9", true},
+                {"/caf[!a]", "/caf\u00e9", true},
+                {"/\ud83d\ude00?", "/\ud83d\ude00\ud83d\ude00", true},
+                {"/\ud83d\ude00?", "/\ud83d\ude00", false}
+        };
+    }
+
+    @Test(dataProvider = "globs")
+    public void testMatches(final String glob, final String path, final boolean expected) {
+        final HttpPath httpPath = TEST_FS.getPath(path);
+        Assert.assertEquals(GlobPathMatcher.compile(glob).matches(httpPath), expected);
+        // the same result as the default File System (if it supports the characters)
+        if (path.chars().allMatch(c -> c < 0x80)) {
+            final Path localPath = Paths.get(path);
+            Assert.assertEquals(localPath.getFileSystem().getPathMatcher("glob:" + glob)
+                    .matches(localPath), expected);
+        }
+    }
+
+    @Test
+    public void testMatchesRelativePath() {
+        final Path fileName = TEST_FS.getPath("/dir/file.txt").getFileName();
+        Assert.assertTrue(GlobPathMatcher.compile("*.txt").matches(fileName));
+        Assert.assertFalse(GlobPathMatcher.compile("/*.txt").matches(fileName));
+    }
+
+    @Test
+    public void testDoesNotMatchOtherPaths() {
+        Assert.assertFalse(GlobPathMatcher.compile("**").matches(Paths.get("/dir/file.txt")));
+    }
+
+    @DataProvider
+    public Object[][] invalidGlobs() {
+        return new Object[][] {
+                {"/dir/\\"},
+                {"/dir/{a,b"},
+                {"/dir/{a,{b,c}}"},
+                {"/dir/[abc"},
+                {"/dir/[a/b]"},
+                {"/dir/[c-a]"},
+                {"/dir/[a-\u00e9]"},
+                {"/dir/[!\u00e9]"}
+        };
+    }
+
+    @Test(dataProvider = "invalidGlobs", expectedExceptions = PatternSyntaxException.class)
+    public void testInvalidGlob(final String glob) {
+        GlobPathMatcher.compile(glob);
+    }
+}
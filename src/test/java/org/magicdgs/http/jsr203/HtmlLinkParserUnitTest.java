@@ -0,0 +1,129 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HtmlLinkParserUnitTest extends BaseTest {
+
+    // listing generated by nginx autoindex
+    static final String NGINX_LISTING = "<html>\n"
+            + "<head><title>Index of /dir/</title></head>\n"
+            + "<body>\n"
+            + "<h1>Index of /dir/</h1><hr><pre><a href=\"../\">../</a>\n"
+            + "<a href=\"file.txt\">file.txt</a>                01-Jan-2020 00:00      10\n"
+            + "<a href=\"sub/\">sub/</a>                        01-Jan-2020 00:00       -\n"
+            + "</pre><hr></body>\n"
+            + "</html>\n";
+
+    // listing generated by Apache mod_autoindex (fancy indexing with icons)
+    static final String APACHE_LISTING =
+            "<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 3.2 Final//EN\">\n"
+            + "<html><head><title>Index of /dir</title></head><body>\n"
+            + "<h1>Index of /dir</h1>\n"
+            + "<table>\n"
+            + "<tr><th valign=\"top\"><img src=\"/icons/blank.gif\" alt=\"[ICO]\"></th>"
+            + "<th><a href=\"?C=N;O=D\">Name</a></th></tr>\n"
+            + "<tr><td valign=\"top\"><img src=\"/icons/back.gif\" alt=\"[PARENTDIR]\"></td>"
+            + "<td><a href=\"/\">Parent Directory</a></td></tr>\n"
+            + "<tr><td valign=\"top\"><a href=\"file%201.txt\"><img src=\"/icons/text.gif\" "
+            + "alt=\"[TXT]\"></a></td><td><a href=\"file%201.txt\">file 1.txt</a></td></tr>\n"
+            + "<tr><td valign=\"top\"><img src=\"/icons/folder.gif\" alt=\"[DIR]\"></td>"
+            + "<td><a href=\"sub/\">sub/</a></td></tr>\n"
+            + "</table>\n"
+            + "<!-- <a href=\"commented.txt\"> -->\n"
+            + "</body></html>\n";
+
+    private static List<String> parseAll(final InputStream in) throws IOException {
+        final HtmlLinkParser parser = new HtmlLinkParser(in);
+        final List<String> links = new ArrayList<>();
+        String link;
+        while ((link = parser.next()) != null) {
+            links.add(link);
+        }
+        return links;
+    }
+
+    private static InputStream toStream(final String html) {
+        return new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @DataProvider
+    public Object[][] documents() {
+        return new Object[][] {
+                {NGINX_LISTING, Arrays.asList("../", "file.txt", "sub/")},
+                {APACHE_LISTING,
+                        Arrays.asList("?C=N;O=D", "/", "file%201.txt", "file%201.txt", "sub/")},
+                {"", Collections.emptyList()},
+                {"no links", Collections.emptyList()},
+                // quotes and case
+                {"<a href='single'><A HREF=\"upper\"><a href=unquoted>",
+                        Arrays.asList("single", "upper", "unquoted")},
+                {"<a\n\thref\n=\n\"spaces\" >", Collections.singletonList("spaces")},
+                // other attributes, with and without value
+                {"<a class=\"x\" download href=\"file\" title='t'>",
+                        Collections.singletonList("file")},
+                {"<a name=\"anchor\"><a>", Collections.emptyList()},
+                // only the first href
+                {"<a href=\"first\" href=\"second\">", Collections.singletonList("first")},
+                // other tags starting with 'a' or with href
+                {"<abbr href=\"no\"><area href=\"no\"><link href=\"no\"><a href=\"yes\">",
+                        Collections.singletonList("yes")},
+                // '>' inside quoted values of other tags
+                {"<img alt=\"a > b\"><a href=\"yes\">", Collections.singletonList("yes")},
+                // comments and declarations
+                {"<!-- <a href=\"no\"> --><!DOCTYPE html><a href=\"yes\">",
+                        Collections.singletonList("yes")},
+                {"<!-- a -- b --><a href=\"yes\">", Collections.singletonList("yes")},
+                // character references
+                {"<a href=\"a&amp;b&#47;c&#x2F;d&lt;&gt;&quot;&apos;\">",
+                        Collections.singletonList("a&b/c/d<>\"'")},
+                {"<a href=\"a&unknown;b&c&#xZZ;\">",
+                        Collections.singletonList("a&unknown;b&c&#xZZ;")},
+                // non-ASCII
+                {"<a href=\"\u00f1and\u00fa\">", Collections.singletonList("\u00f1and\u00fa")},
+                // truncated documents
+                {"<a href=\"unclosed", Collections.singletonList("unclosed")},
+                {"<a href=\"ok\"><a", Collections.singletonList("ok")},
+                {"<!-- unclosed <a href=\"no\">", Collections.emptyList()}
+        };
+    }
+
+    @Test(dataProvider = "documents")
+    public void testLinks(final String html, final List<String> expected) throws Exception {
+        Assert.assertEquals(parseAll(toStream(html)), expected);
+    }
+
+    @Test
+    public void testLinksAreReturnedBeforeTheEndOfTheDocument() throws Exception {
+        final InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        final HtmlLinkParser parser = new HtmlLinkParser(new SequenceInputStream(
+                toStream("<a href=\"first\">first</a>\n<a href=\"second\">"), failing));
+        Assert.assertEquals(parser.next(), "first");
+        Assert.assertEquals(parser.next(), "second");
+        Assert.assertThrows(IOException.class, parser::next);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullStream() {
+        new HtmlLinkParser(null);
+    }
+}
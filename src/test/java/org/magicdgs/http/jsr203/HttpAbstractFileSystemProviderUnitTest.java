@@ -62,6 +62,39 @@ public class HttpAbstractFileSystemProviderUnitTest extends BaseTest {
         Assert.assertSame(provider.getFileSystem(TEST_BASE_URI), fs);
     }
 
+    @DataProvider
+    public Object[][] equivalentAuthorities() {
+        return new Object[][] {
+                {"http://Example.com"},
+                {"http://EXAMPLE.COM:80"},
+                {"http://example.com:80/file.txt"},
+                {"http://example.com:/file.txt"}
+        };
+    }
+
+    @Test(dataProvider = "equivalentAuthorities")
+    public void testCanonicalAuthority(final String uriString) throws IOException {
+        final HttpFileSystemProvider provider = new HttpFileSystemProvider();
+        final HttpFileSystem fs = provider.newFileSystem(TEST_BASE_URI, TEST_ENV);
+        final URI uri = URI.create(uriString);
+
+        // the same File System is shared by equivalent authorities
+        Assert.assertSame(provider.getFileSystem(uri), fs);
+        Assert.assertSame(provider.getPath(uri).getFileSystem(), fs);
+        Assert.assertThrows(FileSystemAlreadyExistsException.class,
+                () -> provider.newFileSystem(uri, TEST_ENV));
+    }
+
+    @Test
+    public void testNewFileSystemUsesCanonicalAuthority() throws IOException {
+        final HttpFileSystemProvider provider = new HttpFileSystemProvider();
+        final HttpFileSystem fs = provider.newFileSystem(URI.create("http://Example.com:80"), TEST_ENV);
+        Assert.assertEquals(fs.getAuthority(), TEST_BASE_URI.getAuthority());
+        Assert.assertSame(provider.getPath(TEST_BASE_URI).getFileSystem(), fs);
+        // a non-default port is a different File System
+        Assert.assertNotSame(provider.getPath(URI.create("http://example.com:8080")).getFileSystem(), fs);
+    }
+
     @DataProvider
     public Object[][] pathStrings() {
         return new Object[][] {
@@ -0,0 +1,278 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpContentPublisherUnitTest extends BaseTest {
+
+    private static final int CHUNK_SIZE = 16;
+
+    private final byte[] content = new byte[100];
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        server = new LocalHttpServer();
+        server.addResource("/file.bin", content);
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, CHUNK_SIZE));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        fs.close();
+        server.close();
+    }
+
+    // subscriber recording the signals
+    private static final class RecordingSubscriber implements HttpContentPublisher.Subscriber {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final AtomicInteger chunks = new AtomicInteger();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile HttpContentPublisher.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+        // thread signalling the termination
+        private volatile Thread terminatedBy;
+        // number of chunks to request on subscription
+        private final long initialRequest;
+
+        private RecordingSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final HttpContentPublisher.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest != 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(final ByteBuffer chunk) {
+            Assert.assertTrue(chunk.remaining() <= CHUNK_SIZE);
+            received.write(chunk.array(), chunk.arrayOffset() + chunk.position(),
+                    chunk.remaining());
+            chunks.incrementAndGet();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            terminatedBy = Thread.currentThread();
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminatedBy = Thread.currentThread();
+            terminated.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            Assert.assertTrue(terminated.await(10, TimeUnit.SECONDS), "not terminated");
+        }
+
+        private synchronized byte[] getReceived() {
+            return received.toByteArray();
+        }
+    }
+
+    @DataProvider
+    public Object[][] ranges() {
+        return new Object[][] {
+                {0, -1, 0, 100},
+                {10, 20, 10, 30},
+                {90, -1, 90, 100},
+                {90, 50, 90, 100},
+                {0, 0, 0, 0},
+                {200, -1, 0, 0}
+        };
+    }
+
+    @Test(dataProvider = "ranges")
+    public void testRange(final long position, final long size, final int from, final int to)
+            throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        fs.newContentPublisher(fs.getPath("/file.bin"), position, size).subscribe(subscriber);
+        subscriber.await();
+        Assert.assertNull(subscriber.error);
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(subscriber.getReceived(), Arrays.copyOfRange(content, from, to));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).subscribe(subscriber);
+        // nothing is requested before the demand
+        Thread.sleep(100);
+        Assert.assertEquals(subscriber.chunks.get(), 0);
+        for (int i = 1; i <= 3; i++) {
+            subscriber.subscription.request(1);
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (subscriber.chunks.get() < i && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            Assert.assertEquals(subscriber.chunks.get(), i);
+        }
+        Assert.assertEquals(subscriber.getReceived(), Arrays.copyOf(content, 3 * CHUNK_SIZE));
+        Assert.assertFalse(subscriber.completed);
+        // 100 bytes are 7 chunks
+        subscriber.subscription.request(10);
+        subscriber.await();
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(subscriber.chunks.get(), 7);
+        Assert.assertEquals(subscriber.getReceived(), content);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final long aborted = fs.getStatistics().getAbortedConnectionCount();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).subscribe(subscriber);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (subscriber.chunks.get() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+        Thread.sleep(100);
+        Assert.assertEquals(subscriber.chunks.get(), 1);
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+        Assert.assertEquals(fs.getStatistics().getAbortedConnectionCount(), aborted + 1);
+        // the buffer was returned to the pool
+        Assert.assertTrue(fs.getBufferPool().size() > 0);
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        fs.newContentPublisher(fs.getPath("/missing.bin"), 0, -1).subscribe(subscriber);
+        subscriber.await();
+        Assert.assertTrue(subscriber.error instanceof NoSuchFileException,
+                String.valueOf(subscriber.error));
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        subscriber.await();
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException,
+                String.valueOf(subscriber.error));
+        Assert.assertEquals(subscriber.chunks.get(), 0);
+    }
+
+    @Test
+    public void testClosedFileSystem() throws Exception {
+        final HttpFileSystem closed = new HttpFileSystemProvider().newFileSystem(
+                server.getUri("/"), Collections.emptyMap());
+        final HttpContentPublisher publisher =
+                closed.newContentPublisher(closed.getPath("/file.bin"), 0, -1);
+        closed.close();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.await();
+        Assert.assertTrue(subscriber.error instanceof ClosedFileSystemException,
+                String.valueOf(subscriber.error));
+    }
+
+    @Test
+    public void testAbortedOnFileSystemClose() throws Exception {
+        final HttpFileSystem closing = new HttpFileSystemProvider().newFileSystem(
+                server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, CHUNK_SIZE));
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        closing.newContentPublisher(closing.getPath("/file.bin"), 0, -1).subscribe(subscriber);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (subscriber.chunks.get() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(closing.getOpenResourceCount(), 1);
+
+        closing.close();
+        Assert.assertEquals(closing.getOpenResourceCount(), 0);
+        Assert.assertEquals(closing.getStatistics().getAbortedConnectionCount(), 1);
+        // the next demand fails the subscription
+        subscriber.subscription.request(1);
+        subscriber.await();
+        Assert.assertNotNull(subscriber.error);
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertEquals(subscriber.chunks.get(), 1);
+    }
+
+    @Test
+    public void testQueuedDrainFailedOutsideClose() throws Exception {
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, CHUNK_SIZE);
+        env.put(HttpFileSystemSettings.MAX_BACKGROUND_THREADS_KEY, 1);
+        final HttpFileSystem closing =
+                new HttpFileSystemProvider().newFileSystem(server.getUri("/"), env);
+        // the first subscription keeps the only background thread waiting for the response
+        server.delayNext("/file.bin", 1, 5000);
+        final int requests = server.getRequestCount("/file.bin");
+        final RecordingSubscriber running = new RecordingSubscriber(1);
+        closing.newContentPublisher(closing.getPath("/file.bin"), 0, -1).subscribe(running);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (server.getRequestCount("/file.bin") == requests
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        final RecordingSubscriber queued = new RecordingSubscriber(1);
+        closing.newContentPublisher(closing.getPath("/file.bin"), 0, -1).subscribe(queued);
+
+        closing.close();
+        queued.await();
+        Assert.assertTrue(queued.error instanceof ClosedFileSystemException,
+                String.valueOf(queued.error));
+        Assert.assertNotSame(queued.terminatedBy, Thread.currentThread());
+        running.await();
+        Assert.assertNotNull(running.error);
+        Assert.assertNotSame(running.terminatedBy, Thread.currentThread());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullSubscriber() {
+        fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).subscribe(null);
+    }
+
+    @DataProvider
+    public Object[][] invalidRanges() {
+        return new Object[][] {{-1, -1}, {0, -2}};
+    }
+
+    @Test(dataProvider = "invalidRanges", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRange(final long position, final long size) {
+        fs.newContentPublisher(fs.getPath("/file.bin"), position, size);
+    }
+}
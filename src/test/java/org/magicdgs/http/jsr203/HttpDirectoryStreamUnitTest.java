@@ -0,0 +1,142 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpDirectoryStreamUnitTest extends BaseTest {
+
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = new LocalHttpServer();
+        server.addResource("/nginx/",
+                HtmlLinkParserUnitTest.NGINX_LISTING.getBytes(StandardCharsets.UTF_8),
+                "text/html");
+        server.addResource("/apache/",
+                HtmlLinkParserUnitTest.APACHE_LISTING.getBytes(StandardCharsets.UTF_8),
+                "text/html; charset=UTF-8");
+        server.addResource("/other/", ("<a href=\"../nginx/file.txt\">"
+                        + "<a href=\"http://example.com/other/file.txt\">"
+                        + "<a href=\"/other/dir/nested.txt\">"
+                        + "<a href=\"/other/absolute.txt\">"
+                        + "<a href=\"http://" + server.getAuthority() + "/other/full.txt\">"
+                        + "<a href=\"#fragment\"><a href=\"with space.txt\">")
+                        .getBytes(StandardCharsets.UTF_8),
+                "text/html");
+        server.addResource("/binary/", new byte[10], "application/octet-stream");
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.PATH_INDEX_CAPACITY_KEY, 100));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.close();
+    }
+
+    // lists the raw path of the entries
+    private static List<String> list(final DirectoryStream<Path> stream) throws IOException {
+        final List<String> entries = new ArrayList<>();
+        try (final DirectoryStream<Path> closeable = stream) {
+            closeable.forEach(p -> entries.add(p.toUri().getRawPath()));
+        }
+        return entries;
+    }
+
+    @DataProvider
+    public Object[][] listings() {
+        return new Object[][] {
+                {"/nginx", Arrays.asList("/nginx/file.txt", "/nginx/sub/")},
+                {"/nginx/", Arrays.asList("/nginx/file.txt", "/nginx/sub/")},
+                // links to the same entry are returned once
+                {"/apache", Arrays.asList("/apache/file%201.txt", "/apache/sub/")},
+                // only direct children in the same server
+                {"/other", Arrays.asList("/other/absolute.txt", "/other/full.txt")}
+        };
+    }
+
+    @Test(dataProvider = "listings")
+    public void testListing(final String dir, final List<String> expected) throws Exception {
+        Assert.assertEquals(list(Files.newDirectoryStream(fs.getPath(dir))), expected);
+    }
+
+    @Test
+    public void testFilterAndIndex() throws Exception {
+        final HttpPath dir = fs.getPath("/nginx/");
+        Assert.assertEquals(list(Files.newDirectoryStream(dir, "*.txt")),
+                Collections.singletonList("/nginx/file.txt"));
+        // the accepted entries are registered
+        Assert.assertTrue(fs.getPathIndex().contains(fs.getPath("/nginx/file.txt")));
+    }
+
+    @Test(expectedExceptions = DirectoryIteratorException.class)
+    public void testFilterException() throws Exception {
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath("/nginx"),
+                p -> {
+                    throw new IOException("filter");
+                })) {
+            stream.iterator().hasNext();
+        }
+    }
+
+    @Test
+    public void testIteratorContract() throws Exception {
+        final DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath("/nginx"));
+        final Iterator<Path> it = stream.iterator();
+        Assert.assertThrows(IllegalStateException.class, stream::iterator);
+        assertEqualsPath(it.next(), fs.getPath("/nginx/file.txt"));
+        stream.close();
+        // closing twice has no effect
+        stream.close();
+        Assert.assertFalse(it.hasNext());
+        Assert.assertThrows(IllegalStateException.class, stream::iterator);
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testNoSuchDirectory() throws Exception {
+        Files.newDirectoryStream(fs.getPath("/missing"));
+    }
+
+    @Test(expectedExceptions = NotDirectoryException.class)
+    public void testNotHtml() throws Exception {
+        Files.newDirectoryStream(fs.getPath("/binary"));
+    }
+
+    @Test
+    public void testAbortedOnFileSystemClose() throws Exception {
+        final HttpFileSystem closing = new HttpFileSystemProvider().newFileSystem(
+                server.getUri("/"), Collections.emptyMap());
+        final DirectoryStream<Path> stream = Files.newDirectoryStream(closing.getPath("/nginx/"));
+        final Iterator<Path> iterator = stream.iterator();
+        Assert.assertTrue(iterator.hasNext());
+        iterator.next();
+        Assert.assertEquals(closing.getOpenResourceCount(), 1);
+
+        closing.close();
+        Assert.assertEquals(closing.getOpenResourceCount(), 0);
+        // the iteration ends after the abort
+        Assert.assertFalse(iterator.hasNext());
+        stream.close();
+    }
+}
@@ -0,0 +1,119 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpFileSystemSettingsUnitTest extends BaseTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullEnv() {
+        new HttpFileSystemSettings(null);
+    }
+
+    @Test
+    public void testNumberAndStringValues() {
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.RESUME_MAX_RETRIES_KEY, 10);
+        env.put(HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, "20");
+        env.put(HttpFileSystemSettings.RESUME_MAX_BACKOFF_MILLIS_KEY, 30L);
+        env.put(HttpFileSystemSettings.DRAIN_THRESHOLD_BYTES_KEY, "1024");
+        env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, 512);
+        env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, "8");
+        env.put(HttpFileSystemSettings.BLOCK_CACHE_POLICY_KEY, "lru");
+        env.put(HttpFileSystemSettings.PATH_INTERN_CAPACITY_KEY, 1000);
+        env.put(HttpFileSystemSettings.PATH_INDEX_CAPACITY_KEY, "0");
+        env.put(HttpFileSystemSettings.ATTRIBUTE_CACHE_CAPACITY_KEY, 10);
+        env.put(HttpFileSystemSettings.ATTRIBUTE_CACHE_TTL_MILLIS_KEY, "500");
+        env.put(HttpFileSystemSettings.MANIFEST_PATH_KEY, " /dir/manifest.tsv ");
+        env.put(HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, "2");
+        env.put(HttpFileSystemSettings.MAX_BACKGROUND_THREADS_KEY, 4);
+        env.put(HttpFileSystemSettings.THREAD_MODE_KEY, " Virtual ");
+        final HttpFileSystemSettings settings = new HttpFileSystemSettings(env);
+        Assert.assertEquals(settings.getResumeMaxRetries(), 10);
+        Assert.assertEquals(settings.getResumeInitialBackoffMillis(), 20);
+        Assert.assertEquals(settings.getResumeMaxBackoffMillis(), 30);
+        Assert.assertEquals(settings.getDrainThresholdBytes(), 1024);
+        Assert.assertEquals(settings.getBlockSize(), 512);
+        Assert.assertEquals(settings.getBlockCacheCapacity(), 8);
+        Assert.assertEquals(settings.getBlockCachePolicy(),
+                HttpFileSystemSettings.BlockCachePolicy.LRU);
+        Assert.assertEquals(settings.getPathInternCapacity(), 1000);
+        Assert.assertEquals(settings.getPathIndexCapacity(), 0);
+        Assert.assertEquals(settings.getAttributeCacheCapacity(), 10);
+        Assert.assertEquals(settings.getAttributeCacheTtlMillis(), 500);
+        Assert.assertEquals(settings.getManifestPath(), "/dir/manifest.tsv");
+        Assert.assertEquals(settings.getMaxConcurrentRequests(), 2);
+        Assert.assertEquals(settings.getMaxBackgroundThreads(), 4);
+        Assert.assertEquals(settings.getThreadMode(), HttpFileSystemSettings.ThreadMode.VIRTUAL);
+    }
+
+    @Test
+    public void testNoManifestByDefault() {
+        Assert.assertNull(HttpFileSystemSettings.DEFAULT.getManifestPath());
+    }
+
+    @Test
+    public void testEnumValues() {
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.BLOCK_CACHE_POLICY_KEY,
+                HttpFileSystemSettings.BlockCachePolicy.LRU);
+        env.put(HttpFileSystemSettings.THREAD_MODE_KEY, HttpFileSystemSettings.ThreadMode.VIRTUAL);
+        final HttpFileSystemSettings settings = new HttpFileSystemSettings(env);
+        Assert.assertEquals(settings.getBlockCachePolicy(),
+                HttpFileSystemSettings.BlockCachePolicy.LRU);
+        Assert.assertEquals(settings.getThreadMode(), HttpFileSystemSettings.ThreadMode.VIRTUAL);
+        Assert.assertEquals(HttpFileSystemSettings.DEFAULT.getThreadMode(),
+                HttpFileSystemSettings.ThreadMode.PLATFORM);
+    }
+
+    @DataProvider
+    public Object[][] invalidValues() {
+        return new Object[][] {
+                {HttpFileSystemSettings.RESUME_MAX_RETRIES_KEY, -1},
+                {HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, "not_a_number"},
+                {HttpFileSystemSettings.RESUME_MAX_BACKOFF_MILLIS_KEY, "-10"},
+                {HttpFileSystemSettings.HEDGE_PERCENTILE_KEY, 101},
+                {HttpFileSystemSettings.HEDGE_MIN_DELAY_MILLIS_KEY, -1},
+                {HttpFileSystemSettings.DRAIN_THRESHOLD_BYTES_KEY, "-1"},
+                {HttpFileSystemSettings.BLOCK_SIZE_KEY, 0},
+                {HttpFileSystemSettings.BLOCK_SIZE_KEY, Long.MAX_VALUE},
+                {HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, -1},
+                {HttpFileSystemSettings.BLOCK_CACHE_POLICY_KEY, "fifo"},
+                {HttpFileSystemSettings.PATH_INTERN_CAPACITY_KEY, -1},
+                {HttpFileSystemSettings.PATH_INDEX_CAPACITY_KEY, "-1"},
+                {HttpFileSystemSettings.ATTRIBUTE_CACHE_CAPACITY_KEY, -1},
+                {HttpFileSystemSettings.ATTRIBUTE_CACHE_TTL_MILLIS_KEY, -1},
+                {HttpFileSystemSettings.MANIFEST_PATH_KEY, "manifest.tsv"},
+                {HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, 0},
+                {HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, Long.MAX_VALUE},
+                {HttpFileSystemSettings.MAX_BACKGROUND_THREADS_KEY, 0},
+                {HttpFileSystemSettings.THREAD_MODE_KEY, "green"}
+        };
+    }
+
+    @Test(dataProvider = "invalidValues", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidValues(final String key, final Object value) {
+        new HttpFileSystemSettings(Collections.singletonMap(key, value));
+    }
+
+    @Test
+    public void testResumeBackoff() {
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, 100);
+        env.put(HttpFileSystemSettings.RESUME_MAX_BACKOFF_MILLIS_KEY, 500);
+        final HttpFileSystemSettings settings = new HttpFileSystemSettings(env);
+        Assert.assertEquals(settings.getResumeBackoffMillis(1), 100);
+        Assert.assertEquals(settings.getResumeBackoffMillis(2), 200);
+        Assert.assertEquals(settings.getResumeBackoffMillis(3), 400);
+        Assert.assertEquals(settings.getResumeBackoffMillis(4), 500);
+        Assert.assertEquals(settings.getResumeBackoffMillis(100), 500);
+    }
+}
@@ -4,9 +4,31 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * @author Daniel Gomez-Sanchez (magicDGS)
@@ -37,11 +59,291 @@ public class HttpFileSystemUnitTest extends BaseTest {
     }
 
     @Test
-    public void testAlwaysOpen() {
+    public void testClose() {
         final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY);
         Assert.assertTrue(fs.isOpen());
         fs.close();
-        Assert.assertTrue(fs.isOpen());
+        Assert.assertFalse(fs.isOpen());
+        // closing twice has no effect
+        fs.close();
+        Assert.assertFalse(fs.isOpen());
+        Assert.assertThrows(ClosedFileSystemException.class, () -> fs.getPath("/file.txt"));
+        Assert.assertThrows(ClosedFileSystemException.class, fs::getRootDirectories);
+        Assert.assertThrows(ClosedFileSystemException.class, () -> fs.getPathMatcher("glob:*"));
+        Assert.assertThrows(ClosedFileSystemException.class, fs::getExecutor);
+    }
+
+    @Test
+    public void testCloseRemovesFromProvider() throws Exception {
+        final HttpFileSystemProvider provider = new HttpFileSystemProvider();
+        final URI uri = URI.create("http://" + TEST_AUTHORITY);
+        final HttpFileSystem fs = provider.newFileSystem(uri, Collections.emptyMap());
+        final HttpPath path = provider.getPath(URI.create("http://" + TEST_AUTHORITY + "/file.txt"));
+        Assert.assertSame(path.getFileSystem(), fs);
+        fs.close();
+        Assert.assertThrows(FileSystemNotFoundException.class, () -> provider.getFileSystem(uri));
+        // paths of the closed File System cannot be accessed
+        Assert.assertThrows(ClosedFileSystemException.class, () -> Files.newByteChannel(path));
+        Assert.assertThrows(ClosedFileSystemException.class,
+                () -> provider.checkAccess(path, AccessMode.READ));
+        // but a new one is created for the same authority
+        final HttpFileSystem newFs = provider.newFileSystem(uri, Collections.emptyMap());
+        Assert.assertNotSame(newFs, fs);
+        Assert.assertTrue(newFs.isOpen());
+        // closing the old one again does not remove the new one
+        fs.close();
+        Assert.assertSame(provider.getFileSystem(uri), newFs);
+    }
+
+    @DataProvider
+    public Object[][] blockCacheCapacities() {
+        return new Object[][] {{0}, {4}};
+    }
+
+    @Test(dataProvider = "blockCacheCapacities")
+    public void testCloseAbortsOpenChannels(final int blockCacheCapacity) throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/file.bin", new byte[1 << 20]);
+            final HttpFileSystemProvider provider = new HttpFileSystemProvider();
+            final HttpFileSystem fs = provider.newFileSystem(server.getUri("/"),
+                    Collections.singletonMap(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY,
+                            blockCacheCapacity));
+            final HttpPath path = fs.getPath("/file.bin");
+            final SeekableByteChannel closed = Files.newByteChannel(path);
+            final SeekableByteChannel open = Files.newByteChannel(path);
+            Assert.assertEquals(fs.getOpenResourceCount(), 2);
+            closed.close();
+            Assert.assertEquals(fs.getOpenResourceCount(), 1);
+            open.read(ByteBuffer.allocate(10));
+
+            fs.close();
+            Assert.assertEquals(fs.getOpenResourceCount(), 0);
+            Assert.assertEquals(fs.getBlockFetcher().getCache().size(), 0);
+            Assert.assertEquals(fs.getPathIndex().size(), 0);
+            Assert.assertFalse(open.isOpen());
+            Assert.assertThrows(ClosedChannelException.class,
+                    () -> open.read(ByteBuffer.allocate(10)));
+            // closing the aborted channel does not throw
+            open.close();
+        }
+    }
+
+    @DataProvider
+    public Object[][] maxConcurrentRequests() {
+        return new Object[][] {{1}, {4}};
+    }
+
+    @Test(dataProvider = "maxConcurrentRequests")
+    public void testReadAttributes(final int maxConcurrentRequests) throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final List<Path> paths = new ArrayList<>();
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), Collections.singletonMap(
+                            HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY,
+                            maxConcurrentRequests));
+            for (int i = 0; i < 20; i++) {
+                server.addResource("/file" + i + ".bin", new byte[i]);
+                paths.add(fs.getPath("/file" + i + ".bin"));
+                paths.add(fs.getPath("/missing" + i + ".bin"));
+            }
+            // repeated paths are requested once
+            paths.add(fs.getPath("/file0.bin"));
+
+            final Map<Path, BasicFileAttributes> attributes = fs.readAttributes(paths);
+            Assert.assertEquals(server.getHeadRequestCount(), 40);
+            Assert.assertEquals(attributes.size(), 20);
+            int i = 0;
+            for (final Map.Entry<Path, BasicFileAttributes> entry : attributes.entrySet()) {
+                Assert.assertEquals(entry.getKey().toUri().getRawPath(), "/file" + i + ".bin");
+                Assert.assertTrue(entry.getValue().isRegularFile());
+                Assert.assertEquals(entry.getValue().size(), i++);
+            }
+
+            // existing paths are cached for further queries and access checks
+            Assert.assertEquals(fs.readAttributes(paths.subList(0, 10)).size(), 5);
+            Assert.assertTrue(Files.exists(paths.get(0)));
+            Assert.assertEquals(Files.size(paths.get(2)), 1);
+            Assert.assertEquals(server.getHeadRequestCount(), 45);
+        }
+    }
+
+    @Test
+    public void testRemovedResourceDetectedAfterExpiration() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/file.bin", new byte[10]);
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), Collections.singletonMap(
+                            HttpFileSystemSettings.ATTRIBUTE_CACHE_TTL_MILLIS_KEY, 200));
+            final Path path = fs.getPath("/file.bin");
+            Assert.assertEquals(fs.readAttributes(Collections.singletonList(path)).size(), 1);
+            Assert.assertEquals(server.getHeadRequestCount(), 1);
+
+            server.removeResource("/file.bin");
+            // fresh attributes answer without a request
+            Assert.assertTrue(Files.exists(path));
+            Assert.assertEquals(server.getHeadRequestCount(), 1);
+            // expired attributes are requested again
+            Thread.sleep(300);
+            Assert.assertFalse(Files.exists(path));
+            Assert.assertThrows(NoSuchFileException.class,
+                    () -> fs.provider().checkAccess(path, AccessMode.READ));
+            Assert.assertFalse(Files.isRegularFile(path));
+            Assert.assertEquals(fs.readAttributes(Collections.singletonList(path)).size(), 0);
+        }
+    }
+
+    @Test
+    public void testKnownPaths() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/dir/opened.txt", new byte[10]);
+            server.addResource("/dir/sub/checked.txt", new byte[10]);
+            server.addResource("/other.txt", new byte[10]);
+            // index enabled by default
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), Collections.emptyMap());
+            Assert.assertEquals(fs.getKnownPaths(fs.getPath("/")), Collections.emptyList());
+
+            Files.newByteChannel(fs.getPath("/dir/opened.txt")).close();
+            Assert.assertTrue(Files.exists(fs.getPath("/dir/sub/checked.txt")));
+            Assert.assertTrue(Files.exists(fs.getPath("/other.txt")));
+            Assert.assertEquals(new HashSet<>(fs.getKnownPaths(fs.getPath("/dir"))),
+                    new HashSet<>(Arrays.asList(fs.getPath("/dir/opened.txt"),
+                            fs.getPath("/dir/sub/checked.txt"))));
+            Assert.assertEquals(fs.getKnownPaths(fs.getPath("/")).size(), 3);
+            Assert.assertEquals(new HashSet<>(fs.getKnownChildren(fs.getPath("/dir"))),
+                    new HashSet<>(Arrays.asList(fs.getPath("/dir/opened.txt"),
+                            fs.getPath("/dir/sub"))));
+            Assert.assertEquals(fs.getKnownChildren(fs.getPath("/missing")),
+                    Collections.emptyList());
+        }
+    }
+
+    @DataProvider
+    public Object[][] pathIndexCapacities() {
+        // disabled, full and default
+        return new Object[][] {{0}, {1}, {100_000}};
+    }
+
+    // reads the first bytes of the channel with a positional read, using the block cache
+    private static void assertFirstBytes(final SeekableByteChannel channel,
+            final byte[] content) throws Exception {
+        final ByteBuffer buffer = ByteBuffer.allocate(10);
+        Assert.assertEquals(((URLSeekableByteChannel) channel).read(buffer, 0), 10);
+        Assert.assertEquals(buffer.array(), Arrays.copyOf(content, 10));
+    }
+
+    @Test(dataProvider = "pathIndexCapacities")
+    public void testInvalidate(final int pathIndexCapacity) throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final byte[] content = new byte[100];
+            Arrays.fill(content, (byte) 1);
+            server.addResource("/dir/file.bin", content);
+            server.addResource("/dir2/file.bin", content);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.PATH_INDEX_CAPACITY_KEY, pathIndexCapacity);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, 10);
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), env);
+            final Path invalidated = fs.getPath("/dir/file.bin");
+            final Path kept = fs.getPath("/dir2/file.bin");
+            try (final SeekableByteChannel invalidatedChannel = Files.newByteChannel(invalidated);
+                    final SeekableByteChannel keptChannel = Files.newByteChannel(kept)) {
+                Assert.assertEquals(Files.size(invalidated), content.length);
+                Assert.assertEquals(Files.size(kept), content.length);
+                assertFirstBytes(invalidatedChannel, content);
+                assertFirstBytes(keptChannel, content);
+                final int headRequests = server.getHeadRequestCount();
+                final int getRequests = server.getRequestCount("/dir/file.bin");
+                final int keptGetRequests = server.getRequestCount("/dir2/file.bin");
+
+                Assert.assertEquals(fs.invalidate(fs.getPath("/dir")),
+                        Math.min(pathIndexCapacity, 1));
+                Assert.assertEquals(fs.getKnownPaths(fs.getPath("/dir")),
+                        Collections.emptyList());
+                // other paths are still cached
+                Assert.assertEquals(Files.size(kept), content.length);
+                assertFirstBytes(keptChannel, content);
+                Assert.assertEquals(server.getHeadRequestCount(), headRequests);
+                Assert.assertEquals(server.getRequestCount("/dir2/file.bin"), keptGetRequests);
+                // attributes and blocks under the prefix are requested again
+                Assert.assertEquals(Files.size(invalidated), content.length);
+                assertFirstBytes(invalidatedChannel, content);
+                Assert.assertEquals(server.getHeadRequestCount(), headRequests + 1);
+                Assert.assertEquals(server.getRequestCount("/dir/file.bin"), getRequests + 1);
+
+                // invalidating a prefix without cached paths has no effect
+                Assert.assertEquals(fs.invalidate(fs.getPath("/missing")), 0);
+                Assert.assertEquals(Files.size(kept), content.length);
+                assertFirstBytes(keptChannel, content);
+                Assert.assertEquals(server.getHeadRequestCount(), headRequests + 1);
+                Assert.assertEquals(server.getRequestCount("/dir2/file.bin"), keptGetRequests);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = ProviderMismatchException.class)
+    public void testInvalidateOtherFileSystem() {
+        new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).invalidate(
+                new HttpFileSystem(TEST_PROVIDER, "example.org").getPath("/dir"));
+    }
+
+    @Test(expectedExceptions = ProviderMismatchException.class)
+    public void testReadAttributesOtherFileSystem() throws Exception {
+        final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY);
+        fs.readAttributes(Collections.singletonList(
+                new HttpFileSystem(TEST_PROVIDER, "example.org").getPath("/file.txt")));
+    }
+
+    @DataProvider
+    public Object[][] threadModes() {
+        return new Object[][] {
+                {HttpFileSystemSettings.ThreadMode.PLATFORM, false},
+                {HttpFileSystemSettings.ThreadMode.VIRTUAL, VirtualThreads.isSupported()}
+        };
+    }
+
+    @Test(dataProvider = "threadModes")
+    public void testThreadMode(final HttpFileSystemSettings.ThreadMode mode,
+            final boolean virtual) throws Exception {
+        final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY,
+                new HttpFileSystemSettings(
+                        Collections.singletonMap(HttpFileSystemSettings.THREAD_MODE_KEY, mode)));
+        try {
+            for (final ExecutorService executor
+                    : Arrays.asList(fs.getExecutor(), fs.getBulkExecutor())) {
+                final Thread thread = executor.submit(Thread::currentThread).get();
+                Assert.assertTrue(thread.isDaemon());
+                Assert.assertTrue(thread.getName().contains(TEST_AUTHORITY), thread.getName());
+                Assert.assertEquals(VirtualThreadsUnitTest.isVirtual(thread), virtual);
+            }
+        } finally {
+            fs.close();
+        }
+    }
+
+    @Test
+    public void testPlatformBackgroundThreadsBounded() throws Exception {
+        final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY,
+                new HttpFileSystemSettings(Collections.singletonMap(
+                        HttpFileSystemSettings.MAX_BACKGROUND_THREADS_KEY, 2)));
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            final List<Future<Thread>> tasks = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                tasks.add(fs.getExecutor().submit(() -> {
+                    release.await();
+                    return Thread.currentThread();
+                }));
+            }
+            release.countDown();
+            final Set<Thread> threads = new HashSet<>();
+            for (final Future<Thread> task : tasks) {
+                threads.add(task.get());
+            }
+            Assert.assertEquals(threads.size(), 2);
+        } finally {
+            fs.close();
+        }
     }
 
     @DataProvider
@@ -123,6 +425,26 @@ public class HttpFileSystemUnitTest extends BaseTest {
         new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).getPath(first, more);
     }
 
+    @DataProvider
+    public Object[][] internCapacities() {
+        return new Object[][] {{0, false}, {10, true}};
+    }
+
+    @Test(dataProvider = "internCapacities")
+    public void testGetPathInterning(final int capacity, final boolean interned) {
+        final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY,
+                new HttpFileSystemSettings(Collections.singletonMap(
+                        HttpFileSystemSettings.PATH_INTERN_CAPACITY_KEY, capacity)));
+        final HttpPath first = fs.getPath("/dir/file.txt?query=1");
+        final HttpPath second = fs.getPath(new String("/dir/file.txt?query=1"));
+        assertEqualsPath(first, second);
+        Assert.assertEquals(first == second, interned);
+        Assert.assertEquals(fs.getStatistics().getPathInternHitCount(), interned ? 1 : 0);
+        // invalid paths are not interned
+        Assert.assertThrows(InvalidPathException.class, () -> fs.getPath("relative"));
+        Assert.assertEquals(fs.getPathInterner().size(), interned ? 1 : 0);
+    }
+
     @DataProvider
     public Object[][] equalityData() {
         final HttpFileSystem test = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY);
@@ -134,7 +456,11 @@ public class HttpFileSystemUnitTest extends BaseTest {
                 // not equal providers
                 {test, new HttpFileSystem(new HttpsFileSystemProvider(), TEST_AUTHORITY), false},
                 // not equal authorities
-                {test, new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY + ".org"), false}
+                {test, new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY + ".org"), false},
+                // equivalent authorities (case and default port)
+                {test, new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY.toUpperCase()), true},
+                {test, new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY + ":80"), true},
+                {test, new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY + ":8080"), false}
         };
     }
 
@@ -164,4 +490,35 @@ public class HttpFileSystemUnitTest extends BaseTest {
                 new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).hashCode(),
                 new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).hashCode());
     }
+
+    @DataProvider
+    public Object[][] pathMatchers() {
+        return new Object[][] {
+                {"glob:/dir/*.bam", "/dir/file.bam", true},
+                {"GLOB:/dir/*.bam", "/dir/file.bam?query=1", true},
+                {"glob:/dir/*.bam", "/dir/sub/file.bam", false},
+                {"regex:/dir/.*\\.bam", "/dir/sub/file.bam", true},
+                {"regex:/dir/[^/]*\\.bam", "/dir/sub/file.bam", false},
+                {"regex:/", "/", true},
+                {"regex:/dir", "/dir/", true}
+        };
+    }
+
+    @Test(dataProvider = "pathMatchers")
+    public void testGetPathMatcher(final String syntaxAndPattern, final String path,
+            final boolean matches) {
+        final HttpFileSystem fs = new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY);
+        Assert.assertEquals(fs.getPathMatcher(syntaxAndPattern).matches(fs.getPath(path)),
+                matches);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGetPathMatcherWithoutSyntax() {
+        new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).getPathMatcher("/dir/*.bam");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testGetPathMatcherUnknownSyntax() {
+        new HttpFileSystem(TEST_PROVIDER, TEST_AUTHORITY).getPathMatcher("unknown:/dir/*.bam");
+    }
 }
@@ -0,0 +1,121 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpInputStreamUnitTest extends BaseTest {
+
+    private static final int BUFFER_SIZE = 16;
+
+    private final byte[] content = new byte[1000];
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 7);
+        }
+        server = new LocalHttpServer();
+        server.addResource("/file.bin", content);
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, BUFFER_SIZE));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        fs.close();
+        server.close();
+    }
+
+    @DataProvider
+    public Object[][] readSizes() {
+        // smaller, equal and larger than the buffer
+        return new Object[][] {{1}, {5}, {BUFFER_SIZE}, {BUFFER_SIZE * 3 + 1}};
+    }
+
+    @Test(dataProvider = "readSizes")
+    public void testReadWithSingleRequest(final int readSize) throws Exception {
+        final Path path = fs.getPath("/file.bin");
+        final int gets = server.getRequestCount("/file.bin");
+        final int heads = server.getHeadRequestCount();
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (final InputStream in = Files.newInputStream(path)) {
+            final byte[] buffer = new byte[readSize];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                os.write(buffer, 0, n);
+            }
+            Assert.assertEquals(in.read(), -1);
+        }
+        Assert.assertEquals(os.toByteArray(), content);
+        Assert.assertEquals(server.getRequestCount("/file.bin") - gets, 1);
+        Assert.assertEquals(server.getHeadRequestCount() - heads, 0);
+    }
+
+    @Test
+    public void testReadBytesAndSkip() throws Exception {
+        try (final InputStream in = Files.newInputStream(fs.getPath("/file.bin"),
+                StandardOpenOption.READ)) {
+            Assert.assertEquals(in.read(), content[0] & 0xFF);
+            Assert.assertEquals(in.skip(10), 10);
+            Assert.assertEquals(in.read(), content[11] & 0xFF);
+            long skipped = 0;
+            while (skipped < 500 - 12) {
+                skipped += in.skip(500 - 12 - skipped);
+            }
+            Assert.assertEquals(in.read(), content[500] & 0xFF);
+        }
+    }
+
+    @Test
+    public void testClosedStream() throws Exception {
+        final InputStream in = Files.newInputStream(fs.getPath("/file.bin"));
+        in.close();
+        // closing twice is a no-op
+        in.close();
+        Assert.assertThrows(IOException.class, in::read);
+        Assert.assertThrows(IOException.class, () -> in.read(new byte[10]));
+    }
+
+    @Test
+    public void testAbortedOnFileSystemClose() throws Exception {
+        final HttpFileSystem closing = new HttpFileSystemProvider().newFileSystem(
+                server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, BUFFER_SIZE));
+        final InputStream in = Files.newInputStream(closing.getPath("/file.bin"));
+        Assert.assertEquals(in.read(), content[0] & 0xFF);
+        Assert.assertEquals(closing.getOpenResourceCount(), 1);
+
+        closing.close();
+        Assert.assertEquals(closing.getOpenResourceCount(), 0);
+        Assert.assertThrows(IOException.class, () -> in.read(new byte[BUFFER_SIZE * 2]));
+        // closing the aborted stream does not throw
+        in.close();
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testMissingFile() throws Exception {
+        Files.newInputStream(fs.getPath("/missing.bin"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testUnsupportedOption() throws Exception {
+        Files.newInputStream(fs.getPath("/file.bin"), StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,257 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpPartitionUnitTest extends BaseTest {
+
+    private static final int BLOCK_SIZE = 64;
+
+    private final byte[] lines;
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    public HttpPartitionUnitTest() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("line ").append(i).append(": ");
+            for (int j = 0; j < i % 17; j++) {
+                builder.append('x');
+            }
+            builder.append('\n');
+        }
+        lines = builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = new LocalHttpServer();
+        server.addResource("/lines.txt", lines);
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, BLOCK_SIZE));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        fs.close();
+        server.close();
+    }
+
+    private static byte[] readAll(final HttpPartition partition) throws IOException {
+        try (final InputStream in = partition.newInputStream()) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[7];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                os.write(buffer, 0, n);
+            }
+            return os.toByteArray();
+        }
+    }
+
+    private static byte[] concat(final List<HttpPartition> partitions) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        long expectedStart = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            final HttpPartition partition = partitions.get(i);
+            Assert.assertEquals(partition.getIndex(), i);
+            Assert.assertEquals(partition.getStart(), expectedStart);
+            expectedStart = partition.getEnd();
+            final byte[] content = readAll(partition);
+            Assert.assertEquals(content.length, partition.size());
+            os.write(content);
+        }
+        return os.toByteArray();
+    }
+
+    @DataProvider
+    public Object[][] numberOfPartitions() {
+        return new Object[][] {{1}, {2}, {3}, {8}, {31}};
+    }
+
+    @Test(dataProvider = "numberOfPartitions")
+    public void testSplitLines(final int numberOfPartitions) throws Exception {
+        final List<HttpPartition> partitions = fs.split(fs.getPath("/lines.txt"),
+                numberOfPartitions, HttpPartition.Aligner.afterDelimiter((byte) '\n'))
+                .parallel().collect(Collectors.toList());
+        Assert.assertEquals(partitions.size(), numberOfPartitions);
+        for (final HttpPartition partition : partitions) {
+            if (partition.getStart() != 0 && partition.size() != 0) {
+                // partitions start at the beginning of a line
+                Assert.assertEquals(lines[(int) partition.getStart() - 1], '\n');
+            }
+        }
+        Assert.assertEquals(concat(partitions), lines);
+    }
+
+    @Test(dataProvider = "numberOfPartitions")
+    public void testSplitWithoutAlignment(final int numberOfPartitions) throws Exception {
+        final List<HttpPartition> partitions = fs.split(fs.getPath("/lines.txt"),
+                numberOfPartitions, HttpPartition.Aligner.none())
+                .collect(Collectors.toList());
+        Assert.assertEquals(partitions.size(), numberOfPartitions);
+        for (final HttpPartition partition : partitions) {
+            Assert.assertTrue(partition.size() <= lines.length / numberOfPartitions + 1,
+                    partition.toString());
+        }
+        Assert.assertEquals(concat(partitions), lines);
+    }
+
+    @Test
+    public void testSplitAtMarker() throws Exception {
+        final byte[] marker = {'B', 'C'};
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        for (int i = 0; i < 20; i++) {
+            os.write(marker);
+            for (int j = 0; j < 10 + i * 3; j++) {
+                os.write('a' + j % 20);
+            }
+        }
+        final byte[] content = os.toByteArray();
+        server.addResource("/blocks.bin", content);
+
+        final List<HttpPartition> partitions = fs.split(fs.getPath("/blocks.bin"), 5,
+                HttpPartition.Aligner.atMarker(marker)).collect(Collectors.toList());
+        for (final HttpPartition partition : partitions) {
+            final byte[] bytes = readAll(partition);
+            if (bytes.length != 0) {
+                Assert.assertEquals(bytes[0], 'B', partition.toString());
+                Assert.assertEquals(bytes[1], 'C', partition.toString());
+            }
+        }
+        Assert.assertEquals(concat(partitions), content);
+    }
+
+    @Test
+    public void testSplitWithoutBoundaries() throws Exception {
+        server.addResource("/single-line.txt", new byte[300]);
+        final List<HttpPartition> partitions = fs.split(fs.getPath("/single-line.txt"), 4,
+                HttpPartition.Aligner.afterDelimiter((byte) '\n')).collect(Collectors.toList());
+        Assert.assertEquals(partitions.size(), 4);
+        Assert.assertEquals(partitions.get(0).size(), 300);
+        for (int i = 1; i < partitions.size(); i++) {
+            Assert.assertEquals(partitions.get(i).size(), 0);
+            Assert.assertEquals(readAll(partitions.get(i)).length, 0);
+        }
+    }
+
+    @Test
+    public void testPartitionChannel() throws Exception {
+        final HttpPartition partition = fs.split(fs.getPath("/lines.txt"), 3,
+                HttpPartition.Aligner.none()).skip(1).findFirst().get();
+        final int start = (int) partition.getStart();
+        try (final SeekableByteChannel channel = partition.newByteChannel()) {
+            Assert.assertEquals(channel.size(), partition.size());
+            final ByteBuffer buffer = ByteBuffer.allocate(10);
+            Assert.assertEquals(channel.read(buffer), 10);
+            Assert.assertEquals(buffer.array(), slice(start, 10));
+
+            // seek within the partition
+            channel.position(50);
+            buffer.clear();
+            Assert.assertEquals(channel.read(buffer), 10);
+            Assert.assertEquals(buffer.array(), slice(start + 50, 10));
+            Assert.assertEquals(channel.position(), 60);
+
+            // reads are bounded by the end of the partition
+            channel.position(partition.size() - 4);
+            buffer.clear();
+            Assert.assertEquals(channel.read(buffer), 4);
+            buffer.clear();
+            Assert.assertEquals(channel.read(buffer), -1);
+        }
+    }
+
+    private byte[] slice(final int start, final int length) {
+        final byte[] slice = new byte[length];
+        System.arraycopy(lines, start, slice, 0, length);
+        return slice;
+    }
+
+    @Test
+    public void testCloseWithoutReading() throws Exception {
+        final HttpPartition partition = fs.split(fs.getPath("/lines.txt"), 1,
+                HttpPartition.Aligner.none()).findFirst().get();
+        final SeekableByteChannel channel = partition.newByteChannel();
+        channel.close();
+        Assert.assertFalse(channel.isOpen());
+        // closing twice is a no-op
+        channel.close();
+    }
+
+    @Test
+    public void testAbortedOnFileSystemClose() throws Exception {
+        final HttpFileSystem closing = new HttpFileSystemProvider().newFileSystem(
+                server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, BLOCK_SIZE));
+        final HttpPartition partition = closing.split(closing.getPath("/lines.txt"), 1,
+                HttpPartition.Aligner.none()).findFirst().get();
+        final SeekableByteChannel channel = partition.newByteChannel();
+        Assert.assertEquals(channel.read(ByteBuffer.allocate(10)), 10);
+        Assert.assertEquals(closing.getOpenResourceCount(), 1);
+
+        closing.close();
+        Assert.assertEquals(closing.getOpenResourceCount(), 0);
+        Assert.assertEquals(closing.getStatistics().getAbortedConnectionCount(), 1);
+        Assert.assertFalse(channel.isOpen());
+        Assert.assertThrows(ClosedChannelException.class,
+                () -> channel.read(ByteBuffer.allocate(10)));
+        // closing the aborted channel does not abort the connection again
+        channel.close();
+        Assert.assertEquals(closing.getStatistics().getAbortedConnectionCount(), 1);
+    }
+
+    @Test
+    public void testResourceChangedAfterSplit() throws Exception {
+        server.addResource("/changing.txt", lines);
+        final List<HttpPartition> partitions = fs.split(fs.getPath("/changing.txt"), 2,
+                HttpPartition.Aligner.none()).collect(Collectors.toList());
+        final byte[] changed = lines.clone();
+        changed[0] = 'L';
+        server.addResource("/changing.txt", changed);
+        Assert.assertThrows(IOException.class, () -> readAll(partitions.get(1)));
+    }
+
+    @Test
+    public void testAlignmentError() throws Exception {
+        final HttpPartition.Aligner failing = (resource, position) -> {
+            throw new IOException("failed alignment");
+        };
+        Assert.assertThrows(UncheckedIOException.class,
+                () -> fs.split(fs.getPath("/lines.txt"), 2, failing).count());
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testSplitMissingResource() throws Exception {
+        fs.split(fs.getPath("/missing.txt"), 2, HttpPartition.Aligner.none());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSplitInvalidPartitions() throws Exception {
+        fs.split(fs.getPath("/lines.txt"), 0, HttpPartition.Aligner.none());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptyMarker() {
+        HttpPartition.Aligner.atMarker(new byte[0]);
+    }
+}
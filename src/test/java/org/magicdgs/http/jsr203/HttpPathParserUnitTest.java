@@ -0,0 +1,111 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.file.InvalidPathException;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpPathParserUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    @DataProvider
+    public Object[][] sameAsUri() {
+        return new Object[][] {
+                {""},
+                {"/"},
+                {"/file.txt"},
+                {"/dir/file.txt"},
+                {"/dir/"},
+                {"/dir//file.txt"},
+                {"/dir///sub//"},
+                {"/file.txt?query=hello+world"},
+                {"/file.txt#ref"},
+                {"/file.txt?query=1#ref"},
+                {"/file.txt?"},
+                {"/file.txt#"},
+                {"/file.txt?a=/b?c[0]#ref/?"},
+                {"/with%20space.txt"},
+                {"/with%2Fslash//file.txt"},
+                {"/file.txt?query=%3Fencoded%23#%20ref"},
+                {"/invalid%C3utf8"},
+                {"/caf\u00e9/\ud83d\ude00.txt?q=\u00e9"},
+                {"/a-_.!~*'():@&=+$,;b"}
+        };
+    }
+
+    @Test(dataProvider = "sameAsUri")
+    public void testSameAsUri(final String input) throws Exception {
+        final URI uri = new URI(input);
+        final HttpPath expected = new HttpPath(TEST_FS, uri.getPath(), uri.getQuery(), uri.getFragment());
+        final HttpPath actual = HttpPathParser.parse(TEST_FS, input);
+        assertEqualsPath(actual, expected);
+        Assert.assertEquals(actual.toString(), expected.toString());
+    }
+
+    @Test
+    public void testLeadingDoubleSlashIsPath() {
+        // java.net.URI would parse "host" as the authority
+        assertEqualsPath(HttpPathParser.parse(TEST_FS, "//host/file.txt"),
+                new HttpPath(TEST_FS, "/host/file.txt", null, null));
+    }
+
+    @Test
+    public void testOnlySeparatorsIsRoot() {
+        assertEqualsPath(HttpPathParser.parse(TEST_FS, "///"),
+                new HttpPath(TEST_FS, "", null, null));
+    }
+
+    @DataProvider
+    public Object[][] relativeInputs() {
+        return new Object[][] {
+                {"", "", 0},
+                {"file.txt", "file.txt", 1},
+                {"dir//file.txt?query=1", "dir/file.txt", 2},
+                {"../file.txt", "../file.txt", 2},
+                {"?query=1", "", 0}
+        };
+    }
+
+    @Test(dataProvider = "relativeInputs")
+    public void testRelativeAllowed(final String input, final String path, final int names) {
+        final HttpPath relative = HttpPathParser.parse(TEST_FS, input, true);
+        Assert.assertFalse(relative.isAbsolute());
+        Assert.assertEquals(relative.toString(), path);
+        Assert.assertEquals(relative.getNameCount(), names);
+    }
+
+    @DataProvider
+    public Object[][] invalidInputs() {
+        return new Object[][] {
+                {"relative", "Relative paths are not supported", 0},
+                {"/with space", "Illegal character in path", 5},
+                {"/null\0char", "Illegal character in path", 5},
+                {"/escaped%00null", "Null character not allowed in path", 8},
+                {"/bad%2gescape", "Malformed escape pair", 4},
+                {"/truncated%2", "Malformed escape pair", 10},
+                {"/file[0]", "Illegal character in path", 5},
+                {"/file?with space", "Illegal character in query", 10},
+                {"/file#ref#other", "Illegal character in fragment", 9},
+                {"/file#%zz", "Malformed escape pair", 6}
+        };
+    }
+
+    @Test(dataProvider = "invalidInputs")
+    public void testInvalidInputs(final String input, final String reason, final int index) {
+        try {
+            HttpPathParser.parse(TEST_FS, input);
+            Assert.fail("Expected exception for " + input);
+        } catch (final InvalidPathException e) {
+            Assert.assertEquals(e.getInput(), input);
+            Assert.assertEquals(e.getReason(), reason);
+            Assert.assertEquals(e.getIndex(), index);
+        }
+    }
+}
@@ -9,6 +9,10 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Daniel Gomez-Sanchez (magicDGS)
@@ -211,11 +215,115 @@ public class HttpPathUnitTest extends BaseTest {
 //        // check that the iterator returns the same number of elements
 //        // TODO: failing until the iterator is implemented ()
 //        Assert.assertEquals(StreamSupport.stream(path.spliterator(), false).count(), count);
-//        // TODO: failing until the iterator is implemented ()
-//        // check that getName(i) does not fail
-//        for (int i = 0; i < path.getNameCount(); i++) {
-//            Assert.assertNotNull(path.getName(i));
-//        }
+        // check that getName(i) does not fail
+        for (int i = 0; i < path.getNameCount(); i++) {
+            Assert.assertNotNull(path.getName(i));
+        }
+    }
+
+    @DataProvider
+    public Object[][] navigationData() {
+        return new Object[][] {
+                // path, file name, parent
+                {"/", null, null},
+                {"/index.html", "index.html", "http://example.com"},
+                {"/dir/index.html", "index.html", "http://example.com/dir"},
+                {"/dir1/dir2/index.html", "index.html", "http://example.com/dir1/dir2"},
+                {"/dir1/dir2/", "dir2", "http://example.com/dir1"},
+                {"/dir1//dir2", "dir2", "http://example.com/dir1"}
+        };
+    }
+
+    @Test(dataProvider = "navigationData")
+    public void testGetFileName(final String path, final String fileName, final String parent) {
+        final Path testPath = new HttpPath(TEST_FS, path, "query", "ref");
+        final Path actual = testPath.getFileName();
+        if (fileName == null) {
+            Assert.assertNull(actual);
+        } else {
+            Assert.assertFalse(actual.isAbsolute());
+            Assert.assertEquals(actual.toString(), fileName);
+            Assert.assertEquals(actual.getNameCount(), 1);
+            Assert.assertSame(actual.getFileName(), actual);
+            Assert.assertTrue(testPath.endsWith(actual));
+        }
+    }
+
+    @Test(dataProvider = "navigationData")
+    public void testGetParent(final String path, final String fileName, final String parent) {
+        final Path testPath = new HttpPath(TEST_FS, path, "query", "ref");
+        final Path actual = testPath.getParent();
+        if (parent == null) {
+            Assert.assertNull(actual);
+        } else {
+            Assert.assertTrue(actual.isAbsolute());
+            Assert.assertEquals(actual.toString(), parent);
+            Assert.assertEquals(actual.getNameCount(), testPath.getNameCount() - 1);
+            Assert.assertTrue(testPath.startsWith(actual));
+            // the query and reference are not included
+            assertEqualsPath(actual, createPathFromUriStringOnTestProvider(parent));
+        }
+    }
+
+    @DataProvider
+    public Object[][] subpathData() {
+        return new Object[][] {
+                {"/dir1/dir2/index.html", 0, 1, "dir1"},
+                {"/dir1/dir2/index.html", 1, 2, "dir2"},
+                {"/dir1/dir2/index.html", 2, 3, "index.html"},
+                {"/dir1/dir2/index.html", 0, 2, "dir1/dir2"},
+                {"/dir1/dir2/index.html", 1, 3, "dir2/index.html"},
+                {"/dir1/dir2/index.html", 0, 3, "dir1/dir2/index.html"},
+                {"/dir1/dir2/", 1, 2, "dir2"}
+        };
+    }
+
+    @Test(dataProvider = "subpathData")
+    public void testSubpath(final String path, final int begin, final int end,
+            final String expected) {
+        final Path actual = new HttpPath(TEST_FS, path, null, null).subpath(begin, end);
+        Assert.assertFalse(actual.isAbsolute());
+        Assert.assertNull(actual.getRoot());
+        Assert.assertEquals(actual.toString(), expected);
+        Assert.assertEquals(actual.getNameCount(), end - begin);
+        // navigation of the relative path
+        Assert.assertEquals(actual.getFileName().toString(),
+                actual.getName(end - begin - 1).toString());
+        Assert.assertEquals(actual.toAbsolutePath().toString(), "http://example.com/" + expected);
+        Assert.assertEquals(actual.toUri(), URI.create("http://example.com/" + expected));
+        Assert.assertTrue(actual.startsWith(actual.getName(0)));
+        Assert.assertTrue(actual.endsWith(actual.getFileName()));
+        if (end - begin > 1) {
+            assertEqualsPath(actual.getParent(), actual.subpath(0, end - begin - 1));
+        } else {
+            Assert.assertNull(actual.getParent());
+        }
+    }
+
+    @DataProvider
+    public Object[][] invalidSubpaths() {
+        return new Object[][] {
+                {"/", 0, 1},
+                {"/dir/file", -1, 1},
+                {"/dir/file", 1, 1},
+                {"/dir/file", 1, 0},
+                {"/dir/file", 0, 3},
+                {"/dir/file", 2, 3}
+        };
+    }
+
+    @Test(dataProvider = "invalidSubpaths", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSubpath(final String path, final int begin, final int end) {
+        new HttpPath(TEST_FS, path, null, null).subpath(begin, end);
+    }
+
+    @Test
+    public void testEndsWithRelativePath() {
+        final Path path = TEST_FS.getPath("/foo/bar");
+        Assert.assertTrue(path.endsWith(TEST_FS.getPath("/bar/bar").getFileName()));
+        // name boundary is checked for relative paths
+        Assert.assertFalse(path.endsWith(TEST_FS.getPath("/ar").getFileName()));
+        Assert.assertTrue(path.endsWith(path.subpath(0, 2)));
     }
 
     @DataProvider
@@ -379,6 +487,19 @@ public class HttpPathUnitTest extends BaseTest {
         }
     }
 
+    @Test(dataProvider = "compareToUriStrings")
+    public void testEqualsWithCachedHashCode(final String first, final String second,
+            final int result) {
+        final HttpPath firstPath = createPathFromUriStringOnTestProvider(first);
+        final HttpPath secondPath = createPathFromUriStringOnTestProvider(second);
+        // cache the hash code in one or both paths
+        firstPath.hashCode();
+        Assert.assertEquals(firstPath.equals(secondPath), result == 0);
+        secondPath.hashCode();
+        Assert.assertEquals(firstPath.equals(secondPath), result == 0);
+        Assert.assertEquals(secondPath.equals(firstPath), result == 0);
+    }
+
     @Test
     public void testEqualsDifferentObject() {
         final String uriString = "http://example.com";
@@ -419,6 +540,200 @@ public class HttpPathUnitTest extends BaseTest {
         Assert.assertEquals(path.toString(), uriString);
     }
 
+    @Test(dataProvider = "validUriStrings")
+    public void testCachedDerivedForms(final String uriString) {
+        final HttpPath path = createPathFromUriStringOnTestProvider(uriString);
+        Assert.assertEquals(path.hashCode(), path.hashCode());
+        // the String and URI are not retained
+        Assert.assertNotSame(path.toString(), path.toString());
+        Assert.assertEquals(path.toString(), path.toString());
+        Assert.assertEquals(path.toUri(), path.toUri());
+    }
+
+    @Test
+    public void testDerivedFormsFromSeveralThreads() throws Exception {
+        final String uriString = "http://example.com/dir/file.txt?query=hello+world#2";
+        final HttpPath path = createPathFromUriStringOnTestProvider(uriString);
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    Assert.assertEquals(path.toString(), uriString);
+                    Assert.assertEquals(path.toUri(), URI.create(uriString));
+                    Assert.assertEquals(path.hashCode(),
+                            createPathFromUriStringOnTestProvider(uriString).hashCode());
+                } catch (final Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(errors, Collections.emptyList());
+    }
+
+    @DataProvider
+    public Object[][] normalizeData() {
+        return new Object[][] {
+                {"/", "/"},
+                {"/dir/file.txt", "/dir/file.txt"},
+                {"/dir/./file.txt", "/dir/file.txt"},
+                {"/dir/../file.txt", "/file.txt"},
+                {"/dir/sub/../../file.txt", "/file.txt"},
+                {"/../file.txt", "/file.txt"},
+                {"/dir/..", "/"},
+                {"/dir/sub/../", "/dir/"},
+                {"/dir/./sub/.?query=1#ref", "/dir/sub?query=1#ref"},
+                {"/dir/.../file.txt", "/dir/.../file.txt"},
+                {"/dir/..file/.file", "/dir/..file/.file"}
+        };
+    }
+
+    @Test(dataProvider = "normalizeData")
+    public void testNormalize(final String path, final String expected) {
+        assertEqualsPath(TEST_FS.getPath(path).normalize(), TEST_FS.getPath(expected));
+    }
+
+    @DataProvider
+    public Object[][] normalizeRelativeData() {
+        return new Object[][] {
+                {"dir/file.txt", "dir/file.txt"},
+                {"dir/./file.txt", "dir/file.txt"},
+                {"dir/../file.txt", "file.txt"},
+                {"../dir/../../file.txt", "../../file.txt"},
+                {"./dir/..", ""}
+        };
+    }
+
+    @Test(dataProvider = "normalizeRelativeData")
+    public void testNormalizeRelative(final String path, final String expected) {
+        final Path absolute = TEST_FS.getPath("/" + path);
+        final Path relative = absolute.subpath(0, absolute.getNameCount());
+        final Path normalized = relative.normalize();
+        Assert.assertFalse(normalized.isAbsolute());
+        Assert.assertEquals(normalized.toString(), expected);
+    }
+
+    @Test
+    public void testNormalizeWithoutChangesReturnsSameInstance() {
+        final Path path = TEST_FS.getPath("/dir/file.txt?query=1");
+        Assert.assertSame(path.normalize(), path);
+    }
+
+    @DataProvider
+    public Object[][] resolveData() {
+        return new Object[][] {
+                // absolute other
+                {"/dir/file.txt", "/other.txt", "http://example.com/other.txt"},
+                // empty other
+                {"/dir/file.txt?query=1", "", "http://example.com/dir/file.txt?query=1"},
+                {"/dir/", "?query=1", "http://example.com/dir/?query=1"},
+                // relative names
+                {"/", "file.txt", "http://example.com/file.txt"},
+                {"/dir", "file.txt", "http://example.com/dir/file.txt"},
+                {"/dir/", "file.txt", "http://example.com/dir/file.txt"},
+                {"/dir?query=1", "sub/", "http://example.com/dir/sub/"},
+                {"/dir", "sub//file.txt?q=2#ref", "http://example.com/dir/sub/file.txt?q=2#ref"},
+                // dot names are kept
+                {"/dir", "../file.txt", "http://example.com/dir/../file.txt"}
+        };
+    }
+
+    @Test(dataProvider = "resolveData")
+    public void testResolve(final String path, final String other, final String expected) {
+        Assert.assertEquals(TEST_FS.getPath(path).resolve(other).toString(), expected);
+    }
+
+    @Test
+    public void testResolveRelativeOnRelative() {
+        final Path relative = TEST_FS.getPath("/dir/sub").getFileName();
+        final Path resolved = relative.resolve("file.txt");
+        Assert.assertFalse(resolved.isAbsolute());
+        Assert.assertEquals(resolved.toString(), "sub/file.txt");
+        Assert.assertEquals(relative.getFileName().resolve(""), relative);
+    }
+
+    @DataProvider
+    public Object[][] resolveSiblingData() {
+        return new Object[][] {
+                {"/dir/file.txt", "other.txt", "http://example.com/dir/other.txt"},
+                {"/file.txt", "other.txt", "http://example.com/other.txt"},
+                {"/dir/file.txt", "/other.txt", "http://example.com/other.txt"},
+                {"/", "other.txt", "other.txt"}
+        };
+    }
+
+    @Test(dataProvider = "resolveSiblingData")
+    public void testResolveSibling(final String path, final String other, final String expected) {
+        Assert.assertEquals(TEST_FS.getPath(path).resolveSibling(other).toString(), expected);
+    }
+
+    @DataProvider
+    public Object[][] relativizeData() {
+        return new Object[][] {
+                {"/dir/file.txt", "/dir/file.txt", ""},
+                {"/", "/dir/file.txt", "dir/file.txt"},
+                {"/dir", "/dir/file.txt", "file.txt"},
+                {"/dir/", "/dir/sub/", "sub/"},
+                {"/dir/file.txt", "/dir", ".."},
+                {"/dir/sub/file.txt", "/", "../../.."},
+                {"/dir/sub", "/dir/other/file.txt", "../other/file.txt"},
+                {"/dir/sub", "/directory/sub", "../../directory/sub"},
+                {"/dir", "/dir/file.txt?query=1", "file.txt"}
+        };
+    }
+
+    @Test(dataProvider = "relativizeData")
+    public void testRelativize(final String path, final String other, final String expected) {
+        final Path base = TEST_FS.getPath(path);
+        final Path otherPath = TEST_FS.getPath(other);
+        final Path relative = base.relativize(otherPath);
+        Assert.assertFalse(relative.isAbsolute());
+        Assert.assertEquals(relative.toString(), expected);
+        // the relative path resolves back to the other (after normalization)
+        assertEqualsPath(base.resolve(relative).normalize(), otherPath);
+    }
+
+    @Test
+    public void testRelativizeRelativePaths() {
+        final Path path = TEST_FS.getPath("/root/dir/sub");
+        final Path relative = path.subpath(1, 3).relativize(path.subpath(1, 2));
+        Assert.assertEquals(relative.toString(), "..");
+    }
+
+    @Test
+    public void testRelativizeEqualsIsEmptyPath() {
+        final Path path = TEST_FS.getPath("/dir/file.txt");
+        final Path empty = path.relativize(path);
+        Assert.assertFalse(empty.isAbsolute());
+        Assert.assertEquals(empty.toString(), "");
+        assertNotEqualsPath(empty, path.getRoot());
+        Assert.assertSame(path.resolve(empty), path);
+        assertEqualsPath(empty.toAbsolutePath(), path.getRoot());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRelativizeAbsoluteAndRelative() {
+        final Path path = TEST_FS.getPath("/dir/file.txt");
+        path.relativize(path.getFileName());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRelativizeDifferentAuthority() {
+        TEST_FS.getPath("/dir").relativize(
+                new HttpFileSystem(TEST_FS_PROVIDER, "other.com").getPath("/dir"));
+    }
+
+    @Test(expectedExceptions = ProviderMismatchException.class)
+    public void testResolveDifferentProvider() {
+        TEST_FS.getPath("/dir").resolve(
+                new HttpFileSystem(new HttpsFileSystemProvider(), TEST_AUTHORITY).getPath("/dir"));
+    }
+
     @Test(expectedExceptions = UnsupportedOperationException.class)
     public void testToFile() {
         new HttpPath(TEST_FS, "", null, null).toFile();
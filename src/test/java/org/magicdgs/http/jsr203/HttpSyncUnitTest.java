@@ -0,0 +1,245 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpSyncUnitTest extends BaseTest {
+
+    private static final List<String> FILES = Arrays.asList("a.txt", "d1/x.txt",
+            "d1/sub/deep.txt", "d2/y.txt");
+
+    // current content of the remote files
+    private final Map<String, String> contents = new HashMap<>();
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+    private Path tempDir;
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        contents.clear();
+        server = new LocalHttpServer();
+        addListing("/tree/", "a.txt", "d1/", "d2/");
+        addListing("/tree/d1/", "x.txt", "sub/");
+        addListing("/tree/d1/sub/", "deep.txt");
+        addListing("/tree/d2/", "../", "y.txt");
+        for (final String file : FILES) {
+            addFile(file, "content of " + file);
+        }
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, 2));
+        tempDir = Files.createTempDirectory("HttpSyncUnitTest");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopServer() throws IOException {
+        fs.close();
+        server.close();
+        try (final Stream<Path> paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void addListing(final String dir, final String... links) {
+        final StringBuilder html = new StringBuilder("<html><body><pre>\n");
+        for (final String link : links) {
+            html.append("<a href=\"").append(link).append("\">").append(link).append("</a>\n");
+        }
+        html.append("</pre></body></html>\n");
+        server.addResource(dir, html.toString().getBytes(StandardCharsets.UTF_8), "text/html");
+    }
+
+    private void addFile(final String file, final String content) {
+        contents.put(file, content);
+        server.addResource("/tree/" + file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int getFileRequests() {
+        return FILES.stream().mapToInt(f -> server.getRequestCount("/tree/" + f)).sum();
+    }
+
+    private void assertLocalCopy(final Path target) throws IOException {
+        for (final Map.Entry<String, String> file : contents.entrySet()) {
+            Assert.assertEquals(new String(Files.readAllBytes(target.resolve(file.getKey())),
+                    StandardCharsets.UTF_8), file.getValue(), file.getKey());
+        }
+        // no temporary files are left
+        try (final Stream<Path> paths = Files.walk(target)) {
+            Assert.assertEquals(paths.filter(p -> p.toString().endsWith(".tmp")).count(), 0);
+        }
+    }
+
+    private static List<String> names(final List<Path> paths) {
+        return paths.stream().map(p -> p.toUri().getRawPath()).sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        final Path target = tempDir.resolve("mirror");
+
+        // first run downloads everything
+        HttpSyncResult result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertEquals(result.getDownloaded().size(), FILES.size(), result.toString());
+        Assert.assertTrue(result.getUnchanged().isEmpty());
+        Assert.assertTrue(result.getFailures().isEmpty());
+        Assert.assertTrue(result.getDownloadedBytes() > 0);
+        Assert.assertTrue(Files.exists(target.resolve(".http-sync.properties")));
+        assertLocalCopy(target);
+
+        // second run only sends conditional requests
+        int requests = getFileRequests();
+        result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertTrue(result.getDownloaded().isEmpty(), result.toString());
+        Assert.assertEquals(result.getUnchanged().size(), FILES.size());
+        Assert.assertEquals(result.getDownloadedBytes(), 0);
+        Assert.assertEquals(getFileRequests() - requests, FILES.size());
+
+        // only changed, new or locally removed files are downloaded
+        addFile("d1/x.txt", "changed content");
+        addListing("/tree/d2/", "../", "y.txt", "z.txt");
+        addFile("d2/z.txt", "new file");
+        Files.delete(target.resolve("a.txt"));
+        result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertEquals(names(result.getDownloaded()),
+                Arrays.asList("/tree/a.txt", "/tree/d1/x.txt", "/tree/d2/z.txt"));
+        Assert.assertEquals(names(result.getUnchanged()),
+                Arrays.asList("/tree/d1/sub/deep.txt", "/tree/d2/y.txt"));
+        assertLocalCopy(target);
+    }
+
+    @Test
+    public void testSyncWithManifest() throws Exception {
+        final StringBuilder manifest = new StringBuilder();
+        for (final String file : FILES) {
+            final byte[] content = ("content of " + file).getBytes(StandardCharsets.UTF_8);
+            manifest.append("tree/").append(file).append('\t').append(content.length)
+                    .append("\t\"").append(Integer.toHexString(Arrays.hashCode(content)))
+                    .append("\"\n");
+        }
+        server.addResource("/manifest.tsv", manifest.toString().getBytes(StandardCharsets.UTF_8));
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.MANIFEST_PATH_KEY, "/manifest.tsv");
+        final HttpFileSystem withManifest = new HttpFileSystemProvider()
+                .newFileSystem(server.getUri("/"), env);
+        try {
+            final Path target = tempDir.resolve("mirror");
+            HttpSyncResult result = withManifest.sync(withManifest.getPath("/tree"), target);
+            Assert.assertEquals(result.getDownloaded().size(), FILES.size(), result.toString());
+            assertLocalCopy(target);
+
+            // unchanged files in the manifest are not requested
+            final int requests = getFileRequests();
+            result = withManifest.sync(withManifest.getPath("/tree"), target);
+            Assert.assertEquals(result.getUnchanged().size(), FILES.size(), result.toString());
+            Assert.assertEquals(getFileRequests(), requests);
+        } finally {
+            withManifest.close();
+        }
+    }
+
+    @Test
+    public void testSyncWithFailures() throws Exception {
+        addListing("/tree/d2/", "../", "y.txt", "missing.txt");
+        final Path target = tempDir.resolve("mirror");
+        final HttpSyncResult result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertEquals(result.getDownloaded().size(), FILES.size(), result.toString());
+        Assert.assertEquals(result.getFailures().size(), 1);
+        final Map.Entry<Path, IOException> failure =
+                result.getFailures().entrySet().iterator().next();
+        Assert.assertEquals(failure.getKey().toUri().getRawPath(), "/tree/d2/missing.txt");
+        Assert.assertTrue(failure.getValue() instanceof NoSuchFileException);
+        Assert.assertFalse(Files.exists(target.resolve("d2/missing.txt")));
+        assertLocalCopy(target);
+    }
+
+    private static Properties readState(final Path target) throws IOException {
+        final Properties state = new Properties();
+        try (final Reader reader = Files.newBufferedReader(
+                target.resolve(".http-sync.properties"), StandardCharsets.UTF_8)) {
+            state.load(reader);
+        }
+        return state;
+    }
+
+    @Test
+    public void testStoredETagsSurviveFailedSync() throws Exception {
+        final Path target = tempDir.resolve("mirror");
+        fs.sync(fs.getPath("/tree"), target);
+        final Properties synced = readState(target);
+        Assert.assertEquals(synced.size(), FILES.size());
+
+        // the listing of a sub-directory fails, so its files are not reached
+        server.removeResource("/tree/d2/");
+        Assert.assertThrows(NoSuchFileException.class,
+                () -> fs.sync(fs.getPath("/tree"), target));
+        Assert.assertEquals(readState(target), synced);
+
+        // the files are not downloaded again when the listing is back
+        addListing("/tree/d2/", "../", "y.txt");
+        HttpSyncResult result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertTrue(result.getDownloaded().isEmpty(), result.toString());
+        Assert.assertEquals(result.getUnchanged().size(), FILES.size());
+        Assert.assertEquals(readState(target), synced);
+
+        // only the ETags of files confirmed missing are removed
+        server.removeResource("/tree/a.txt");
+        result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertEquals(result.getFailures().size(), 1, result.toString());
+        synced.remove("a.txt");
+        Assert.assertEquals(readState(target), synced);
+    }
+
+    @Test
+    public void testRemoteStateFileIsNotSynchronized() throws Exception {
+        addListing("/tree/", "a.txt", "d1/", "d2/", ".http-sync.properties");
+        server.addResource("/tree/.http-sync.properties",
+                "a.txt=remote\n".getBytes(StandardCharsets.UTF_8));
+        final Path target = tempDir.resolve("mirror");
+        final HttpSyncResult result = fs.sync(fs.getPath("/tree"), target);
+        Assert.assertEquals(result.getDownloaded().size(), FILES.size(), result.toString());
+        Assert.assertEquals(result.getFailures().keySet().iterator().next().toUri().getRawPath(),
+                "/tree/.http-sync.properties");
+        Assert.assertEquals(server.getRequestCount("/tree/.http-sync.properties"), 0);
+        // the local state has the ETags of the synchronized files
+        final Properties state = readState(target);
+        Assert.assertEquals(state.stringPropertyNames(), new HashSet<>(FILES));
+    }
+
+    @Test(expectedExceptions = NotDirectoryException.class)
+    public void testSyncFile() throws Exception {
+        fs.sync(fs.getPath("/tree/a.txt"), tempDir);
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testSyncMissingDirectory() throws Exception {
+        fs.sync(fs.getPath("/missing"), tempDir);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSyncIntoHttpPath() throws Exception {
+        fs.sync(fs.getPath("/tree"), fs.getPath("/other"));
+    }
+}
@@ -0,0 +1,219 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class HttpTreeSpliteratorUnitTest extends BaseTest {
+
+    private static final List<String> TREE = Arrays.asList("/tree", "/tree/a.txt",
+            "/tree/d1/", "/tree/d1/x.txt", "/tree/d1/sub/", "/tree/d1/sub/deep.txt",
+            "/tree/d2/", "/tree/d2/y.txt", "/tree/d3/");
+
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    // adds the autoindex pages and files of the test tree
+    private static void addTree(final LocalHttpServer server) {
+        addListing(server, "/tree/", "a.txt", "d1/", "d2/", "d3/");
+        addListing(server, "/tree/d1/", "x.txt", "sub/");
+        addListing(server, "/tree/d1/sub/", "deep.txt");
+        addListing(server, "/tree/d2/", "../", "y.txt");
+        addListing(server, "/tree/d3/");
+        for (final String file : Arrays.asList("/tree/a.txt", "/tree/d1/x.txt",
+                "/tree/d1/sub/deep.txt", "/tree/d2/y.txt")) {
+            server.addResource(file, new byte[10]);
+        }
+    }
+
+    private static void addListing(final LocalHttpServer server, final String dir,
+            final String... links) {
+        final StringBuilder html = new StringBuilder("<html><body><pre>\n");
+        for (final String link : links) {
+            html.append("<a href=\"").append(link).append("\">").append(link).append("</a>\n");
+        }
+        html.append("</pre></body></html>\n");
+        server.addResource(dir, html.toString().getBytes(StandardCharsets.UTF_8), "text/html");
+    }
+
+    private static List<String> toRawPaths(final Stream<Path> paths) {
+        try (final Stream<Path> closeable = paths) {
+            return closeable.map(p -> p.toUri().getRawPath()).collect(Collectors.toList());
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = new LocalHttpServer();
+        addTree(server);
+        addListing(server, "/broken/", "ok.txt", "missing/");
+        server.addResource("/broken/ok.txt", new byte[1]);
+        fs = new HttpFileSystemProvider().getPath(server.getUri("/")).getFileSystem();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.close();
+    }
+
+    @DataProvider
+    public Object[][] depths() {
+        return new Object[][] {
+                {0, TREE.subList(0, 1)},
+                {1, Arrays.asList("/tree", "/tree/a.txt", "/tree/d1/", "/tree/d2/", "/tree/d3/")},
+                {2, Arrays.asList("/tree", "/tree/a.txt", "/tree/d1/", "/tree/d1/x.txt",
+                        "/tree/d1/sub/", "/tree/d2/", "/tree/d2/y.txt", "/tree/d3/")},
+                {Integer.MAX_VALUE, TREE}
+        };
+    }
+
+    @Test(dataProvider = "depths")
+    public void testWalk(final int maxDepth, final List<String> expected) throws Exception {
+        Assert.assertEquals(toRawPaths(fs.walk(fs.getPath("/tree"), maxDepth)), expected);
+    }
+
+    @Test(dataProvider = "depths")
+    public void testParallelWalk(final int maxDepth, final List<String> expected)
+            throws Exception {
+        Assert.assertEquals(toRawPaths(fs.walk(fs.getPath("/tree"), maxDepth).parallel()),
+                expected);
+    }
+
+    @Test
+    public void testSplitKeepsEncounterOrder() throws Exception {
+        final Spliterator<Path> suffix =
+                HttpTreeSpliterator.open(fs.getPath("/tree"), Integer.MAX_VALUE);
+        final Spliterator<Path> prefix = suffix.trySplit();
+        Assert.assertNotNull(prefix);
+        final List<String> walked = new ArrayList<>();
+        prefix.forEachRemaining(p -> walked.add(p.toUri().getRawPath()));
+        Assert.assertFalse(walked.isEmpty());
+        suffix.forEachRemaining(p -> walked.add(p.toUri().getRawPath()));
+        Assert.assertEquals(walked, TREE);
+        Assert.assertTrue(suffix.hasCharacteristics(Spliterator.ORDERED));
+    }
+
+    @Test
+    public void testSplitUntilSingleNode() throws Exception {
+        final List<Spliterator<Path>> parts = new ArrayList<>();
+        parts.add(HttpTreeSpliterator.open(fs.getPath("/tree"), Integer.MAX_VALUE));
+        // splits every part until they cannot be split
+        for (int i = 0; i < parts.size(); i++) {
+            Spliterator<Path> prefix;
+            while ((prefix = parts.get(i).trySplit()) != null) {
+                parts.add(i, prefix);
+            }
+        }
+        Assert.assertTrue(parts.size() > 1, "not split");
+        final List<String> walked = new ArrayList<>();
+        parts.forEach(s -> s.forEachRemaining(p -> walked.add(p.toUri().getRawPath())));
+        Assert.assertEquals(walked, TREE);
+    }
+
+    @DataProvider
+    public Object[][] threadModes() {
+        return new Object[][] {
+                {HttpFileSystemSettings.ThreadMode.PLATFORM},
+                {HttpFileSystemSettings.ThreadMode.VIRTUAL}
+        };
+    }
+
+    @Test(dataProvider = "threadModes")
+    public void testSiblingListingsAreConcurrentAndBounded(
+            final HttpFileSystemSettings.ThreadMode mode) throws Exception {
+        try (final LocalHttpServer local = new LocalHttpServer()) {
+            addTree(local);
+            for (final String dir : Arrays.asList("/tree/d1/", "/tree/d2/", "/tree/d3/")) {
+                local.delayNext(dir, 1, 200);
+            }
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, 2);
+            env.put(HttpFileSystemSettings.THREAD_MODE_KEY, mode);
+            final HttpFileSystem bounded = new HttpFileSystemProvider()
+                    .newFileSystem(local.getUri("/"), env);
+            Assert.assertEquals(toRawPaths(bounded.walk(bounded.getPath("/tree"),
+                    Integer.MAX_VALUE)), TREE);
+            Assert.assertEquals(local.getMaxActiveRequests(), 2);
+            // each directory is listed once, without HEAD requests
+            Assert.assertEquals(local.getRequestCount("/tree/d1/"), 1);
+            Assert.assertEquals(local.getRequestCount("/tree/d1/sub/"), 1);
+            Assert.assertEquals(local.getHeadRequestCount(), 0);
+        }
+    }
+
+    @Test
+    public void testWalkWithManifest() throws Exception {
+        try (final LocalHttpServer local = new LocalHttpServer()) {
+            local.addResource("/manifest.tsv", ("tree/b.txt\t1\ntree/a/x.txt\t2\n"
+                    + "tree/a/sub/y.txt\t3\nother.txt\t4\n").getBytes(StandardCharsets.UTF_8));
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.MANIFEST_PATH_KEY, "/manifest.tsv");
+            final HttpFileSystem withManifest = new HttpFileSystemProvider()
+                    .newFileSystem(local.getUri("/"), env);
+            final List<String> expected = Arrays.asList("/tree", "/tree/a", "/tree/a/sub",
+                    "/tree/a/sub/y.txt", "/tree/a/x.txt", "/tree/b.txt");
+            Assert.assertEquals(toRawPaths(withManifest.walk(withManifest.getPath("/tree"),
+                    Integer.MAX_VALUE)), expected);
+            Assert.assertEquals(toRawPaths(withManifest.walk(withManifest.getPath("/tree"),
+                    Integer.MAX_VALUE).parallel()), expected);
+            Assert.assertEquals(toRawPaths(withManifest.walk(withManifest.getPath("/other.txt"),
+                    Integer.MAX_VALUE)), Collections.singletonList("/other.txt"));
+            Assert.assertThrows(NoSuchFileException.class,
+                    () -> withManifest.walk(withManifest.getPath("/missing"), 1));
+            Assert.assertEquals(local.getHeadRequestCount(), 0);
+        }
+    }
+
+    @Test
+    public void testWalkFile() throws Exception {
+        Assert.assertEquals(toRawPaths(fs.walk(fs.getPath("/tree/a.txt"), Integer.MAX_VALUE)),
+                Collections.singletonList("/tree/a.txt"));
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testWalkMissing() throws Exception {
+        fs.walk(fs.getPath("/missing"), Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testErrorListingSubDirectory() throws Exception {
+        final UncheckedIOException e = Assert.expectThrows(UncheckedIOException.class,
+                () -> toRawPaths(fs.walk(fs.getPath("/broken"), Integer.MAX_VALUE)));
+        Assert.assertTrue(e.getCause() instanceof NoSuchFileException, e.toString());
+        // the broken directory is not listed if it is not visited
+        Assert.assertEquals(toRawPaths(fs.walk(fs.getPath("/broken"), 1)),
+                Arrays.asList("/broken", "/broken/ok.txt", "/broken/missing/"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeDepth() throws Exception {
+        fs.walk(fs.getPath("/tree"), -1);
+    }
+
+    @Test(expectedExceptions = ProviderMismatchException.class)
+    public void testOtherFileSystemPath() throws Exception {
+        fs.walk(Paths.get("tree"), 1);
+    }
+}
@@ -15,6 +15,33 @@ import java.net.URLConnection;
  */
 public class HttpUtilsUnitTest extends BaseTest {
 
+    @DataProvider
+    public Object[][] canonicalAuthorities() {
+        return new Object[][] {
+                {"http", "example.com", "example.com"},
+                {"http", "Example.COM", "example.com"},
+                {"http", "example.com:80", "example.com"},
+                {"http", "example.com:080", "example.com"},
+                {"http", "example.com:", "example.com"},
+                {"http", "example.com:443", "example.com:443"},
+                {"https", "example.com:443", "example.com"},
+                {"HTTPS", "example.com:80", "example.com:80"},
+                {"http", "User@Example.com:80", "User@example.com"},
+                {"http", "user:pass@example.com:8080", "user:pass@example.com:8080"},
+                {"http", "[::1]", "[::1]"},
+                {"http", "[FE80::1]:80", "[fe80::1]"},
+                {"https", "[::1]:8443", "[::1]:8443"},
+                // unknown schemes keep the port
+                {null, "Example.com:80", "example.com:80"}
+        };
+    }
+
+    @Test(dataProvider = "canonicalAuthorities")
+    public void testGetCanonicalAuthority(final String scheme, final String authority,
+            final String expected) {
+        Assert.assertEquals(HttpUtils.getCanonicalAuthority(scheme, authority), expected);
+    }
+
     @DataProvider
     public Object[][] illegalArgumentsForRangeRequest() throws Exception {
         // create a Mocked URL connection that throws an assertion error when
@@ -0,0 +1,53 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class LatencyTrackerUnitTest extends BaseTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new LatencyTracker(0);
+    }
+
+    @Test
+    public void testEmptyTracker() {
+        final LatencyTracker tracker = new LatencyTracker(10);
+        Assert.assertEquals(tracker.size(), 0);
+        Assert.assertEquals(tracker.percentile(50), -1);
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 100; i > 0; i--) {
+            tracker.record(i);
+        }
+        Assert.assertEquals(tracker.size(), 100);
+        Assert.assertEquals(tracker.percentile(1), 1);
+        Assert.assertEquals(tracker.percentile(50), 50);
+        Assert.assertEquals(tracker.percentile(95), 95);
+        Assert.assertEquals(tracker.percentile(100), 100);
+    }
+
+    @Test
+    public void testOnlyRecentSamples() {
+        final LatencyTracker tracker = new LatencyTracker(10);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1000);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1);
+        }
+        Assert.assertEquals(tracker.size(), 10);
+        Assert.assertEquals(tracker.percentile(100), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyTracker(10).percentile(101);
+    }
+}
@@ -0,0 +1,297 @@
+package org.magicdgs.http.jsr203;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server for testing, serving in-memory resources.
+ *
+ * <p>The server supports {@code HEAD} and {@code GET} requests, including {@code Range} and
+ * {@code If-Range} headers, and conditional {@code If-None-Match} requests. In addition, it
+ * allows to inject failures for testing purposes.
+ *
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class LocalHttpServer implements Closeable {
+
+    private final HttpServer server;
+
+    // resources and their ETags
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    // number of GET requests per resource
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    // number of HEAD requests for any path
+    private final AtomicInteger headRequests = new AtomicInteger();
+    // number of GET requests in progress, and the maximum reached
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    // number of GET requests to truncate and the number of bytes to send before truncation
+    private final Map<String, AtomicInteger> truncations = new ConcurrentHashMap<>();
+    private final Map<String, Long> truncationBytes = new ConcurrentHashMap<>();
+
+    // number of GET requests to delay and the delay before the response
+    private final Map<String, AtomicInteger> delays = new ConcurrentHashMap<>();
+    private final Map<String, Long> delayMillis = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a new server on an ephemeral port in the loopback address.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public LocalHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "LocalHttpServer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    /**
+     * Adds a resource to the server.
+     *
+     * @param path    absolute path for the resource.
+     * @param content bytes for the resource.
+     *
+     * @return the URL for the resource.
+     */
+    public URL addResource(final String path, final byte[] content) {
+        resources.put(path, content);
+        etags.put(path, "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"");
+        return getUrl(path);
+    }
+
+    /**
+     * Adds a resource to the server with a content type.
+     *
+     * @param path        absolute path for the resource.
+     * @param content     bytes for the resource.
+     * @param contentType value for the Content-Type header.
+     *
+     * @return the URL for the resource.
+     */
+    public URL addResource(final String path, final byte[] content, final String contentType) {
+        contentTypes.put(path, contentType);
+        return addResource(path, content);
+    }
+
+    /**
+     * Removes a resource from the server.
+     *
+     * @param path absolute path of the resource.
+     */
+    public void removeResource(final String path) {
+        resources.remove(path);
+        etags.remove(path);
+        contentTypes.remove(path);
+    }
+
+    /**
+     * Truncates the body of the next GET requests for a resource.
+     *
+     * @param path  path of the resource.
+     * @param times number of requests to truncate.
+     * @param after number of bytes sent before closing the connection.
+     */
+    public void truncateNext(final String path, final int times, final long after) {
+        truncationBytes.put(path, after);
+        truncations.put(path, new AtomicInteger(times));
+    }
+
+    /**
+     * Delays the response of the next GET requests for a resource.
+     *
+     * @param path   path of the resource.
+     * @param times  number of requests to delay.
+     * @param millis delay in milliseconds before sending the response.
+     */
+    public void delayNext(final String path, final int times, final long millis) {
+        delayMillis.put(path, millis);
+        delays.put(path, new AtomicInteger(times));
+    }
+
+    /**
+     * Gets the number of GET requests for a resource.
+     *
+     * @param path path of the resource.
+     *
+     * @return number of GET requests.
+     */
+    public int getRequestCount(final String path) {
+        final AtomicInteger count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Gets the number of HEAD requests for any path (existing or not).
+     *
+     * @return number of HEAD requests.
+     */
+    public int getHeadRequestCount() {
+        return headRequests.get();
+    }
+
+    /**
+     * Gets the maximum number of GET requests waiting for the response at the same time.
+     *
+     * @return maximum number of concurrent GET requests.
+     */
+    public int getMaxActiveRequests() {
+        return maxActiveRequests.get();
+    }
+
+    /**
+     * Gets the URI for a path in this server.
+     *
+     * @param path absolute path.
+     *
+     * @return URI for the path.
+     */
+    public URI getUri(final String path) {
+        return URI.create("http://" + getAuthority() + path);
+    }
+
+    /**
+     * Gets the URL for a path in this server.
+     *
+     * @param path absolute path.
+     *
+     * @return URL for the path.
+     */
+    public URL getUrl(final String path) {
+        try {
+            return getUri(path).toURL();
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Gets the authority of the server.
+     *
+     * @return the authority (host and port).
+     */
+    public String getAuthority() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            headRequests.incrementAndGet();
+        }
+        final byte[] content = resources.get(path);
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        final String etag = etags.get(path);
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        final String contentType = contentTypes.get(path);
+        if (contentType != null) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+        }
+
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        sendContent(exchange, path, content);
+    }
+
+    // sends the content of a resource for a GET request
+    private void sendContent(final HttpExchange exchange, final String path, final byte[] content)
+            throws IOException {
+        final String etag = etags.get(path);
+        // active until the response starts, as the client might send the next request before
+        // this handler returns
+        final int active = activeRequests.incrementAndGet();
+        maxActiveRequests.accumulateAndGet(active, Math::max);
+        try {
+            final AtomicInteger delay = delays.get(path);
+            if (delay != null && delay.getAndDecrement() > 0) {
+                Thread.sleep(delayMillis.get(path));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+
+        // parse the range if present and the validator matches
+        long start = 0;
+        long end = content.length - 1;
+        int code = 200;
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Long.parseLong(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Long.parseLong(bounds[1]));
+            }
+            if (start >= content.length) {
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            code = 206;
+            exchange.getResponseHeaders().add("Content-Range",
+                    String.format("bytes %s-%s/%s", start, end, content.length));
+        }
+
+        final long length = end - start + 1;
+        long toSend = length;
+        final AtomicInteger truncate = truncations.get(path);
+        if (truncate != null && truncate.getAndDecrement() > 0) {
+            toSend = Math.min(length, truncationBytes.get(path));
+        }
+        exchange.sendResponseHeaders(code, length);
+        final OutputStream os = exchange.getResponseBody();
+        try {
+            os.write(content, (int) start, (int) toSend);
+            os.flush();
+        } catch (final IOException e) {
+            // expected if the client aborts
+            return;
+        }
+        if (toSend != length) {
+            // throwing from the handler forces the server to close the connection
+            throw new IOException("Truncated response for " + path);
+        }
+        os.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
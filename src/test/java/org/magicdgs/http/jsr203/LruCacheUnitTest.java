@@ -0,0 +1,105 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class LruCacheUnitTest extends BaseTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new LruCache<String, String>(-1);
+    }
+
+    @Test
+    public void testDisabled() {
+        final LruCache<String, String> cache = new LruCache<>(0);
+        cache.put("a", "1");
+        Assert.assertNull(cache.putIfAbsent("b", "2"));
+        Assert.assertNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        final LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // access makes "a" the most recently used
+        Assert.assertEquals(cache.get("a"), "1");
+        cache.put("c", "3");
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(cache.get("a"), "1");
+        Assert.assertEquals(cache.get("c"), "3");
+        // the existing value is kept and marked as used
+        Assert.assertEquals(cache.putIfAbsent("c", "4"), "3");
+        Assert.assertNull(cache.putIfAbsent("d", "5"));
+        Assert.assertNull(cache.get("a"));
+        cache.remove("c");
+        Assert.assertEquals(cache.size(), 1);
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeExpiration() {
+        new LruCache<String, String>(1, -1, TimeUnit.SECONDS, System::nanoTime);
+    }
+
+    @Test
+    public void testExpireAfterStored() {
+        final AtomicLong nanos = new AtomicLong();
+        final LruCache<String, String> cache =
+                new LruCache<>(10, 10, TimeUnit.NANOSECONDS, nanos::get);
+        cache.put("a", "1");
+        nanos.set(5);
+        cache.put("b", "2");
+        // access does not extend the expiration
+        Assert.assertEquals(cache.get("a"), "1");
+        nanos.set(10);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(cache.get("b"), "2");
+        // an expired value is replaced by putIfAbsent
+        nanos.set(15);
+        Assert.assertNull(cache.putIfAbsent("b", "3"));
+        Assert.assertEquals(cache.get("b"), "3");
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testExactBoundWithConcurrentInserts() throws Exception {
+        final int capacity = 10;
+        final LruCache<Integer, Integer> cache = new LruCache<>(capacity);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.putIfAbsent(thread * 1000 + i, i);
+                        Assert.assertTrue(cache.size() <= capacity);
+                    }
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(cache.size(), capacity);
+    }
+}
@@ -0,0 +1,229 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class ManifestUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    private static final String TEST_MANIFEST = "# path\tsize\tetag\n"
+            + "\n"
+            + "file.txt\t10\t\"etag1\"\n"
+            + "dir/nested.txt\t20\n"
+            + "dir/sub/deep%20file.txt\t30\t\n"
+            + "/data/absolute.bin\t40\t\"etag4\"\n"
+            + "dir/../normalized.txt\t50\n";
+
+    private static Manifest parse(final String location, final String content)
+            throws IOException {
+        return Manifest.parse(TEST_FS.getPath(location),
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // lists the raw path of the entries
+    private static List<String> list(final DirectoryStream<Path> stream) throws IOException {
+        final List<String> entries = new ArrayList<>();
+        try (final DirectoryStream<Path> closeable = stream) {
+            closeable.forEach(p -> entries.add(p.toUri().getRawPath()));
+        }
+        return entries;
+    }
+
+    @DataProvider
+    public Object[][] files() {
+        return new Object[][] {
+                {"/pub/file.txt", 10, "\"etag1\""},
+                {"/pub/dir/nested.txt", 20, null},
+                {"/pub/dir/sub/deep%20file.txt", 30, null},
+                {"/data/absolute.bin", 40, "\"etag4\""},
+                {"/pub/normalized.txt", 50, null}
+        };
+    }
+
+    @Test(dataProvider = "files")
+    public void testFileAttributes(final String path, final long size, final String etag)
+            throws Exception {
+        final Manifest manifest = parse("/pub/manifest.tsv", TEST_MANIFEST);
+        Assert.assertEquals(manifest.size(), 5);
+        final HttpFileAttributes attributes = manifest.getAttributes(TEST_FS.getPath(path));
+        Assert.assertNotNull(attributes);
+        Assert.assertTrue(attributes.isRegularFile());
+        Assert.assertFalse(attributes.isDirectory());
+        Assert.assertEquals(attributes.size(), size);
+        Assert.assertEquals(attributes.getETag(), etag);
+    }
+
+    @Test
+    public void testDirectoryAttributes() throws Exception {
+        final Manifest manifest = parse("/pub/manifest.tsv", TEST_MANIFEST);
+        for (final String dir : Arrays.asList("/", "/pub", "/pub/dir", "/pub/dir/sub/", "/data")) {
+            Assert.assertSame(manifest.getAttributes(TEST_FS.getPath(dir)),
+                    HttpFileAttributes.DIRECTORY, dir);
+        }
+        Assert.assertNull(manifest.getAttributes(TEST_FS.getPath("/pub/missing.txt")));
+        Assert.assertNull(manifest.getAttributes(TEST_FS.getPath("/pub/manifest.tsv")));
+    }
+
+    @Test
+    public void testDirectoryStream() throws Exception {
+        final Manifest manifest = parse("/pub/manifest.tsv", TEST_MANIFEST);
+        Assert.assertEquals(list(manifest.newDirectoryStream(TEST_FS.getPath("/pub"), p -> true)),
+                Arrays.asList("/pub/dir", "/pub/file.txt", "/pub/normalized.txt"));
+        Assert.assertEquals(list(manifest.newDirectoryStream(TEST_FS.getPath("/"), p -> true)),
+                Arrays.asList("/data", "/pub"));
+        Assert.assertEquals(list(manifest.newDirectoryStream(TEST_FS.getPath("/pub/"),
+                p -> p.toString().endsWith(".txt"))),
+                Arrays.asList("/pub/file.txt", "/pub/normalized.txt"));
+        Assert.assertThrows(NotDirectoryException.class,
+                () -> manifest.newDirectoryStream(TEST_FS.getPath("/pub/file.txt"), p -> true));
+        Assert.assertThrows(NoSuchFileException.class,
+                () -> manifest.newDirectoryStream(TEST_FS.getPath("/missing"), p -> true));
+    }
+
+    @DataProvider
+    public Object[][] invalidManifests() {
+        return new Object[][] {
+                {"file.txt\n"},
+                {"file.txt\t10\tetag\textra\n"},
+                {"file.txt\tten\n"},
+                {"file.txt\t-1\n"},
+                {"%zz\t10\n"},
+                {"/\t10\n"}
+        };
+    }
+
+    @Test(dataProvider = "invalidManifests", expectedExceptions = IOException.class)
+    public void testInvalidManifest(final String content) throws Exception {
+        parse("/manifest.tsv", content);
+    }
+
+    @Test
+    public void testWalkWithManifest() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/pub/manifest.tsv", TEST_MANIFEST.getBytes(StandardCharsets.UTF_8));
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.MANIFEST_PATH_KEY, "/pub/manifest.tsv");
+            final HttpFileSystem fs = new HttpFileSystemProvider()
+                    .newFileSystem(server.getUri("/"), env);
+
+            final List<String> walked;
+            try (final Stream<Path> paths = Files.walk(fs.getPath("/pub"))) {
+                walked = paths.map(p -> p.toUri().getRawPath()).collect(Collectors.toList());
+            }
+            Assert.assertEquals(walked, Arrays.asList("/pub", "/pub/dir", "/pub/dir/nested.txt",
+                    "/pub/dir/sub", "/pub/dir/sub/deep%20file.txt", "/pub/file.txt",
+                    "/pub/normalized.txt"));
+            Assert.assertEquals(Files.size(fs.getPath("/pub/dir/nested.txt")), 20);
+            Assert.assertTrue(Files.isDirectory(fs.getPath("/pub/dir")));
+            Assert.assertTrue(Files.exists(fs.getPath("/pub/file.txt")));
+            // only the manifest was requested
+            Assert.assertEquals(server.getRequestCount("/pub/manifest.tsv"), 1);
+            Assert.assertEquals(server.getHeadRequestCount(), 0);
+            // the attributes are answered by the manifest, not copied to the cache
+            Assert.assertEquals(fs.getAttributeCache().size(), 0);
+        }
+    }
+
+    @Test
+    public void testAttributesWithoutManifest() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/file.txt", new byte[15]);
+            final HttpFileSystem fs = new HttpFileSystemProvider()
+                    .newFileSystem(server.getUri("/"), Collections.emptyMap());
+            final Path path = fs.getPath("/file.txt");
+            final BasicFileAttributes attributes =
+                    Files.readAttributes(path, BasicFileAttributes.class);
+            Assert.assertTrue(attributes.isRegularFile());
+            Assert.assertEquals(attributes.size(), 15);
+            Assert.assertEquals(server.getHeadRequestCount(), 1);
+            // cached
+            Assert.assertEquals(Files.size(path), 15);
+            Assert.assertEquals(server.getHeadRequestCount(), 1);
+            Assert.assertThrows(NoSuchFileException.class,
+                    () -> Files.readAttributes(fs.getPath("/missing.txt"),
+                            BasicFileAttributes.class));
+        }
+    }
+
+    @DataProvider
+    public Object[][] unavailableManifests() {
+        return new Object[][] {{null}, {"file.txt\tten\n"}};
+    }
+
+    @Test(dataProvider = "unavailableManifests")
+    public void testUnavailableManifestFallsBackToRequests(final String content)
+            throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/file.txt", new byte[15]);
+            if (content != null) {
+                server.addResource("/manifest.tsv", content.getBytes(StandardCharsets.UTF_8));
+            }
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), Collections.singletonMap(
+                            HttpFileSystemSettings.MANIFEST_PATH_KEY, "/manifest.tsv"));
+            Assert.assertEquals(Files.size(fs.getPath("/file.txt")), 15);
+            Assert.assertTrue(Files.exists(fs.getPath("/file.txt")));
+            Assert.assertFalse(Files.exists(fs.getPath("/missing.txt")));
+            Assert.assertNull(fs.getManifest());
+            // the failed load is not retried
+            Assert.assertEquals(server.getRequestCount("/manifest.tsv"), (content == null) ? 0 : 1);
+        }
+    }
+
+    @Test
+    public void testCloseAbortsManifestLoad() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/manifest.tsv", TEST_MANIFEST.getBytes(StandardCharsets.UTF_8));
+            server.delayNext("/manifest.tsv", 1, 5000);
+            final HttpFileSystem fs = new HttpFileSystemProvider().newFileSystem(
+                    server.getUri("/"), Collections.singletonMap(
+                            HttpFileSystemSettings.MANIFEST_PATH_KEY, "/manifest.tsv"));
+            final CompletableFuture<Manifest> load = CompletableFuture.supplyAsync(fs::getManifest);
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (fs.getOpenResourceCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(fs.getOpenResourceCount(), 1);
+
+            final long start = System.nanoTime();
+            fs.close();
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            try {
+                load.get(1, TimeUnit.SECONDS);
+                Assert.fail("manifest loaded after close");
+            } catch (final ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ClosedFileSystemException,
+                        String.valueOf(e.getCause()));
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class ParallelDownloadUnitTest extends BaseTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int PART_SIZE = BLOCK_SIZE * ParallelDownload.PART_BLOCKS;
+    private static final int MAX_CONCURRENT_REQUESTS = 3;
+
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+    private Path tempDir;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = new LocalHttpServer();
+        final Map<String, Object> env = new HashMap<>();
+        env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, BLOCK_SIZE);
+        env.put(HttpFileSystemSettings.MAX_CONCURRENT_REQUESTS_KEY, MAX_CONCURRENT_REQUESTS);
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"), env);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        fs.close();
+        server.close();
+    }
+
+    @BeforeMethod
+    public void createTempDir() throws IOException {
+        tempDir = Files.createTempDirectory("ParallelDownloadUnitTest");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteTempDir() throws IOException {
+        try (final Stream<Path> paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static byte[] content(final int length, final int seed) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+
+    private static Path progressFile(final Path target) {
+        return target.resolveSibling(target.getFileName() + ParallelDownload.PROGRESS_SUFFIX);
+    }
+
+    private void copy(final Path source, final Path target, final CopyOption... options)
+            throws IOException {
+        source.getFileSystem().provider().copy(source, target, options);
+    }
+
+    @DataProvider
+    public Object[][] contentLengths() {
+        return new Object[][] {
+                {0},
+                {1},
+                {PART_SIZE - 1},
+                {PART_SIZE},
+                {PART_SIZE + 1},
+                // more parts than concurrent requests
+                {PART_SIZE * 7 + 13}
+        };
+    }
+
+    @Test(dataProvider = "contentLengths")
+    public void testCopy(final int length) throws Exception {
+        final String name = "/copy_" + length + ".bin";
+        final byte[] content = content(length, length);
+        server.addResource(name, content);
+        final Path target = tempDir.resolve("copy.bin");
+
+        copy(fs.getPath(name), target);
+
+        Assert.assertEquals(Files.readAllBytes(target), content);
+        Assert.assertFalse(Files.exists(progressFile(target)));
+        Assert.assertEquals(server.getRequestCount(name), (length + PART_SIZE - 1) / PART_SIZE);
+        Assert.assertTrue(server.getMaxActiveRequests() <= MAX_CONCURRENT_REQUESTS);
+    }
+
+    @Test
+    public void testCopyExistingTarget() throws Exception {
+        final byte[] content = content(PART_SIZE * 2, 1);
+        server.addResource("/existing.bin", content);
+        final Path target = tempDir.resolve("existing.bin");
+        Files.write(target, content(PART_SIZE * 3, 2));
+
+        Assert.assertThrows(FileAlreadyExistsException.class,
+                () -> copy(fs.getPath("/existing.bin"), target));
+        Assert.assertEquals(Files.size(target), PART_SIZE * 3);
+
+        // longer existing content is removed
+        copy(fs.getPath("/existing.bin"), target, StandardCopyOption.REPLACE_EXISTING);
+        Assert.assertEquals(Files.readAllBytes(target), content);
+    }
+
+    @Test
+    public void testCopyAttributes() throws Exception {
+        server.addResource("/attributes.bin", content(10, 0));
+        final Path target = tempDir.resolve("attributes.bin");
+        copy(fs.getPath("/attributes.bin"), target, StandardCopyOption.COPY_ATTRIBUTES);
+        Assert.assertEquals(Files.readAllBytes(target), content(10, 0));
+    }
+
+    @Test
+    public void testResumeInterruptedCopy() throws Exception {
+        final int numberOfParts = 6;
+        final byte[] content = content(PART_SIZE * numberOfParts, 3);
+        server.addResource("/resume.bin", content);
+        final Path target = tempDir.resolve("resume.bin");
+
+        // the first request fails after sending a few bytes
+        server.truncateNext("/resume.bin", 1, 10);
+        Assert.assertThrows(IOException.class, () -> copy(fs.getPath("/resume.bin"), target));
+        Assert.assertTrue(Files.exists(progressFile(target)));
+        final List<String> lines = Files.readAllLines(progressFile(target));
+        final int completed = lines.size() - 1;
+        Assert.assertTrue(completed < numberOfParts, lines.toString());
+
+        // only the remaining parts are requested, without REPLACE_EXISTING
+        final int requests = server.getRequestCount("/resume.bin");
+        copy(fs.getPath("/resume.bin"), target);
+        Assert.assertEquals(server.getRequestCount("/resume.bin") - requests,
+                numberOfParts - completed);
+        Assert.assertEquals(Files.readAllBytes(target), content);
+        Assert.assertFalse(Files.exists(progressFile(target)));
+    }
+
+    @Test
+    public void testRestartCopyIfResourceChanged() throws Exception {
+        final int numberOfParts = 3;
+        server.addResource("/changed.bin", content(PART_SIZE * numberOfParts, 4));
+        final Path target = tempDir.resolve("changed.bin");
+        // previous download of another version with all the parts completed except the last
+        Files.write(target, content(PART_SIZE * numberOfParts, 5));
+        Files.write(progressFile(target), String.join("\n",
+                (PART_SIZE * numberOfParts) + "\t" + PART_SIZE + "\t\"old\"", "0", "1", "")
+                .getBytes(StandardCharsets.UTF_8));
+
+        final byte[] content = content(PART_SIZE * numberOfParts, 6);
+        server.addResource("/changed.bin", content);
+        final int requests = server.getRequestCount("/changed.bin");
+        copy(fs.getPath("/changed.bin"), target);
+        Assert.assertEquals(server.getRequestCount("/changed.bin") - requests, numberOfParts);
+        Assert.assertEquals(Files.readAllBytes(target), content);
+        Assert.assertFalse(Files.exists(progressFile(target)));
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void testCopyMissingResource() throws Exception {
+        copy(fs.getPath("/missing.bin"), tempDir.resolve("missing.bin"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCopyToHttpPath() throws Exception {
+        server.addResource("/source.bin", content(10, 0));
+        copy(fs.getPath("/source.bin"), fs.getPath("/target.bin"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCopyUnsupportedOption() throws Exception {
+        server.addResource("/option.bin", content(10, 0));
+        copy(fs.getPath("/option.bin"), tempDir.resolve("option.bin"),
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,149 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.AccessMode;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class PathIndexUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    private static PathIndex createIndex(final String... paths) {
+        final PathIndex index = new PathIndex(TEST_FS, 100);
+        for (final String path : paths) {
+            Assert.assertTrue(index.register(TEST_FS.getPath(path)));
+        }
+        return index;
+    }
+
+    private static Set<String> toStrings(final List<HttpPath> paths) {
+        return paths.stream().map(HttpPath::toString).collect(Collectors.toSet());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new PathIndex(TEST_FS, -1);
+    }
+
+    @Test
+    public void testContains() {
+        final PathIndex index = createIndex("/dir/file.txt", "/dir/sub/file.bam?query=1");
+        Assert.assertEquals(index.size(), 2);
+        Assert.assertTrue(index.contains(TEST_FS.getPath("/dir/file.txt")));
+        // the query is not part of the entry
+        Assert.assertTrue(index.contains(TEST_FS.getPath("/dir/sub/file.bam")));
+        Assert.assertTrue(index.contains(TEST_FS.getPath("/dir/file.txt?other")));
+        // intermediate directories and unknown paths are not registered
+        Assert.assertFalse(index.contains(TEST_FS.getPath("/dir")));
+        Assert.assertFalse(index.contains(TEST_FS.getPath("/dir/other.txt")));
+        Assert.assertFalse(index.contains(
+                (HttpPath) TEST_FS.getPath("/dir/file.txt").getFileName()));
+    }
+
+    @Test
+    public void testRegisterTwice() {
+        final PathIndex index = createIndex("/file.txt?query=1", "/file.txt?query=2");
+        Assert.assertEquals(index.size(), 1);
+        Assert.assertEquals(toStrings(index.getSubtree(TEST_FS.getPath("/file.txt"))),
+                Collections.singleton("http://example.com/file.txt?query=1"));
+    }
+
+    @Test
+    public void testRegisterRelative() {
+        final PathIndex index = createIndex();
+        Assert.assertFalse(index.register(
+                (HttpPath) TEST_FS.getPath("/dir/file.txt").getFileName()));
+        Assert.assertEquals(index.size(), 0);
+    }
+
+    @Test
+    public void testCapacity() {
+        final HttpFileSystem fs = new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+        final PathIndex index = new PathIndex(fs, 2);
+        Assert.assertTrue(index.register(fs.getPath("/file1.txt")));
+        Assert.assertTrue(index.register(fs.getPath("/file2.txt")));
+        Assert.assertFalse(index.isTruncated());
+        Assert.assertFalse(index.register(fs.getPath("/file3.txt")));
+        Assert.assertEquals(index.size(), 2);
+        // the rejected path is signaled
+        Assert.assertTrue(index.isTruncated());
+        Assert.assertEquals(fs.getStatistics().getPathIndexRejectionCount(), 1);
+        // until everything is invalidated
+        index.invalidate(fs.getPath("/"));
+        Assert.assertFalse(index.isTruncated());
+        // a disabled index is not truncated
+        final PathIndex disabled = new PathIndex(fs, 0);
+        Assert.assertFalse(disabled.register(fs.getPath("/file.txt")));
+        Assert.assertFalse(disabled.isTruncated());
+    }
+
+    @Test
+    public void testGetSubtree() {
+        final PathIndex index = createIndex("/", "/dir/file.txt", "/dir/sub/file.bam",
+                "/directory/file.txt", "/dir");
+        Assert.assertEquals(toStrings(index.getSubtree(TEST_FS.getPath("/dir"))),
+                new HashSet<>(Arrays.asList("http://example.com/dir",
+                        "http://example.com/dir/file.txt", "http://example.com/dir/sub/file.bam")));
+        Assert.assertEquals(toStrings(index.getSubtree(TEST_FS.getPath("/dir/sub/"))),
+                Collections.singleton("http://example.com/dir/sub/file.bam"));
+        Assert.assertEquals(index.getSubtree(TEST_FS.getPath("/")).size(), 5);
+        Assert.assertEquals(index.getSubtree(TEST_FS.getPath("/other")), Collections.emptyList());
+    }
+
+    @Test
+    public void testGetChildren() {
+        final PathIndex index = createIndex("/dir/file.txt?query=1", "/dir/sub/file.bam");
+        Assert.assertEquals(toStrings(index.getChildren(TEST_FS.getPath("/dir"))),
+                new HashSet<>(Arrays.asList("http://example.com/dir/file.txt",
+                        "http://example.com/dir/sub")));
+        Assert.assertEquals(toStrings(index.getChildren(TEST_FS.getPath("/"))),
+                Collections.singleton("http://example.com/dir"));
+        Assert.assertEquals(index.getChildren(TEST_FS.getPath("/dir/file.txt")),
+                Collections.emptyList());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final PathIndex index = createIndex("/dir/file.txt", "/dir/sub/file.bam",
+                "/directory/file.txt");
+        Assert.assertEquals(index.invalidate(TEST_FS.getPath("/dir")), 2);
+        Assert.assertEquals(index.size(), 1);
+        Assert.assertFalse(index.contains(TEST_FS.getPath("/dir/file.txt")));
+        Assert.assertTrue(index.contains(TEST_FS.getPath("/directory/file.txt")));
+        Assert.assertEquals(index.invalidate(TEST_FS.getPath("/dir")), 0);
+        // invalidate everything
+        Assert.assertEquals(index.invalidate(TEST_FS.getPath("/")), 1);
+        Assert.assertEquals(index.size(), 0);
+    }
+
+    @Test
+    public void testRegisteredByProvider() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/dir/opened.txt", new byte[10]);
+            server.addResource("/dir/checked.txt", new byte[10]);
+            final HttpFileSystemProvider provider = new HttpFileSystemProvider();
+            // enabled by default
+            provider.newFileSystem(server.getUri("/"), Collections.emptyMap());
+            final HttpPath opened = provider.getPath(server.getUri("/dir/opened.txt"));
+            final HttpPath checked = provider.getPath(server.getUri("/dir/checked.txt"));
+            Files.newByteChannel(opened).close();
+            provider.checkAccess(checked, AccessMode.READ);
+            final PathIndex index = opened.getFileSystem().getPathIndex();
+            Assert.assertTrue(index.contains(opened));
+            Assert.assertTrue(index.contains(checked));
+            Assert.assertEquals(index.getChildren((HttpPath) opened.getParent()).size(), 2);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class PathInternerUnitTest extends BaseTest {
+
+    private static final HttpFileSystem TEST_FS =
+            new HttpFileSystem(new HttpFileSystemProvider(), "example.com");
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new PathInterner(-1, new HttpFileSystemStatistics());
+    }
+
+    @Test
+    public void testParseOnlyOnce() {
+        final HttpFileSystemStatistics stats = new HttpFileSystemStatistics();
+        final PathInterner interner = new PathInterner(10, stats);
+        final AtomicInteger parsed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            interner.intern("/file.txt", p -> {
+                parsed.incrementAndGet();
+                return new HttpPath(TEST_FS, p, null, null);
+            });
+        }
+        Assert.assertEquals(parsed.get(), 1);
+        Assert.assertEquals(stats.getPathInternHitCount(), 4);
+    }
+
+    @Test
+    public void testBounded() {
+        final PathInterner interner = new PathInterner(10, new HttpFileSystemStatistics());
+        for (int i = 0; i < 100; i++) {
+            final HttpPath path = interner.intern("/file" + i, p -> new HttpPath(TEST_FS, p, null, null));
+            Assert.assertEquals(path.toString(), "http://example.com/file" + i);
+            Assert.assertTrue(interner.size() <= 10);
+        }
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        final PathInterner interner = new PathInterner(2, new HttpFileSystemStatistics());
+        final HttpPath hot = interner.intern("/hot", p -> new HttpPath(TEST_FS, p, null, null));
+        for (int i = 0; i < 10; i++) {
+            interner.intern("/file" + i, p -> new HttpPath(TEST_FS, p, null, null));
+            // the hot path is used between insertions, so it is never evicted
+            Assert.assertSame(interner.intern("/hot", p -> new HttpPath(TEST_FS, p, null, null)),
+                    hot);
+        }
+        Assert.assertEquals(interner.size(), 2);
+    }
+
+    @Test
+    public void testDisabled() {
+        final PathInterner interner = new PathInterner(0, new HttpFileSystemStatistics());
+        final HttpPath first = interner.intern("/file", p -> new HttpPath(TEST_FS, p, null, null));
+        final HttpPath second = interner.intern("/file", p -> new HttpPath(TEST_FS, p, null, null));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(interner.size(), 0);
+    }
+}
@@ -0,0 +1,218 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class PublisherAdapterUnitTest extends BaseTest {
+
+    private final byte[] content = new byte[100];
+    private LocalHttpServer server;
+    private HttpFileSystem fs;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        server = new LocalHttpServer();
+        server.addResource("/file.bin", content);
+        fs = new HttpFileSystemProvider().newFileSystem(server.getUri("/"),
+                Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, 16));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        fs.close();
+        server.close();
+    }
+
+    // Reactive Streams interfaces, as declared by org.reactivestreams
+    interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    interface Subscription {
+        void request(long n);
+
+        void cancel();
+    }
+
+    // publisher of strings, which cannot be adapted
+    interface StringPublisher {
+        void subscribe(StringSubscriber subscriber);
+    }
+
+    interface StringSubscriber {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(String item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    // subscriber requesting all the content
+    private static final class RecordingSubscriber implements Subscriber<ByteBuffer> {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Throwable error;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public synchronized void onNext(final ByteBuffer chunk) {
+            while (chunk.hasRemaining()) {
+                received.write(chunk.get());
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            Assert.assertTrue(terminated.await(10, TimeUnit.SECONDS), "not terminated");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Publisher<ByteBuffer> adapt(final String path) {
+        return fs.newContentPublisher(fs.getPath(path), 0, -1).toPublisher(Publisher.class);
+    }
+
+    @Test
+    public void testAdaptedContent() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        adapt("/file.bin").subscribe(subscriber);
+        subscriber.await();
+        Assert.assertNull(subscriber.error);
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(subscriber.received.toByteArray(), content);
+    }
+
+    @Test
+    public void testAdaptedError() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        adapt("/missing.bin").subscribe(subscriber);
+        subscriber.await();
+        Assert.assertTrue(subscriber.error instanceof NoSuchFileException,
+                String.valueOf(subscriber.error));
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testAdaptedToString() {
+        final HttpContentPublisher publisher =
+                fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1);
+        final Publisher<?> adapted = publisher.toPublisher(Publisher.class);
+        Assert.assertEquals(adapted.toString(), publisher.toString());
+        Assert.assertEquals(adapted, adapted);
+        Assert.assertNotEquals(adapted, publisher.toPublisher(Publisher.class));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullSubscriber() {
+        adapt("/file.bin").subscribe(null);
+    }
+
+    @DataProvider
+    public Object[][] invalidTypes() {
+        return new Object[][] {
+                {String.class},
+                {Runnable.class},
+                {Subscriber.class},
+                {StringPublisher.class}
+        };
+    }
+
+    @Test(dataProvider = "invalidTypes", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidType(final Class<?> type) {
+        fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).toPublisher(type);
+    }
+
+    @Test
+    public void testFlowPublisher() throws Exception {
+        final Class<?> publisherType;
+        final Class<?> subscriberType;
+        final Method request;
+        try {
+            publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+            subscriberType = Class.forName("java.util.concurrent.Flow$Subscriber");
+            request = Class.forName("java.util.concurrent.Flow$Subscription")
+                    .getMethod("request", long.class);
+        } catch (final ClassNotFoundException e) {
+            throw new SkipException("Flow requires Java 9 or later");
+        }
+        final Object adapted =
+                fs.newContentPublisher(fs.getPath("/file.bin"), 0, -1).toPublisher(publisherType);
+        Assert.assertTrue(publisherType.isInstance(adapted));
+
+        // Flow.Subscriber delegating to the recording subscriber
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final Object flowSubscriber = Proxy.newProxyInstance(subscriberType.getClassLoader(),
+                new Class<?>[] {subscriberType}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "onSubscribe":
+                            request.invoke(args[0], Long.MAX_VALUE);
+                            break;
+                        case "onNext":
+                            subscriber.onNext((ByteBuffer) args[0]);
+                            break;
+                        case "onError":
+                            subscriber.onError((Throwable) args[0]);
+                            break;
+                        case "onComplete":
+                            subscriber.onComplete();
+                            break;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+        publisherType.getMethod("subscribe", subscriberType).invoke(adapted, flowSubscriber);
+        subscriber.await();
+        Assert.assertNull(subscriber.error);
+        Assert.assertEquals(subscriber.received.toByteArray(), content);
+    }
+}
@@ -0,0 +1,158 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.ClosedFileSystemException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class RangeRequesterUnitTest extends BaseTest {
+
+    private static HttpFileSystem createLocalFileSystem(final LocalHttpServer server,
+            final Map<String, ?> env) {
+        return new HttpFileSystem(new HttpFileSystemProvider(), server.getAuthority(),
+                new HttpFileSystemSettings(env));
+    }
+
+    // performs a request and returns the response code, closing the connection
+    private static int request(final RangeRequester requester, final URL url) throws Exception {
+        final HttpURLConnection connection = requester.open(url, 0, 9, null);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testNoHedgingByDefault() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", new byte[100]);
+            final HttpFileSystem fs = createLocalFileSystem(server, Collections.emptyMap());
+            final RangeRequester requester = new RangeRequester(fs);
+            for (int i = 0; i < 20; i++) {
+                Assert.assertEquals(request(requester, url), HttpURLConnection.HTTP_PARTIAL);
+            }
+            server.delayNext("/file.bin", 1, 200);
+            Assert.assertEquals(request(requester, url), HttpURLConnection.HTTP_PARTIAL);
+            Assert.assertEquals(fs.getStatistics().getHedgedRequestCount(), 0);
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 21);
+        }
+    }
+
+    @Test
+    public void testHedgeSlowRequest() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", new byte[100]);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.HEDGE_PERCENTILE_KEY, 90);
+            env.put(HttpFileSystemSettings.HEDGE_MIN_DELAY_MILLIS_KEY, 50);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            final RangeRequester requester = new RangeRequester(fs);
+            // warm-up the latency tracker
+            for (int i = 0; i < 20; i++) {
+                request(requester, url);
+            }
+            Assert.assertEquals(fs.getStatistics().getHedgedRequestCount(), 0);
+
+            // the next request is really slow, so the hedge should answer first
+            server.delayNext("/file.bin", 1, 5000);
+            final long start = System.nanoTime();
+            Assert.assertEquals(request(requester, url), HttpURLConnection.HTTP_PARTIAL);
+            Assert.assertTrue(System.nanoTime() - start < 4_000_000_000L, "hedge did not answer");
+            Assert.assertEquals(fs.getStatistics().getHedgedRequestCount(), 1);
+            Assert.assertEquals(fs.getStatistics().getHedgeWinCount(), 1);
+        }
+    }
+
+    @Test
+    public void testLosingRequestDisconnected() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", new byte[100]);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.HEDGE_PERCENTILE_KEY, 90);
+            env.put(HttpFileSystemSettings.HEDGE_MIN_DELAY_MILLIS_KEY, 50);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            final RangeRequester requester = new RangeRequester(fs);
+            for (int i = 0; i < 20; i++) {
+                request(requester, url);
+            }
+
+            // the primary request waits for its response until it is disconnected
+            server.delayNext("/file.bin", 1, 10_000);
+            Assert.assertEquals(request(requester, url), HttpURLConnection.HTTP_PARTIAL);
+            Assert.assertEquals(fs.getStatistics().getHedgeWinCount(), 1);
+            final ThreadPoolExecutor pool = (ThreadPoolExecutor) fs.getExecutor();
+            final long deadline = System.currentTimeMillis() + 2000;
+            while (pool.getActiveCount() != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(pool.getActiveCount(), 0, "losing request still waiting");
+            Assert.assertEquals(fs.getOpenResourceCount(), 0);
+        }
+    }
+
+    @Test
+    public void testQueuedRequestFailsOnClose() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", new byte[100]);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.MAX_BACKGROUND_THREADS_KEY, 1);
+            // hedging runs the requests in the background, but the hedges are not needed
+            env.put(HttpFileSystemSettings.HEDGE_PERCENTILE_KEY, 90);
+            env.put(HttpFileSystemSettings.HEDGE_MIN_DELAY_MILLIS_KEY, 60_000);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            final RangeRequester requester = new RangeRequester(fs);
+            for (int i = 0; i < 20; i++) {
+                request(requester, url);
+            }
+            // the first request keeps the only background thread waiting for the response
+            server.delayNext("/file.bin", 1, 5000);
+            final CompletableFuture<Integer> running =
+                    CompletableFuture.supplyAsync(() -> tryRequest(requester, url));
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (server.getRequestCount("/file.bin") < 21
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            final CompletableFuture<Integer> queued =
+                    CompletableFuture.supplyAsync(() -> tryRequest(requester, url));
+            Thread.sleep(100);
+
+            final long start = System.nanoTime();
+            fs.close();
+            Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L, "close blocked");
+            try {
+                queued.get(1, TimeUnit.SECONDS);
+                Assert.fail("queued request did not fail");
+            } catch (final ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ClosedFileSystemException,
+                        String.valueOf(e.getCause()));
+            }
+            running.handle((code, error) -> null).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // performs a request, wrapping the checked exceptions
+    private static int tryRequest(final RangeRequester requester, final URL url) {
+        try {
+            return request(requester, url);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
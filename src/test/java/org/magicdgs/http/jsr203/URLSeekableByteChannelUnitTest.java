@@ -4,15 +4,24 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
 import java.util.stream.Stream;
 
 /**
@@ -199,4 +208,314 @@ public class URLSeekableByteChannelUnitTest extends BaseTest {
         Assert.assertThrows(ClosedChannelException.class,
                 () -> channel.read(ByteBuffer.allocate(1)));
     }
+
+    // creates a File System for the local server with the provided settings
+    private static HttpFileSystem createLocalFileSystem(final LocalHttpServer server,
+            final Map<String, ?> env) {
+        return new HttpFileSystem(new HttpFileSystemProvider(), server.getAuthority(),
+                new HttpFileSystemSettings(env));
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(final SeekableByteChannel channel) throws Exception {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (channel.read(buffer) != -1) {
+            os.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testResumeInterruptedStream() throws Exception {
+        final byte[] content = randomBytes(100_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, 1);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            // the first two requests are truncated
+            server.truncateNext("/file.bin", 2, 1000);
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                Assert.assertEquals(readAll(channel), content);
+                Assert.assertEquals(channel.position(), content.length);
+            }
+            Assert.assertEquals(fs.getStatistics().getResumeCount(), 2);
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 3);
+        }
+    }
+
+    @Test
+    public void testResumeAfterSeek() throws Exception {
+        final byte[] content = randomBytes(10_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, 0));
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                // truncate after seeking backwards
+                channel.position(5000);
+                server.truncateNext("/file.bin", 1, 10);
+                channel.position(100);
+                final byte[] expected = Arrays.copyOfRange(content, 100, content.length);
+                Assert.assertEquals(readAll(channel), expected);
+            }
+            Assert.assertEquals(fs.getStatistics().getResumeCount(), 1);
+        }
+    }
+
+    @DataProvider
+    public Object[][] resumeFailures() {
+        return new Object[][] {
+                // disabled resume
+                {0, 1},
+                // budget exhausted
+                {2, 3}
+        };
+    }
+
+    @Test(dataProvider = "resumeFailures", expectedExceptions = EOFException.class)
+    public void testResumeFailure(final int maxRetries, final int truncations) throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", randomBytes(10_000));
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.RESUME_MAX_RETRIES_KEY, maxRetries);
+            env.put(HttpFileSystemSettings.RESUME_INITIAL_BACKOFF_MILLIS_KEY, "0");
+            // truncate without sending any byte to avoid resetting the attempts
+            server.truncateNext("/file.bin", truncations, 0);
+            try (final URLSeekableByteChannel channel =
+                    new URLSeekableByteChannel(url, createLocalFileSystem(server, env))) {
+                readAll(channel);
+            }
+        }
+    }
+
+    @DataProvider
+    public Object[][] positionalReads() {
+        return new Object[][] {
+                // from the beginning
+                {0, new int[] {100}},
+                // in the middle, with several buffers
+                {100, new int[] {10, 0, 50}},
+                // truncated at the end of the file
+                {9_990, new int[] {5, 100}}
+        };
+    }
+
+    @Test(dataProvider = "positionalReads")
+    public void testPositionalRead(final long position, final int[] bufferSizes) throws Exception {
+        final byte[] content = randomBytes(10_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            // small blocks to read across block boundaries
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url,
+                    createLocalFileSystem(server,
+                            Collections.singletonMap(HttpFileSystemSettings.BLOCK_SIZE_KEY, 32)))) {
+                final ByteBuffer[] buffers = new ByteBuffer[bufferSizes.length];
+                int expectedRead = 0;
+                for (int i = 0; i < bufferSizes.length; i++) {
+                    buffers[i] = ByteBuffer.allocate(bufferSizes[i]);
+                    expectedRead += bufferSizes[i];
+                }
+                expectedRead = (int) Math.min(expectedRead, content.length - position);
+                Assert.assertEquals(channel.read(buffers, position), expectedRead);
+                // check the content of the buffers
+                int offset = (int) position;
+                for (final ByteBuffer buffer : buffers) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        Assert.assertEquals(buffer.get(), content[offset++]);
+                    }
+                }
+                // the position is not modified
+                Assert.assertEquals(channel.position(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPositionalReadAfterEnd() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", randomBytes(100));
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url,
+                    createLocalFileSystem(server, Collections.emptyMap()))) {
+                Assert.assertEquals(channel.read(ByteBuffer.allocate(10), 100), -1);
+                Assert.assertEquals(channel.read(ByteBuffer.allocate(0), 100), 0);
+            }
+        }
+    }
+
+    @DataProvider
+    public Object[][] releaseOnClose() {
+        return new Object[][] {
+                // small remainder is drained
+                {10_000, 100, 64 * 1024, 1, 0},
+                // large remainder is aborted
+                {100_000, 100, 1024, 0, 1},
+                // draining disabled
+                {10_000, 9_999, 0, 0, 1},
+                // fully read stream is always drained
+                {10_000, 10_000, 0, 1, 0}
+        };
+    }
+
+    @Test(dataProvider = "releaseOnClose")
+    public void testReleaseOnClose(final int length, final int bytesToRead, final long threshold,
+            final long expectedDrained, final long expectedAborted) throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", randomBytes(length));
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.DRAIN_THRESHOLD_BYTES_KEY, threshold));
+            final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs);
+            final ByteBuffer buffer = ByteBuffer.allocate(bytesToRead);
+            while (buffer.hasRemaining()) {
+                channel.read(buffer);
+            }
+            channel.close();
+            Assert.assertFalse(channel.isOpen());
+            Assert.assertEquals(fs.getStatistics().getDrainedConnectionCount(), expectedDrained);
+            Assert.assertEquals(fs.getStatistics().getAbortedConnectionCount(), expectedAborted);
+            // closing twice does not release again
+            channel.close();
+            Assert.assertEquals(fs.getStatistics().getDrainedConnectionCount()
+                    + fs.getStatistics().getAbortedConnectionCount(), 1);
+        }
+    }
+
+    @Test
+    public void testSeekWithDrainThreshold() throws Exception {
+        final byte[] content = randomBytes(100_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.DRAIN_THRESHOLD_BYTES_KEY, 10_000));
+            final HttpFileSystemStatistics stats = fs.getStatistics();
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                // forward seek within the threshold skips the bytes
+                channel.position(1_000);
+                Assert.assertEquals(server.getRequestCount("/file.bin"), 1);
+                // forward seek beyond the threshold aborts and reopens
+                channel.position(95_000);
+                Assert.assertEquals(server.getRequestCount("/file.bin"), 2);
+                Assert.assertEquals(stats.getAbortedConnectionCount(), 1);
+                // backward seek with a small remainder drains and reopens
+                channel.position(10);
+                Assert.assertEquals(server.getRequestCount("/file.bin"), 3);
+                Assert.assertEquals(stats.getDrainedConnectionCount(), 1);
+                // backward seek with a large remainder aborts and reopens
+                channel.position(0);
+                Assert.assertEquals(server.getRequestCount("/file.bin"), 4);
+                Assert.assertEquals(stats.getAbortedConnectionCount(), 2);
+                Assert.assertEquals(readAll(channel), content);
+            }
+        }
+    }
+
+    @Test
+    public void testSeekAfterEnd() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", randomBytes(100));
+            final HttpFileSystem fs = createLocalFileSystem(server,
+                    Collections.singletonMap(HttpFileSystemSettings.DRAIN_THRESHOLD_BYTES_KEY, 0));
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                channel.position(200);
+                Assert.assertEquals(channel.read(ByteBuffer.allocate(10)), -1);
+                Assert.assertEquals(channel.position(), 200);
+            }
+        }
+    }
+
+    @DataProvider
+    public Object[][] cachePolicies() {
+        return new Object[][] {
+                // the hot blocks are evicted by the scan
+                {HttpFileSystemSettings.BlockCachePolicy.LRU, 5},
+                // the hot blocks survive the scan
+                {HttpFileSystemSettings.BlockCachePolicy.TINY_LFU, 0}
+        };
+    }
+
+    @Test(dataProvider = "cachePolicies")
+    public void testScanThroughCache(final HttpFileSystemSettings.BlockCachePolicy policy,
+            final int expectedHotRequests) throws Exception {
+        final byte[] content = randomBytes(100_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, 1000);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, 20);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_POLICY_KEY, policy.name().toLowerCase());
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                // frequently re-used blocks
+                for (int i = 0; i < 3; i++) {
+                    for (int block = 0; block < 5; block++) {
+                        channel.read(ByteBuffer.allocate(10), block * 1000 + 500);
+                    }
+                }
+                // large positional scan
+                final ByteBuffer all = ByteBuffer.allocate(content.length);
+                Assert.assertEquals(channel.read(all, 0), content.length);
+                Assert.assertEquals(all.array(), content);
+                final int requests = server.getRequestCount("/file.bin");
+                for (int block = 0; block < 5; block++) {
+                    channel.read(ByteBuffer.allocate(10), block * 1000 + 500);
+                }
+                Assert.assertEquals(server.getRequestCount("/file.bin") - requests,
+                        expectedHotRequests);
+            }
+        }
+    }
+
+    @Test
+    public void testSequentialReadWithCacheUsesStream() throws Exception {
+        final byte[] content = randomBytes(100_000);
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            final URL url = server.addResource("/file.bin", content);
+            final Map<String, Object> env = new HashMap<>();
+            env.put(HttpFileSystemSettings.BLOCK_SIZE_KEY, 1000);
+            env.put(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, 20);
+            final HttpFileSystem fs = createLocalFileSystem(server, env);
+            try (final URLSeekableByteChannel channel = new URLSeekableByteChannel(url, fs)) {
+                Assert.assertEquals(readAll(channel), content);
+            }
+            // a single GET without HEAD, and the cache is not used
+            Assert.assertEquals(server.getRequestCount("/file.bin"), 1);
+            Assert.assertEquals(server.getHeadRequestCount(), 0);
+            Assert.assertEquals(fs.getBlockFetcher().getCache().size(), 0);
+        }
+    }
+
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void testNonExistentUrlThroughCache() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            new URLSeekableByteChannel(server.getUrl("/not_existent.bin"),
+                    createLocalFileSystem(server,
+                            Collections.singletonMap(HttpFileSystemSettings.BLOCK_CACHE_CAPACITY_KEY, 1)));
+        }
+    }
+
+    @Test
+    public void testUrlConstructorUsesInstalledFileSystem() throws Exception {
+        try (final LocalHttpServer server = new LocalHttpServer()) {
+            server.addResource("/file.bin", randomBytes(100));
+            final URLSeekableByteChannel first =
+                    new URLSeekableByteChannel(server.getUrl("/file.bin"));
+            final URLSeekableByteChannel second =
+                    new URLSeekableByteChannel(server.getUrl("/file.bin"));
+            // both channels are registered in the File System of the installed provider
+            final FileSystem fs = FileSystems.getFileSystem(server.getUri("/"));
+            Assert.assertTrue(first.isOpen());
+            Assert.assertTrue(second.isOpen());
+            fs.close();
+            Assert.assertFalse(first.isOpen());
+            Assert.assertFalse(second.isOpen());
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package org.magicdgs.http.jsr203;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author Daniel Gomez-Sanchez (magicDGS)
+ */
+public class VirtualThreadsUnitTest extends BaseTest {
+
+    // major version of the running JVM (1.8 is 8)
+    private static int getJavaMajorVersion() {
+        final String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    // calls Thread.isVirtual() if present
+    static boolean isVirtual(final Thread thread) throws Exception {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testIsSupported() {
+        Assert.assertEquals(VirtualThreads.isSupported(), getJavaMajorVersion() >= 21);
+    }
+
+    @Test
+    public void testNewThreadFactory() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            Assert.assertThrows(UnsupportedOperationException.class,
+                    () -> VirtualThreads.newThreadFactory("test-"));
+            return;
+        }
+        final ThreadFactory factory = VirtualThreads.newThreadFactory("test-");
+        final Thread first = factory.newThread(() -> { });
+        final Thread second = factory.newThread(() -> { });
+        Assert.assertTrue(isVirtual(first));
+        Assert.assertTrue(first.isDaemon());
+        Assert.assertEquals(first.getName(), "test-1");
+        Assert.assertEquals(second.getName(), "test-2");
+    }
+
+    @Test
+    public void testNewThreadPerTaskExecutor() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            Assert.assertThrows(UnsupportedOperationException.class,
+                    () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+            return;
+        }
+        final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            final Thread first = executor.submit(Thread::currentThread).get();
+            final Thread second = executor.submit(Thread::currentThread).get();
+            Assert.assertTrue(isVirtual(first));
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(first.getName(), "test-1");
+            Assert.assertEquals(second.getName(), "test-2");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}